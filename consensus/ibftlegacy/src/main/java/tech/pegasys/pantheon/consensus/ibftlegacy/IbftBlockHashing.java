@@ -22,7 +22,6 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.List;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class IbftBlockHashing {
 
@@ -107,11 +106,7 @@ public class IbftBlockHashing {
     final Hash committerHash =
         IbftBlockHashing.calculateDataHashForCommittedSeal(header, ibftExtraData);
 
-    return ibftExtraData
-        .getSeals()
-        .stream()
-        .map(p -> Util.signatureToAddress(p, committerHash))
-        .collect(Collectors.toList());
+    return Util.signaturesToAddresses(ibftExtraData.getSeals(), committerHash);
   }
 
   private static BytesValue encodeExtraDataWithoutCommittedSeals(
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares {@link Keccak256Digest} with the BouncyCastle digest it replaced in {@link Hash}. */
+@State(Scope.Thread)
+public class Keccak256Benchmark {
+
+  @Param({
+    "20", // Address
+    "32", // Storage key
+    "136", // One full block
+    "532", // Branch trie node
+    "4096"
+  })
+  public int inputSize;
+
+  private BytesValue input;
+  private final MutableBytes32 result = MutableBytes32.create();
+
+  @Setup
+  public void prepare() {
+    final byte[] bytes = new byte[inputSize];
+    new Random(1).nextBytes(bytes);
+    input = BytesValue.wrap(bytes);
+  }
+
+  @Benchmark
+  public Bytes32 bouncyCastle() throws Exception {
+    final MessageDigest digest = BouncyCastleMessageDigestFactory.create(Hash.KECCAK256_ALG);
+    input.update(digest);
+    return Bytes32.wrap(digest.digest());
+  }
+
+  @Benchmark
+  public Bytes32 keccak256() {
+    return Hash.keccak256(input);
+  }
+
+  @Benchmark
+  public MutableBytes32 keccak256IntoResult() {
+    Hash.keccak256(input, result);
+    return result;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares {@link Secp256k1Recovery} with the BouncyCastle based recovery it replaced. */
+@State(Scope.Thread)
+public class Secp256k1RecoveryBenchmark {
+
+  private Bytes32 dataHash;
+  private SECP256K1.Signature signature;
+
+  @Setup
+  public void prepare() {
+    final Random random = new Random(1);
+    final byte[] hash = new byte[32];
+    random.nextBytes(hash);
+    dataHash = Bytes32.wrap(hash);
+    signature = SECP256K1.sign(dataHash, SECP256K1.KeyPair.generate());
+  }
+
+  @Benchmark
+  public BigInteger bouncyCastle() {
+    return SECP256K1.recoverFromSignature(
+        signature.getRecId(), signature.getR(), signature.getS(), dataHash);
+  }
+
+  @Benchmark
+  public BytesValue optimized() {
+    return Secp256k1Recovery.forCurrentThread()
+        .recover(dataHash, signature.getR(), signature.getS(), signature.getRecId());
+  }
+}
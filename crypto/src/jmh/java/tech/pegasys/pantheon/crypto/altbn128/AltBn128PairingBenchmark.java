@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link AltBn128Pairing} with the reference {@link AltBn128Fq12Pairer} on pairing checks
+ * shaped like the EIP-197 ones, whose product is one.
+ */
+@State(Scope.Thread)
+public class AltBn128PairingBenchmark {
+
+  @Param({"2", "4"})
+  public int pairs;
+
+  private final List<AltBn128Point> g1Points = new ArrayList<>();
+  private final List<AltBn128Fq2Point> g2Points = new ArrayList<>();
+
+  @Setup
+  public void prepare() {
+    final Random random = new Random(1);
+    for (int i = 0; i < pairs; i += 2) {
+      final BigInteger a = new BigInteger(128, random);
+      final BigInteger b = new BigInteger(128, random);
+      g1Points.add(AltBn128Point.g1().multiply(a));
+      g2Points.add(AltBn128Fq2Point.g2().multiply(b));
+      g1Points.add(AltBn128Point.g1().multiply(a.multiply(b)).negate());
+      g2Points.add(AltBn128Fq2Point.g2());
+    }
+  }
+
+  @Benchmark
+  public boolean reference() {
+    Fq12 product = Fq12.one();
+    for (int i = 0; i < g1Points.size(); i++) {
+      product = product.multiply(AltBn128Fq12Pairer.pair(g1Points.get(i), g2Points.get(i)));
+    }
+    return AltBn128Fq12Pairer.finalize(product).equals(Fq12.one());
+  }
+
+  @Benchmark
+  public boolean montgomery() {
+    return AltBn128Pairing.isProductOne(g1Points, g2Points);
+  }
+}
@@ -14,6 +14,7 @@ package tech.pegasys.pantheon.crypto;
 
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -34,6 +35,9 @@ public abstract class Hash {
   private static final String SHA256_ALG = "SHA-256";
   private static final String RIPEMD160 = "RIPEMD160";
 
+  private static final ThreadLocal<Keccak256Digest> KECCAK256_DIGEST =
+      ThreadLocal.withInitial(Keccak256Digest::new);
+
   /**
    * Helper method to generate a digest using the provided algorithm.
    *
@@ -87,7 +91,45 @@ public abstract class Hash {
    * @return A digest.
    */
   public static Bytes32 keccak256(final BytesValue input) {
-    return Bytes32.wrap(digestUsingAlgorithm(input, KECCAK256_ALG));
+    final Keccak256Digest digest = keccak256Digest();
+    input.update(digest);
+    return Bytes32.wrap(digest.digest());
+  }
+
+  /**
+   * Digest using keccak-256, writing the result to the provided value rather than allocating a new
+   * one.
+   *
+   * @param input The input bytes to produce the digest for.
+   * @param result The value the digest is written to.
+   */
+  public static void keccak256(final BytesValue input, final MutableBytes32 result) {
+    final Keccak256Digest digest = keccak256Digest();
+    input.update(digest);
+    digest.digest(result);
+  }
+
+  /**
+   * Digest a range of a byte array using keccak-256, writing the result to the provided value
+   * rather than allocating a new one.
+   *
+   * @param input The array holding the bytes to produce the digest for.
+   * @param offset The offset in {@code input} of the first byte to digest.
+   * @param length The number of bytes to digest.
+   * @param result The value the digest is written to.
+   */
+  public static void keccak256(
+      final byte[] input, final int offset, final int length, final MutableBytes32 result) {
+    final Keccak256Digest digest = keccak256Digest();
+    digest.update(input, offset, length);
+    digest.digest(result);
+  }
+
+  private static Keccak256Digest keccak256Digest() {
+    final Keccak256Digest digest = KECCAK256_DIGEST.get();
+    // The digest resets itself once complete, but not if an update was interrupted by an exception.
+    digest.reset();
+    return digest;
   }
 
   /**
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * A Keccak-256 {@link MessageDigest} specialised for the 136 byte rate and 32 byte output used
+ * throughout Ethereum.
+ *
+ * <p>Unlike the generic sponge behind {@link BouncyCastleMessageDigestFactory}, the state is kept
+ * in primitive fields and the permutation is fully unrolled, so hashing allocates nothing once the
+ * digest has been created. Instances are not thread-safe, but are cheap to reset and meant to be
+ * reused, as {@link Hash} does with one instance per thread.
+ */
+public final class Keccak256Digest extends MessageDigest {
+
+  public static final int DIGEST_LENGTH = 32;
+
+  private static final int RATE = 136;
+  private static final int RATE_LANES = RATE / Long.BYTES;
+
+  private static final long[] ROUND_CONSTANTS = {
+    0x0000000000000001L, 0x0000000000008082L, 0x800000000000808aL, 0x8000000080008000L,
+    0x000000000000808bL, 0x0000000080000001L, 0x8000000080008081L, 0x8000000000008009L,
+    0x000000000000008aL, 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000aL,
+    0x000000008000808bL, 0x800000000000008bL, 0x8000000000008089L, 0x8000000000008003L,
+    0x8000000000008002L, 0x8000000000000080L, 0x000000000000800aL, 0x800000008000000aL,
+    0x8000000080008081L, 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L
+  };
+
+  private final long[] state = new long[25];
+  private final byte[] block = new byte[RATE];
+  private int blockLength;
+
+  public Keccak256Digest() {
+    super(Hash.KECCAK256_ALG);
+  }
+
+  @Override
+  protected int engineGetDigestLength() {
+    return DIGEST_LENGTH;
+  }
+
+  @Override
+  protected void engineUpdate(final byte input) {
+    block[blockLength++] = input;
+    if (blockLength == RATE) {
+      absorb(block, 0);
+      blockLength = 0;
+    }
+  }
+
+  @Override
+  protected void engineUpdate(final byte[] input, final int offset, final int length) {
+    int position = offset;
+    int remaining = length;
+    if (blockLength > 0) {
+      final int copied = Math.min(remaining, RATE - blockLength);
+      System.arraycopy(input, position, block, blockLength, copied);
+      blockLength += copied;
+      position += copied;
+      remaining -= copied;
+      if (blockLength < RATE) {
+        return;
+      }
+      absorb(block, 0);
+      blockLength = 0;
+    }
+    while (remaining >= RATE) {
+      absorb(input, position);
+      position += RATE;
+      remaining -= RATE;
+    }
+    System.arraycopy(input, position, block, 0, remaining);
+    blockLength = remaining;
+  }
+
+  @Override
+  protected byte[] engineDigest() {
+    final byte[] digest = new byte[DIGEST_LENGTH];
+    engineDigest(digest, 0, DIGEST_LENGTH);
+    return digest;
+  }
+
+  @Override
+  protected int engineDigest(final byte[] output, final int offset, final int length) {
+    checkArgument(length >= DIGEST_LENGTH, "Output must have room for %s bytes", DIGEST_LENGTH);
+    pad();
+    for (int i = 0; i < DIGEST_LENGTH; i++) {
+      output[offset + i] = outputByte(i);
+    }
+    engineReset();
+    return DIGEST_LENGTH;
+  }
+
+  /**
+   * Completes the hash computation, writing the digest to the provided value, and resets the
+   * digest.
+   *
+   * @param output the value the digest is written to
+   */
+  public void digest(final MutableBytes32 output) {
+    pad();
+    for (int i = 0; i < DIGEST_LENGTH; i++) {
+      output.set(i, outputByte(i));
+    }
+    engineReset();
+  }
+
+  @Override
+  protected void engineReset() {
+    Arrays.fill(state, 0L);
+    blockLength = 0;
+  }
+
+  private void pad() {
+    Arrays.fill(block, blockLength, RATE, (byte) 0);
+    block[blockLength] ^= 0x01;
+    block[RATE - 1] ^= (byte) 0x80;
+    absorb(block, 0);
+  }
+
+  private byte outputByte(final int index) {
+    return (byte) (state[index >>> 3] >>> ((index & 7) << 3));
+  }
+
+  private void absorb(final byte[] input, final int offset) {
+    for (int lane = 0; lane < RATE_LANES; lane++) {
+      state[lane] ^= littleEndianLong(input, offset + lane * Long.BYTES);
+    }
+    permute(state);
+  }
+
+  private static long littleEndianLong(final byte[] input, final int offset) {
+    return (input[offset] & 0xFFL)
+        | (input[offset + 1] & 0xFFL) << 8
+        | (input[offset + 2] & 0xFFL) << 16
+        | (input[offset + 3] & 0xFFL) << 24
+        | (input[offset + 4] & 0xFFL) << 32
+        | (input[offset + 5] & 0xFFL) << 40
+        | (input[offset + 6] & 0xFFL) << 48
+        | (input[offset + 7] & 0xFFL) << 56;
+  }
+
+  /** The Keccak-f[1600] permutation, with lane (x, y) of the state held in {@code a[x + 5y]}. */
+  private static void permute(final long[] a) {
+    long a00 = a[0], a01 = a[1], a02 = a[2], a03 = a[3], a04 = a[4];
+    long a05 = a[5], a06 = a[6], a07 = a[7], a08 = a[8], a09 = a[9];
+    long a10 = a[10], a11 = a[11], a12 = a[12], a13 = a[13], a14 = a[14];
+    long a15 = a[15], a16 = a[16], a17 = a[17], a18 = a[18], a19 = a[19];
+    long a20 = a[20], a21 = a[21], a22 = a[22], a23 = a[23], a24 = a[24];
+
+    for (int round = 0; round < ROUND_CONSTANTS.length; round++) {
+      // Theta
+      long c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+      long c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+      final long c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+      final long c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+      final long c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+
+      final long d0 = Long.rotateLeft(c1, 1) ^ c4;
+      final long d1 = Long.rotateLeft(c2, 1) ^ c0;
+      final long d2 = Long.rotateLeft(c3, 1) ^ c1;
+      final long d3 = Long.rotateLeft(c4, 1) ^ c2;
+      final long d4 = Long.rotateLeft(c0, 1) ^ c3;
+
+      a00 ^= d0;
+      a05 ^= d0;
+      a10 ^= d0;
+      a15 ^= d0;
+      a20 ^= d0;
+      a01 ^= d1;
+      a06 ^= d1;
+      a11 ^= d1;
+      a16 ^= d1;
+      a21 ^= d1;
+      a02 ^= d2;
+      a07 ^= d2;
+      a12 ^= d2;
+      a17 ^= d2;
+      a22 ^= d2;
+      a03 ^= d3;
+      a08 ^= d3;
+      a13 ^= d3;
+      a18 ^= d3;
+      a23 ^= d3;
+      a04 ^= d4;
+      a09 ^= d4;
+      a14 ^= d4;
+      a19 ^= d4;
+      a24 ^= d4;
+
+      // Rho and pi
+      c1 = Long.rotateLeft(a01, 1);
+      a01 = Long.rotateLeft(a06, 44);
+      a06 = Long.rotateLeft(a09, 20);
+      a09 = Long.rotateLeft(a22, 61);
+      a22 = Long.rotateLeft(a14, 39);
+      a14 = Long.rotateLeft(a20, 18);
+      a20 = Long.rotateLeft(a02, 62);
+      a02 = Long.rotateLeft(a12, 43);
+      a12 = Long.rotateLeft(a13, 25);
+      a13 = Long.rotateLeft(a19, 8);
+      a19 = Long.rotateLeft(a23, 56);
+      a23 = Long.rotateLeft(a15, 41);
+      a15 = Long.rotateLeft(a04, 27);
+      a04 = Long.rotateLeft(a24, 14);
+      a24 = Long.rotateLeft(a21, 2);
+      a21 = Long.rotateLeft(a08, 55);
+      a08 = Long.rotateLeft(a16, 45);
+      a16 = Long.rotateLeft(a05, 36);
+      a05 = Long.rotateLeft(a03, 28);
+      a03 = Long.rotateLeft(a18, 21);
+      a18 = Long.rotateLeft(a17, 15);
+      a17 = Long.rotateLeft(a11, 10);
+      a11 = Long.rotateLeft(a07, 6);
+      a07 = Long.rotateLeft(a10, 3);
+      a10 = c1;
+
+      // Chi
+      c0 = a00 ^ (~a01 & a02);
+      c1 = a01 ^ (~a02 & a03);
+      a02 ^= ~a03 & a04;
+      a03 ^= ~a04 & a00;
+      a04 ^= ~a00 & a01;
+      a00 = c0;
+      a01 = c1;
+
+      c0 = a05 ^ (~a06 & a07);
+      c1 = a06 ^ (~a07 & a08);
+      a07 ^= ~a08 & a09;
+      a08 ^= ~a09 & a05;
+      a09 ^= ~a05 & a06;
+      a05 = c0;
+      a06 = c1;
+
+      c0 = a10 ^ (~a11 & a12);
+      c1 = a11 ^ (~a12 & a13);
+      a12 ^= ~a13 & a14;
+      a13 ^= ~a14 & a10;
+      a14 ^= ~a10 & a11;
+      a10 = c0;
+      a11 = c1;
+
+      c0 = a15 ^ (~a16 & a17);
+      c1 = a16 ^ (~a17 & a18);
+      a17 ^= ~a18 & a19;
+      a18 ^= ~a19 & a15;
+      a19 ^= ~a15 & a16;
+      a15 = c0;
+      a16 = c1;
+
+      c0 = a20 ^ (~a21 & a22);
+      c1 = a21 ^ (~a22 & a23);
+      a22 ^= ~a23 & a24;
+      a23 ^= ~a24 & a20;
+      a24 ^= ~a20 & a21;
+      a20 = c0;
+      a21 = c1;
+
+      // Iota
+      a00 ^= ROUND_CONSTANTS[round];
+    }
+
+    a[0] = a00;
+    a[1] = a01;
+    a[2] = a02;
+    a[3] = a03;
+    a[4] = a04;
+    a[5] = a05;
+    a[6] = a06;
+    a[7] = a07;
+    a[8] = a08;
+    a[9] = a09;
+    a[10] = a10;
+    a[11] = a11;
+    a[12] = a12;
+    a[13] = a13;
+    a[14] = a14;
+    a[15] = a15;
+    a[16] = a16;
+    a[17] = a17;
+    a[18] = a18;
+    a[19] = a19;
+    a[20] = a20;
+    a[21] = a21;
+    a[22] = a22;
+    a[23] = a23;
+    a[24] = a24;
+  }
+}
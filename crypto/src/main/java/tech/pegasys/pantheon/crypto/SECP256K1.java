@@ -35,7 +35,9 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyPairGenerator;
 import java.security.Security;
 import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.UnaryOperator;
@@ -79,6 +81,8 @@ public class SECP256K1 {
   private static final KeyPairGenerator KEY_PAIR_GENERATOR;
   private static final BigInteger CURVE_ORDER;
 
+  private static volatile boolean optimizedRecoveryEnabled = true;
+
   static {
     Security.addProvider(new BouncyCastleProvider());
 
@@ -99,6 +103,41 @@ public class SECP256K1 {
     }
   }
 
+  /**
+   * Selects how public keys are recovered from signatures: with the dedicated secp256k1
+   * implementation (the default), or with the generic BouncyCastle elliptic curve arithmetic.
+   *
+   * @param enabled true to use the dedicated implementation
+   */
+  public static void setOptimizedRecoveryEnabled(final boolean enabled) {
+    optimizedRecoveryEnabled = enabled;
+  }
+
+  /**
+   * Recovers the public keys that produced a batch of signatures, spreading the work across all
+   * available processors.
+   *
+   * @param dataHashes the hashes of the signed data
+   * @param signatures the signatures of the data hashes at the same index
+   * @return the public key recovered from each signature, in the same order, or empty for the
+   *     signatures no public key can be recovered from
+   * @throws IllegalArgumentException if the r value of a signature and its recovery id do not
+   *     identify a point on the curve, as for {@link PublicKey#recoverFromSignature(Bytes32,
+   *     Signature)}
+   */
+  public static List<Optional<PublicKey>> recoverAll(
+      final List<Bytes32> dataHashes, final List<Signature> signatures) {
+    checkArgument(
+        dataHashes.size() == signatures.size(),
+        "Expected one data hash per signature, got %s hashes for %s signatures",
+        dataHashes.size(),
+        signatures.size());
+    final List<Optional<PublicKey>> results =
+        new ArrayList<>(Collections.nCopies(signatures.size(), Optional.empty()));
+    SignatureRecoveryPool.recoverAll(dataHashes, signatures, results);
+    return results;
+  }
+
   /** Decompress a compressed public key (x co-ord and low-bit of y-coord). */
   private static ECPoint decompressKey(final BigInteger xBN, final boolean yBit) {
     final X9IntegerConverter x9 = new X9IntegerConverter();
@@ -125,7 +164,7 @@ public class SECP256K1 {
    * @param dataHash Hash of the data that was signed.
    * @return An ECKey containing only the public part, or null if recovery wasn't possible.
    */
-  private static BigInteger recoverFromSignature(
+  static BigInteger recoverFromSignature(
       final int recId, final BigInteger r, final BigInteger s, final Bytes32 dataHash) {
     assert (recId >= 0);
     assert (r.signum() >= 0);
@@ -444,6 +483,12 @@ public class SECP256K1 {
 
     public static Optional<PublicKey> recoverFromSignature(
         final Bytes32 dataHash, final Signature signature) {
+      if (optimizedRecoveryEnabled) {
+        final BytesValue encoded =
+            Secp256k1Recovery.forCurrentThread()
+                .recover(dataHash, signature.getR(), signature.getS(), signature.getRecId());
+        return Optional.ofNullable(encoded).map(PublicKey::create);
+      }
       final BigInteger publicKeyBI =
           SECP256K1.recoverFromSignature(
               signature.getRecId(), signature.getR(), signature.getS(), dataHash);
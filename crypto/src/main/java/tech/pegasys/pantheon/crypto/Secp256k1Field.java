@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import java.util.Arrays;
+
+/**
+ * Arithmetic modulo the secp256k1 field prime {@code p = 2^256 - 2^32 - 977}.
+ *
+ * <p>Field elements are {@code int[8]} holding the value in 32-bit limbs, least significant limb
+ * first, always fully reduced. Results are written to an output array that may alias the inputs.
+ * Multiplication reduces the 512-bit product using {@code 2^256 = 2^32 + 977 (mod p)} rather than a
+ * generic modular reduction. Instances hold the scratch space multiplication and exponentiation
+ * need, so they are not thread-safe.
+ */
+final class Secp256k1Field {
+
+  static final int LIMBS = 8;
+
+  private static final long M = 0xFFFFFFFFL;
+  private static final long P0 = 0xFFFFFC2FL;
+  private static final long P1 = 0xFFFFFFFEL;
+  private static final int[] P = {0xFFFFFC2F, 0xFFFFFFFE, -1, -1, -1, -1, -1, -1};
+
+  private final int[] wide = new int[2 * LIMBS];
+  private final int[] x2 = create();
+  private final int[] x3 = create();
+  private final int[] x6 = create();
+  private final int[] x9 = create();
+  private final int[] x11 = create();
+  private final int[] x22 = create();
+  private final int[] x44 = create();
+  private final int[] x88 = create();
+  private final int[] x176 = create();
+  private final int[] x220 = create();
+  private final int[] x223 = create();
+  private final int[] t1 = create();
+
+  static int[] create() {
+    return new int[LIMBS];
+  }
+
+  static int[] of(final int value) {
+    final int[] r = create();
+    r[0] = value;
+    return r;
+  }
+
+  /** Reads a big-endian 32 byte value, returning false if it is not smaller than p. */
+  static boolean fromBytes(final int[] r, final byte[] bytes, final int offset) {
+    for (int i = 0; i < LIMBS; i++) {
+      final int o = offset + (LIMBS - 1 - i) * 4;
+      r[i] =
+          (bytes[o] & 0xFF) << 24
+              | (bytes[o + 1] & 0xFF) << 16
+              | (bytes[o + 2] & 0xFF) << 8
+              | (bytes[o + 3] & 0xFF);
+    }
+    return !isAtLeastP(r);
+  }
+
+  /** Writes the element as a big-endian 32 byte value. */
+  static void toBytes(final int[] a, final byte[] bytes, final int offset) {
+    for (int i = 0; i < LIMBS; i++) {
+      final int o = offset + (LIMBS - 1 - i) * 4;
+      bytes[o] = (byte) (a[i] >>> 24);
+      bytes[o + 1] = (byte) (a[i] >>> 16);
+      bytes[o + 2] = (byte) (a[i] >>> 8);
+      bytes[o + 3] = (byte) a[i];
+    }
+  }
+
+  static void copy(final int[] r, final int[] a) {
+    System.arraycopy(a, 0, r, 0, LIMBS);
+  }
+
+  static void setZero(final int[] r) {
+    Arrays.fill(r, 0);
+  }
+
+  static boolean isZero(final int[] a) {
+    int bits = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      bits |= a[i];
+    }
+    return bits == 0;
+  }
+
+  static boolean isOdd(final int[] a) {
+    return (a[0] & 1) != 0;
+  }
+
+  static boolean equal(final int[] a, final int[] b) {
+    return Arrays.equals(a, b);
+  }
+
+  static void add(final int[] r, final int[] a, final int[] b) {
+    long c = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      c += (a[i] & M) + (b[i] & M);
+      r[i] = (int) c;
+      c >>>= 32;
+    }
+    reduce(r, c);
+  }
+
+  static void sub(final int[] r, final int[] a, final int[] b) {
+    long c = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      c += (a[i] & M) - (b[i] & M);
+      r[i] = (int) c;
+      c >>= 32;
+    }
+    if (c != 0) {
+      // The difference is negative: add p back, discarding the carry out of the top limb.
+      c = 0;
+      for (int i = 0; i < LIMBS; i++) {
+        c += (r[i] & M) + (P[i] & M);
+        r[i] = (int) c;
+        c >>>= 32;
+      }
+    }
+  }
+
+  static void negate(final int[] r, final int[] a) {
+    if (isZero(a)) {
+      setZero(r);
+    } else {
+      sub(r, P, a);
+    }
+  }
+
+  /** Multiplies by a small non-negative integer. */
+  static void mulSmall(final int[] r, final int[] a, final int factor) {
+    long c = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      c += (a[i] & M) * factor;
+      r[i] = (int) c;
+      c >>>= 32;
+    }
+    reduce(r, c);
+  }
+
+  void mul(final int[] r, final int[] a, final int[] b) {
+    final int[] t = wide;
+    long c = 0;
+    final long a0 = a[0] & M;
+    for (int j = 0; j < LIMBS; j++) {
+      c += a0 * (b[j] & M);
+      t[j] = (int) c;
+      c >>>= 32;
+    }
+    t[LIMBS] = (int) c;
+    for (int i = 1; i < LIMBS; i++) {
+      final long ai = a[i] & M;
+      c = 0;
+      for (int j = 0; j < LIMBS; j++) {
+        c += ai * (b[j] & M) + (t[i + j] & M);
+        t[i + j] = (int) c;
+        c >>>= 32;
+      }
+      t[i + LIMBS] = (int) c;
+    }
+    reduceWide(r, t);
+  }
+
+  void sqr(final int[] r, final int[] a) {
+    final int[] t = wide;
+    Arrays.fill(t, 0);
+    // Cross products a[i] * a[j] with i < j, which appear twice in the square.
+    for (int i = 0; i < LIMBS - 1; i++) {
+      final long ai = a[i] & M;
+      long c = 0;
+      for (int j = i + 1; j < LIMBS; j++) {
+        c += ai * (a[j] & M) + (t[i + j] & M);
+        t[i + j] = (int) c;
+        c >>>= 32;
+      }
+      t[i + LIMBS] = (int) c;
+    }
+    for (int i = 2 * LIMBS - 1; i > 0; i--) {
+      t[i] = t[i] << 1 | t[i - 1] >>> 31;
+    }
+    t[0] <<= 1;
+    // Squares a[i] * a[i].
+    long c = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      final long ai = a[i] & M;
+      final long square = ai * ai;
+      c += (t[2 * i] & M) + (square & M);
+      t[2 * i] = (int) c;
+      c >>>= 32;
+      c += (t[2 * i + 1] & M) + (square >>> 32);
+      t[2 * i + 1] = (int) c;
+      c >>>= 32;
+    }
+    reduceWide(r, t);
+  }
+
+  /** Computes {@code a^(p-2)}, the multiplicative inverse of a non-zero {@code a}. */
+  void invert(final int[] r, final int[] a) {
+    powerBlocks(a);
+    // p - 2 is 223 ones, a zero, 22 ones, 4 zeros, a one, a zero, two ones, a zero and a one.
+    sqrN(t1, x223, 23);
+    mul(t1, t1, x22);
+    sqrN(t1, t1, 5);
+    mul(t1, t1, a);
+    sqrN(t1, t1, 3);
+    mul(t1, t1, x2);
+    sqrN(t1, t1, 2);
+    mul(r, t1, a);
+  }
+
+  /**
+   * Computes a square root of {@code a} as {@code a^((p+1)/4)}.
+   *
+   * @return false if {@code a} has no square root, in which case the content of {@code r} is
+   *     undefined
+   */
+  boolean sqrt(final int[] r, final int[] a) {
+    powerBlocks(a);
+    // (p + 1) / 4 is 223 ones, a zero, 22 ones, 4 zeros, two ones and two zeros.
+    sqrN(t1, x223, 23);
+    mul(t1, t1, x22);
+    sqrN(t1, t1, 6);
+    mul(t1, t1, x2);
+    sqrN(r, t1, 2);
+    sqr(t1, r);
+    return equal(t1, a);
+  }
+
+  /** Computes {@code a^(2^n - 1)} for the run lengths of ones in the exponents above. */
+  private void powerBlocks(final int[] a) {
+    sqr(x2, a);
+    mul(x2, x2, a);
+    sqr(x3, x2);
+    mul(x3, x3, a);
+    sqrN(x6, x3, 3);
+    mul(x6, x6, x3);
+    sqrN(x9, x6, 3);
+    mul(x9, x9, x3);
+    sqrN(x11, x9, 2);
+    mul(x11, x11, x2);
+    sqrN(x22, x11, 11);
+    mul(x22, x22, x11);
+    sqrN(x44, x22, 22);
+    mul(x44, x44, x22);
+    sqrN(x88, x44, 44);
+    mul(x88, x88, x44);
+    sqrN(x176, x88, 88);
+    mul(x176, x176, x88);
+    sqrN(x220, x176, 44);
+    mul(x220, x220, x44);
+    sqrN(x223, x220, 3);
+    mul(x223, x223, x3);
+  }
+
+  private void sqrN(final int[] r, final int[] a, final int n) {
+    sqr(r, a);
+    for (int i = 1; i < n; i++) {
+      sqr(r, r);
+    }
+  }
+
+  /** Reduces the 512-bit value {@code t} into {@code r}, using {@code 2^256 = 2^32 + 977}. */
+  private static void reduceWide(final int[] r, final int[] t) {
+    long c = (t[0] & M) + (t[LIMBS] & M) * 977;
+    r[0] = (int) c;
+    c >>>= 32;
+    for (int i = 1; i < LIMBS; i++) {
+      c += (t[i] & M) + (t[LIMBS + i] & M) * 977 + (t[LIMBS + i - 1] & M);
+      r[i] = (int) c;
+      c >>>= 32;
+    }
+    reduce(r, c + (t[2 * LIMBS - 1] & M));
+  }
+
+  /** Reduces {@code r + carry * 2^256} into {@code r}. */
+  private static void reduce(final int[] r, final long carry) {
+    long overflow = carry;
+    while (overflow != 0) {
+      long c = (r[0] & M) + overflow * 977;
+      r[0] = (int) c;
+      c >>>= 32;
+      c += (r[1] & M) + overflow;
+      r[1] = (int) c;
+      c >>>= 32;
+      for (int i = 2; i < LIMBS && c != 0; i++) {
+        c += r[i] & M;
+        r[i] = (int) c;
+        c >>>= 32;
+      }
+      overflow = c;
+    }
+    if (isAtLeastP(r)) {
+      // Subtracting p is adding 2^32 + 977 and discarding the carry out of the top limb.
+      long c = (r[0] & M) + 977;
+      r[0] = (int) c;
+      c >>>= 32;
+      c += (r[1] & M) + 1;
+      r[1] = (int) c;
+      c >>>= 32;
+      for (int i = 2; i < LIMBS; i++) {
+        c += r[i] & M;
+        r[i] = (int) c;
+        c >>>= 32;
+      }
+    }
+  }
+
+  private static boolean isAtLeastP(final int[] a) {
+    for (int i = LIMBS - 1; i > 1; i--) {
+      if (a[i] != -1) {
+        return false;
+      }
+    }
+    final long a1 = a[1] & M;
+    return a1 != P1 ? a1 > P1 : (a[0] & M) >= P0;
+  }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static tech.pegasys.pantheon.util.bytes.BytesValues.asUnsignedBigInteger;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Recovers secp256k1 public keys from signatures, as {@link SECP256K1} otherwise does with the
+ * generic BouncyCastle point arithmetic.
+ *
+ * <p>Recovery computes {@code Q = u1 * G + u2 * R}. Both scalars are split with the GLV
+ * endomorphism {@code lambda * (x, y) = (beta * x, y)} into halves of about 128 bits, and the four
+ * resulting products are computed together with a single chain of doublings, adding in odd
+ * multiples of the points selected by the width-w NAF of each half. The multiples of {@code G} are
+ * precomputed in affine coordinates when the class loads; those of {@code R} are computed per
+ * recovery in Jacobian coordinates. All field arithmetic is done by {@link Secp256k1Field}.
+ *
+ * <p>Instances hold the tables and temporaries of a recovery and are not thread-safe: use {@link
+ * #forCurrentThread()}.
+ */
+final class Secp256k1Recovery {
+
+  private static final BigInteger P = SECP256K1.CURVE.getCurve().getField().getCharacteristic();
+  private static final BigInteger N = SECP256K1.CURVE.getN();
+
+  // The GLV basis for secp256k1, as used by BouncyCastle and libsecp256k1.
+  private static final BigInteger A1 = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+  private static final BigInteger MINUS_B1 = new BigInteger("e4437ed6010e88286f547fa90abfe4c3", 16);
+  private static final BigInteger A2 = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+  private static final BigInteger B2 = A1;
+  private static final int[] BETA =
+      toField(
+          new BigInteger("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16));
+  private static final int[] SEVEN = Secp256k1Field.of(7);
+  private static final int[] ONE = Secp256k1Field.of(1);
+
+  private static final int G_WINDOW = 8;
+  private static final int G_TABLE_SIZE = 1 << (G_WINDOW - 2);
+  private static final int R_WINDOW = 5;
+  private static final int R_TABLE_SIZE = 1 << (R_WINDOW - 2);
+  private static final int MAX_NAF_LENGTH = 160;
+  private static final int SCALAR_LIMBS = MAX_NAF_LENGTH / Integer.SIZE;
+
+  private static final int[][] G_X = new int[G_TABLE_SIZE][];
+  private static final int[][] G_Y = new int[G_TABLE_SIZE][];
+  private static final int[][] LAMBDA_G_X = new int[G_TABLE_SIZE][];
+
+  static {
+    final ECPoint g = SECP256K1.CURVE.getG();
+    final Secp256k1Recovery recovery = new Secp256k1Recovery(G_TABLE_SIZE);
+    recovery.computeAffineOddMultiples(
+        toField(g.getAffineXCoord().toBigInteger()),
+        toField(g.getAffineYCoord().toBigInteger()),
+        G_X,
+        G_Y);
+    for (int i = 0; i < G_TABLE_SIZE; i++) {
+      LAMBDA_G_X[i] = Secp256k1Field.create();
+      recovery.field.mul(LAMBDA_G_X[i], G_X[i], BETA);
+    }
+  }
+
+  private static final ThreadLocal<Secp256k1Recovery> RECOVERIES =
+      ThreadLocal.withInitial(() -> new Secp256k1Recovery(R_TABLE_SIZE));
+
+  private final Secp256k1Field field = new Secp256k1Field();
+
+  // Odd multiples of the point being multiplied, in Jacobian coordinates.
+  private final int[][] tableX;
+  private final int[][] tableY;
+  private final int[][] tableZ;
+  private final int[][] lambdaTableX;
+
+  // The running sum, in Jacobian coordinates, with z == 0 for the point at infinity.
+  private final int[] x = Secp256k1Field.create();
+  private final int[] y = Secp256k1Field.create();
+  private final int[] z = Secp256k1Field.create();
+
+  private final int[] t0 = Secp256k1Field.create();
+  private final int[] t1 = Secp256k1Field.create();
+  private final int[] t2 = Secp256k1Field.create();
+  private final int[] t3 = Secp256k1Field.create();
+  private final int[] t4 = Secp256k1Field.create();
+  private final int[] t5 = Secp256k1Field.create();
+  private final int[] t6 = Secp256k1Field.create();
+  private final int[] t7 = Secp256k1Field.create();
+  private final int[] t8 = Secp256k1Field.create();
+  private final int[] negatedY = Secp256k1Field.create();
+
+  private final int[] scalar = new int[SCALAR_LIMBS];
+  private final int[] nafR1 = new int[MAX_NAF_LENGTH];
+  private final int[] nafR2 = new int[MAX_NAF_LENGTH];
+  private final int[] nafG1 = new int[MAX_NAF_LENGTH];
+  private final int[] nafG2 = new int[MAX_NAF_LENGTH];
+
+  private Secp256k1Recovery(final int tableSize) {
+    tableX = new int[tableSize][Secp256k1Field.LIMBS];
+    tableY = new int[tableSize][Secp256k1Field.LIMBS];
+    tableZ = new int[tableSize][Secp256k1Field.LIMBS];
+    lambdaTableX = new int[tableSize][Secp256k1Field.LIMBS];
+  }
+
+  static Secp256k1Recovery forCurrentThread() {
+    return RECOVERIES.get();
+  }
+
+  /**
+   * Recovers the public key that produced a signature, following SEC1v2 section 4.1.6 like {@link
+   * SECP256K1} does.
+   *
+   * @param dataHash the hash of the signed data
+   * @param r the r component of the signature
+   * @param s the s component of the signature
+   * @param recId the recovery id of the signature
+   * @return the 64 byte uncompressed public key, or null if no key can be recovered
+   * @throws IllegalArgumentException if r and the recovery id do not identify a point on the curve
+   */
+  BytesValue recover(
+      final Bytes32 dataHash, final BigInteger r, final BigInteger s, final int recId) {
+    final BigInteger rx = r.add(N.multiply(BigInteger.valueOf(recId / 2)));
+    if (rx.compareTo(P) >= 0) {
+      return null;
+    }
+    final int[] pointX = t7;
+    final int[] pointY = t8;
+    Secp256k1Field.copy(pointX, toField(rx));
+    if (!decompress(pointX, pointY, (recId & 1) == 1)) {
+      throw new IllegalArgumentException("Invalid point compression");
+    }
+
+    // Q = r^-1 * (sR - eG) = (r^-1 * -e) * G + (r^-1 * s) * R
+    final BigInteger rInv = r.modInverse(N);
+    final BigInteger minusE = N.subtract(asUnsignedBigInteger(dataHash).mod(N));
+    final BigInteger[] u1 = decompose(minusE.multiply(rInv).mod(N));
+    final BigInteger[] u2 = decompose(s.multiply(rInv).mod(N));
+
+    computeJacobianOddMultiples(pointX, pointY);
+    for (int i = 0; i < R_TABLE_SIZE; i++) {
+      field.mul(lambdaTableX[i], tableX[i], BETA);
+    }
+
+    final int lengthG1 = wnaf(nafG1, u1[0], G_WINDOW);
+    final int lengthG2 = wnaf(nafG2, u1[1], G_WINDOW);
+    final int lengthR1 = wnaf(nafR1, u2[0], R_WINDOW);
+    final int lengthR2 = wnaf(nafR2, u2[1], R_WINDOW);
+    final boolean negateG1 = u1[0].signum() < 0;
+    final boolean negateG2 = u1[1].signum() < 0;
+    final boolean negateR1 = u2[0].signum() < 0;
+    final boolean negateR2 = u2[1].signum() < 0;
+
+    Secp256k1Field.setZero(z);
+    final int length = Math.max(Math.max(lengthG1, lengthG2), Math.max(lengthR1, lengthR2));
+    for (int i = length - 1; i >= 0; i--) {
+      doubleInPlace();
+      if (i < lengthR1 && nafR1[i] != 0) {
+        addFromTable(tableX, nafR1[i], negateR1);
+      }
+      if (i < lengthR2 && nafR2[i] != 0) {
+        addFromTable(lambdaTableX, nafR2[i], negateR2);
+      }
+      if (i < lengthG1 && nafG1[i] != 0) {
+        addFromAffineTable(G_X, nafG1[i], negateG1);
+      }
+      if (i < lengthG2 && nafG2[i] != 0) {
+        addFromAffineTable(LAMBDA_G_X, nafG2[i], negateG2);
+      }
+    }
+
+    if (Secp256k1Field.isZero(z)) {
+      return null;
+    }
+    final byte[] encoded = new byte[64];
+    toAffine(t7, t8);
+    Secp256k1Field.toBytes(t7, encoded, 0);
+    Secp256k1Field.toBytes(t8, encoded, 32);
+    return BytesValue.wrap(encoded);
+  }
+
+  /**
+   * Splits {@code k} into {@code k1} and {@code k2} of about 128 bits each, such that {@code k = k1
+   * + k2 * lambda (mod n)}.
+   */
+  static BigInteger[] decompose(final BigInteger k) {
+    final BigInteger c1 = roundedDivideByN(k.multiply(B2));
+    final BigInteger c2 = roundedDivideByN(k.multiply(MINUS_B1));
+    final BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+    final BigInteger k2 = c1.multiply(MINUS_B1).subtract(c2.multiply(B2));
+    return new BigInteger[] {k1, k2};
+  }
+
+  private static BigInteger roundedDivideByN(final BigInteger value) {
+    return value.shiftLeft(1).add(N).divide(N.shiftLeft(1));
+  }
+
+  private boolean decompress(final int[] px, final int[] py, final boolean odd) {
+    // y^2 = x^3 + 7
+    field.sqr(t0, px);
+    field.mul(t0, t0, px);
+    Secp256k1Field.add(t0, t0, SEVEN);
+    if (!field.sqrt(py, t0)) {
+      return false;
+    }
+    if (Secp256k1Field.isOdd(py) != odd) {
+      Secp256k1Field.negate(py, py);
+    }
+    return true;
+  }
+
+  /** Writes the width-w NAF of the magnitude of {@code k} to {@code naf}, returning its length. */
+  private int wnaf(final int[] naf, final BigInteger k, final int window) {
+    final BigInteger magnitude = k.abs();
+    for (int i = 0; i < SCALAR_LIMBS; i++) {
+      scalar[i] = magnitude.shiftRight(i * Integer.SIZE).intValue();
+    }
+    final int mask = (1 << window) - 1;
+    int length = 0;
+    while (!isZeroScalar()) {
+      int digit = 0;
+      if ((scalar[0] & 1) != 0) {
+        digit = scalar[0] & mask;
+        if (digit > mask >>> 1) {
+          digit -= 1 << window;
+        }
+        subtractFromScalar(digit);
+      }
+      naf[length++] = digit;
+      shiftScalarRight();
+    }
+    return length;
+  }
+
+  private boolean isZeroScalar() {
+    int bits = 0;
+    for (int i = 0; i < SCALAR_LIMBS; i++) {
+      bits |= scalar[i];
+    }
+    return bits == 0;
+  }
+
+  private void subtractFromScalar(final int value) {
+    long c = (scalar[0] & 0xFFFFFFFFL) - value;
+    scalar[0] = (int) c;
+    c >>= 32;
+    for (int i = 1; i < SCALAR_LIMBS && c != 0; i++) {
+      c += scalar[i] & 0xFFFFFFFFL;
+      scalar[i] = (int) c;
+      c >>= 32;
+    }
+  }
+
+  private void shiftScalarRight() {
+    for (int i = 0; i < SCALAR_LIMBS - 1; i++) {
+      scalar[i] = scalar[i] >>> 1 | scalar[i + 1] << 31;
+    }
+    scalar[SCALAR_LIMBS - 1] >>>= 1;
+  }
+
+  private void addFromTable(final int[][] xs, final int digit, final boolean negate) {
+    final int index = (Math.abs(digit) - 1) >>> 1;
+    final int[] py = tableY[index];
+    if ((digit < 0) != negate) {
+      Secp256k1Field.negate(negatedY, py);
+      addInPlace(xs[index], negatedY, tableZ[index]);
+    } else {
+      addInPlace(xs[index], py, tableZ[index]);
+    }
+  }
+
+  private void addFromAffineTable(final int[][] xs, final int digit, final boolean negate) {
+    final int index = (Math.abs(digit) - 1) >>> 1;
+    final int[] py = G_Y[index];
+    if ((digit < 0) != negate) {
+      Secp256k1Field.negate(negatedY, py);
+      addAffineInPlace(xs[index], negatedY);
+    } else {
+      addAffineInPlace(xs[index], py);
+    }
+  }
+
+  /** Fills the tables with P, 3P, 5P... in Jacobian coordinates. */
+  private void computeJacobianOddMultiples(final int[] px, final int[] py) {
+    Secp256k1Field.copy(x, px);
+    Secp256k1Field.copy(y, py);
+    Secp256k1Field.copy(z, ONE);
+    doubleInPlace();
+    // t4, t5 and t6 are free while the tables are built.
+    Secp256k1Field.copy(t4, x);
+    Secp256k1Field.copy(t5, y);
+    Secp256k1Field.copy(t6, z);
+
+    Secp256k1Field.copy(tableX[0], px);
+    Secp256k1Field.copy(tableY[0], py);
+    Secp256k1Field.copy(tableZ[0], ONE);
+    Secp256k1Field.copy(x, px);
+    Secp256k1Field.copy(y, py);
+    Secp256k1Field.copy(z, ONE);
+    for (int i = 1; i < tableX.length; i++) {
+      addInPlace(t4, t5, t6);
+      Secp256k1Field.copy(tableX[i], x);
+      Secp256k1Field.copy(tableY[i], y);
+      Secp256k1Field.copy(tableZ[i], z);
+    }
+  }
+
+  private void computeAffineOddMultiples(
+      final int[] px, final int[] py, final int[][] xs, final int[][] ys) {
+    computeJacobianOddMultiples(px, py);
+    for (int i = 0; i < tableX.length; i++) {
+      Secp256k1Field.copy(x, tableX[i]);
+      Secp256k1Field.copy(y, tableY[i]);
+      Secp256k1Field.copy(z, tableZ[i]);
+      xs[i] = Secp256k1Field.create();
+      ys[i] = Secp256k1Field.create();
+      toAffine(xs[i], ys[i]);
+    }
+  }
+
+  private void toAffine(final int[] ax, final int[] ay) {
+    field.invert(t0, z);
+    field.sqr(t1, t0);
+    field.mul(ax, x, t1);
+    field.mul(t1, t1, t0);
+    field.mul(ay, y, t1);
+  }
+
+  /** Doubles the running sum, using the "dbl-2009-l" formulas for a = 0. */
+  private void doubleInPlace() {
+    final int[] a = t0;
+    final int[] b = t1;
+    final int[] c = t2;
+    final int[] d = t3;
+    final int[] e = t4;
+    field.sqr(a, x);
+    field.sqr(b, y);
+    field.sqr(c, b);
+    // D = 2 * ((X + B)^2 - A - C)
+    Secp256k1Field.add(d, x, b);
+    field.sqr(d, d);
+    Secp256k1Field.sub(d, d, a);
+    Secp256k1Field.sub(d, d, c);
+    Secp256k1Field.add(d, d, d);
+    // E = 3 * A, F = E^2
+    Secp256k1Field.mulSmall(e, a, 3);
+    field.sqr(a, e);
+    // Z3 = 2 * Y * Z
+    field.mul(z, y, z);
+    Secp256k1Field.add(z, z, z);
+    // X3 = F - 2 * D
+    Secp256k1Field.sub(x, a, d);
+    Secp256k1Field.sub(x, x, d);
+    // Y3 = E * (D - X3) - 8 * C
+    Secp256k1Field.sub(d, d, x);
+    field.mul(y, e, d);
+    Secp256k1Field.mulSmall(c, c, 8);
+    Secp256k1Field.sub(y, y, c);
+  }
+
+  /** Adds a point in Jacobian coordinates to the running sum, using "add-2007-bl". */
+  private void addInPlace(final int[] x2, final int[] y2, final int[] z2) {
+    if (Secp256k1Field.isZero(z)) {
+      Secp256k1Field.copy(x, x2);
+      Secp256k1Field.copy(y, y2);
+      Secp256k1Field.copy(z, z2);
+      return;
+    }
+    final int[] z1z1 = t0;
+    final int[] z2z2 = t1;
+    final int[] u1 = t2;
+    final int[] s1 = t3;
+    final int[] h = t7;
+    final int[] r = t8;
+    field.sqr(z1z1, z);
+    field.sqr(z2z2, z2);
+    field.mul(u1, x, z2z2);
+    field.mul(h, x2, z1z1);
+    Secp256k1Field.sub(h, h, u1);
+    field.mul(s1, y, z2);
+    field.mul(s1, s1, z2z2);
+    field.mul(r, y2, z);
+    field.mul(r, r, z1z1);
+    Secp256k1Field.sub(r, r, s1);
+    Secp256k1Field.add(r, r, r);
+    if (Secp256k1Field.isZero(h)) {
+      handleEqualX(r);
+      return;
+    }
+    // Z3 = ((Z1 + Z2)^2 - Z1Z1 - Z2Z2) * H
+    Secp256k1Field.add(z, z, z2);
+    field.sqr(z, z);
+    Secp256k1Field.sub(z, z, z1z1);
+    Secp256k1Field.sub(z, z, z2z2);
+    field.mul(z, z, h);
+    // I = (2 * H)^2, J = H * I, V = U1 * I
+    final int[] i = z1z1;
+    final int[] j = z2z2;
+    Secp256k1Field.add(i, h, h);
+    field.sqr(i, i);
+    field.mul(j, h, i);
+    field.mul(u1, u1, i);
+    finishAddition(r, j, u1, s1);
+  }
+
+  /** Adds a point in affine coordinates to the running sum, using "madd-2007-bl". */
+  private void addAffineInPlace(final int[] x2, final int[] y2) {
+    if (Secp256k1Field.isZero(z)) {
+      Secp256k1Field.copy(x, x2);
+      Secp256k1Field.copy(y, y2);
+      Secp256k1Field.copy(z, ONE);
+      return;
+    }
+    final int[] z1z1 = t0;
+    final int[] hh = t1;
+    final int[] v = t2;
+    final int[] s1 = t3;
+    final int[] h = t7;
+    final int[] r = t8;
+    field.sqr(z1z1, z);
+    field.mul(h, x2, z1z1);
+    Secp256k1Field.sub(h, h, x);
+    field.mul(r, y2, z);
+    field.mul(r, r, z1z1);
+    Secp256k1Field.sub(r, r, y);
+    Secp256k1Field.add(r, r, r);
+    if (Secp256k1Field.isZero(h)) {
+      handleEqualX(r);
+      return;
+    }
+    // Z3 = (Z1 + H)^2 - Z1Z1 - HH
+    field.sqr(hh, h);
+    Secp256k1Field.add(z, z, h);
+    field.sqr(z, z);
+    Secp256k1Field.sub(z, z, z1z1);
+    Secp256k1Field.sub(z, z, hh);
+    // I = 4 * HH, J = H * I, V = X1 * I
+    final int[] i = z1z1;
+    final int[] j = hh;
+    Secp256k1Field.mulSmall(i, hh, 4);
+    field.mul(j, h, i);
+    field.mul(v, x, i);
+    Secp256k1Field.copy(s1, y);
+    finishAddition(r, j, v, s1);
+  }
+
+  /** Computes X3 = r^2 - J - 2 * V and Y3 = r * (V - X3) - 2 * S1 * J. */
+  private void finishAddition(final int[] r, final int[] j, final int[] v, final int[] s1) {
+    field.sqr(x, r);
+    Secp256k1Field.sub(x, x, j);
+    Secp256k1Field.sub(x, x, v);
+    Secp256k1Field.sub(x, x, v);
+    Secp256k1Field.sub(v, v, x);
+    field.mul(y, r, v);
+    field.mul(s1, s1, j);
+    Secp256k1Field.add(s1, s1, s1);
+    Secp256k1Field.sub(y, y, s1);
+  }
+
+  /** Completes an addition of two points with the same x coordinate. */
+  private void handleEqualX(final int[] r) {
+    if (Secp256k1Field.isZero(r)) {
+      // The points are equal.
+      doubleInPlace();
+    } else {
+      // The points are opposite.
+      Secp256k1Field.setZero(z);
+    }
+  }
+
+  private static int[] toField(final BigInteger value) {
+    final int[] result = Secp256k1Field.create();
+    for (int i = 0; i < Secp256k1Field.LIMBS; i++) {
+      result[i] = value.shiftRight(i * Integer.SIZE).intValue();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recovers the public keys of batches of signatures on a fork-join pool shared by the whole process
+ * and sized to the number of available processors.
+ *
+ * <p>Batches are split into chunks of consecutive signatures which are recovered by the pool
+ * workers, each reusing its own {@link Secp256k1Recovery} scratch space and the precomputed
+ * generator table shared by all threads. Small batches are recovered on the calling thread as the
+ * hand-off would cost more than it saves. A signature that fails recovery with an exception fails
+ * the whole batch with that exception, as it would fail its own recovery.
+ */
+final class SignatureRecoveryPool {
+
+  static final int MIN_PARALLEL_BATCH_SIZE = 8;
+  private static final int MIN_CHUNK_SIZE = 4;
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          SignatureRecoveryPool::newWorkerThread,
+          null,
+          false);
+
+  private SignatureRecoveryPool() {}
+
+  static void recoverAll(
+      final List<Bytes32> dataHashes,
+      final List<Signature> signatures,
+      final List<Optional<PublicKey>> results) {
+    final int size = results.size();
+    if (size < MIN_PARALLEL_BATCH_SIZE || POOL.getParallelism() == 1) {
+      recoverRange(dataHashes, signatures, results, 0, size);
+      return;
+    }
+    final int chunkSize =
+        Math.max(MIN_CHUNK_SIZE, size / (POOL.getParallelism() * CHUNKS_PER_THREAD));
+    POOL.invoke(new RecoveryTask(dataHashes, signatures, results, 0, size, chunkSize));
+  }
+
+  private static void recoverRange(
+      final List<Bytes32> dataHashes,
+      final List<Signature> signatures,
+      final List<Optional<PublicKey>> results,
+      final int from,
+      final int to) {
+    for (int i = from; i < to; i++) {
+      results.set(i, PublicKey.recoverFromSignature(dataHashes.get(i), signatures.get(i)));
+    }
+  }
+
+  private static ForkJoinWorkerThread newWorkerThread(final ForkJoinPool pool) {
+    final ForkJoinWorkerThread thread =
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("SignatureRecovery-" + thread.getPoolIndex());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static class RecoveryTask extends RecursiveAction {
+
+    private final List<Bytes32> dataHashes;
+    private final List<Signature> signatures;
+    private final List<Optional<PublicKey>> results;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+
+    private RecoveryTask(
+        final List<Bytes32> dataHashes,
+        final List<Signature> signatures,
+        final List<Optional<PublicKey>> results,
+        final int from,
+        final int to,
+        final int chunkSize) {
+      this.dataHashes = dataHashes;
+      this.signatures = signatures;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= chunkSize) {
+        recoverRange(dataHashes, signatures, results, from, to);
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      invokeAll(
+          new RecoveryTask(dataHashes, signatures, results, from, middle, chunkSize),
+          new RecoveryTask(dataHashes, signatures, results, middle, to, chunkSize));
+    }
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq.SIZE;
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq12.FQ12_SIZE;
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq2.FQ2_SIZE;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes products of optimal ate pairings on alt_bn128 with fixed-size Montgomery arithmetic.
+ *
+ * <p>Points of G2 are kept in homogeneous projective coordinates on the twisted curve during the
+ * Miller loop, all pairs share the squarings of the Miller loop and a single final exponentiation,
+ * and the line functions, which only have three non-zero coefficients out of six, are multiplied in
+ * directly. The result matches {@link AltBn128Fq12Pairer}, which is used as a fallback for the
+ * degenerate inputs that lead to the point at infinity or to a vertical line during the loop.
+ */
+public final class AltBn128Pairing {
+
+  private static final BigInteger ATE_LOOP_COUNT = new BigInteger("29793968203157093288");
+  private static final long U = 4965661367192848881L;
+
+  private static final long[] THREE_TWIST_B = MontgomeryFq2.create(1);
+  /** Constants of the Frobenius endomorphism on the twisted curve. */
+  private static final long[] TWIST_FROBENIUS = MontgomeryFq2.create(4);
+
+  private static final int FROBENIUS_X = 0;
+  private static final int FROBENIUS_Y = FQ2_SIZE;
+  private static final int FROBENIUS_SQUARED_X = 2 * FQ2_SIZE;
+  private static final int FROBENIUS_SQUARED_Y = 3 * FQ2_SIZE;
+
+  static {
+    final MontgomeryFq2 fq2 = new MontgomeryFq2(new MontgomeryFq());
+    fq2.fromFq2(THREE_TWIST_B, 0, Fq2.b2().multiply(3));
+    // Untwisting maps (x, y) to (x w^2, y w^3), so the Frobenius endomorphism multiplies the
+    // conjugated coordinates by w^(2 (p - 1)) and w^(3 (p - 1)), and by w^(2 (p^2 - 1)) and
+    // w^(3 (p^2 - 1)) when applied twice.
+    final long[] frobenius = MontgomeryFq12.FROBENIUS_COEFFICIENTS[0];
+    final long[] frobeniusSquared = MontgomeryFq12.FROBENIUS_COEFFICIENTS[1];
+    MontgomeryFq2.copy(TWIST_FROBENIUS, FROBENIUS_X, frobenius, 2 * FQ2_SIZE);
+    MontgomeryFq2.copy(TWIST_FROBENIUS, FROBENIUS_Y, frobenius, 3 * FQ2_SIZE);
+    MontgomeryFq2.copy(TWIST_FROBENIUS, FROBENIUS_SQUARED_X, frobeniusSquared, 2 * FQ2_SIZE);
+    MontgomeryFq2.copy(TWIST_FROBENIUS, FROBENIUS_SQUARED_Y, frobeniusSquared, 3 * FQ2_SIZE);
+  }
+
+  private static final ThreadLocal<AltBn128Pairing> ENGINES =
+      ThreadLocal.withInitial(AltBn128Pairing::new);
+
+  // Offsets of the G2 point coordinates, affine or projective.
+  private static final int X = 0;
+  private static final int Y = FQ2_SIZE;
+  private static final int Z = 2 * FQ2_SIZE;
+  private static final int AFFINE_POINT_SIZE = 2 * FQ2_SIZE;
+  private static final int PROJECTIVE_POINT_SIZE = 3 * FQ2_SIZE;
+  private static final int G1_POINT_SIZE = 2 * SIZE;
+
+  private final MontgomeryFq fq = new MontgomeryFq();
+  private final MontgomeryFq2 fq2 = new MontgomeryFq2(fq);
+  private final MontgomeryFq12 fq12 = new MontgomeryFq12(new MontgomeryFq6(fq2));
+
+  private final long[] line = MontgomeryFq2.create(3);
+  private final long[] t = MontgomeryFq2.create(10);
+  private final long[] f = MontgomeryFq12.create(1);
+  private final long[] e = MontgomeryFq12.create(14);
+
+  private AltBn128Pairing() {}
+
+  /**
+   * Checks whether the product of the pairings of the given points is the identity of the target
+   * group.
+   *
+   * @param g1Points the points of G1, which must be on the curve
+   * @param g2Points the points of G2 paired with the points of G1 at the same index, which must be
+   *     on the twisted curve
+   * @return true if the product of the pairings is one
+   */
+  public static boolean isProductOne(
+      final List<AltBn128Point> g1Points, final List<AltBn128Fq2Point> g2Points) {
+    checkArgument(g1Points.size() == g2Points.size(), "Expected as many G1 as G2 points");
+    final AltBn128Pairing engine = ENGINES.get();
+    if (!engine.pairingProduct(engine.f, g1Points, g2Points)) {
+      return isProductOneWithReferenceImplementation(g1Points, g2Points);
+    }
+    return MontgomeryFq12.isOne(engine.f, 0);
+  }
+
+  static AltBn128Pairing forCurrentThread() {
+    return ENGINES.get();
+  }
+
+  MontgomeryFq12 fq12() {
+    return fq12;
+  }
+
+  private static boolean isProductOneWithReferenceImplementation(
+      final List<AltBn128Point> g1Points, final List<AltBn128Fq2Point> g2Points) {
+    Fq12 product = Fq12.one();
+    for (int i = 0; i < g1Points.size(); i++) {
+      product = product.multiply(AltBn128Fq12Pairer.pair(g1Points.get(i), g2Points.get(i)));
+    }
+    return AltBn128Fq12Pairer.finalize(product).equals(Fq12.one());
+  }
+
+  /**
+   * Computes the product of the pairings of the given points.
+   *
+   * @return false if a degenerate case was hit and the result could not be computed
+   */
+  boolean pairingProduct(
+      final long[] r, final List<AltBn128Point> g1Points, final List<AltBn128Fq2Point> g2Points) {
+    final List<AltBn128Point> ps = new ArrayList<>(g1Points.size());
+    final List<AltBn128Fq2Point> qs = new ArrayList<>(g2Points.size());
+    for (int i = 0; i < g1Points.size(); i++) {
+      if (!g1Points.get(i).isInfinity() && !g2Points.get(i).isInfinity()) {
+        ps.add(g1Points.get(i));
+        qs.add(g2Points.get(i));
+      }
+    }
+    final int pairs = ps.size();
+    final long[] p = MontgomeryFq.create(2 * pairs);
+    final long[] q = MontgomeryFq2.create(2 * pairs);
+    final long[] current = MontgomeryFq2.create(3 * pairs);
+    for (int i = 0; i < pairs; i++) {
+      fq.fromFq(p, i * G1_POINT_SIZE, ps.get(i).getX());
+      fq.fromFq(p, i * G1_POINT_SIZE + SIZE, ps.get(i).getY());
+      fq2.fromFq2(q, i * AFFINE_POINT_SIZE + X, qs.get(i).getX());
+      fq2.fromFq2(q, i * AFFINE_POINT_SIZE + Y, qs.get(i).getY());
+    }
+    if (!millerLoop(r, p, q, current, pairs)) {
+      return false;
+    }
+    finalExponentiation(r, r);
+    return true;
+  }
+
+  private boolean millerLoop(
+      final long[] r, final long[] p, final long[] q, final long[] current, final int pairs) {
+    MontgomeryFq12.setOne(r, 0);
+    for (int i = 0; i < pairs; i++) {
+      MontgomeryFq2.copy(current, i * PROJECTIVE_POINT_SIZE + X, q, i * AFFINE_POINT_SIZE + X);
+      MontgomeryFq2.copy(current, i * PROJECTIVE_POINT_SIZE + Y, q, i * AFFINE_POINT_SIZE + Y);
+      MontgomeryFq2.setOne(current, i * PROJECTIVE_POINT_SIZE + Z);
+    }
+
+    for (int bit = ATE_LOOP_COUNT.bitLength() - 2; bit >= 0; bit--) {
+      fq12.sqr(r, 0, r, 0);
+      for (int i = 0; i < pairs; i++) {
+        if (!doublingStep(current, i * PROJECTIVE_POINT_SIZE, p, i * G1_POINT_SIZE)) {
+          return false;
+        }
+        fq12.mulByLine(r, 0, line, 0);
+      }
+      if (ATE_LOOP_COUNT.testBit(bit)) {
+        for (int i = 0; i < pairs; i++) {
+          if (!additionStep(
+              current, i * PROJECTIVE_POINT_SIZE, q, i * AFFINE_POINT_SIZE, p, i * G1_POINT_SIZE)) {
+            return false;
+          }
+          fq12.mulByLine(r, 0, line, 0);
+        }
+      }
+    }
+
+    // Finish with the lines through pi(Q) and -pi^2(Q), where pi is the Frobenius endomorphism.
+    final long[] frobenius = MontgomeryFq2.create(2);
+    for (int i = 0; i < pairs; i++) {
+      final int qo = i * AFFINE_POINT_SIZE;
+      MontgomeryFq2.conjugate(frobenius, X, q, qo + X);
+      fq2.mul(frobenius, X, frobenius, X, TWIST_FROBENIUS, FROBENIUS_X);
+      MontgomeryFq2.conjugate(frobenius, Y, q, qo + Y);
+      fq2.mul(frobenius, Y, frobenius, Y, TWIST_FROBENIUS, FROBENIUS_Y);
+      if (!additionStep(current, i * PROJECTIVE_POINT_SIZE, frobenius, 0, p, i * G1_POINT_SIZE)) {
+        return false;
+      }
+      fq12.mulByLine(r, 0, line, 0);
+
+      fq2.mul(frobenius, X, q, qo + X, TWIST_FROBENIUS, FROBENIUS_SQUARED_X);
+      fq2.mul(frobenius, Y, q, qo + Y, TWIST_FROBENIUS, FROBENIUS_SQUARED_Y);
+      MontgomeryFq2.negate(frobenius, Y, frobenius, Y);
+      if (!additionStep(current, i * PROJECTIVE_POINT_SIZE, frobenius, 0, p, i * G1_POINT_SIZE)) {
+        return false;
+      }
+      fq12.mulByLine(r, 0, line, 0);
+    }
+    return true;
+  }
+
+  /**
+   * Doubles the projective point T in place and writes the tangent line at T evaluated at P into
+   * {@link #line}, following Costello, Lange and Naehrig, "Faster Pairing Computations on Curves
+   * with High-Degree Twists", adapted to a D-type twist.
+   *
+   * @return false if T is the point at infinity or a point of order two
+   */
+  private boolean doublingStep(final long[] c, final int co, final long[] p, final int po) {
+    if (MontgomeryFq2.isZero(c, co + Y) || MontgomeryFq2.isZero(c, co + Z)) {
+      return false;
+    }
+    final long[] t = this.t;
+    final int a = 0;
+    final int b = FQ2_SIZE;
+    final int cc = 2 * FQ2_SIZE;
+    final int e = 3 * FQ2_SIZE;
+    final int ff = 4 * FQ2_SIZE;
+    final int g = 5 * FQ2_SIZE;
+    final int h = 6 * FQ2_SIZE;
+    final int j = 7 * FQ2_SIZE;
+    final int tmp = 8 * FQ2_SIZE;
+
+    fq2.mul(t, a, c, co + X, c, co + Y);
+    MontgomeryFq2.half(t, a, t, a); // A = X Y / 2
+    fq2.sqr(t, b, c, co + Y); // B = Y^2
+    fq2.sqr(t, cc, c, co + Z); // C = Z^2
+    fq2.mul(t, e, t, cc, THREE_TWIST_B, 0); // E = 3 b' C
+    MontgomeryFq2.mulSmall(t, ff, t, e, 3); // F = 3 E
+    MontgomeryFq2.add(t, g, t, b, t, ff);
+    MontgomeryFq2.half(t, g, t, g); // G = (B + F) / 2
+    MontgomeryFq2.add(t, h, c, co + Y, c, co + Z);
+    fq2.sqr(t, h, t, h);
+    MontgomeryFq2.sub(t, h, t, h, t, b);
+    MontgomeryFq2.sub(t, h, t, h, t, cc); // H = (Y + Z)^2 - B - C = 2 Y Z
+    fq2.sqr(t, j, c, co + X); // J = X^2
+
+    // l = -H yP + 3 J xP w + (E - B) w^3
+    fq2.mulByFq(line, 0, t, h, p, po + SIZE);
+    MontgomeryFq2.negate(line, 0, line, 0);
+    MontgomeryFq2.mulSmall(t, tmp, t, j, 3);
+    fq2.mulByFq(line, FQ2_SIZE, t, tmp, p, po);
+    MontgomeryFq2.sub(line, 2 * FQ2_SIZE, t, e, t, b);
+
+    MontgomeryFq2.sub(t, tmp, t, b, t, ff);
+    fq2.mul(c, co + X, t, a, t, tmp); // X3 = A (B - F)
+    fq2.sqr(t, tmp, t, e);
+    MontgomeryFq2.mulSmall(t, tmp, t, tmp, 3);
+    fq2.sqr(c, co + Y, t, g);
+    MontgomeryFq2.sub(c, co + Y, c, co + Y, t, tmp); // Y3 = G^2 - 3 E^2
+    fq2.mul(c, co + Z, t, b, t, h); // Z3 = B H
+    return true;
+  }
+
+  /**
+   * Adds the affine point Q to the projective point T in place and writes the line through T and Q
+   * evaluated at P into {@link #line}.
+   *
+   * @return false if T is the point at infinity or T = Q or T = -Q
+   */
+  private boolean additionStep(
+      final long[] c, final int co, final long[] q, final int qo, final long[] p, final int po) {
+    final long[] t = this.t;
+    final int theta = 0;
+    final int lambda = FQ2_SIZE;
+    final int cc = 2 * FQ2_SIZE;
+    final int d = 3 * FQ2_SIZE;
+    final int e = 4 * FQ2_SIZE;
+    final int ff = 5 * FQ2_SIZE;
+    final int g = 6 * FQ2_SIZE;
+    final int h = 7 * FQ2_SIZE;
+    final int tmp = 8 * FQ2_SIZE;
+
+    fq2.mul(t, theta, q, qo + Y, c, co + Z);
+    MontgomeryFq2.sub(t, theta, c, co + Y, t, theta); // theta = Y - yQ Z
+    fq2.mul(t, lambda, q, qo + X, c, co + Z);
+    MontgomeryFq2.sub(t, lambda, c, co + X, t, lambda); // lambda = X - xQ Z
+    if (MontgomeryFq2.isZero(c, co + Z) || MontgomeryFq2.isZero(t, lambda)) {
+      return false;
+    }
+    fq2.sqr(t, cc, t, theta); // C = theta^2
+    fq2.sqr(t, d, t, lambda); // D = lambda^2
+    fq2.mul(t, e, t, lambda, t, d); // E = lambda^3
+    fq2.mul(t, ff, c, co + Z, t, cc); // F = Z C
+    fq2.mul(t, g, c, co + X, t, d); // G = X D
+    MontgomeryFq2.add(t, h, t, e, t, ff);
+    MontgomeryFq2.sub(t, h, t, h, t, g);
+    MontgomeryFq2.sub(t, h, t, h, t, g); // H = E + F - 2 G
+
+    // l = lambda yP - theta xP w + (theta xQ - lambda yQ) w^3
+    fq2.mulByFq(line, 0, t, lambda, p, po + SIZE);
+    fq2.mulByFq(line, FQ2_SIZE, t, theta, p, po);
+    MontgomeryFq2.negate(line, FQ2_SIZE, line, FQ2_SIZE);
+    fq2.mul(line, 2 * FQ2_SIZE, t, theta, q, qo + X);
+    fq2.mul(t, tmp, t, lambda, q, qo + Y);
+    MontgomeryFq2.sub(line, 2 * FQ2_SIZE, line, 2 * FQ2_SIZE, t, tmp);
+
+    fq2.mul(t, tmp, c, co + Y, t, e);
+    fq2.mul(c, co + X, t, lambda, t, h); // X3 = lambda H
+    MontgomeryFq2.sub(t, g, t, g, t, h);
+    fq2.mul(c, co + Y, t, theta, t, g);
+    MontgomeryFq2.sub(c, co + Y, c, co + Y, t, tmp); // Y3 = theta (G - H) - Y E
+    fq2.mul(c, co + Z, c, co + Z, t, e); // Z3 = Z E
+    return true;
+  }
+
+  /**
+   * Raises an element to the power (p^12 - 1) / r, splitting the exponent into (p^6 - 1) (p^2 + 1),
+   * computed with Frobenius maps, and (p^4 - p^2 + 1) / r, computed with the addition chain of
+   * Devegili, Scott and Dahab, "Implementing Cryptographic Pairings over Barreto-Naehrig Curves".
+   */
+  void finalExponentiation(final long[] r, final long[] a) {
+    final long[] e = this.e;
+    final int t0 = 0;
+    final int t1 = FQ12_SIZE;
+    final int t2 = 2 * FQ12_SIZE;
+    final int fp = 3 * FQ12_SIZE;
+    final int fp2 = 4 * FQ12_SIZE;
+    final int fp3 = 5 * FQ12_SIZE;
+    final int fu = 6 * FQ12_SIZE;
+    final int fu2 = 7 * FQ12_SIZE;
+    final int fu3 = 8 * FQ12_SIZE;
+    final int y3 = 9 * FQ12_SIZE;
+    final int fu2p = 10 * FQ12_SIZE;
+    final int fu3p = 11 * FQ12_SIZE;
+    final int y2 = 12 * FQ12_SIZE;
+    final int power = 13 * FQ12_SIZE;
+
+    // Easy part: a^((p^6 - 1)(p^2 + 1)).
+    MontgomeryFq12.conjugate(e, t1, a, 0);
+    fq12.invert(e, t2, a, 0);
+    fq12.mul(e, t1, e, t1, e, t2);
+    fq12.frobenius(e, t2, e, t1, 2);
+    fq12.mul(e, t1, e, t1, e, t2);
+
+    // Hard part.
+    fq12.frobenius(e, fp, e, t1, 1);
+    fq12.frobenius(e, fp2, e, t1, 2);
+    fq12.frobenius(e, fp3, e, fp2, 1);
+
+    expByU(e, fu, e, t1, power);
+    expByU(e, fu2, e, fu, power);
+    expByU(e, fu3, e, fu2, power);
+
+    fq12.frobenius(e, y3, e, fu, 1);
+    fq12.frobenius(e, fu2p, e, fu2, 1);
+    fq12.frobenius(e, fu3p, e, fu3, 1);
+    fq12.frobenius(e, y2, e, fu2, 2);
+
+    // y0 = fp fp2 fp3, stored in fp
+    fq12.mul(e, fp, e, fp, e, fp2);
+    fq12.mul(e, fp, e, fp, e, fp3);
+    // y1 = conj(t1), stored in t2
+    MontgomeryFq12.conjugate(e, t2, e, t1);
+    // y5 = conj(fu2), stored in fp2
+    MontgomeryFq12.conjugate(e, fp2, e, fu2);
+    // y3 = conj(frobenius(fu))
+    MontgomeryFq12.conjugate(e, y3, e, y3);
+    // y4 = conj(fu fu2p), stored in fu
+    fq12.mul(e, fu, e, fu, e, fu2p);
+    MontgomeryFq12.conjugate(e, fu, e, fu);
+    // y6 = conj(fu3 fu3p), stored in fu3
+    fq12.mul(e, fu3, e, fu3, e, fu3p);
+    MontgomeryFq12.conjugate(e, fu3, e, fu3);
+
+    // t0 = y6^2 y4 y5
+    fq12.sqr(e, t0, e, fu3);
+    fq12.mul(e, t0, e, t0, e, fu);
+    fq12.mul(e, t0, e, t0, e, fp2);
+    // t1 = y3 y5 t0
+    fq12.mul(e, t1, e, y3, e, fp2);
+    fq12.mul(e, t1, e, t1, e, t0);
+    // t0 = t0 y2
+    fq12.mul(e, t0, e, t0, e, y2);
+    // t1 = (t1^2 t0)^2
+    fq12.sqr(e, t1, e, t1);
+    fq12.mul(e, t1, e, t1, e, t0);
+    fq12.sqr(e, t1, e, t1);
+    // t0 = t1 y1, t1 = t1 y0
+    fq12.mul(e, t0, e, t1, e, t2);
+    fq12.mul(e, t1, e, t1, e, fp);
+    // result = t0^2 t1
+    fq12.sqr(e, t0, e, t0);
+    fq12.mul(r, 0, e, t0, e, t1);
+  }
+
+  /** Raises an element to the power u, the parameter of the curve. */
+  private void expByU(
+      final long[] r, final int ro, final long[] a, final int ao, final int scratch) {
+    MontgomeryFq12.copy(r, scratch, a, ao);
+    MontgomeryFq12.copy(r, ro, a, ao);
+    for (int bit = 62 - Long.numberOfLeadingZeros(U); bit >= 0; bit--) {
+      fq12.sqr(r, ro, r, ro);
+      if (((U >>> bit) & 1) != 0) {
+        fq12.mul(r, ro, r, ro, r, scratch);
+      }
+    }
+  }
+}
@@ -54,6 +54,10 @@ public class Fq implements FieldElement<Fq> {
     return BytesValues.trimLeadingZeros(BytesValue.wrap(n.toByteArray()));
   }
 
+  BigInteger toBigInteger() {
+    return n;
+  }
+
   @Override
   public boolean isZero() {
     return n.compareTo(BigInteger.ZERO) == 0;
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the alt_bn128 base field on elements in Montgomery form.
+ *
+ * <p>An element occupies {@link #SIZE} consecutive entries of a {@code long[]}, starting at a given
+ * offset: 32-bit limbs in little-endian order, each held in the low half of a {@code long} so that
+ * limb products and their carries fit in 64 bits. Elements are always fully reduced. Operations
+ * write their result only once all their operands have been read, so results may alias operands.
+ *
+ * <p>Instances hold the scratch space of the multiplication and must not be shared between threads.
+ */
+final class MontgomeryFq {
+
+  static final int SIZE = 8;
+
+  private static final long MASK = 0xFFFFFFFFL;
+  private static final BigInteger MODULUS = FieldElement.FIELD_MODULUS;
+  private static final long[] P = toLimbs(MODULUS);
+  /** -p^-1 mod 2^32. */
+  private static final long P_INVERSE =
+      MODULUS.negate().modInverse(BigInteger.ONE.shiftLeft(32)).longValue();
+  /** R^2 mod p, with R = 2^256, converts integers to Montgomery form. */
+  private static final long[] R_SQUARED = toLimbs(BigInteger.ONE.shiftLeft(512).mod(MODULUS));
+  /** R mod p, the Montgomery form of 1. */
+  private static final long[] ONE = toLimbs(BigInteger.ONE.shiftLeft(256).mod(MODULUS));
+
+  private static final long[] RAW_ONE = toLimbs(BigInteger.ONE);
+  private static final BigInteger INVERSE_EXPONENT = MODULUS.subtract(BigInteger.valueOf(2));
+
+  private final long[] t = new long[SIZE + 2];
+  private final long[] power = new long[SIZE];
+
+  static long[] create(final int elements) {
+    return new long[elements * SIZE];
+  }
+
+  /** Writes the Montgomery form of {@code value}, which must be smaller than the modulus. */
+  void fromBigInteger(final long[] r, final int ro, final BigInteger value) {
+    final long[] limbs = toLimbs(value);
+    mul(r, ro, limbs, 0, R_SQUARED, 0);
+  }
+
+  void fromFq(final long[] r, final int ro, final Fq value) {
+    fromBigInteger(r, ro, value.toBigInteger().mod(MODULUS));
+  }
+
+  BigInteger toBigInteger(final long[] a, final int ao) {
+    final long[] standard = new long[SIZE];
+    mul(standard, 0, a, ao, RAW_ONE, 0);
+    BigInteger result = BigInteger.ZERO;
+    for (int i = SIZE - 1; i >= 0; i--) {
+      result = result.shiftLeft(32).or(BigInteger.valueOf(standard[i]));
+    }
+    return result;
+  }
+
+  static void copy(final long[] r, final int ro, final long[] a, final int ao) {
+    System.arraycopy(a, ao, r, ro, SIZE);
+  }
+
+  static void setZero(final long[] r, final int ro) {
+    for (int i = 0; i < SIZE; i++) {
+      r[ro + i] = 0;
+    }
+  }
+
+  static void setOne(final long[] r, final int ro) {
+    System.arraycopy(ONE, 0, r, ro, SIZE);
+  }
+
+  static boolean isZero(final long[] a, final int ao) {
+    long bits = 0;
+    for (int i = 0; i < SIZE; i++) {
+      bits |= a[ao + i];
+    }
+    return bits == 0;
+  }
+
+  static boolean equal(final long[] a, final int ao, final long[] b, final int bo) {
+    for (int i = 0; i < SIZE; i++) {
+      if (a[ao + i] != b[bo + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void add(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    long carry = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long sum = a[ao + i] + b[bo + i] + carry;
+      r[ro + i] = sum & MASK;
+      carry = sum >>> 32;
+    }
+    // The modulus is below 2^254, so the sum never carries out of the top limb.
+    reduceOnce(r, ro);
+  }
+
+  static void dbl(final long[] r, final int ro, final long[] a, final int ao) {
+    add(r, ro, a, ao, a, ao);
+  }
+
+  static void sub(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    long borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long difference = a[ao + i] - b[bo + i] - borrow;
+      r[ro + i] = difference & MASK;
+      borrow = difference >>> 63;
+    }
+    if (borrow != 0) {
+      long carry = 0;
+      for (int i = 0; i < SIZE; i++) {
+        final long sum = r[ro + i] + P[i] + carry;
+        r[ro + i] = sum & MASK;
+        carry = sum >>> 32;
+      }
+    }
+  }
+
+  static void negate(final long[] r, final int ro, final long[] a, final int ao) {
+    if (isZero(a, ao)) {
+      setZero(r, ro);
+      return;
+    }
+    long borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long difference = P[i] - a[ao + i] - borrow;
+      r[ro + i] = difference & MASK;
+      borrow = difference >>> 63;
+    }
+  }
+
+  /** Halves an element, which is the same operation in and out of Montgomery form. */
+  static void half(final long[] r, final int ro, final long[] a, final int ao) {
+    if ((a[ao] & 1) == 0) {
+      for (int i = 0; i < SIZE - 1; i++) {
+        r[ro + i] = (a[ao + i] >>> 1) | ((a[ao + i + 1] << 31) & MASK);
+      }
+      r[ro + SIZE - 1] = a[ao + SIZE - 1] >>> 1;
+      return;
+    }
+    // a + p is even and, as p < 2^254, still fits in 256 bits.
+    long carry = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long sum = a[ao + i] + P[i] + carry;
+      r[ro + i] = sum & MASK;
+      carry = sum >>> 32;
+    }
+    for (int i = 0; i < SIZE - 1; i++) {
+      r[ro + i] = (r[ro + i] >>> 1) | ((r[ro + i + 1] << 31) & MASK);
+    }
+    r[ro + SIZE - 1] >>>= 1;
+  }
+
+  /** Multiplies by a small non-negative integer with repeated additions. */
+  static void mulSmall(final long[] r, final int ro, final long[] a, final int ao, final int n) {
+    long carry = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long product = a[ao + i] * n + carry;
+      r[ro + i] = product & MASK;
+      carry = product >>> 32;
+    }
+    // r = carry * 2^256 + low limbs; fold the carry back in by subtracting multiples of p.
+    while (carry != 0 || compareToModulus(r, ro) >= 0) {
+      long borrow = 0;
+      for (int i = 0; i < SIZE; i++) {
+        final long difference = r[ro + i] - P[i] - borrow;
+        r[ro + i] = difference & MASK;
+        borrow = difference >>> 63;
+      }
+      carry -= borrow;
+    }
+  }
+
+  /** Montgomery multiplication with the coarsely integrated operand scanning method. */
+  void mul(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    final long[] t = this.t;
+    for (int i = 0; i < t.length; i++) {
+      t[i] = 0;
+    }
+    for (int i = 0; i < SIZE; i++) {
+      final long bi = b[bo + i];
+      long carry = 0;
+      for (int j = 0; j < SIZE; j++) {
+        final long sum = t[j] + a[ao + j] * bi + carry;
+        t[j] = sum & MASK;
+        carry = sum >>> 32;
+      }
+      long sum = t[SIZE] + carry;
+      t[SIZE] = sum & MASK;
+      t[SIZE + 1] = sum >>> 32;
+
+      final long m = (t[0] * P_INVERSE) & MASK;
+      sum = t[0] + m * P[0];
+      carry = sum >>> 32;
+      for (int j = 1; j < SIZE; j++) {
+        sum = t[j] + m * P[j] + carry;
+        t[j - 1] = sum & MASK;
+        carry = sum >>> 32;
+      }
+      sum = t[SIZE] + carry;
+      t[SIZE - 1] = sum & MASK;
+      t[SIZE] = t[SIZE + 1] + (sum >>> 32);
+    }
+    System.arraycopy(t, 0, r, ro, SIZE);
+    // The result is below 2p, which is below 2^255, so t[SIZE] is always zero here.
+    reduceOnce(r, ro);
+  }
+
+  void sqr(final long[] r, final int ro, final long[] a, final int ao) {
+    mul(r, ro, a, ao, a, ao);
+  }
+
+  /** Inverts a non-zero element using Fermat's little theorem. */
+  void invert(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] power = this.power;
+    setOne(power, 0);
+    for (int bit = INVERSE_EXPONENT.bitLength() - 1; bit >= 0; bit--) {
+      sqr(power, 0, power, 0);
+      if (INVERSE_EXPONENT.testBit(bit)) {
+        mul(power, 0, power, 0, a, ao);
+      }
+    }
+    copy(r, ro, power, 0);
+  }
+
+  private static void reduceOnce(final long[] r, final int ro) {
+    if (compareToModulus(r, ro) < 0) {
+      return;
+    }
+    long borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long difference = r[ro + i] - P[i] - borrow;
+      r[ro + i] = difference & MASK;
+      borrow = difference >>> 63;
+    }
+  }
+
+  private static int compareToModulus(final long[] a, final int ao) {
+    for (int i = SIZE - 1; i >= 0; i--) {
+      if (a[ao + i] != P[i]) {
+        return a[ao + i] < P[i] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private static long[] toLimbs(final BigInteger value) {
+    final long[] limbs = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      limbs[i] = value.shiftRight(32 * i).longValue() & MASK;
+    }
+    return limbs;
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq2.FQ2_SIZE;
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq6.FQ6_SIZE;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in Fq12 = Fq6[w] / (w^2 - v) on elements laid out as their two {@link MontgomeryFq6}
+ * coefficients, {@code c0 + c1 w}, one after the other.
+ *
+ * <p>Seen as a polynomial in w over Fq2, the coefficient of w^k is found at {@code SLOTS[k]}, as
+ * w^2 = v. Instances hold scratch space and must not be shared between threads.
+ */
+final class MontgomeryFq12 {
+
+  static final int FQ12_SIZE = 2 * FQ6_SIZE;
+
+  static final int C0 = 0;
+  static final int C1 = FQ6_SIZE;
+
+  /** The offset of the Fq2 coefficient of w^k, for k from 0 to 5. */
+  private static final int[] SLOTS = {
+    C0 + MontgomeryFq6.C0,
+    C1 + MontgomeryFq6.C0,
+    C0 + MontgomeryFq6.C1,
+    C1 + MontgomeryFq6.C1,
+    C0 + MontgomeryFq6.C2,
+    C1 + MontgomeryFq6.C2
+  };
+
+  /**
+   * FROBENIUS_COEFFICIENTS[n - 1] holds, for k from 0 to 5, xi^(k (p^n - 1) / 6) = w^(k (p^n - 1))
+   * which the coefficient of w^k is multiplied by when raising an element to the power p^n.
+   */
+  static final long[][] FROBENIUS_COEFFICIENTS = new long[3][];
+
+  private static final int T0 = 0;
+  private static final int T1 = FQ6_SIZE;
+  private static final int X = 2 * FQ6_SIZE;
+  private static final int Y = 3 * FQ6_SIZE;
+
+  static {
+    final MontgomeryFq2 fq2 = new MontgomeryFq2(new MontgomeryFq());
+    final Fq2 xi = Fq2.create(9, 1);
+    final BigInteger p = FieldElement.FIELD_MODULUS;
+    for (int n = 1; n <= 3; n++) {
+      final BigInteger exponent = p.pow(n).subtract(BigInteger.ONE).divide(BigInteger.valueOf(6));
+      final long[] coefficients = MontgomeryFq2.create(6);
+      for (int k = 0; k < 6; k++) {
+        fq2.fromFq2(coefficients, k * FQ2_SIZE, xi.power(exponent.multiply(BigInteger.valueOf(k))));
+      }
+      FROBENIUS_COEFFICIENTS[n - 1] = coefficients;
+    }
+  }
+
+  final MontgomeryFq6 fq6;
+  private final MontgomeryFq2 fq2;
+  private final long[] s = new long[4 * FQ6_SIZE];
+
+  MontgomeryFq12(final MontgomeryFq6 fq6) {
+    this.fq6 = fq6;
+    this.fq2 = fq6.fq2;
+  }
+
+  static long[] create(final int elements) {
+    return new long[elements * FQ12_SIZE];
+  }
+
+  /** Converts an element of the reference implementation, which uses a different basis. */
+  void fromFq12(final long[] r, final int ro, final Fq12 value) {
+    // The reference implementation works modulo w^12 - 18 w^6 + 82, where i = w^6 - 9. The
+    // coefficient a + b i of w^k is therefore found as a - 9 b at w^k and b at w^(k + 6).
+    final Fq[] coefficients = value.getCoefficients();
+    for (int k = 0; k < 6; k++) {
+      final Fq b = coefficients[k + 6];
+      final Fq a = coefficients[k].add(b.multiply(9));
+      fq2.fromFq2(r, ro + SLOTS[k], Fq2.create(a.toBigInteger(), b.toBigInteger()));
+    }
+  }
+
+  static void copy(final long[] r, final int ro, final long[] a, final int ao) {
+    System.arraycopy(a, ao, r, ro, FQ12_SIZE);
+  }
+
+  static void setOne(final long[] r, final int ro) {
+    MontgomeryFq6.setOne(r, ro + C0);
+    MontgomeryFq6.setZero(r, ro + C1);
+  }
+
+  static boolean equal(final long[] a, final int ao, final long[] b, final int bo) {
+    for (int i = 0; i < FQ12_SIZE; i++) {
+      if (a[ao + i] != b[bo + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isOne(final long[] a, final int ao) {
+    final long[] one = create(1);
+    setOne(one, 0);
+    return equal(a, ao, one, 0);
+  }
+
+  /** Conjugates over Fq6, which raises the element to the power p^6. */
+  static void conjugate(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq6.copy(r, ro + C0, a, ao + C0);
+    MontgomeryFq6.negate(r, ro + C1, a, ao + C1);
+  }
+
+  void mul(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    final long[] s = this.s;
+    // c0 = a0 b0 + v a1 b1, c1 = (a0 + a1)(b0 + b1) - a0 b0 - a1 b1
+    fq6.mul(s, T0, a, ao + C0, b, bo + C0);
+    fq6.mul(s, T1, a, ao + C1, b, bo + C1);
+    MontgomeryFq6.add(s, X, a, ao + C0, a, ao + C1);
+    MontgomeryFq6.add(s, Y, b, bo + C0, b, bo + C1);
+    fq6.mul(s, X, s, X, s, Y);
+    MontgomeryFq6.sub(s, X, s, X, s, T0);
+    MontgomeryFq6.sub(r, ro + C1, s, X, s, T1);
+    fq6.mulByV(s, T1, s, T1);
+    MontgomeryFq6.add(r, ro + C0, s, T0, s, T1);
+  }
+
+  void sqr(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // c0 = (a0 + a1)(a0 + v a1) - t - v t, c1 = 2 t, with t = a0 a1
+    fq6.mul(s, T0, a, ao + C0, a, ao + C1);
+    MontgomeryFq6.add(s, X, a, ao + C0, a, ao + C1);
+    fq6.mulByV(s, Y, a, ao + C1);
+    MontgomeryFq6.add(s, Y, s, Y, a, ao + C0);
+    fq6.mul(s, X, s, X, s, Y);
+    fq6.mulByV(s, T1, s, T0);
+    MontgomeryFq6.sub(s, X, s, X, s, T0);
+    MontgomeryFq6.sub(r, ro + C0, s, X, s, T1);
+    MontgomeryFq6.dbl(r, ro + C1, s, T0);
+  }
+
+  /**
+   * Multiplies by the sparse element {@code l0 + l1 w + l3 w^3} produced by the line functions of
+   * the Miller loop, where the three coefficients are consecutive elements of Fq2 in {@code line}.
+   */
+  void mulByLine(final long[] r, final int ro, final long[] line, final int lo) {
+    final long[] s = this.s;
+    final int l0 = lo;
+    final int l1 = lo + FQ2_SIZE;
+    final int l3 = lo + 2 * FQ2_SIZE;
+    // The line is L0 + L1 w with L0 = l0 and L1 = l1 + l3 v.
+    fq6.mulByFq2(s, T0, r, ro + C0, line, l0);
+    fq6.mulBy01(s, T1, r, ro + C1, line, l1, line, l3);
+    MontgomeryFq6.add(s, X, r, ro + C0, r, ro + C1);
+    MontgomeryFq2.add(s, Y, line, l0, line, l1);
+    fq6.mulBy01(s, X, s, X, s, Y, line, l3);
+    MontgomeryFq6.sub(s, X, s, X, s, T0);
+    MontgomeryFq6.sub(r, ro + C1, s, X, s, T1);
+    fq6.mulByV(s, T1, s, T1);
+    MontgomeryFq6.add(r, ro + C0, s, T0, s, T1);
+  }
+
+  void invert(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // (a0 + a1 w)^-1 = (a0 - a1 w) / (a0^2 - v a1^2)
+    fq6.sqr(s, T0, a, ao + C0);
+    fq6.sqr(s, T1, a, ao + C1);
+    fq6.mulByV(s, T1, s, T1);
+    MontgomeryFq6.sub(s, T0, s, T0, s, T1);
+    fq6.invert(s, T0, s, T0);
+    fq6.mul(r, ro + C0, a, ao + C0, s, T0);
+    fq6.mul(s, T1, a, ao + C1, s, T0);
+    MontgomeryFq6.negate(r, ro + C1, s, T1);
+  }
+
+  /** Raises an element to the power p^n, for n from 1 to 3. */
+  void frobenius(final long[] r, final int ro, final long[] a, final int ao, final int n) {
+    final long[] coefficients = FROBENIUS_COEFFICIENTS[n - 1];
+    final boolean conjugate = (n & 1) == 1;
+    for (int k = 0; k < 6; k++) {
+      final int slot = SLOTS[k];
+      if (conjugate) {
+        MontgomeryFq2.conjugate(r, ro + slot, a, ao + slot);
+      } else {
+        MontgomeryFq2.copy(r, ro + slot, a, ao + slot);
+      }
+      if (k != 0) {
+        fq2.mul(r, ro + slot, r, ro + slot, coefficients, k * FQ2_SIZE);
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq.SIZE;
+
+/**
+ * Arithmetic in Fq2 = Fq[i] / (i^2 + 1) on elements laid out as their two {@link MontgomeryFq}
+ * coefficients, {@code c0 + c1 i}, one after the other.
+ *
+ * <p>Instances hold scratch space and must not be shared between threads.
+ */
+final class MontgomeryFq2 {
+
+  static final int FQ2_SIZE = 2 * SIZE;
+
+  final MontgomeryFq fq;
+  private final long[] s = MontgomeryFq.create(4);
+
+  MontgomeryFq2(final MontgomeryFq fq) {
+    this.fq = fq;
+  }
+
+  static long[] create(final int elements) {
+    return new long[elements * FQ2_SIZE];
+  }
+
+  void fromFq2(final long[] r, final int ro, final Fq2 value) {
+    final Fq[] coefficients = value.getCoefficients();
+    fq.fromFq(r, ro, coefficients[0]);
+    fq.fromFq(r, ro + SIZE, coefficients[1]);
+  }
+
+  Fq2 toFq2(final long[] a, final int ao) {
+    return Fq2.create(fq.toBigInteger(a, ao), fq.toBigInteger(a, ao + SIZE));
+  }
+
+  static void copy(final long[] r, final int ro, final long[] a, final int ao) {
+    System.arraycopy(a, ao, r, ro, FQ2_SIZE);
+  }
+
+  static void setZero(final long[] r, final int ro) {
+    MontgomeryFq.setZero(r, ro);
+    MontgomeryFq.setZero(r, ro + SIZE);
+  }
+
+  static void setOne(final long[] r, final int ro) {
+    MontgomeryFq.setOne(r, ro);
+    MontgomeryFq.setZero(r, ro + SIZE);
+  }
+
+  static boolean isZero(final long[] a, final int ao) {
+    return MontgomeryFq.isZero(a, ao) && MontgomeryFq.isZero(a, ao + SIZE);
+  }
+
+  static boolean equal(final long[] a, final int ao, final long[] b, final int bo) {
+    return MontgomeryFq.equal(a, ao, b, bo) && MontgomeryFq.equal(a, ao + SIZE, b, bo + SIZE);
+  }
+
+  static void add(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    MontgomeryFq.add(r, ro, a, ao, b, bo);
+    MontgomeryFq.add(r, ro + SIZE, a, ao + SIZE, b, bo + SIZE);
+  }
+
+  static void sub(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    MontgomeryFq.sub(r, ro, a, ao, b, bo);
+    MontgomeryFq.sub(r, ro + SIZE, a, ao + SIZE, b, bo + SIZE);
+  }
+
+  static void dbl(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq.dbl(r, ro, a, ao);
+    MontgomeryFq.dbl(r, ro + SIZE, a, ao + SIZE);
+  }
+
+  static void half(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq.half(r, ro, a, ao);
+    MontgomeryFq.half(r, ro + SIZE, a, ao + SIZE);
+  }
+
+  static void negate(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq.negate(r, ro, a, ao);
+    MontgomeryFq.negate(r, ro + SIZE, a, ao + SIZE);
+  }
+
+  static void conjugate(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq.copy(r, ro, a, ao);
+    MontgomeryFq.negate(r, ro + SIZE, a, ao + SIZE);
+  }
+
+  static void mulSmall(final long[] r, final int ro, final long[] a, final int ao, final int n) {
+    MontgomeryFq.mulSmall(r, ro, a, ao, n);
+    MontgomeryFq.mulSmall(r, ro + SIZE, a, ao + SIZE, n);
+  }
+
+  /** Multiplies by the non-residue xi = 9 + i used to build Fq6. */
+  void mulByXi(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // (9 + i)(a0 + a1 i) = (9 a0 - a1) + (9 a1 + a0) i
+    MontgomeryFq.mulSmall(s, 0, a, ao, 9);
+    MontgomeryFq.mulSmall(s, SIZE, a, ao + SIZE, 9);
+    MontgomeryFq.sub(s, 0, s, 0, a, ao + SIZE);
+    MontgomeryFq.add(r, ro + SIZE, s, SIZE, a, ao);
+    MontgomeryFq.copy(r, ro, s, 0);
+  }
+
+  /** Multiplies by an element of the base field. */
+  void mulByFq(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    fq.mul(r, ro, a, ao, b, bo);
+    fq.mul(r, ro + SIZE, a, ao + SIZE, b, bo);
+  }
+
+  void mul(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    final long[] s = this.s;
+    // Karatsuba: (a0 + a1 i)(b0 + b1 i) = (a0 b0 - a1 b1) + ((a0 + a1)(b0 + b1) - a0 b0 - a1 b1) i
+    fq.mul(s, 0, a, ao, b, bo);
+    fq.mul(s, SIZE, a, ao + SIZE, b, bo + SIZE);
+    MontgomeryFq.add(s, 2 * SIZE, a, ao, a, ao + SIZE);
+    MontgomeryFq.add(s, 3 * SIZE, b, bo, b, bo + SIZE);
+    fq.mul(s, 2 * SIZE, s, 2 * SIZE, s, 3 * SIZE);
+    MontgomeryFq.sub(s, 2 * SIZE, s, 2 * SIZE, s, 0);
+    MontgomeryFq.sub(r, ro + SIZE, s, 2 * SIZE, s, SIZE);
+    MontgomeryFq.sub(r, ro, s, 0, s, SIZE);
+  }
+
+  void sqr(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // (a0 + a1 i)^2 = (a0 + a1)(a0 - a1) + 2 a0 a1 i
+    MontgomeryFq.add(s, 0, a, ao, a, ao + SIZE);
+    MontgomeryFq.sub(s, SIZE, a, ao, a, ao + SIZE);
+    fq.mul(s, 2 * SIZE, a, ao, a, ao + SIZE);
+    fq.mul(r, ro, s, 0, s, SIZE);
+    MontgomeryFq.dbl(r, ro + SIZE, s, 2 * SIZE);
+  }
+
+  void invert(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // (a0 + a1 i)^-1 = (a0 - a1 i) / (a0^2 + a1^2)
+    fq.sqr(s, 0, a, ao);
+    fq.sqr(s, SIZE, a, ao + SIZE);
+    MontgomeryFq.add(s, 0, s, 0, s, SIZE);
+    fq.invert(s, 0, s, 0);
+    fq.mul(r, ro, a, ao, s, 0);
+    MontgomeryFq.negate(s, SIZE, a, ao + SIZE);
+    fq.mul(r, ro + SIZE, s, SIZE, s, 0);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq2.FQ2_SIZE;
+
+/**
+ * Arithmetic in Fq6 = Fq2[v] / (v^3 - xi), with xi = 9 + i, on elements laid out as their three
+ * {@link MontgomeryFq2} coefficients, {@code c0 + c1 v + c2 v^2}, one after the other.
+ *
+ * <p>Instances hold scratch space and must not be shared between threads.
+ */
+final class MontgomeryFq6 {
+
+  static final int FQ6_SIZE = 3 * FQ2_SIZE;
+
+  static final int C0 = 0;
+  static final int C1 = FQ2_SIZE;
+  static final int C2 = 2 * FQ2_SIZE;
+
+  private static final int T0 = 0;
+  private static final int T1 = FQ2_SIZE;
+  private static final int T2 = 2 * FQ2_SIZE;
+  private static final int R0 = 3 * FQ2_SIZE;
+  private static final int R1 = 4 * FQ2_SIZE;
+  private static final int X = 5 * FQ2_SIZE;
+  private static final int Y = 6 * FQ2_SIZE;
+
+  final MontgomeryFq2 fq2;
+  private final long[] s = MontgomeryFq2.create(7);
+
+  MontgomeryFq6(final MontgomeryFq2 fq2) {
+    this.fq2 = fq2;
+  }
+
+  static void copy(final long[] r, final int ro, final long[] a, final int ao) {
+    System.arraycopy(a, ao, r, ro, FQ6_SIZE);
+  }
+
+  static void setZero(final long[] r, final int ro) {
+    for (int i = 0; i < FQ6_SIZE; i++) {
+      r[ro + i] = 0;
+    }
+  }
+
+  static void setOne(final long[] r, final int ro) {
+    setZero(r, ro);
+    MontgomeryFq2.setOne(r, ro + C0);
+  }
+
+  static void add(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    MontgomeryFq2.add(r, ro + C0, a, ao + C0, b, bo + C0);
+    MontgomeryFq2.add(r, ro + C1, a, ao + C1, b, bo + C1);
+    MontgomeryFq2.add(r, ro + C2, a, ao + C2, b, bo + C2);
+  }
+
+  static void sub(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    MontgomeryFq2.sub(r, ro + C0, a, ao + C0, b, bo + C0);
+    MontgomeryFq2.sub(r, ro + C1, a, ao + C1, b, bo + C1);
+    MontgomeryFq2.sub(r, ro + C2, a, ao + C2, b, bo + C2);
+  }
+
+  static void dbl(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq2.dbl(r, ro + C0, a, ao + C0);
+    MontgomeryFq2.dbl(r, ro + C1, a, ao + C1);
+    MontgomeryFq2.dbl(r, ro + C2, a, ao + C2);
+  }
+
+  static void negate(final long[] r, final int ro, final long[] a, final int ao) {
+    MontgomeryFq2.negate(r, ro + C0, a, ao + C0);
+    MontgomeryFq2.negate(r, ro + C1, a, ao + C1);
+    MontgomeryFq2.negate(r, ro + C2, a, ao + C2);
+  }
+
+  /** Multiplies by v: (c0 + c1 v + c2 v^2) v = xi c2 + c0 v + c1 v^2. */
+  void mulByV(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    fq2.mulByXi(s, X, a, ao + C2);
+    MontgomeryFq2.copy(r, ro + C2, a, ao + C1);
+    MontgomeryFq2.copy(r, ro + C1, a, ao + C0);
+    MontgomeryFq2.copy(r, ro + C0, s, X);
+  }
+
+  /** Multiplies by an element of Fq2. */
+  void mulByFq2(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    fq2.mul(r, ro + C0, a, ao + C0, b, bo);
+    fq2.mul(r, ro + C1, a, ao + C1, b, bo);
+    fq2.mul(r, ro + C2, a, ao + C2, b, bo);
+  }
+
+  void mul(
+      final long[] r, final int ro, final long[] a, final int ao, final long[] b, final int bo) {
+    final long[] s = this.s;
+    fq2.mul(s, T0, a, ao + C0, b, bo + C0);
+    fq2.mul(s, T1, a, ao + C1, b, bo + C1);
+    fq2.mul(s, T2, a, ao + C2, b, bo + C2);
+
+    // c0 = xi ((a1 + a2)(b1 + b2) - t1 - t2) + t0
+    MontgomeryFq2.add(s, X, a, ao + C1, a, ao + C2);
+    MontgomeryFq2.add(s, Y, b, bo + C1, b, bo + C2);
+    fq2.mul(s, R0, s, X, s, Y);
+    MontgomeryFq2.sub(s, R0, s, R0, s, T1);
+    MontgomeryFq2.sub(s, R0, s, R0, s, T2);
+    fq2.mulByXi(s, R0, s, R0);
+    MontgomeryFq2.add(s, R0, s, R0, s, T0);
+
+    // c1 = (a0 + a1)(b0 + b1) - t0 - t1 + xi t2
+    MontgomeryFq2.add(s, X, a, ao + C0, a, ao + C1);
+    MontgomeryFq2.add(s, Y, b, bo + C0, b, bo + C1);
+    fq2.mul(s, R1, s, X, s, Y);
+    MontgomeryFq2.sub(s, R1, s, R1, s, T0);
+    MontgomeryFq2.sub(s, R1, s, R1, s, T1);
+    fq2.mulByXi(s, X, s, T2);
+    MontgomeryFq2.add(s, R1, s, R1, s, X);
+
+    // c2 = (a0 + a2)(b0 + b2) - t0 - t2 + t1
+    MontgomeryFq2.add(s, X, a, ao + C0, a, ao + C2);
+    MontgomeryFq2.add(s, Y, b, bo + C0, b, bo + C2);
+    fq2.mul(s, X, s, X, s, Y);
+    MontgomeryFq2.sub(s, X, s, X, s, T0);
+    MontgomeryFq2.sub(s, X, s, X, s, T2);
+    MontgomeryFq2.add(r, ro + C2, s, X, s, T1);
+    MontgomeryFq2.copy(r, ro + C0, s, R0);
+    MontgomeryFq2.copy(r, ro + C1, s, R1);
+  }
+
+  void sqr(final long[] r, final int ro, final long[] a, final int ao) {
+    mul(r, ro, a, ao, a, ao);
+  }
+
+  /**
+   * Multiplies by the sparse element {@code b0 + b1 v}, as found in the line functions of the
+   * Miller loop.
+   */
+  void mulBy01(
+      final long[] r,
+      final int ro,
+      final long[] a,
+      final int ao,
+      final long[] b0,
+      final int b0o,
+      final long[] b1,
+      final int b1o) {
+    final long[] s = this.s;
+    fq2.mul(s, T0, a, ao + C0, b0, b0o);
+    fq2.mul(s, T1, a, ao + C1, b1, b1o);
+
+    // c0 = xi a2 b1 + t0
+    fq2.mul(s, R0, a, ao + C2, b1, b1o);
+    fq2.mulByXi(s, R0, s, R0);
+    MontgomeryFq2.add(s, R0, s, R0, s, T0);
+
+    // c1 = (a0 + a1)(b0 + b1) - t0 - t1
+    MontgomeryFq2.add(s, X, a, ao + C0, a, ao + C1);
+    MontgomeryFq2.add(s, Y, b0, b0o, b1, b1o);
+    fq2.mul(s, R1, s, X, s, Y);
+    MontgomeryFq2.sub(s, R1, s, R1, s, T0);
+    MontgomeryFq2.sub(s, R1, s, R1, s, T1);
+
+    // c2 = a2 b0 + t1
+    fq2.mul(s, X, a, ao + C2, b0, b0o);
+    MontgomeryFq2.add(r, ro + C2, s, X, s, T1);
+    MontgomeryFq2.copy(r, ro + C0, s, R0);
+    MontgomeryFq2.copy(r, ro + C1, s, R1);
+  }
+
+  void invert(final long[] r, final int ro, final long[] a, final int ao) {
+    final long[] s = this.s;
+    // c0 = a0^2 - xi a1 a2
+    fq2.sqr(s, R0, a, ao + C0);
+    fq2.mul(s, X, a, ao + C1, a, ao + C2);
+    fq2.mulByXi(s, X, s, X);
+    MontgomeryFq2.sub(s, R0, s, R0, s, X);
+    // c1 = xi a2^2 - a0 a1
+    fq2.sqr(s, R1, a, ao + C2);
+    fq2.mulByXi(s, R1, s, R1);
+    fq2.mul(s, X, a, ao + C0, a, ao + C1);
+    MontgomeryFq2.sub(s, R1, s, R1, s, X);
+    // c2 = a1^2 - a0 a2
+    fq2.sqr(s, T2, a, ao + C1);
+    fq2.mul(s, X, a, ao + C0, a, ao + C2);
+    MontgomeryFq2.sub(s, T2, s, T2, s, X);
+    // t = (a0 c0 + xi (a2 c1 + a1 c2))^-1
+    fq2.mul(s, X, a, ao + C2, s, R1);
+    fq2.mul(s, Y, a, ao + C1, s, T2);
+    MontgomeryFq2.add(s, X, s, X, s, Y);
+    fq2.mulByXi(s, X, s, X);
+    fq2.mul(s, Y, a, ao + C0, s, R0);
+    MontgomeryFq2.add(s, X, s, X, s, Y);
+    fq2.invert(s, X, s, X);
+
+    fq2.mul(r, ro + C0, s, R0, s, X);
+    fq2.mul(r, ro + C1, s, R1, s, X);
+    fq2.mul(r, ro + C2, s, T2, s, X);
+  }
+}
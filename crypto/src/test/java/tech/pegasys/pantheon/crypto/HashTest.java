@@ -16,6 +16,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 
 import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 
 import org.junit.Test;
 
@@ -35,4 +36,16 @@ public class HashTest {
     final BytesValue resultCow = Hash.keccak256(BytesValue.wrap("cow".getBytes(UTF_8)));
     assertEquals(BytesValue.fromHexString(cowKeccak256), resultCow);
   }
+
+  @Test
+  public void keccak256HashIntoProvidedResult() {
+    final MutableBytes32 result = MutableBytes32.create();
+
+    Hash.keccak256(BytesValue.wrap("horse".getBytes(UTF_8)), result);
+    assertEquals(BytesValue.fromHexString(horseKeccak256), result);
+
+    final byte[] input = "a cow".getBytes(UTF_8);
+    Hash.keccak256(input, 2, 3, result);
+    assertEquals(BytesValue.fromHexString(cowKeccak256), result);
+  }
 }
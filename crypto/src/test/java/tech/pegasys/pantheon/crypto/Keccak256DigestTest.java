@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Keccak256DigestTest {
+
+  private final Random random = new Random(1);
+  private final Keccak256Digest digest = new Keccak256Digest();
+
+  @Test
+  public void shouldHashEmptyInput() {
+    assertThat(BytesValue.wrap(digest.digest()))
+        .isEqualTo(
+            BytesValue.fromHexString(
+                "0xc5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470"));
+  }
+
+  @Test
+  public void shouldMatchBouncyCastleAroundBlockBoundaries() throws Exception {
+    for (int length = 0; length <= 3 * 136 + 1; length++) {
+      final byte[] input = randomBytes(length);
+      assertThat(digest.digest(input)).isEqualTo(reference(input));
+    }
+  }
+
+  @Test
+  public void shouldMatchBouncyCastleWhenFedIncrementally() throws Exception {
+    for (int i = 0; i < 200; i++) {
+      final byte[] input = randomBytes(random.nextInt(1024));
+      int position = 0;
+      while (position < input.length) {
+        final int length = Math.min(random.nextInt(200), input.length - position);
+        if (length == 1) {
+          digest.update(input[position]);
+        } else {
+          digest.update(input, position, length);
+        }
+        position += length;
+      }
+      assertThat(digest.digest()).isEqualTo(reference(input));
+    }
+  }
+
+  @Test
+  public void shouldHashByteBuffers() throws Exception {
+    final byte[] input = randomBytes(1000);
+    final ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+    direct.put(input).flip();
+
+    digest.update(direct);
+
+    assertThat(digest.digest()).isEqualTo(reference(input));
+  }
+
+  @Test
+  public void shouldWriteDigestToMutableBytes32AndReset() throws Exception {
+    final byte[] input = randomBytes(300);
+    final MutableBytes32 result = MutableBytes32.create();
+
+    digest.update(input);
+    digest.digest(result);
+    assertThat(result.extractArray()).isEqualTo(reference(input));
+
+    digest.update(input);
+    assertThat(digest.digest()).isEqualTo(reference(input));
+  }
+
+  private byte[] randomBytes(final int length) {
+    final byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] reference(final byte[] input) throws Exception {
+    final MessageDigest reference = BouncyCastleMessageDigestFactory.create(Hash.KECCAK256_ALG);
+    return reference.digest(input);
+  }
+}
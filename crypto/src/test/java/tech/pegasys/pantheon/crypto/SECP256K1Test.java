@@ -28,7 +28,12 @@ import java.math.BigInteger;
 import java.net.URL;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 import com.google.common.io.Resources;
 import org.junit.BeforeClass;
@@ -210,6 +215,63 @@ public class SECP256K1Test {
     assertEquals(keyPair.getPublicKey().toString(), recoveredPublicKey.toString());
   }
 
+  @Test
+  public void recoverAllPublicKeysFromSignatures() {
+    final List<SECP256K1.KeyPair> keyPairs = new ArrayList<>();
+    final List<Bytes32> dataHashes = new ArrayList<>();
+    final List<SECP256K1.Signature> signatures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      final SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+      final Bytes32 dataHash = keccak256(BytesValue.of(i));
+      keyPairs.add(keyPair);
+      dataHashes.add(dataHash);
+      signatures.add(SECP256K1.sign(dataHash, keyPair));
+    }
+
+    final List<Optional<SECP256K1.PublicKey>> recoveredPublicKeys =
+        SECP256K1.recoverAll(dataHashes, signatures);
+
+    assertEquals(keyPairs.size(), recoveredPublicKeys.size());
+    for (int i = 0; i < keyPairs.size(); i++) {
+      assertEquals(Optional.of(keyPairs.get(i).getPublicKey()), recoveredPublicKeys.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void recoverAllFailsLikeSingleRecoveryForInvalidPoints() {
+    final Bytes32 dataHash = keccak256(BytesValue.of(1));
+    final SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+    final List<Bytes32> dataHashes = Collections.nCopies(10, dataHash);
+    final List<SECP256K1.Signature> signatures =
+        new ArrayList<>(Collections.nCopies(10, SECP256K1.sign(dataHash, keyPair)));
+    signatures.set(5, signatureWithoutCurvePoint());
+
+    SECP256K1.recoverAll(dataHashes, signatures);
+  }
+
+  /** Returns a signature whose r value is not the x coordinate of a point on the curve. */
+  private SECP256K1.Signature signatureWithoutCurvePoint() {
+    final Bytes32 dataHash = keccak256(BytesValue.of(1));
+    for (int r = 1; ; r++) {
+      final SECP256K1.Signature signature =
+          SECP256K1.Signature.create(BigInteger.valueOf(r), BigInteger.ONE, (byte) 0);
+      try {
+        SECP256K1.PublicKey.recoverFromSignature(dataHash, signature);
+      } catch (final IllegalArgumentException e) {
+        return signature;
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void recoverAllRequiresOneDataHashPerSignature() {
+    final SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+    final Bytes32 dataHash = keccak256(BytesValue.of(1));
+    SECP256K1.recoverAll(
+        Collections.singletonList(dataHash),
+        Arrays.asList(SECP256K1.sign(dataHash, keyPair), SECP256K1.sign(dataHash, keyPair)));
+  }
+
   @Test
   public void signatureGeneration() {
     final SECP256K1.PrivateKey privateKey =
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Secp256k1FieldTest {
+
+  private static final BigInteger P = SECP256K1.CURVE.getCurve().getField().getCharacteristic();
+
+  private final Random random = new Random(1);
+  private final Secp256k1Field field = new Secp256k1Field();
+
+  @Test
+  public void shouldMatchBigIntegerArithmetic() {
+    for (int i = 0; i < 2_000; i++) {
+      final BigInteger a = randomElement();
+      final BigInteger b = randomElement();
+      final int[] r = Secp256k1Field.create();
+
+      Secp256k1Field.add(r, toField(a), toField(b));
+      assertThat(toBigInteger(r)).isEqualTo(a.add(b).mod(P));
+
+      Secp256k1Field.sub(r, toField(a), toField(b));
+      assertThat(toBigInteger(r)).isEqualTo(a.subtract(b).mod(P));
+
+      Secp256k1Field.negate(r, toField(a));
+      assertThat(toBigInteger(r)).isEqualTo(a.negate().mod(P));
+
+      Secp256k1Field.mulSmall(r, toField(a), 8);
+      assertThat(toBigInteger(r)).isEqualTo(a.shiftLeft(3).mod(P));
+
+      field.mul(r, toField(a), toField(b));
+      assertThat(toBigInteger(r)).isEqualTo(a.multiply(b).mod(P));
+
+      field.sqr(r, toField(a));
+      assertThat(toBigInteger(r)).isEqualTo(a.multiply(a).mod(P));
+    }
+  }
+
+  @Test
+  public void shouldReduceValuesCloseToModulus() {
+    final BigInteger[] edgeCases = {
+      BigInteger.ZERO,
+      BigInteger.ONE,
+      P.subtract(BigInteger.ONE),
+      P.subtract(BigInteger.valueOf(2)),
+      BigInteger.ONE.shiftLeft(255),
+      BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(977))
+    };
+    for (final BigInteger a : edgeCases) {
+      for (final BigInteger b : edgeCases) {
+        final int[] r = Secp256k1Field.create();
+        Secp256k1Field.add(r, toField(a), toField(b));
+        assertThat(toBigInteger(r)).isEqualTo(a.add(b).mod(P));
+        Secp256k1Field.sub(r, toField(a), toField(b));
+        assertThat(toBigInteger(r)).isEqualTo(a.subtract(b).mod(P));
+        field.mul(r, toField(a), toField(b));
+        assertThat(toBigInteger(r)).isEqualTo(a.multiply(b).mod(P));
+      }
+    }
+  }
+
+  @Test
+  public void shouldInvert() {
+    for (int i = 0; i < 100; i++) {
+      final BigInteger a = randomElement().max(BigInteger.ONE);
+      final int[] r = Secp256k1Field.create();
+      field.invert(r, toField(a));
+      assertThat(toBigInteger(r)).isEqualTo(a.modInverse(P));
+    }
+  }
+
+  @Test
+  public void shouldComputeSquareRootsOfSquaresOnly() {
+    for (int i = 0; i < 100; i++) {
+      final BigInteger a = randomElement();
+      final BigInteger square = a.multiply(a).mod(P);
+      final int[] r = Secp256k1Field.create();
+
+      assertThat(field.sqrt(r, toField(square))).isTrue();
+      assertThat(toBigInteger(r)).isIn(a, P.subtract(a).mod(P));
+    }
+    // -1 is not a square as p = 3 (mod 4).
+    assertThat(field.sqrt(Secp256k1Field.create(), toField(P.subtract(BigInteger.ONE)))).isFalse();
+  }
+
+  @Test
+  public void shouldRoundTripBytes() {
+    final byte[] bytes = new byte[33];
+    random.nextBytes(bytes);
+    bytes[1] = 0x7F;
+    final int[] element = Secp256k1Field.create();
+
+    assertThat(Secp256k1Field.fromBytes(element, bytes, 1)).isTrue();
+    final byte[] encoded = new byte[33];
+    Secp256k1Field.toBytes(element, encoded, 1);
+    encoded[0] = bytes[0];
+    assertThat(encoded).isEqualTo(bytes);
+  }
+
+  @Test
+  public void shouldRejectBytesNotSmallerThanModulus() {
+    final byte[] bytes = new byte[32];
+    final byte[] p = P.toByteArray();
+    System.arraycopy(p, p.length - 32, bytes, 0, 32);
+
+    assertThat(Secp256k1Field.fromBytes(Secp256k1Field.create(), bytes, 0)).isFalse();
+  }
+
+  private BigInteger randomElement() {
+    return new BigInteger(256, random).mod(P);
+  }
+
+  private static int[] toField(final BigInteger value) {
+    final int[] result = Secp256k1Field.create();
+    for (int i = 0; i < Secp256k1Field.LIMBS; i++) {
+      result[i] = value.shiftRight(i * Integer.SIZE).intValue();
+    }
+    return result;
+  }
+
+  private static BigInteger toBigInteger(final int[] element) {
+    final byte[] bytes = new byte[32];
+    Secp256k1Field.toBytes(element, bytes, 0);
+    return new BigInteger(1, bytes);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class Secp256k1RecoveryTest {
+
+  private static final BigInteger N = SECP256K1.CURVE.getN();
+  private static final BigInteger LAMBDA =
+      new BigInteger("5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+
+  private final Random random = new Random(1);
+  private final Secp256k1Recovery recovery = Secp256k1Recovery.forCurrentThread();
+
+  @Test
+  public void shouldRecoverSignersLikeBouncyCastle() {
+    for (int i = 0; i < 200; i++) {
+      final SECP256K1.KeyPair keyPair =
+          SECP256K1.KeyPair.create(SECP256K1.PrivateKey.create(randomScalar()));
+      final Bytes32 dataHash = randomHash();
+      final SECP256K1.Signature signature = SECP256K1.sign(dataHash, keyPair);
+
+      final BytesValue recovered =
+          recovery.recover(dataHash, signature.getR(), signature.getS(), signature.getRecId());
+
+      assertThat(recovered).isEqualTo(keyPair.getPublicKey().getEncodedBytes());
+    }
+  }
+
+  @Test
+  public void shouldMatchBouncyCastleForArbitrarySignatures() {
+    for (int i = 0; i < 500; i++) {
+      final Bytes32 dataHash = randomHash();
+      final BigInteger r = randomScalar();
+      final BigInteger s = randomScalar();
+      final int recId = random.nextInt(4);
+
+      final Object expected = outcome(() -> bouncyCastle(dataHash, r, s, recId));
+      final Object actual = outcome(() -> recovery.recover(dataHash, r, s, recId));
+
+      assertThat(actual).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void shouldMatchBouncyCastleForSmallAndLargeScalars() {
+    final BigInteger[] scalars = {
+      BigInteger.ONE,
+      BigInteger.valueOf(2),
+      LAMBDA,
+      N.subtract(BigInteger.ONE),
+      N.subtract(LAMBDA),
+      N.shiftRight(1)
+    };
+    final Bytes32 zeroHash = Bytes32.ZERO;
+    for (final BigInteger r : scalars) {
+      for (final BigInteger s : scalars) {
+        for (final Bytes32 dataHash : new Bytes32[] {zeroHash, randomHash()}) {
+          for (int recId = 0; recId < 2; recId++) {
+            final int id = recId;
+            final Object expected = outcome(() -> bouncyCastle(dataHash, r, s, id));
+            final Object actual = outcome(() -> recovery.recover(dataHash, r, s, id));
+            assertThat(actual).isEqualTo(expected);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldDecomposeScalarsIntoShortHalves() {
+    for (int i = 0; i < 1_000; i++) {
+      final BigInteger k = randomScalar();
+      final BigInteger[] halves = Secp256k1Recovery.decompose(k);
+
+      assertThat(halves[0].add(halves[1].multiply(LAMBDA)).mod(N)).isEqualTo(k);
+      assertThat(halves[0].bitLength()).isLessThanOrEqualTo(129);
+      assertThat(halves[1].bitLength()).isLessThanOrEqualTo(129);
+    }
+  }
+
+  @Test
+  public void shouldBeSelectableThroughPublicKeyRecovery() {
+    final SECP256K1.KeyPair keyPair =
+        SECP256K1.KeyPair.create(SECP256K1.PrivateKey.create(randomScalar()));
+    final Bytes32 dataHash = randomHash();
+    final SECP256K1.Signature signature = SECP256K1.sign(dataHash, keyPair);
+
+    try {
+      SECP256K1.setOptimizedRecoveryEnabled(false);
+      assertThat(SECP256K1.PublicKey.recoverFromSignature(dataHash, signature))
+          .contains(keyPair.getPublicKey());
+      SECP256K1.setOptimizedRecoveryEnabled(true);
+      assertThat(SECP256K1.PublicKey.recoverFromSignature(dataHash, signature))
+          .contains(keyPair.getPublicKey());
+    } finally {
+      SECP256K1.setOptimizedRecoveryEnabled(true);
+    }
+  }
+
+  private static BytesValue bouncyCastle(
+      final Bytes32 dataHash, final BigInteger r, final BigInteger s, final int recId) {
+    final BigInteger publicKey = SECP256K1.recoverFromSignature(recId, r, s, dataHash);
+    return publicKey == null ? null : SECP256K1.PublicKey.create(publicKey).getEncodedBytes();
+  }
+
+  /** Returns the recovered key, null, or the class of the exception thrown. */
+  private static Object outcome(final Supplier<BytesValue> recovery) {
+    try {
+      return recovery.get();
+    } catch (final RuntimeException e) {
+      return e.getClass();
+    }
+  }
+
+  private BigInteger randomScalar() {
+    BigInteger value;
+    do {
+      value = new BigInteger(256, random);
+    } while (value.signum() == 0 || value.compareTo(N) >= 0);
+    return value;
+  }
+
+  private Bytes32 randomHash() {
+    final byte[] bytes = new byte[32];
+    random.nextBytes(bytes);
+    return Bytes32.wrap(bytes);
+  }
+}
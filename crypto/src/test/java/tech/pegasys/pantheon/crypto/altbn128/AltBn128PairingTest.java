@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AltBn128PairingTest {
+
+  private static final BigInteger CURVE_ORDER =
+      new BigInteger(
+          "21888242871839275222246405745257275088548364400416034343698204186575808495617");
+
+  private final Random random = new Random(1);
+  private final AltBn128Pairing engine = AltBn128Pairing.forCurrentThread();
+
+  @Test
+  public void shouldComputeSamePairingAsReferenceImplementation() {
+    final AltBn128Point p = AltBn128Point.g1().multiply(randomScalar());
+    final AltBn128Fq2Point q = AltBn128Fq2Point.g2().multiply(randomScalar());
+
+    final long[] pairing = MontgomeryFq12.create(1);
+    assertThat(
+            engine.pairingProduct(
+                pairing, Collections.singletonList(p), Collections.singletonList(q)))
+        .isTrue();
+
+    assertThat(pairing)
+        .isEqualTo(toMontgomery(AltBn128Fq12Pairer.finalize(AltBn128Fq12Pairer.pair(p, q))));
+  }
+
+  @Test
+  public void shouldComputeSameFinalExponentiationAsReferenceImplementation() {
+    final Fq[] coefficients = new Fq[Fq12.DEGREE];
+    for (int i = 0; i < coefficients.length; i++) {
+      coefficients[i] = Fq.create(new BigInteger(256, random).mod(FieldElement.FIELD_MODULUS));
+    }
+    final Fq12 value = new Fq12(coefficients);
+    final long[] result = toMontgomery(value);
+
+    engine.finalExponentiation(result, result);
+
+    assertThat(result).isEqualTo(toMontgomery(AltBn128Fq12Pairer.finalize(value)));
+  }
+
+  @Test
+  public void shouldBeBilinear() {
+    final BigInteger a = randomScalar();
+    final BigInteger b = randomScalar();
+    final AltBn128Point g1 = AltBn128Point.g1();
+    final AltBn128Fq2Point g2 = AltBn128Fq2Point.g2();
+
+    // e(a G1, b G2) e(-ab G1, G2) = 1
+    assertThat(
+            AltBn128Pairing.isProductOne(
+                Arrays.asList(g1.multiply(a), g1.multiply(a.multiply(b)).negate()),
+                Arrays.asList(g2.multiply(b), g2)))
+        .isTrue();
+    assertThat(
+            AltBn128Pairing.isProductOne(
+                Arrays.asList(g1.multiply(a), g1.multiply(a.multiply(b))),
+                Arrays.asList(g2.multiply(b), g2)))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldIgnorePairsWithPointAtInfinity() {
+    final List<AltBn128Point> g1Points =
+        Arrays.asList(AltBn128Point.INFINITY, AltBn128Point.g1(), AltBn128Point.g1().negate());
+    final List<AltBn128Fq2Point> g2Points =
+        Arrays.asList(AltBn128Fq2Point.g2(), AltBn128Fq2Point.g2(), AltBn128Fq2Point.g2());
+
+    assertThat(AltBn128Pairing.isProductOne(g1Points, g2Points)).isTrue();
+    assertThat(
+            AltBn128Pairing.isProductOne(
+                Collections.singletonList(AltBn128Point.g1()),
+                Collections.singletonList(new AltBn128Fq2Point(Fq2.zero(), Fq2.zero()))))
+        .isTrue();
+    assertThat(
+            AltBn128Pairing.isProductOne(
+                Collections.singletonList(AltBn128Point.g1()),
+                Collections.singletonList(AltBn128Fq2Point.g2())))
+        .isFalse();
+  }
+
+  private BigInteger randomScalar() {
+    return new BigInteger(254, random).mod(CURVE_ORDER);
+  }
+
+  private long[] toMontgomery(final Fq12 value) {
+    final long[] result = MontgomeryFq12.create(1);
+    engine.fq12().fromFq12(result, 0, value);
+    return result;
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto.altbn128;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.crypto.altbn128.MontgomeryFq.SIZE;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MontgomeryFq12Test {
+
+  private static final BigInteger P = FieldElement.FIELD_MODULUS;
+
+  private final Random random = new Random(1);
+  private final MontgomeryFq fq = new MontgomeryFq();
+  private final MontgomeryFq2 fq2 = new MontgomeryFq2(fq);
+  private final MontgomeryFq6 fq6 = new MontgomeryFq6(fq2);
+  private final MontgomeryFq12 fq12 = new MontgomeryFq12(fq6);
+
+  @Test
+  public void baseFieldShouldMatchBigIntegerArithmetic() {
+    final long[] elements = MontgomeryFq.create(3);
+    for (int i = 0; i < 1_000; i++) {
+      final BigInteger a = randomFq();
+      final BigInteger b = i == 0 ? P.subtract(BigInteger.ONE) : randomFq();
+      fq.fromBigInteger(elements, 0, a);
+      fq.fromBigInteger(elements, SIZE, b);
+
+      MontgomeryFq.add(elements, 2 * SIZE, elements, 0, elements, SIZE);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE)).isEqualTo(a.add(b).mod(P));
+      MontgomeryFq.sub(elements, 2 * SIZE, elements, 0, elements, SIZE);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE)).isEqualTo(a.subtract(b).mod(P));
+      MontgomeryFq.negate(elements, 2 * SIZE, elements, 0);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE)).isEqualTo(a.negate().mod(P));
+      MontgomeryFq.half(elements, 2 * SIZE, elements, 0);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE))
+          .isEqualTo(a.multiply(BigInteger.valueOf(2).modInverse(P)).mod(P));
+      MontgomeryFq.mulSmall(elements, 2 * SIZE, elements, 0, 9);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE))
+          .isEqualTo(a.multiply(BigInteger.valueOf(9)).mod(P));
+      fq.mul(elements, 2 * SIZE, elements, 0, elements, SIZE);
+      assertThat(fq.toBigInteger(elements, 2 * SIZE)).isEqualTo(a.multiply(b).mod(P));
+    }
+    fq.invert(elements, 2 * SIZE, elements, 0);
+    assertThat(fq.toBigInteger(elements, 2 * SIZE))
+        .isEqualTo(fq.toBigInteger(elements, 0).modInverse(P));
+  }
+
+  @Test
+  public void shouldMatchReferenceMultiplication() {
+    for (int i = 0; i < 5; i++) {
+      final Fq12 a = randomFq12();
+      final Fq12 b = randomFq12();
+      final long[] elements = MontgomeryFq12.create(3);
+      fq12.fromFq12(elements, 0, a);
+      fq12.fromFq12(elements, MontgomeryFq12.FQ12_SIZE, b);
+
+      fq12.mul(
+          elements, 2 * MontgomeryFq12.FQ12_SIZE, elements, 0, elements, MontgomeryFq12.FQ12_SIZE);
+      assertThat(toFq12(a.multiply(b))).isEqualTo(slice(elements, 2));
+
+      fq12.sqr(elements, 2 * MontgomeryFq12.FQ12_SIZE, elements, 0);
+      assertThat(toFq12(a.multiply(a))).isEqualTo(slice(elements, 2));
+    }
+  }
+
+  @Test
+  public void shouldMatchReferenceInversion() {
+    final Fq12 a = randomFq12();
+    final long[] elements = MontgomeryFq12.create(2);
+    fq12.fromFq12(elements, 0, a);
+
+    fq12.invert(elements, MontgomeryFq12.FQ12_SIZE, elements, 0);
+
+    assertThat(toFq12(Fq12.one().divide(a))).isEqualTo(slice(elements, 1));
+  }
+
+  @Test
+  public void shouldMatchReferenceFrobenius() {
+    final Fq12 a = randomFq12();
+    final long[] elements = MontgomeryFq12.create(2);
+    fq12.fromFq12(elements, 0, a);
+
+    Fq12 expected = a;
+    for (int n = 1; n <= 3; n++) {
+      expected = expected.power(P);
+      fq12.frobenius(elements, MontgomeryFq12.FQ12_SIZE, elements, 0, n);
+      assertThat(toFq12(expected)).isEqualTo(slice(elements, 1));
+    }
+  }
+
+  @Test
+  public void shouldMatchReferenceLineMultiplication() {
+    final Fq12 a = randomFq12();
+    final BigInteger[] line = new BigInteger[6];
+    for (int i = 0; i < line.length; i++) {
+      line[i] = randomFq();
+    }
+    final long[] elements = MontgomeryFq12.create(1);
+    fq12.fromFq12(elements, 0, a);
+    final long[] sparseLine = MontgomeryFq2.create(3);
+    for (int i = 0; i < 3; i++) {
+      fq2.fromFq2(sparseLine, i * MontgomeryFq2.FQ2_SIZE, Fq2.create(line[2 * i], line[2 * i + 1]));
+    }
+    final long[] denseLine = MontgomeryFq12.create(2);
+    // l0 is the coefficient of w^0, l1 of w^1 and l3 of w^3.
+    System.arraycopy(sparseLine, 0, denseLine, 0, MontgomeryFq2.FQ2_SIZE);
+    System.arraycopy(
+        sparseLine,
+        MontgomeryFq2.FQ2_SIZE,
+        denseLine,
+        MontgomeryFq12.C1 + MontgomeryFq6.C0,
+        MontgomeryFq2.FQ2_SIZE);
+    System.arraycopy(
+        sparseLine,
+        2 * MontgomeryFq2.FQ2_SIZE,
+        denseLine,
+        MontgomeryFq12.C1 + MontgomeryFq6.C1,
+        MontgomeryFq2.FQ2_SIZE);
+    fq12.mul(denseLine, MontgomeryFq12.FQ12_SIZE, elements, 0, denseLine, 0);
+
+    fq12.mulByLine(elements, 0, sparseLine, 0);
+
+    assertThat(slice(elements, 0)).isEqualTo(slice(denseLine, 1));
+  }
+
+  private BigInteger randomFq() {
+    return new BigInteger(256, random).mod(P);
+  }
+
+  private Fq12 randomFq12() {
+    final Fq[] coefficients = new Fq[Fq12.DEGREE];
+    for (int i = 0; i < coefficients.length; i++) {
+      coefficients[i] = Fq.create(randomFq());
+    }
+    return new Fq12(coefficients);
+  }
+
+  private long[] toFq12(final Fq12 value) {
+    final long[] result = MontgomeryFq12.create(1);
+    fq12.fromFq12(result, 0, value);
+    return result;
+  }
+
+  private static long[] slice(final long[] elements, final int index) {
+    final long[] result = MontgomeryFq12.create(1);
+    MontgomeryFq12.copy(result, 0, elements, index * MontgomeryFq12.FQ12_SIZE);
+    return result;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.config.StubGenesisConfigOptions;
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.ExecutionContextTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.Util;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Processes a block of transactions from distinct senders through the {@link BlockProcessor} of the
+ * given fork, executing them either one after the other or in parallel.
+ *
+ * <p>Every invocation processes the block on the same pre-state. The ERC-20 transfers all credit
+ * the same recipient so they conflict with each other, while the other workloads are independent.
+ * Frontier computes the intermediate state root after every transaction for the receipts, so the
+ * pre-state can be filled with extra accounts to give the account trie a realistic depth.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BlockProcessingBenchmark {
+
+  private static final int TRANSACTIONS = 64;
+  private static final long GAS_LIMIT = 1_000_000L;
+
+  @Param({"CONSTANTINOPLE", "FRONTIER"})
+  public Fork fork;
+
+  @Param({"0", "100000"})
+  public int accounts;
+
+  @Param public TransactionWorkload workload;
+
+  @Param({"false", "true"})
+  public boolean parallel;
+
+  private Blockchain blockchain;
+  private WorldStateArchive stateArchive;
+  private Hash preStateRoot;
+  private BlockProcessor blockProcessor;
+  private BlockHeader blockHeader;
+  private List<Transaction> transactions;
+
+  @Setup
+  public void prepare() {
+    final ExecutionContextTestFixture executionContext =
+        ExecutionContextTestFixture.builder()
+            .protocolSchedule(
+                new ProtocolScheduleFactory<>(
+                        new NoOpMetricsSystem(),
+                        fork.config(),
+                        42,
+                        Function.identity(),
+                        new EthHasher.Light(),
+                        parallel)
+                    .createProtocolSchedule())
+            .build();
+    final ProtocolSpec<Void> protocolSpec =
+        executionContext.getProtocolSchedule().getByBlockNumber(0);
+    blockchain = executionContext.getBlockchain();
+    stateArchive = executionContext.getStateArchive();
+    blockProcessor = protocolSpec.getBlockProcessor();
+
+    final MutableWorldState worldState = stateArchive.getMutable();
+    final WorldUpdater updater = worldState.updater();
+    for (int i = 0; i < accounts; i++) {
+      updater.getOrCreate(address(i)).setBalance(Wei.of(1_000_000_000L));
+    }
+    transactions = new ArrayList<>(TRANSACTIONS);
+    for (int i = 0; i < TRANSACTIONS; i++) {
+      final KeyPair keyPair = KeyPair.generate();
+      final Address sender = Util.publicKeyToAddress(keyPair.getPublicKey());
+      updater.getOrCreate(sender).setBalance(Wei.of(Long.MAX_VALUE));
+      workload.deploy(updater, sender);
+      transactions.add(
+          workload
+              .transaction()
+              .nonce(0)
+              .gasPrice(Wei.of(1))
+              .gasLimit(GAS_LIMIT)
+              .value(Wei.ZERO)
+              .signAndBuild(keyPair));
+    }
+    updater.commit();
+    worldState.persist();
+    preStateRoot = worldState.rootHash();
+
+    blockHeader =
+        new BlockHeaderTestFixture()
+            .parentHash(blockchain.getChainHeadHash())
+            .number(1)
+            .gasLimit(GAS_LIMIT * TRANSACTIONS)
+            .buildHeader();
+    if (!processBlock().isSuccessful()) {
+      throw new IllegalStateException(
+          "Benchmark block for " + workload + " on " + fork + " is invalid");
+    }
+  }
+
+  @Benchmark
+  public BlockProcessor.Result processBlock() {
+    return blockProcessor.processBlock(
+        blockchain,
+        stateArchive.getMutable(preStateRoot),
+        blockHeader,
+        transactions,
+        Collections.emptyList());
+  }
+
+  private static Address address(final int index) {
+    return Address.extract(Hash.hash(BytesValues.toMinimalBytes(index)));
+  }
+
+  public enum Fork {
+    FRONTIER,
+    CONSTANTINOPLE;
+
+    StubGenesisConfigOptions config() {
+      return this == FRONTIER
+          ? new StubGenesisConfigOptions()
+          : new StubGenesisConfigOptions().constantinopleBlock(0);
+    }
+  }
+}
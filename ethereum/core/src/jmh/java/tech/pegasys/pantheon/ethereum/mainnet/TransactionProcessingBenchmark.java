@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.ExecutionContextTestFixture;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.Util;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
+import tech.pegasys.pantheon.ethereum.vm.GasCounter;
+import tech.pegasys.pantheon.ethereum.vm.OperationTracer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Runs complete transactions through the Constantinople {@link TransactionProcessor} against an
+ * in-memory world state.
+ *
+ * <p>Every invocation processes the transaction on a fresh updater of the same pre-state and
+ * discards the result, so all invocations do the same work. The "gas" secondary result gives the
+ * throughput in gas per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionProcessingBenchmark {
+
+  private static final long GAS_LIMIT = 8_000_000L;
+
+  @Param public TransactionWorkload workload;
+
+  private Blockchain blockchain;
+  private MutableWorldState worldState;
+  private TransactionProcessor transactionProcessor;
+  private BlockHeader blockHeader;
+  private BlockHashLookup blockHashLookup;
+  private Transaction transaction;
+
+  @Setup
+  public void prepare() {
+    final ExecutionContextTestFixture executionContext = ExecutionContextTestFixture.create();
+    final ProtocolSpec<Void> protocolSpec =
+        executionContext.getProtocolSchedule().getByBlockNumber(0);
+    final KeyPair keyPair = KeyPair.generate();
+    final Address sender = Util.publicKeyToAddress(keyPair.getPublicKey());
+
+    blockchain = executionContext.getBlockchain();
+    transactionProcessor = protocolSpec.getTransactionProcessor();
+    worldState = executionContext.getStateArchive().getMutable();
+    final WorldUpdater updater = worldState.updater();
+    updater.getOrCreate(sender).setBalance(Wei.of(Long.MAX_VALUE));
+    workload.deploy(updater, sender);
+    updater.commit();
+    worldState.persist();
+
+    blockHeader =
+        new BlockHeaderTestFixture()
+            .parentHash(blockchain.getChainHeadHash())
+            .number(1)
+            .gasLimit(GAS_LIMIT)
+            .buildHeader();
+    blockHashLookup = new BlockHashLookup(blockHeader, blockchain);
+    transaction =
+        workload
+            .transaction()
+            .nonce(0)
+            .gasPrice(Wei.of(1))
+            .gasLimit(GAS_LIMIT)
+            .value(Wei.ZERO)
+            .signAndBuild(keyPair);
+
+    final TransactionProcessor.Result result = processTransaction();
+    if (!result.isSuccessful()) {
+      throw new IllegalStateException(
+          "Benchmark transaction for " + workload + " failed: " + result.getStatus());
+    }
+  }
+
+  @Benchmark
+  public TransactionProcessor.Result processTransaction(final GasCounter gasCounter) {
+    final TransactionProcessor.Result result = processTransaction();
+    gasCounter.gas += transaction.getGasLimit() - result.getGasRemaining();
+    return result;
+  }
+
+  private TransactionProcessor.Result processTransaction() {
+    return transactionProcessor.processTransaction(
+        blockchain,
+        worldState.updater(),
+        blockHeader,
+        transaction,
+        blockHeader.getCoinbase(),
+        OperationTracer.NO_TRACING,
+        blockHashLookup);
+  }
+}
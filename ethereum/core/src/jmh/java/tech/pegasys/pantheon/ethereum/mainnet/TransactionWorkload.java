@@ -0,0 +1,306 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.ADD;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.ADDRESS;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CALL;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CALLDATACOPY;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CALLDATALOAD;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CALLDATASIZE;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CALLER;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.CODECOPY;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.DIV;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.DUP1;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.DUP2;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.DUP3;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.EQ;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.GAS;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.GT;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.ISZERO;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.JUMP;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.JUMPI;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.LOG3;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.LT;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.MSIZE;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.MSTORE;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.POP;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.RETURN;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.REVERT;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.SHA3;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.SLOAD;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.SSTORE;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.STOP;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.SUB;
+import static tech.pegasys.pantheon.ethereum.vm.CodeBuilder.SWAP1;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.vm.CodeBuilder;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+/** The contracts and transactions exercised by {@link TransactionProcessingBenchmark}. */
+public enum TransactionWorkload {
+
+  /** A call to an ERC-20 style {@code transfer(address,uint256)} function. */
+  ERC20_TRANSFER {
+    @Override
+    void deploy(final WorldUpdater worldState, final Address sender) {
+      final MutableAccount token = deployContract(worldState, tokenRuntime());
+      token.setStorageValue(Bytes32.leftPad(sender).asUInt256(), TOKEN_SUPPLY);
+    }
+
+    @Override
+    Transaction.Builder transaction() {
+      return Transaction.builder()
+          .to(CONTRACT_ADDRESS)
+          .payload(
+              BytesValues.concatenate(
+                  TRANSFER_SELECTOR, Bytes32.leftPad(RECIPIENT), UInt256.of(1_000).getBytes()));
+    }
+  },
+
+  /** A loop hashing the previous hash 1000 times with {@code SHA3}. */
+  KECCAK_LOOP {
+    @Override
+    void deploy(final WorldUpdater worldState, final Address sender) {
+      deployContract(
+          worldState,
+          new CodeBuilder()
+              .push(1_000)
+              .jumpDest("loop")
+              .push(32)
+              .push(0)
+              .op(SHA3)
+              .push(0)
+              .op(MSTORE)
+              .push(1)
+              .op(SWAP1)
+              .op(SUB)
+              .op(DUP1)
+              .pushLabel("loop")
+              .op(JUMPI)
+              .op(STOP)
+              .build());
+    }
+
+    @Override
+    Transaction.Builder transaction() {
+      return Transaction.builder().to(CONTRACT_ADDRESS).payload(BytesValue.EMPTY);
+    }
+  },
+
+  /** Copies 4 KiB of call data 16 times into memory and returns the resulting 64 KiB. */
+  MEMORY_COPY {
+    @Override
+    void deploy(final WorldUpdater worldState, final Address sender) {
+      deployContract(
+          worldState,
+          new CodeBuilder()
+              .push(0)
+              .jumpDest("loop")
+              .op(CALLDATASIZE)
+              .push(0)
+              .op(DUP3)
+              .op(CALLDATACOPY)
+              .op(CALLDATASIZE)
+              .op(ADD)
+              .op(DUP1)
+              .push(0x10000)
+              .op(GT)
+              .pushLabel("loop")
+              .op(JUMPI)
+              .op(MSIZE)
+              .push(0)
+              .op(RETURN)
+              .build());
+    }
+
+    @Override
+    Transaction.Builder transaction() {
+      final byte[] payload = new byte[4096];
+      for (int i = 0; i < payload.length; i += 32) {
+        payload[i] = (byte) i;
+      }
+      return Transaction.builder().to(CONTRACT_ADDRESS).payload(BytesValue.wrap(payload));
+    }
+  },
+
+  /** A contract calling itself recursively 64 levels deep. */
+  NESTED_CALLS {
+    @Override
+    void deploy(final WorldUpdater worldState, final Address sender) {
+      deployContract(
+          worldState,
+          new CodeBuilder()
+              .push(0)
+              .op(CALLDATALOAD)
+              .op(DUP1)
+              .op(ISZERO)
+              .pushLabel("done")
+              .op(JUMPI)
+              .push(1)
+              .op(SWAP1)
+              .op(SUB)
+              .push(0)
+              .op(MSTORE)
+              .push(0)
+              .push(0)
+              .push(32)
+              .push(0)
+              .push(0)
+              .op(ADDRESS)
+              .op(GAS)
+              .op(CALL)
+              .op(POP)
+              .jumpDest("done")
+              .op(STOP)
+              .build());
+    }
+
+    @Override
+    Transaction.Builder transaction() {
+      return Transaction.builder().to(CONTRACT_ADDRESS).payload(UInt256.of(64).getBytes());
+    }
+  },
+
+  /** Deploys the ERC-20 style token contract, crediting its creator with the whole supply. */
+  CONTRACT_CREATION {
+    @Override
+    void deploy(final WorldUpdater worldState, final Address sender) {}
+
+    @Override
+    Transaction.Builder transaction() {
+      final BytesValue runtime = tokenRuntime();
+      final BytesValue initCode =
+          new CodeBuilder()
+              .push(TOKEN_SUPPLY.getBytes())
+              .op(CALLER)
+              .op(SSTORE)
+              .push(runtime.size())
+              .op(DUP1)
+              .pushLabel("runtime")
+              .push(0)
+              .op(CODECOPY)
+              .push(0)
+              .op(RETURN)
+              .mark("runtime")
+              .append(runtime)
+              .build();
+      return Transaction.builder().payload(initCode);
+    }
+  };
+
+  static final Address CONTRACT_ADDRESS =
+      Address.fromHexString("0x1000000000000000000000000000000000000001");
+
+  private static final Address RECIPIENT =
+      Address.fromHexString("0x2000000000000000000000000000000000000002");
+  private static final UInt256 TOKEN_SUPPLY = UInt256.of(1_000_000_000_000L);
+  private static final BytesValue TRANSFER_SELECTOR = BytesValue.fromHexString("0xa9059cbb");
+  // Dividing by 2^224 extracts the selector without SHR, so the token also runs on Frontier.
+  private static final BytesValue SELECTOR_DIVISOR =
+      BytesValue.fromHexString("0x0100000000000000000000000000000000000000000000000000000000");
+  private static final Bytes32 TRANSFER_EVENT =
+      Bytes32.fromHexString("0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef");
+
+  /**
+   * Writes the contracts this workload calls into the world state.
+   *
+   * @param worldState the world state to deploy the contracts to
+   * @param sender the address the benchmarked transaction is sent from
+   */
+  abstract void deploy(WorldUpdater worldState, Address sender);
+
+  /**
+   * Returns a transaction builder with the recipient and payload of this workload filled in.
+   *
+   * @return the partially filled transaction builder
+   */
+  abstract Transaction.Builder transaction();
+
+  private static MutableAccount deployContract(
+      final WorldUpdater worldState, final BytesValue code) {
+    final MutableAccount contract = worldState.getOrCreate(CONTRACT_ADDRESS);
+    contract.setCode(code);
+    return contract;
+  }
+
+  /**
+   * The runtime code of a token contract with the same storage layout, dispatch and event as a
+   * compiled ERC-20 {@code transfer}: balances are stored under the holder's address.
+   */
+  private static BytesValue tokenRuntime() {
+    return new CodeBuilder()
+        .push(0)
+        .op(CALLDATALOAD)
+        .push(SELECTOR_DIVISOR)
+        .op(SWAP1)
+        .op(DIV)
+        .push(TRANSFER_SELECTOR)
+        .op(EQ)
+        .pushLabel("transfer")
+        .op(JUMPI)
+        .pushLabel("revert")
+        .op(JUMP)
+        // transfer(address to, uint256 amount)
+        .jumpDest("transfer")
+        .push(0x24)
+        .op(CALLDATALOAD)
+        .op(CALLER)
+        .op(SLOAD)
+        .op(DUP2)
+        .op(DUP2)
+        .op(LT)
+        .pushLabel("revert")
+        .op(JUMPI)
+        .op(DUP2)
+        .op(SWAP1)
+        .op(SUB)
+        .op(CALLER)
+        .op(SSTORE)
+        .push(0x04)
+        .op(CALLDATALOAD)
+        .op(DUP1)
+        .op(SLOAD)
+        .op(DUP3)
+        .op(ADD)
+        .op(SWAP1)
+        .op(SSTORE)
+        .push(0)
+        .op(MSTORE)
+        .push(0x04)
+        .op(CALLDATALOAD)
+        .op(CALLER)
+        .push(TRANSFER_EVENT)
+        .push(32)
+        .push(0)
+        .op(LOG3)
+        .push(1)
+        .push(0)
+        .op(MSTORE)
+        .push(32)
+        .push(0)
+        .op(RETURN)
+        .jumpDest("revert")
+        .push(0)
+        .op(DUP1)
+        .op(REVERT)
+        .build();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
+
+import tech.pegasys.pantheon.ethereum.core.Gas;
+import tech.pegasys.pantheon.ethereum.mainnet.SpuriousDragonGasCalculator;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the MODEXP precompile with a plain {@link BigInteger#modPow} of the same operands: the
+ * first example of EIP-198, RSA signature verifications with the usual public exponent, and
+ * full-length exponents with odd and even moduli.
+ */
+@State(Scope.Thread)
+public class ModExpBenchmark {
+
+  @Param({"EIP198_EXAMPLE", "RSA2048_VERIFY", "RSA4096_VERIFY", "ODD_1024", "EVEN_1024"})
+  public String workload;
+
+  private final BigIntegerModularExponentiationPrecompiledContract contract =
+      new BigIntegerModularExponentiationPrecompiledContract(new SpuriousDragonGasCalculator());
+
+  private BytesValue input;
+  private BigInteger base;
+  private BigInteger exponent;
+  private BigInteger modulus;
+
+  @Setup
+  public void prepare() {
+    final Random random = new Random(1);
+    switch (workload) {
+      case "EIP198_EXAMPLE":
+        base = BigInteger.valueOf(3);
+        modulus =
+            new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f", 16);
+        exponent = modulus.subtract(BigInteger.ONE);
+        break;
+      case "RSA2048_VERIFY":
+        modulus = new BigInteger(2048, random).setBit(2047).setBit(0);
+        base = new BigInteger(2047, random);
+        exponent = BigInteger.valueOf(65_537);
+        break;
+      case "RSA4096_VERIFY":
+        modulus = new BigInteger(4096, random).setBit(4095).setBit(0);
+        base = new BigInteger(4095, random);
+        exponent = BigInteger.valueOf(65_537);
+        break;
+      case "ODD_1024":
+        modulus = new BigInteger(1024, random).setBit(1023).setBit(0);
+        base = new BigInteger(1023, random);
+        exponent = new BigInteger(1024, random);
+        break;
+      case "EVEN_1024":
+        modulus = new BigInteger(1024, random).setBit(1023).clearBit(0);
+        base = new BigInteger(1023, random);
+        exponent = new BigInteger(1024, random);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown workload " + workload);
+    }
+    input =
+        BytesValues.concatenate(
+            length(base),
+            length(exponent),
+            length(modulus),
+            bytes(base),
+            bytes(exponent),
+            bytes(modulus));
+  }
+
+  @Benchmark
+  public BigInteger bigInteger() {
+    return base.modPow(exponent, modulus);
+  }
+
+  @Benchmark
+  public BytesValue precompile() {
+    return contract.compute(input);
+  }
+
+  @Benchmark
+  public Gas gasRequirement() {
+    return contract.gasRequirement(input);
+  }
+
+  private static BytesValue length(final BigInteger value) {
+    return UInt256.of(bytes(value).size()).getBytes();
+  }
+
+  private static BytesValue bytes(final BigInteger value) {
+    return BytesValues.trimLeadingZeros(BytesValue.wrap(value.toByteArray()));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A minimal EVM assembler used to write the contracts exercised by the benchmarks.
+ *
+ * <p>Jump targets are referenced by label and always pushed with {@code PUSH2}, so they can be
+ * resolved once the whole program has been written.
+ */
+public class CodeBuilder {
+
+  public static final int STOP = 0x00;
+  public static final int ADD = 0x01;
+  public static final int SUB = 0x03;
+  public static final int DIV = 0x04;
+  public static final int LT = 0x10;
+  public static final int GT = 0x11;
+  public static final int EQ = 0x14;
+  public static final int ISZERO = 0x15;
+  public static final int SHA3 = 0x20;
+  public static final int ADDRESS = 0x30;
+  public static final int CALLER = 0x33;
+  public static final int CALLDATALOAD = 0x35;
+  public static final int CALLDATASIZE = 0x36;
+  public static final int CALLDATACOPY = 0x37;
+  public static final int CODECOPY = 0x39;
+  public static final int POP = 0x50;
+  public static final int MSTORE = 0x52;
+  public static final int SLOAD = 0x54;
+  public static final int SSTORE = 0x55;
+  public static final int JUMP = 0x56;
+  public static final int JUMPI = 0x57;
+  public static final int MSIZE = 0x59;
+  public static final int GAS = 0x5a;
+  public static final int JUMPDEST = 0x5b;
+  public static final int DUP1 = 0x80;
+  public static final int DUP2 = 0x81;
+  public static final int DUP3 = 0x82;
+  public static final int SWAP1 = 0x90;
+  public static final int LOG3 = 0xa3;
+  public static final int CALL = 0xf1;
+  public static final int RETURN = 0xf3;
+  public static final int REVERT = 0xfd;
+
+  private static final int PUSH1 = 0x60;
+  private static final int PUSH2 = 0x61;
+
+  private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+  private final Map<String, Integer> labels = new HashMap<>();
+  private final Map<Integer, String> labelReferences = new HashMap<>();
+
+  public CodeBuilder op(final int opcode) {
+    code.write(opcode);
+    return this;
+  }
+
+  public CodeBuilder push(final long value) {
+    return push(BytesValues.toMinimalBytes(value));
+  }
+
+  public CodeBuilder push(final BytesValue value) {
+    checkArgument(value.size() <= 32, "Cannot push more than 32 bytes");
+    if (value.isEmpty()) {
+      return push(BytesValue.of(0));
+    }
+    code.write(PUSH1 + value.size() - 1);
+    code.write(value.getArrayUnsafe(), 0, value.size());
+    return this;
+  }
+
+  /** Marks the current position with a {@code JUMPDEST} that can be jumped to by label. */
+  public CodeBuilder jumpDest(final String label) {
+    mark(label);
+    return op(JUMPDEST);
+  }
+
+  /** Marks the current position without emitting any instruction. */
+  public CodeBuilder mark(final String label) {
+    checkState(!labels.containsKey(label), "Duplicate label %s", label);
+    labels.put(label, code.size());
+    return this;
+  }
+
+  /** Pushes the position of a label, which may be declared later on. */
+  public CodeBuilder pushLabel(final String label) {
+    code.write(PUSH2);
+    labelReferences.put(code.size(), label);
+    code.write(0);
+    code.write(0);
+    return this;
+  }
+
+  public CodeBuilder append(final BytesValue bytes) {
+    code.write(bytes.getArrayUnsafe(), 0, bytes.size());
+    return this;
+  }
+
+  public BytesValue build() {
+    final byte[] result = code.toByteArray();
+    labelReferences.forEach(
+        (position, label) -> {
+          final Integer target = labels.get(label);
+          checkState(target != null, "Undeclared label %s", label);
+          result[position] = (byte) (target >>> 8);
+          result[position + 1] = (byte) (int) target;
+        });
+    return BytesValue.wrap(result);
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm.operations;
+
+import tech.pegasys.pantheon.ethereum.core.Gas;
+import tech.pegasys.pantheon.ethereum.core.MessageFrameTestFixture;
+import tech.pegasys.pantheon.ethereum.mainnet.ConstantinopleGasCalculator;
+import tech.pegasys.pantheon.ethereum.vm.Code;
+import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
+import tech.pegasys.pantheon.ethereum.vm.GasCounter;
+import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
+import tech.pegasys.pantheon.ethereum.vm.Operation;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures individual arithmetic, bitwise, stack, memory and storage operations.
+ *
+ * <p>Each invocation pushes the operation's inputs, charges its gas cost, executes it and pops its
+ * results, leaving the frame in the same state it started in. The "gas" secondary result gives the
+ * throughput in gas per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OperationBenchmark {
+
+  private static final Bytes32 LARGE_VALUE =
+      Bytes32.fromHexString("0x8123456789abcdeffedcba9876543210f0e1d2c3b4a5968778695a4b3c2d1e0f");
+  private static final Bytes32 OTHER_LARGE_VALUE =
+      Bytes32.fromHexString("0x0fedcba987654321123456789abcdef00f1e2d3c4b5a69788796a5b4c3d2e1f0");
+  private static final Bytes32 MODULUS =
+      Bytes32.fromHexString("0x30644e72e131a029b85045b68181585d97816a916871ca8d3c208c16d87cfd47");
+  private static final Bytes32 SMALL_VALUE = Bytes32.fromHexString("0x0f");
+  private static final Bytes32 MEMORY_OFFSET = Bytes32.fromHexString("0x40");
+  private static final Bytes32 STORAGE_KEY = Bytes32.fromHexString("0x01");
+
+  /** The stack items below the benchmarked inputs, deep enough for {@code DUP16}/{@code SWAP16}. */
+  private static final int BACKGROUND_STACK_ITEMS = 17;
+
+  @Param({
+    "ADD",
+    "MUL",
+    "SUB",
+    "DIV",
+    "SDIV",
+    "MOD",
+    "SMOD",
+    "ADDMOD",
+    "MULMOD",
+    "EXP",
+    "SIGNEXTEND",
+    "LT",
+    "GT",
+    "SLT",
+    "SGT",
+    "EQ",
+    "ISZERO",
+    "AND",
+    "OR",
+    "XOR",
+    "NOT",
+    "BYTE",
+    "SHL",
+    "SHR",
+    "SAR",
+    "SHA3",
+    "MLOAD",
+    "MSTORE",
+    "MSTORE8",
+    "MSIZE",
+    "SLOAD",
+    "SSTORE",
+    "POP",
+    "PUSH1",
+    "PUSH32",
+    "DUP1",
+    "DUP16",
+    "SWAP1",
+    "SWAP16"
+  })
+  public String operationName;
+
+  private Operation operation;
+  private Bytes32[] inputs;
+  private int results;
+  private MessageFrame frame;
+
+  @Setup
+  public void prepare() {
+    final GasCalculator gasCalculator = new ConstantinopleGasCalculator();
+    operation =
+        createOperations(gasCalculator)
+            .stream()
+            .filter(candidate -> candidate.getName().equals(operationName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + operationName));
+    inputs = inputsFor(operationName);
+    results = inputs.length + operation.getStackSizeChange();
+
+    final MessageFrameTestFixture frameFixture =
+        new MessageFrameTestFixture().code(new Code(pushCode()));
+    for (int i = 0; i < BACKGROUND_STACK_ITEMS; i++) {
+      frameFixture.pushStackItem(OTHER_LARGE_VALUE);
+    }
+    frame = frameFixture.build();
+    frame.getWorldState().getOrCreate(frame.getRecipientAddress());
+  }
+
+  @TearDown
+  public void checkStack() {
+    if (frame.stackSize() != BACKGROUND_STACK_ITEMS) {
+      throw new IllegalStateException("Benchmark of " + operationName + " unbalanced the stack");
+    }
+  }
+
+  @Benchmark
+  public void executeOperation(final GasCounter gasCounter) {
+    for (int i = inputs.length - 1; i >= 0; i--) {
+      frame.pushStackItem(inputs[i]);
+    }
+    final Gas cost = operation.cost(frame);
+    operation.execute(frame);
+    if (results > 0) {
+      frame.popStackItems(results);
+    }
+    gasCounter.gas += cost.toLong();
+  }
+
+  /** Returns the operands to push, from the top of the stack down. */
+  private static Bytes32[] inputsFor(final String operationName) {
+    switch (operationName) {
+      case "ADDMOD":
+      case "MULMOD":
+        return new Bytes32[] {LARGE_VALUE, OTHER_LARGE_VALUE, MODULUS};
+      case "EXP":
+        return new Bytes32[] {MODULUS, LARGE_VALUE};
+      case "SIGNEXTEND":
+      case "BYTE":
+      case "SHL":
+      case "SHR":
+      case "SAR":
+        return new Bytes32[] {SMALL_VALUE, LARGE_VALUE};
+      case "SHA3":
+        return new Bytes32[] {Bytes32.ZERO, Bytes32.fromHexString("0x20")};
+      case "MLOAD":
+        return new Bytes32[] {MEMORY_OFFSET};
+      case "MSTORE":
+      case "MSTORE8":
+        return new Bytes32[] {MEMORY_OFFSET, LARGE_VALUE};
+      case "SLOAD":
+        return new Bytes32[] {STORAGE_KEY};
+      case "SSTORE":
+        return new Bytes32[] {STORAGE_KEY, LARGE_VALUE};
+      case "ISZERO":
+      case "NOT":
+      case "POP":
+        return new Bytes32[] {LARGE_VALUE};
+      case "MSIZE":
+      case "PUSH1":
+      case "PUSH32":
+      case "DUP1":
+      case "DUP16":
+      case "SWAP1":
+      case "SWAP16":
+        return new Bytes32[0];
+      default:
+        return new Bytes32[] {LARGE_VALUE, OTHER_LARGE_VALUE};
+    }
+  }
+
+  /** The code the {@code PUSH} operations read their immediate data from. */
+  private static BytesValue pushCode() {
+    final byte[] code = new byte[33];
+    Arrays.fill(code, (byte) 0xa5);
+    code[0] = 0x7f;
+    return BytesValue.wrap(code);
+  }
+
+  private static List<Operation> createOperations(final GasCalculator gasCalculator) {
+    return Arrays.asList(
+        new AddOperation(gasCalculator),
+        new MulOperation(gasCalculator),
+        new SubOperation(gasCalculator),
+        new DivOperation(gasCalculator),
+        new SDivOperation(gasCalculator),
+        new ModOperation(gasCalculator),
+        new SModOperation(gasCalculator),
+        new AddModOperation(gasCalculator),
+        new MulModOperation(gasCalculator),
+        new ExpOperation(gasCalculator),
+        new SignExtendOperation(gasCalculator),
+        new LtOperation(gasCalculator),
+        new GtOperation(gasCalculator),
+        new SLtOperation(gasCalculator),
+        new SGtOperation(gasCalculator),
+        new EqOperation(gasCalculator),
+        new IsZeroOperation(gasCalculator),
+        new AndOperation(gasCalculator),
+        new OrOperation(gasCalculator),
+        new XorOperation(gasCalculator),
+        new NotOperation(gasCalculator),
+        new ByteOperation(gasCalculator),
+        new ShlOperation(gasCalculator),
+        new ShrOperation(gasCalculator),
+        new SarOperation(gasCalculator),
+        new Sha3Operation(gasCalculator),
+        new MLoadOperation(gasCalculator),
+        new MStoreOperation(gasCalculator),
+        new MStore8Operation(gasCalculator),
+        new MSizeOperation(gasCalculator),
+        new SLoadOperation(gasCalculator),
+        new SStoreOperation(gasCalculator),
+        new PopOperation(gasCalculator),
+        new PushOperation(1, gasCalculator),
+        new PushOperation(32, gasCalculator),
+        new DupOperation(1, gasCalculator),
+        new DupOperation(16, gasCalculator),
+        new SwapOperation(1, gasCalculator),
+        new SwapOperation(16, gasCalculator));
+  }
+}
@@ -18,10 +18,13 @@ import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /** An interface for reading data from the blockchain. */
 public interface Blockchain {
@@ -122,6 +125,54 @@ public interface Blockchain {
    */
   Optional<List<TransactionReceipt>> getTxReceipts(Hash blockHeaderHash);
 
+  /**
+   * Returns the RLP encoding of the block headers corresponding to the given block hashes, as
+   * stored. Associated blocks are not necessarily on the canonical chain.
+   *
+   * @param blockHeaderHashes The hashes of the blocks whose headers we want to retrieve.
+   * @return The encoded block header corresponding to each block hash, in the same order.
+   */
+  default List<Optional<BytesValue>> getBlockHeadersRlp(final List<Hash> blockHeaderHashes) {
+    return blockHeaderHashes
+        .stream()
+        .map(hash -> getBlockHeader(hash).map(header -> RLP.encode(header::writeTo)))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the RLP encoding of the block bodies corresponding to the given block hashes, as
+   * stored. Associated blocks are not necessarily on the canonical chain.
+   *
+   * @param blockHeaderHashes The hashes of the blocks whose bodies we want to retrieve.
+   * @return The encoded block body corresponding to each block hash, in the same order.
+   */
+  default List<Optional<BytesValue>> getBlockBodiesRlp(final List<Hash> blockHeaderHashes) {
+    return blockHeaderHashes
+        .stream()
+        .map(hash -> getBlockBody(hash).map(body -> RLP.encode(body::writeTo)))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the RLP encoding of the lists of transaction receipts corresponding to the given block
+   * hashes, as stored. Associated blocks are not necessarily on the canonical chain.
+   *
+   * @param blockHeaderHashes The hashes of the blocks whose receipts we want to retrieve.
+   * @return The encoded list of receipts corresponding to each block hash, in the same order.
+   */
+  default List<Optional<BytesValue>> getTxReceiptsRlp(final List<Hash> blockHeaderHashes) {
+    return blockHeaderHashes
+        .stream()
+        .map(
+            hash ->
+                getTxReceipts(hash)
+                    .map(
+                        receipts ->
+                            RLP.encode(
+                                out -> out.writeList(receipts, TransactionReceipt::writeTo))))
+        .collect(Collectors.toList());
+  }
+
   /**
    * Retrieves the header hash of the block at the given height in the canonical chain.
    *
@@ -30,4 +30,17 @@ public interface MutableBlockchain extends Blockchain {
    * @param receipts The list of receipts associated with this block's transactions.
    */
   void appendBlock(Block block, List<TransactionReceipt> receipts);
+
+  /**
+   * Adds a sequence of blocks extending the current chain head, without re-checking any of their
+   * contents. All blocks are written in a single storage transaction, so either all of them or none
+   * are added.
+   *
+   * <p>The first block's parent must be the current chain head and each following block's parent
+   * must be the block before it, otherwise an {@link IllegalArgumentException} is thrown.
+   *
+   * @param blocks The blocks to append, in ascending order.
+   * @param receipts The list of receipts associated with each block's transactions.
+   */
+  void appendBlocks(List<Block> blocks, List<List<TransactionReceipt>> receipts);
 }
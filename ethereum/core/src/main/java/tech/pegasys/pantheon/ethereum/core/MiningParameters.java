@@ -14,6 +14,7 @@ package tech.pegasys.pantheon.ethereum.core;
 
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.nio.file.Path;
 import java.util.Optional;
 
 public class MiningParameters {
@@ -22,16 +23,33 @@ public class MiningParameters {
   private final Wei minTransactionGasPrice;
   private final BytesValue extraData;
   private final Boolean enabled;
+  private final int minerThreads;
+  private final Optional<Path> ethHashDatasetDirectory;
+  private final Optional<Path> ethHashCacheDirectory;
 
   public MiningParameters(
       final Address coinbase,
       final Wei minTransactionGasPrice,
       final BytesValue extraData,
       final Boolean enabled) {
+    this(coinbase, minTransactionGasPrice, extraData, enabled, 1, null, null);
+  }
+
+  public MiningParameters(
+      final Address coinbase,
+      final Wei minTransactionGasPrice,
+      final BytesValue extraData,
+      final Boolean enabled,
+      final int minerThreads,
+      final Path ethHashDatasetDirectory,
+      final Path ethHashCacheDirectory) {
     this.coinbase = Optional.ofNullable(coinbase);
     this.minTransactionGasPrice = minTransactionGasPrice;
     this.extraData = extraData;
     this.enabled = enabled;
+    this.minerThreads = minerThreads;
+    this.ethHashDatasetDirectory = Optional.ofNullable(ethHashDatasetDirectory);
+    this.ethHashCacheDirectory = Optional.ofNullable(ethHashCacheDirectory);
   }
 
   public Optional<Address> getCoinbase() {
@@ -49,4 +67,33 @@ public class MiningParameters {
   public Boolean isMiningEnabled() {
     return enabled;
   }
+
+  /**
+   * Returns the number of threads searching for a proof of work nonce.
+   *
+   * @return the number of miner threads
+   */
+  public int getMinerThreads() {
+    return minerThreads;
+  }
+
+  /**
+   * Returns the directory the full EthHash datasets are stored in, if EthHash mining should hash
+   * against the full dataset rather than the light cache.
+   *
+   * @return the EthHash dataset directory
+   */
+  public Optional<Path> getEthHashDatasetDirectory() {
+    return ethHashDatasetDirectory;
+  }
+
+  /**
+   * Returns the directory EthHash caches are stored in so that they are not generated again after a
+   * restart, if any.
+   *
+   * @return the EthHash cache directory
+   */
+  public Optional<Path> getEthHashCacheDirectory() {
+    return ethHashCacheDirectory;
+  }
 }
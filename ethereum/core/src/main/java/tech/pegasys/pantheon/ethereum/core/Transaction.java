@@ -26,6 +26,9 @@ import tech.pegasys.pantheon.util.bytes.BytesValues;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -231,6 +234,11 @@ public class Transaction {
    */
   public Address getSender() {
     if (sender == null) {
+      final Address cachedSender = TransactionSenderCache.get(hash());
+      if (cachedSender != null) {
+        sender = cachedSender;
+        return sender;
+      }
       final SECP256K1.PublicKey publicKey =
           SECP256K1.PublicKey.recoverFromSignature(getOrComputeSenderRecoveryHash(), signature)
               .orElseThrow(
@@ -238,10 +246,60 @@ public class Transaction {
                       new IllegalStateException(
                           "Cannot recover public key from " + "signature for " + this));
       sender = Address.extract(Hash.hash(publicKey.getEncodedBytes()));
+      TransactionSenderCache.put(hash(), sender);
     }
     return sender;
   }
 
+  /**
+   * Recovers the senders of the given transactions in parallel, so that later calls to {@link
+   * #getSender()} return immediately.
+   *
+   * <p>Transactions whose sender is already known or cached in the {@link TransactionSenderCache}
+   * are skipped, and those whose sender cannot be recovered are left untouched for {@link
+   * #getSender()} to report.
+   *
+   * @param transactions the transactions to recover the senders of
+   */
+  public static void recoverSenders(final Collection<Transaction> transactions) {
+    final List<Transaction> unrecovered = new ArrayList<>(transactions.size());
+    final List<Bytes32> dataHashes = new ArrayList<>(transactions.size());
+    final List<SECP256K1.Signature> signatures = new ArrayList<>(transactions.size());
+    for (final Transaction transaction : transactions) {
+      if (transaction.sender != null) {
+        continue;
+      }
+      final Address cachedSender = TransactionSenderCache.get(transaction.hash());
+      if (cachedSender != null) {
+        transaction.sender = cachedSender;
+      } else {
+        unrecovered.add(transaction);
+        dataHashes.add(transaction.getOrComputeSenderRecoveryHash());
+        signatures.add(transaction.signature);
+      }
+    }
+    if (unrecovered.isEmpty()) {
+      return;
+    }
+    final List<Optional<SECP256K1.PublicKey>> publicKeys;
+    try {
+      publicKeys = SECP256K1.recoverAll(dataHashes, signatures);
+    } catch (final IllegalArgumentException e) {
+      // Leave every sender to be recovered on its own, so only the invalid one fails.
+      return;
+    }
+    for (int i = 0; i < unrecovered.size(); i++) {
+      final Transaction transaction = unrecovered.get(i);
+      publicKeys
+          .get(i)
+          .ifPresent(
+              publicKey -> {
+                transaction.sender = Address.extract(Hash.hash(publicKey.getEncodedBytes()));
+                TransactionSenderCache.put(transaction.hash(), transaction.sender);
+              });
+    }
+  }
+
   private Bytes32 getOrComputeSenderRecoveryHash() {
     if (hashNoSignature == null) {
       hashNoSignature =
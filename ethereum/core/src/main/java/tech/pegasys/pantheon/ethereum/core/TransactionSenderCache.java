@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers the senders recovered from recently seen transactions, keyed by transaction hash.
+ *
+ * <p>The same transaction is usually decoded several times: when it is gossiped by each peer, when
+ * it is included in a block and whenever it is read back from storage. Since the transaction hash
+ * covers the signature, a sender recovered once can be reused by every later copy of the
+ * transaction instead of recovering it again.
+ */
+public final class TransactionSenderCache {
+
+  static final int MAXIMUM_SIZE = 65_536;
+
+  private static final Cache<Hash, Address> SENDERS =
+      CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+  private static volatile Counter hits = NoOpMetricsSystem.NO_OP_LABELLED_COUNTER.labels();
+  private static volatile Counter misses = NoOpMetricsSystem.NO_OP_LABELLED_COUNTER.labels();
+
+  private TransactionSenderCache() {}
+
+  /**
+   * Reports the size and the hits and misses of the cache to the given metrics system.
+   *
+   * <p>The cache is shared by the whole process, so this should be called once, by whatever owns
+   * the process' metrics system.
+   *
+   * @param metricsSystem the metrics system to register the metrics with
+   */
+  public static void registerMetrics(final MetricsSystem metricsSystem) {
+    metricsSystem.createGauge(
+        MetricCategory.BLOCKCHAIN,
+        "transaction_sender_cache_size",
+        "Number of transaction senders currently cached",
+        () -> (double) SENDERS.size());
+    hits =
+        metricsSystem.createCounter(
+            MetricCategory.BLOCKCHAIN,
+            "transaction_sender_cache_hits_total",
+            "Number of transaction senders found in the cache");
+    misses =
+        metricsSystem.createCounter(
+            MetricCategory.BLOCKCHAIN,
+            "transaction_sender_cache_misses_total",
+            "Number of transaction senders that had to be recovered from their signature");
+  }
+
+  static Address get(final Hash transactionHash) {
+    final Address sender = SENDERS.getIfPresent(transactionHash);
+    if (sender == null) {
+      misses.inc();
+    } else {
+      hits.inc();
+    }
+    return sender;
+  }
+
+  static void put(final Hash transactionHash, final Address sender) {
+    SENDERS.put(transactionHash, sender);
+  }
+
+  static void clear() {
+    SENDERS.invalidateAll();
+  }
+}
@@ -12,9 +12,16 @@
  */
 package tech.pegasys.pantheon.ethereum.core;
 
+import tech.pegasys.pantheon.crypto.SECP256K1;
 import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
 import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class Util {
 
   /**
@@ -31,6 +38,23 @@ public class Util {
         .orElse(null);
   }
 
+  /**
+   * Converts signatures of the same data to the Addresses of their signers, recovering the
+   * signatures in parallel.
+   *
+   * @param seals the signatures from which addresses are to be extracted
+   * @param dataHash the hash of the data which was signed.
+   * @return The Address of the Ethereum node which created each signature, in the same order, or
+   *     null for signatures no address can be recovered from
+   */
+  public static List<Address> signaturesToAddresses(
+      final Collection<Signature> seals, final Hash dataHash) {
+    return SECP256K1.recoverAll(Collections.nCopies(seals.size(), dataHash), new ArrayList<>(seals))
+        .stream()
+        .map(publicKey -> publicKey.map(Util::publicKeyToAddress).orElse(null))
+        .collect(Collectors.toList());
+  }
+
   public static Address publicKeyToAddress(final PublicKey publicKey) {
     return Address.extract(Hash.hash(publicKey.getEncodedBytes()));
   }
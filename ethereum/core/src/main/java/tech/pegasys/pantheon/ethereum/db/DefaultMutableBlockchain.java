@@ -32,6 +32,7 @@ import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.util.InvalidConfigurationException;
 import tech.pegasys.pantheon.util.Subscribers;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.bytes.BytesValues;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
@@ -118,6 +119,21 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
     return blockchainStorage.getTransactionReceipts(blockHeaderHash);
   }
 
+  @Override
+  public List<Optional<BytesValue>> getBlockHeadersRlp(final List<Hash> blockHeaderHashes) {
+    return blockchainStorage.getBlockHeadersRlp(blockHeaderHashes);
+  }
+
+  @Override
+  public List<Optional<BytesValue>> getBlockBodiesRlp(final List<Hash> blockHeaderHashes) {
+    return blockchainStorage.getBlockBodiesRlp(blockHeaderHashes);
+  }
+
+  @Override
+  public List<Optional<BytesValue>> getTxReceiptsRlp(final List<Hash> blockHeaderHashes) {
+    return blockchainStorage.getTransactionReceiptsRlp(blockHeaderHashes);
+  }
+
   @Override
   public Optional<Hash> getBlockHashByNumber(final long number) {
     return blockchainStorage.getBlockHash(number);
@@ -160,6 +176,48 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
     notifyBlockAdded(blockAddedEvent);
   }
 
+  @Override
+  public synchronized void appendBlocks(
+      final List<Block> blocks, final List<List<TransactionReceipt>> receipts) {
+    checkArgument(blocks.size() == receipts.size(), "Supplied receipts do not match blocks.");
+    Hash parentHash = getChainHeadHash();
+    for (int i = 0; i < blocks.size(); i++) {
+      final Block block = blocks.get(i);
+      checkArgument(
+          block.getBody().getTransactions().size() == receipts.get(i).size(),
+          "Supplied receipts do not match block transactions.");
+      if (!block.getHeader().getParentHash().equals(parentHash)) {
+        throw new IllegalArgumentException(
+            "Attempt to append blocks not extending the chain head.");
+      }
+      parentHash = block.getHash();
+    }
+    if (blocks.isEmpty()) {
+      return;
+    }
+
+    final BlockchainStorage.Updater updater = blockchainStorage.updater();
+    final List<BlockAddedEvent> blockAddedEvents = new ArrayList<>(blocks.size());
+    UInt256 td = getChainHead().getTotalDifficulty();
+    for (int i = 0; i < blocks.size(); i++) {
+      final Block block = blocks.get(i);
+      final Hash hash = block.getHash();
+      td = td.plus(block.getHeader().getDifficulty());
+
+      updater.putBlockHeader(hash, block.getHeader());
+      updater.putBlockBody(hash, block.getBody());
+      updater.putTransactionReceipts(hash, receipts.get(i));
+      updater.putTotalDifficulty(hash, td);
+      updater.putBlockHash(block.getHeader().getNumber(), hash);
+      indexTransactionForBlock(updater, hash, block.getBody().getTransactions());
+      blockAddedEvents.add(BlockAddedEvent.createForHeadAdvancement(block));
+    }
+    updater.setChainHead(parentHash);
+    updater.commit();
+
+    blockAddedEvents.forEach(this::notifyBlockAdded);
+  }
+
   private BlockAddedEvent appendBlockHelper(
       final Block block, final List<TransactionReceipt> receipts) {
     final Hash hash = block.getHash();
@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.ethereum.development;
 import static tech.pegasys.pantheon.ethereum.mainnet.MainnetTransactionValidator.NO_CHAIN_ID;
 
 import tech.pegasys.pantheon.config.GenesisConfigOptions;
+import tech.pegasys.pantheon.ethereum.mainnet.EthHasher;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolScheduleFactory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
@@ -24,11 +25,20 @@ public class DevelopmentProtocolSchedule {
 
   public static ProtocolSchedule<Void> create(
       final GenesisConfigOptions config, final MetricsSystem metricsSystem) {
+    return create(config, metricsSystem, false);
+  }
+
+  public static ProtocolSchedule<Void> create(
+      final GenesisConfigOptions config,
+      final MetricsSystem metricsSystem,
+      final boolean parallelTransactionExecution) {
     return new ProtocolScheduleFactory<>(
             metricsSystem,
             config,
             NO_CHAIN_ID,
-            builder -> builder.difficultyCalculator(DevelopmentDifficultyCalculators.DEVELOPER))
+            builder -> builder.difficultyCalculator(DevelopmentDifficultyCalculators.DEVELOPER),
+            new EthHasher.Light(),
+            parallelTransactionExecution)
         .createProtocolSchedule();
   }
 }
@@ -133,6 +133,7 @@ public abstract class AbstractMessageProcessor {
     frame.getWorldState().commit();
     frame.getMessageFrameStack().removeFirst();
     frame.notifyCompletion();
+    frame.releaseResources();
   }
 
   /**
@@ -143,6 +144,7 @@ public abstract class AbstractMessageProcessor {
   protected void completedFailed(final MessageFrame frame) {
     frame.getMessageFrameStack().removeFirst();
     frame.notifyCompletion();
+    frame.releaseResources();
   }
 
   /**
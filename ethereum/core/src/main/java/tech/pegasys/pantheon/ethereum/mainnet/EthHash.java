@@ -58,6 +58,8 @@ public final class EthHash {
   private static final ThreadLocal<MessageDigest> KECCAK_512 =
       ThreadLocal.withInitial(Keccak.Digest512::new);
 
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
   /**
    * Hashimoto Light Implementation.
    *
@@ -83,17 +85,14 @@ public final class EthHash {
     keccak512.update(header);
     keccak512.update(Longs.toByteArray(Long.reverseBytes(nonce)));
     final byte[] seed = keccak512.digest();
-    final ByteBuffer mixBuffer = ByteBuffer.allocate(MIX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
-    for (int i = 0; i < MIX_BYTES / HASH_BYTES; ++i) {
-      mixBuffer.put(seed);
-    }
-    mixBuffer.position(0);
-    final int[] mix = new int[MIX_BYTES / 4];
+    final Scratch scratch = SCRATCH.get();
+    // The mix is the seed repeated to fill MIX_BYTES, read as little endian words.
+    final int[] mix = scratch.mix;
     for (int i = 0; i < MIX_BYTES / 4; ++i) {
-      mix[i] = mixBuffer.getInt();
+      mix[i] = readLittleEndianInt(seed, i * WORD_BYTES % HASH_BYTES);
     }
-    final byte[] lookupResult = new byte[HASH_BYTES];
-    final byte[] temp = new byte[MIX_BYTES];
+    final byte[] lookupResult = scratch.lookupResult;
+    final byte[] temp = scratch.temp;
     for (int i = 0; i < ACCESSES; ++i) {
       final int p =
           Integer.remainderUnsigned(
@@ -104,7 +103,7 @@ public final class EthHash {
       }
       fnvHash(mix, temp);
     }
-    final int[] cmix = new int[mix.length / 4];
+    final int[] cmix = scratch.cmix;
     for (int i = 0; i < mix.length; i += 4) {
       cmix[i / 4] = fnv(fnv(fnv(mix[i], mix[i + 1]), mix[i + 2]), mix[i + 3]);
     }
@@ -130,7 +129,7 @@ public final class EthHash {
    */
   public static void calcDatasetItem(final byte[] buffer, final int[] cache, final int index) {
     final int rows = cache.length / HASH_WORDS;
-    final int[] mixInts = new int[HASH_BYTES / 4];
+    final int[] mixInts = SCRATCH.get().datasetItemMix;
     final int offset = index % rows * HASH_WORDS;
     mixInts[0] = cache[offset] ^ index;
     System.arraycopy(cache, offset + 1, mixInts, 1, HASH_WORDS - 1);
@@ -139,7 +138,9 @@ public final class EthHash {
     keccak512.update(buffer);
     try {
       keccak512.digest(buffer, 0, HASH_BYTES);
-      ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(mixInts);
+      for (int i = 0; i < HASH_WORDS; ++i) {
+        mixInts[i] = readLittleEndianInt(buffer, i * WORD_BYTES);
+      }
       for (int i = 0; i < DATASET_PARENTS; ++i) {
         fnvHash(
             mixInts,
@@ -288,9 +289,13 @@ public final class EthHash {
   }
 
   private static void intToByte(final byte[] target, final int[] ints) {
-    final ByteBuffer buffer = ByteBuffer.wrap(target).order(ByteOrder.LITTLE_ENDIAN);
-    for (final int i : ints) {
-      buffer.putInt(i);
+    for (int i = 0; i < ints.length; ++i) {
+      final int offset = i * WORD_BYTES;
+      final int value = ints[i];
+      target[offset] = (byte) value;
+      target[offset + 1] = (byte) (value >>> 8);
+      target[offset + 2] = (byte) (value >>> 16);
+      target[offset + 3] = (byte) (value >>> 24);
     }
   }
 
@@ -309,4 +314,16 @@ public final class EthHash {
   private static int fnv(final int a, final int b) {
     return a * 0x01000193 ^ b;
   }
+
+  /**
+   * Working arrays reused by every hash computed on a thread, so that verifying a header does not
+   * allocate once per dataset item.
+   */
+  private static final class Scratch {
+    private final int[] mix = new int[MIX_BYTES / WORD_BYTES];
+    private final int[] cmix = new int[MIX_BYTES / WORD_BYTES / 4];
+    private final int[] datasetItemMix = new int[HASH_WORDS];
+    private final byte[] lookupResult = new byte[HASH_BYTES];
+    private final byte[] temp = new byte[MIX_BYTES];
+  }
 }
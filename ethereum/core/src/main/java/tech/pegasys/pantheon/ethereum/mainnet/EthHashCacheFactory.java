@@ -12,18 +12,46 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Provides the EthHash cache of each epoch, keeping the caches of the most recently used epochs in
+ * memory.
+ *
+ * <p>If a cache directory is given, caches are stored there once generated and read back instead of
+ * being generated again, for instance after a restart. When a block close to the end of an epoch is
+ * hashed, the cache of the following epoch is prepared in the background so that crossing the epoch
+ * boundary does not stall header validation. Stored caches of epochs older than the previous one
+ * are deleted.
+ */
 public class EthHashCacheFactory {
 
   private static final Logger LOG = LogManager.getLogger();
 
+  static final long PREPARE_NEXT_EPOCH_DISTANCE = 1_000;
+
+  private static final String CACHE_FILE_PREFIX = "ethash-cache-";
+
   public static class EthHashDescriptor {
     private final long datasetSize;
     private final int[] cache;
@@ -44,18 +72,108 @@ public class EthHashCacheFactory {
 
   Cache<Long, EthHashDescriptor> descriptorCache = CacheBuilder.newBuilder().maximumSize(5).build();
 
+  private final Optional<EthHashEpochFiles> cacheFiles;
+
+  private final ExecutorService preparer;
+
+  // The latest epoch whose preparation was queued, so it's only queued once.
+  private final AtomicLong preparedEpoch = new AtomicLong(-1);
+
+  /** Creates a factory keeping caches in memory only. */
+  public EthHashCacheFactory() {
+    this(Optional.empty());
+  }
+
+  /**
+   * Creates a factory storing caches in the given directory.
+   *
+   * @param cacheDirectory the cache directory, created if necessary, or empty to keep caches in
+   *     memory only
+   */
+  public EthHashCacheFactory(final Optional<Path> cacheDirectory) {
+    this(
+        cacheDirectory,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("EthHashCachePreparer")
+                .build()));
+  }
+
+  @VisibleForTesting
+  EthHashCacheFactory(final Optional<Path> cacheDirectory, final ExecutorService preparer) {
+    this.cacheFiles =
+        cacheDirectory.map(directory -> new EthHashEpochFiles(directory, CACHE_FILE_PREFIX));
+    this.preparer = preparer;
+  }
+
   public EthHashDescriptor ethHashCacheFor(final long blockNumber) {
     final long epochIndex = EthHash.epoch(blockNumber);
+    final long nextEpochIndex = epochIndex + 1;
+    if (EthHash.EPOCH_LENGTH - blockNumber % EthHash.EPOCH_LENGTH <= PREPARE_NEXT_EPOCH_DISTANCE
+        && preparedEpoch.getAndAccumulate(nextEpochIndex, Math::max) < nextEpochIndex) {
+      preparer.execute(() -> descriptorFor(nextEpochIndex));
+    }
+    return descriptorFor(epochIndex);
+  }
+
+  private EthHashDescriptor descriptorFor(final long epochIndex) {
     try {
-      return descriptorCache.get(epochIndex, () -> createHashCache(epochIndex, blockNumber));
+      return descriptorCache.get(epochIndex, () -> loadOrCreateHashCache(epochIndex));
     } catch (final ExecutionException ex) {
       throw new RuntimeException("Failed to create a suitable cache for EthHash calculations.", ex);
     }
   }
 
-  private EthHashDescriptor createHashCache(final long epochIndex, final long blockNumber) {
+  private EthHashDescriptor loadOrCreateHashCache(final long epochIndex) {
+    final long cacheSize = EthHash.cacheSize(epochIndex);
+    if (!cacheFiles.isPresent()) {
+      return createHashCache(epochIndex, cacheSize);
+    }
+    final Path file = cacheFiles.get().file(epochIndex);
+    try {
+      if (Files.exists(file) && Files.size(file) == cacheSize) {
+        return new EthHashDescriptor(EthHash.datasetSize(epochIndex), readCache(file));
+      }
+    } catch (final IOException ex) {
+      LOG.warn("Failed to read EthHash cache for epoch {} from {}", epochIndex, file, ex);
+    }
+    final EthHashDescriptor descriptor = createHashCache(epochIndex, cacheSize);
+    try {
+      cacheFiles.get().write(epochIndex, channel -> writeCache(channel, descriptor.getCache()));
+      LOG.info("Stored EthHash cache for epoch {}", epochIndex);
+    } catch (final IOException ex) {
+      LOG.warn("Failed to store EthHash cache for epoch {} in {}", epochIndex, file, ex);
+    }
+    cacheFiles.get().deleteBefore(epochIndex - 1);
+    return descriptor;
+  }
+
+  private EthHashDescriptor createHashCache(final long epochIndex, final long cacheSize) {
     final int[] cache =
-        EthHash.mkCache(Ints.checkedCast(EthHash.cacheSize(epochIndex)), blockNumber);
+        EthHash.mkCache(Ints.checkedCast(cacheSize), epochIndex * EthHash.EPOCH_LENGTH);
     return new EthHashDescriptor(EthHash.datasetSize(epochIndex), cache);
   }
+
+  private static int[] readCache(final Path file) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final IntBuffer ints =
+          channel
+              .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+              .order(ByteOrder.LITTLE_ENDIAN)
+              .asIntBuffer();
+      final int[] cache = new int[ints.remaining()];
+      ints.get(cache);
+      return cache;
+    }
+  }
+
+  private static void writeCache(final FileChannel channel, final int[] cache) throws IOException {
+    final ByteBuffer bytes =
+        ByteBuffer.allocate(cache.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    bytes.asIntBuffer().put(cache);
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The files of one kind of EthHash data, such as caches or datasets, stored in a directory with one
+ * file per epoch named by a prefix followed by the epoch.
+ */
+final class EthHashEpochFiles {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String PARTIAL_FILE_SUFFIX = ".partial";
+
+  @FunctionalInterface
+  interface Writer {
+    void write(FileChannel channel) throws IOException;
+  }
+
+  private final Path directory;
+  private final String prefix;
+
+  EthHashEpochFiles(final Path directory, final String prefix) {
+    this.directory = directory;
+    this.prefix = prefix;
+  }
+
+  Path file(final long epoch) {
+    return directory.resolve(prefix + epoch);
+  }
+
+  /**
+   * Writes the file of an epoch, creating the directory if necessary.
+   *
+   * @param epoch the EthHash epoch
+   * @param writer writes the content of the file to the given channel
+   * @throws IOException if the file could not be written
+   */
+  void write(final long epoch, final Writer writer) throws IOException {
+    Files.createDirectories(directory);
+    final Path file = file(epoch);
+    final Path partialFile = file.resolveSibling(file.getFileName() + PARTIAL_FILE_SUFFIX);
+    try (final FileChannel channel =
+        FileChannel.open(
+            partialFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      writer.write(channel);
+      channel.force(false);
+    }
+    // Only complete files ever carry the final name, so an interrupted write is redone.
+    Files.move(partialFile, file, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Deletes the files, complete or not, of all epochs before the given one.
+   *
+   * @param epoch the oldest epoch whose file is kept
+   */
+  void deleteBefore(final long epoch) {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (final Stream<Path> files = Files.list(directory)) {
+      files
+          .filter(file -> epochOf(file) < epoch)
+          .forEach(
+              file -> {
+                try {
+                  Files.deleteIfExists(file);
+                } catch (final IOException e) {
+                  LOG.warn("Failed to delete EthHash file {}", file, e);
+                }
+              });
+    } catch (final IOException e) {
+      LOG.warn("Failed to list EthHash files in {}", directory, e);
+    }
+  }
+
+  private long epochOf(final Path file) {
+    String name = file.getFileName().toString();
+    if (!name.startsWith(prefix)) {
+      return Long.MAX_VALUE;
+    }
+    if (name.endsWith(PARTIAL_FILE_SUFFIX)) {
+      name = name.substring(0, name.length() - PARTIAL_FILE_SUFFIX.length());
+    }
+    try {
+      return Long.parseLong(name.substring(prefix.length()));
+    } catch (final NumberFormatException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+}
@@ -12,18 +12,24 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class EthHashSolver {
 
@@ -71,28 +77,74 @@ public class EthHashSolver {
 
   private final Iterable<Long> nonceGenerator;
   private final EthHasher ethHasher;
+  private final int threads;
+  private final Executor executor;
   private volatile long hashesPerSecond = NO_MINING_CONDUCTED;
 
   private volatile Optional<EthHashSolverJob> currentJob = Optional.empty();
 
   public EthHashSolver(final Iterable<Long> nonceGenerator, final EthHasher ethHasher) {
+    this(nonceGenerator, ethHasher, 1, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Creates a solver searching for a nonce on several threads.
+   *
+   * <p>With a single thread the nonces are taken from the generator in order. Otherwise the
+   * generator only provides a starting point for each job, and every thread searches its own
+   * contiguous range of nonces from there, so no nonce is tried twice.
+   *
+   * @param nonceGenerator the source of nonces
+   * @param ethHasher the hasher used to test the nonces
+   * @param threads the number of threads searching for a nonce
+   * @param executor the executor running the threads other than the one calling {@link
+   *     #solveFor(EthHashSolverJob)}
+   */
+  public EthHashSolver(
+      final Iterable<Long> nonceGenerator,
+      final EthHasher ethHasher,
+      final int threads,
+      final Executor executor) {
+    checkArgument(threads > 0, "At least one thread is required to solve for a nonce");
     this.nonceGenerator = nonceGenerator;
     this.ethHasher = ethHasher;
+    this.threads = threads;
+    this.executor = executor;
   }
 
   public EthHashSolution solveFor(final EthHashSolverJob job)
       throws InterruptedException, ExecutionException {
     currentJob = Optional.of(job);
-    findValidNonce();
-    return currentJob.get().getSolution();
+    final Stopwatch operationTimer = Stopwatch.createStarted();
+    final LongAdder hashesExecuted = new LongAdder();
+    if (threads == 1) {
+      findValidNonce(job, nonceGenerator, operationTimer, hashesExecuted);
+    } else {
+      final long start = nonceGenerator.iterator().next();
+      final long partitionSize = Long.divideUnsigned(-1L, threads);
+      for (int thread = 1; thread < threads; thread++) {
+        final Iterable<Long> partition = noncePartition(start + thread * partitionSize);
+        executor.execute(
+            () -> {
+              try {
+                findValidNonce(job, partition, operationTimer, hashesExecuted);
+              } catch (final RuntimeException e) {
+                job.failed(e);
+              }
+            });
+      }
+      findValidNonce(job, noncePartition(start), operationTimer, hashesExecuted);
+    }
+    return job.getSolution();
   }
 
-  private void findValidNonce() {
-    final Stopwatch operationTimer = Stopwatch.createStarted();
-    final EthHashSolverJob job = currentJob.get();
-    long hashesExecuted = 0;
+  private void findValidNonce(
+      final EthHashSolverJob job,
+      final Iterable<Long> nonces,
+      final Stopwatch operationTimer,
+      final LongAdder hashesExecuted) {
     final byte[] hashBuffer = new byte[64];
-    for (final Long n : nonceGenerator) {
+    for (final Long n : nonces) {
 
       if (job.isDone()) {
         return;
@@ -101,13 +153,31 @@ public class EthHashSolver {
       final Optional<EthHashSolution> solution = testNonce(job.getInputs(), n, hashBuffer);
       solution.ifPresent(job::solvedWith);
 
-      hashesExecuted++;
+      hashesExecuted.increment();
       final double operationDurationSeconds = operationTimer.elapsed(TimeUnit.NANOSECONDS) / 1e9;
-      hashesPerSecond = (long) (hashesExecuted / operationDurationSeconds);
+      hashesPerSecond = (long) (hashesExecuted.sum() / operationDurationSeconds);
     }
     job.failed(new IllegalStateException("No valid nonce found."));
   }
 
+  /** Returns the nonces counting up from the given one, wrapping around after the largest. */
+  private static Iterable<Long> noncePartition(final long start) {
+    return () ->
+        new Iterator<Long>() {
+          private long next = start;
+
+          @Override
+          public boolean hasNext() {
+            return true;
+          }
+
+          @Override
+          public Long next() {
+            return next++;
+          }
+        };
+  }
+
   private Optional<EthHashSolution> testNonce(
       final EthHashSolverInputs inputs, final long nonce, final byte[] hashBuffer) {
     ethHasher.hash(hashBuffer, nonce, inputs.getBlockNumber(), inputs.getPrePowHash());
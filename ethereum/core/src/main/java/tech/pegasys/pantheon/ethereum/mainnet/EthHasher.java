@@ -14,13 +14,26 @@ package tech.pegasys.pantheon.ethereum.mainnet;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.LongUnaryOperator;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 public interface EthHasher {
 
@@ -34,7 +47,18 @@ public interface EthHasher {
 
   final class Light implements EthHasher {
 
-    private static final EthHashCacheFactory cacheFactory = new EthHashCacheFactory();
+    private static final EthHashCacheFactory DEFAULT_CACHE_FACTORY = new EthHashCacheFactory();
+
+    private final EthHashCacheFactory cacheFactory;
+
+    /** Creates a hasher sharing caches that are kept in memory only. */
+    public Light() {
+      this(DEFAULT_CACHE_FACTORY);
+    }
+
+    public Light(final EthHashCacheFactory cacheFactory) {
+      this.cacheFactory = cacheFactory;
+    }
 
     @Override
     public void hash(
@@ -46,78 +70,216 @@ public interface EthHasher {
     }
   }
 
+  /**
+   * Hashes against the full dataset of each epoch, which is stored in a memory-mapped file under a
+   * directory so that it survives restarts.
+   *
+   * <p>The dataset of an epoch is generated in the background, in parallel, the first time a block
+   * of that epoch is hashed; until it is ready hashes are computed with the light cache instead. A
+   * failed generation is retried when the next block of that epoch is hashed. Once the dataset of
+   * an epoch is in use the dataset of the next epoch is generated ahead of time, and the datasets
+   * of earlier epochs are deleted.
+   */
   final class Full implements EthHasher, Closeable {
 
+    private static final Logger LOG = LogManager.getLogger();
+
     private static final int HASHERS = Runtime.getRuntime().availableProcessors();
 
-    private long epoch = -1L;
+    private static final String DATASET_FILE_PREFIX = "ethash-dataset-";
+
+    /** The size of each mapped region, a multiple of the item size so no item spans regions. */
+    private static final long REGION_BYTES = 1L << 30;
+
+    private final EthHashEpochFiles datasetFiles;
+
+    private final LongUnaryOperator datasetSize;
+
+    private final EthHasher light = new Light();
 
-    private long datasetSize;
+    private final Map<Long, CompletableFuture<Dataset>> datasets = new ConcurrentHashMap<>();
 
-    private final RandomAccessFile cacheFile;
+    private final ExecutorService generator =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("EthHashDatasetGenerator")
+                .build());
 
-    private final ExecutorService hashers = Executors.newFixedThreadPool(HASHERS);
+    private final ExecutorService hashers =
+        Executors.newFixedThreadPool(
+            HASHERS,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("EthHashDataset-%d").build());
 
-    public Full(final Path cacheFile) throws IOException {
-      this.cacheFile = new RandomAccessFile(cacheFile.toFile(), "rw");
-      datasetSize = this.cacheFile.length();
+    private volatile long currentEpoch = -1L;
+
+    /**
+     * Creates a hasher storing its datasets in the given directory.
+     *
+     * @param directory the directory the datasets are stored in, created if necessary
+     */
+    public Full(final Path directory) {
+      this(directory, EthHash::datasetSize);
+    }
+
+    @VisibleForTesting
+    Full(final Path directory, final LongUnaryOperator datasetSize) {
+      this.datasetFiles = new EthHashEpochFiles(directory, DATASET_FILE_PREFIX);
+      this.datasetSize = datasetSize;
     }
 
     @Override
     public void hash(
         final byte[] buffer, final long nonce, final long number, final byte[] headerHash) {
-      final long newEpoch = EthHash.epoch(number);
-      if (epoch != newEpoch) {
-        updateCache(number, newEpoch);
+      final long epoch = EthHash.epoch(number);
+      if (epoch < currentEpoch) {
+        // The datasets of past epochs are discarded, so blocks from them are hashed from the cache.
+        light.hash(buffer, nonce, number, headerHash);
+        return;
       }
-      final byte[] hash =
-          EthHash.hashimoto(
-              headerHash,
-              datasetSize,
-              nonce,
-              (bytes, offset) -> {
-                try {
-                  cacheFile.seek(((long) offset) * EthHash.HASH_BYTES);
-                  cacheFile.readFully(bytes);
-                } catch (final IOException ex) {
-                  throw new IllegalStateException(ex);
-                }
-              });
+      final CompletableFuture<Dataset> future = datasetFor(epoch);
+      if (future.isCompletedExceptionally()) {
+        // Forget the failed generation so that the next hash of this epoch tries again.
+        datasets.remove(epoch, future);
+      }
+      if (!future.isDone() || future.isCompletedExceptionally()) {
+        light.hash(buffer, nonce, number, headerHash);
+        return;
+      }
+      final Dataset dataset = future.join();
+      if (epoch > currentEpoch) {
+        advanceTo(epoch);
+      }
+      final byte[] hash = EthHash.hashimoto(headerHash, dataset.size, nonce, dataset::readItem);
       System.arraycopy(hash, 0, buffer, 0, hash.length);
     }
 
-    private void updateCache(final long number, final long newEpoch) {
-      final int[] cache = EthHash.mkCache(Ints.checkedCast(EthHash.cacheSize(newEpoch)), number);
-      epoch = newEpoch;
-      final long newDatasetSize = EthHash.datasetSize(epoch);
-      if (newDatasetSize != datasetSize) {
-        datasetSize = newDatasetSize;
-        final CountDownLatch doneLatch = new CountDownLatch(HASHERS);
-        final int upperBound = Ints.checkedCast(datasetSize / EthHash.HASH_BYTES);
-        final int partitionSize = upperBound / HASHERS;
-        for (int partition = 0; partition < HASHERS; ++partition) {
-          hashers.execute(
-              new EthHasher.Full.HasherTask(
-                  partition * partitionSize,
-                  partition == HASHERS - 1 ? upperBound : (partition + 1) * partitionSize,
-                  cache,
-                  doneLatch,
-                  cacheFile));
-        }
-        try {
-          doneLatch.await();
-        } catch (final InterruptedException ex) {
-          throw new IllegalStateException(ex);
+    /**
+     * Returns the dataset of an epoch, scheduling its generation if it is not already loaded.
+     *
+     * @param epoch the EthHash epoch
+     * @return a future completed once the dataset is ready for use
+     */
+    @VisibleForTesting
+    CompletableFuture<Dataset> datasetFor(final long epoch) {
+      return datasets.computeIfAbsent(
+          epoch, e -> CompletableFuture.supplyAsync(() -> loadOrGenerate(e), generator));
+    }
+
+    private synchronized void advanceTo(final long epoch) {
+      if (epoch <= currentEpoch) {
+        return;
+      }
+      currentEpoch = epoch;
+      datasets.keySet().removeIf(e -> e < epoch);
+      generator.execute(() -> datasetFiles.deleteBefore(epoch));
+      datasetFor(epoch + 1);
+    }
+
+    private Dataset loadOrGenerate(final long epoch) {
+      final long size = datasetSize.applyAsLong(epoch);
+      final Path file = datasetFile(epoch);
+      try {
+        if (!Files.exists(file) || Files.size(file) != size) {
+          generate(epoch, size);
+        } else {
+          LOG.info("Reusing EthHash dataset for epoch {} from {}", epoch, file);
         }
+        return Dataset.map(file, size);
+      } catch (final IOException e) {
+        LOG.error("Failed to prepare the EthHash dataset for epoch {}", epoch, e);
+        throw new IllegalStateException(e);
       }
     }
 
+    private void generate(final long epoch, final long size) throws IOException {
+      LOG.info("Generating EthHash dataset of {} bytes for epoch {}", size, epoch);
+      final int[] cache =
+          EthHash.mkCache(Ints.checkedCast(EthHash.cacheSize(epoch)), epoch * EthHash.EPOCH_LENGTH);
+      datasetFiles.write(
+          epoch,
+          channel -> {
+            final CountDownLatch doneLatch = new CountDownLatch(HASHERS);
+            final HasherTask[] tasks = new HasherTask[HASHERS];
+            final int upperBound = Ints.checkedCast(size / EthHash.HASH_BYTES);
+            final int partitionSize = upperBound / HASHERS;
+            for (int partition = 0; partition < HASHERS; ++partition) {
+              tasks[partition] =
+                  new HasherTask(
+                      partition * partitionSize,
+                      partition == HASHERS - 1 ? upperBound : (partition + 1) * partitionSize,
+                      cache,
+                      doneLatch,
+                      channel);
+              hashers.execute(tasks[partition]);
+            }
+            try {
+              doneLatch.await();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new IOException("Interrupted while generating EthHash dataset", e);
+            }
+            for (final HasherTask task : tasks) {
+              if (task.failure != null) {
+                Throwables.throwIfInstanceOf(task.failure, IOException.class);
+                Throwables.throwIfUnchecked(task.failure);
+                throw new IOException(task.failure);
+              }
+            }
+          });
+      LOG.info("Generated EthHash dataset for epoch {}", epoch);
+    }
+
+    @VisibleForTesting
+    Path datasetFile(final long epoch) {
+      return datasetFiles.file(epoch);
+    }
+
     @Override
-    public void close() throws IOException {
-      cacheFile.close();
+    public void close() {
+      generator.shutdownNow();
       hashers.shutdownNow();
     }
 
+    /** A dataset mapped into memory in regions of at most {@link #REGION_BYTES}. */
+    @VisibleForTesting
+    static final class Dataset {
+
+      private final long size;
+      private final MappedByteBuffer[] regions;
+
+      private Dataset(final long size, final MappedByteBuffer[] regions) {
+        this.size = size;
+        this.regions = regions;
+      }
+
+      private static Dataset map(final Path file, final long size) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          final MappedByteBuffer[] regions =
+              new MappedByteBuffer[Ints.checkedCast((size + REGION_BYTES - 1) / REGION_BYTES)];
+          for (int i = 0; i < regions.length; i++) {
+            final long position = i * REGION_BYTES;
+            regions[i] =
+                channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    position,
+                    Math.min(REGION_BYTES, size - position));
+          }
+          return new Dataset(size, regions);
+        }
+      }
+
+      void readItem(final byte[] target, final int index) {
+        final long offset = (long) index * EthHash.HASH_BYTES;
+        final ByteBuffer region = regions[(int) (offset / REGION_BYTES)];
+        final int position = (int) (offset % REGION_BYTES);
+        // Absolute reads leave the shared buffer's position untouched.
+        for (int i = 0; i < EthHash.HASH_BYTES; i++) {
+          target[i] = region.get(position + i);
+        }
+      }
+    }
+
     private static final class HasherTask implements Runnable {
 
       private static final int DISK_BATCH_SIZE = 256;
@@ -126,52 +288,44 @@ public interface EthHasher {
       private final int end;
       private final int[] cache;
       private final CountDownLatch doneLatch;
-      private final RandomAccessFile cacheFile;
+      private final FileChannel channel;
+      private volatile Throwable failure;
 
       HasherTask(
           final int start,
           final int upperBound,
           final int[] cache,
           final CountDownLatch doneLatch,
-          final RandomAccessFile cacheFile) {
+          final FileChannel channel) {
         this.end = upperBound;
         this.cache = cache;
         this.start = start;
         this.doneLatch = doneLatch;
-        this.cacheFile = cacheFile;
+        this.channel = channel;
       }
 
       @Override
       public void run() {
         try {
           final byte[] itemBuffer = new byte[EthHash.HASH_BYTES];
-          final byte[] writeBuffer = new byte[EthHash.HASH_BYTES * DISK_BATCH_SIZE];
-          int buffered = 0;
-          long lastOffset = 0;
+          final ByteBuffer writeBuffer = ByteBuffer.allocate(EthHash.HASH_BYTES * DISK_BATCH_SIZE);
+          long writeOffset = (long) start * EthHash.HASH_BYTES;
           for (int i = start; i < end; ++i) {
             EthHash.calcDatasetItem(itemBuffer, cache, i);
-            System.arraycopy(
-                itemBuffer, 0, writeBuffer, buffered * EthHash.HASH_BYTES, EthHash.HASH_BYTES);
-            ++buffered;
-            if (buffered == DISK_BATCH_SIZE) {
-              synchronized (cacheFile) {
-                lastOffset =
-                    (long) ((i - DISK_BATCH_SIZE + 1) * EthHash.HASH_BYTES) + writeBuffer.length;
-                cacheFile.seek(lastOffset - writeBuffer.length);
-                cacheFile.write(writeBuffer);
+            writeBuffer.put(itemBuffer);
+            if (!writeBuffer.hasRemaining() || i == end - 1) {
+              writeBuffer.flip();
+              while (writeBuffer.hasRemaining()) {
+                writeOffset += channel.write(writeBuffer, writeOffset);
               }
-              buffered = 0;
-            }
-          }
-          if (buffered > 0) {
-            synchronized (cacheFile) {
-              cacheFile.seek(lastOffset);
-              cacheFile.write(writeBuffer, 0, buffered * EthHash.HASH_BYTES);
+              writeBuffer.clear();
             }
           }
+        } catch (final Throwable t) {
+          // Any failure leaves the dataset incomplete, so it must never get its final name.
+          failure = t;
+        } finally {
           doneLatch.countDown();
-        } catch (final IOException ex) {
-          throw new IllegalStateException(ex);
         }
       }
     }
@@ -34,13 +34,13 @@ public final class MainnetBlockHeaderValidator {
   public static final int MINIMUM_SECONDS_SINCE_PARENT = 1;
 
   public static BlockHeaderValidator<Void> create(
-      final DifficultyCalculator<Void> difficultyCalculator) {
-    return createValidator(difficultyCalculator).build();
+      final DifficultyCalculator<Void> difficultyCalculator, final EthHasher ethHasher) {
+    return createValidator(difficultyCalculator, ethHasher).build();
   }
 
   public static BlockHeaderValidator<Void> createDaoValidator(
-      final DifficultyCalculator<Void> difficultyCalculator) {
-    return createValidator(difficultyCalculator)
+      final DifficultyCalculator<Void> difficultyCalculator, final EthHasher ethHasher) {
+    return createValidator(difficultyCalculator, ethHasher)
         .addRule(
             new ConstantFieldValidationRule<>(
                 "extraData", BlockHeader::getExtraData, DAO_EXTRA_DATA))
@@ -48,7 +48,7 @@ public final class MainnetBlockHeaderValidator {
   }
 
   static BlockHeaderValidator<Void> createOmmerValidator(
-      final DifficultyCalculator<Void> difficultyCalculator) {
+      final DifficultyCalculator<Void> difficultyCalculator, final EthHasher ethHasher) {
     return new BlockHeaderValidator.Builder<Void>()
         .addRule(new CalculatedDifficultyValidationRule<>(difficultyCalculator))
         .addRule(new AncestryValidationRule())
@@ -56,12 +56,12 @@ public final class MainnetBlockHeaderValidator {
         .addRule(new GasUsageValidationRule())
         .addRule(new TimestampMoreRecentThanParent(MINIMUM_SECONDS_SINCE_PARENT))
         .addRule(new ExtraDataMaxLengthValidationRule(BlockHeader.MAX_EXTRA_DATA_BYTES))
-        .addRule(new ProofOfWorkValidationRule())
+        .addRule(new ProofOfWorkValidationRule(ethHasher))
         .build();
   }
 
   private static BlockHeaderValidator.Builder<Void> createValidator(
-      final DifficultyCalculator<Void> difficultyCalculator) {
+      final DifficultyCalculator<Void> difficultyCalculator, final EthHasher ethHasher) {
     return new BlockHeaderValidator.Builder<Void>()
         .addRule(new CalculatedDifficultyValidationRule<>(difficultyCalculator))
         .addRule(new AncestryValidationRule())
@@ -70,6 +70,6 @@ public final class MainnetBlockHeaderValidator {
         .addRule(new TimestampMoreRecentThanParent(MINIMUM_SECONDS_SINCE_PARENT))
         .addRule(new TimestampBoundedByFutureParameter(TIMESTAMP_TOLERANCE_S))
         .addRule(new ExtraDataMaxLengthValidationRule(BlockHeader.MAX_EXTRA_DATA_BYTES))
-        .addRule(new ProofOfWorkValidationRule());
+        .addRule(new ProofOfWorkValidationRule(ethHasher));
   }
 }
@@ -27,6 +27,7 @@ import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.logging.log4j.LogManager;
@@ -85,15 +86,36 @@ public class MainnetBlockProcessor implements BlockProcessor {
 
   private final MiningBeneficiaryCalculator miningBeneficiaryCalculator;
 
+  private final Optional<ParallelTransactionExecutor> parallelTransactionExecutor;
+
+  /**
+   * Creates a block processor.
+   *
+   * <p>The transactions of a block are executed either one after the other, or optimistically in
+   * parallel, executing again the transactions that turn out to depend on the updates of a previous
+   * transaction of the block. Both produce the same world state and receipts.
+   *
+   * @param transactionProcessor the processor executing each transaction
+   * @param transactionReceiptFactory creates the receipt of each transaction
+   * @param blockReward the reward of the block's beneficiary
+   * @param miningBeneficiaryCalculator determines the beneficiary of each block
+   * @param parallelTransactionExecution true to execute the transactions of a block in parallel
+   */
   public MainnetBlockProcessor(
       final TransactionProcessor transactionProcessor,
       final TransactionReceiptFactory transactionReceiptFactory,
       final Wei blockReward,
-      final MiningBeneficiaryCalculator miningBeneficiaryCalculator) {
+      final MiningBeneficiaryCalculator miningBeneficiaryCalculator,
+      final boolean parallelTransactionExecution) {
     this.transactionProcessor = transactionProcessor;
     this.transactionReceiptFactory = transactionReceiptFactory;
     this.blockReward = blockReward;
     this.miningBeneficiaryCalculator = miningBeneficiaryCalculator;
+    this.parallelTransactionExecutor =
+        parallelTransactionExecution
+            ? Optional.of(
+                new ParallelTransactionExecutor(transactionProcessor, transactionReceiptFactory))
+            : Optional.empty();
   }
 
   @Override
@@ -104,17 +126,43 @@ public class MainnetBlockProcessor implements BlockProcessor {
       final List<Transaction> transactions,
       final List<BlockHeader> ommers) {
 
+    final Optional<List<TransactionReceipt>> receipts;
+    if (parallelTransactionExecutor.isPresent() && transactions.size() > 1) {
+      receipts =
+          parallelTransactionExecutor
+              .get()
+              .execute(
+                  blockchain,
+                  worldState,
+                  blockHeader,
+                  transactions,
+                  miningBeneficiaryCalculator.calculateBeneficiary(blockHeader));
+    } else {
+      receipts = processTransactions(blockchain, worldState, blockHeader, transactions);
+    }
+    if (!receipts.isPresent()) {
+      return Result.failed();
+    }
+
+    if (!rewardCoinbase(worldState, blockHeader, ommers)) {
+      return Result.failed();
+    }
+
+    worldState.persist();
+    return Result.successful(receipts.get());
+  }
+
+  private Optional<List<TransactionReceipt>> processTransactions(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final BlockHeader blockHeader,
+      final List<Transaction> transactions) {
     long gasUsed = 0;
     final List<TransactionReceipt> receipts = new ArrayList<>();
 
     for (final Transaction transaction : transactions) {
-      final long remainingGasBudget = blockHeader.getGasLimit() - gasUsed;
-      if (Long.compareUnsigned(transaction.getGasLimit(), remainingGasBudget) > 0) {
-        LOG.warn(
-            "Transaction processing error: transaction gas limit {} exceeds available block budget remaining {}",
-            transaction.getGasLimit(),
-            remainingGasBudget);
-        return Result.failed();
+      if (exceedsGasBudget(blockHeader, transaction, gasUsed)) {
+        return Optional.empty();
       }
 
       final WorldUpdater worldStateUpdater = worldState.updater();
@@ -130,7 +178,7 @@ public class MainnetBlockProcessor implements BlockProcessor {
               miningBeneficiary,
               blockHashLookup);
       if (result.isInvalid()) {
-        return Result.failed();
+        return Optional.empty();
       }
 
       worldStateUpdater.commit();
@@ -139,13 +187,20 @@ public class MainnetBlockProcessor implements BlockProcessor {
           transactionReceiptFactory.create(result, worldState, gasUsed);
       receipts.add(transactionReceipt);
     }
+    return Optional.of(receipts);
+  }
 
-    if (!rewardCoinbase(worldState, blockHeader, ommers)) {
-      return Result.failed();
+  static boolean exceedsGasBudget(
+      final BlockHeader blockHeader, final Transaction transaction, final long gasUsed) {
+    final long remainingGasBudget = blockHeader.getGasLimit() - gasUsed;
+    if (Long.compareUnsigned(transaction.getGasLimit(), remainingGasBudget) > 0) {
+      LOG.warn(
+          "Transaction processing error: transaction gas limit {} exceeds available block budget remaining {}",
+          transaction.getGasLimit(),
+          remainingGasBudget);
+      return true;
     }
-
-    worldState.persist();
-    return Result.successful(receipts);
+    return false;
   }
 
   private boolean rewardCoinbase(
@@ -37,8 +37,31 @@ public class MainnetProtocolSchedule {
    */
   public static ProtocolSchedule<Void> fromConfig(
       final GenesisConfigOptions config, final MetricsSystem metricsSystem) {
+    return fromConfig(config, metricsSystem, new EthHasher.Light(), false);
+  }
+
+  /**
+   * Create a Mainnet protocol schedule from a config object
+   *
+   * @param config {@link GenesisConfigOptions} containing the config options for the milestone
+   *     starting points
+   * @param metricsSystem the {@link MetricsSystem} to use to record metrics
+   * @param ethHasher the {@link EthHasher} used to validate the proof of work of block headers
+   * @param parallelTransactionExecution true to execute the transactions of a block in parallel
+   * @return A configured mainnet protocol schedule
+   */
+  public static ProtocolSchedule<Void> fromConfig(
+      final GenesisConfigOptions config,
+      final MetricsSystem metricsSystem,
+      final EthHasher ethHasher,
+      final boolean parallelTransactionExecution) {
     return new ProtocolScheduleFactory<>(
-            metricsSystem, config, DEFAULT_CHAIN_ID, Function.identity())
+            metricsSystem,
+            config,
+            DEFAULT_CHAIN_ID,
+            Function.identity(),
+            ethHasher,
+            parallelTransactionExecution)
         .createProtocolSchedule();
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates batches of headers against their parents on a fork-join pool shared by the whole
+ * process and sized to the number of available processors.
+ *
+ * <p>Each header is checked independently with the {@link BlockHeaderValidator} of the protocol
+ * spec its number belongs to, so this is only suitable for modes that do not read the blockchain,
+ * such as {@link HeaderValidationMode#DETACHED_ONLY}. Checking that the headers form a chain
+ * remains the caller's responsibility. Small batches are validated on the calling thread as the
+ * hand-off would cost more than it saves.
+ */
+public final class ParallelBlockHeaderValidator {
+
+  static final int MIN_PARALLEL_BATCH_SIZE = 4;
+
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          ParallelBlockHeaderValidator::newWorkerThread,
+          null,
+          false);
+
+  private ParallelBlockHeaderValidator() {}
+
+  /**
+   * Validates each header against the parent at the same position.
+   *
+   * @param protocolSchedule the protocol schedule the header validators are taken from
+   * @param protocolContext the protocol context passed to the validation rules
+   * @param headers the headers to validate
+   * @param parents the parent of each header
+   * @param mode the header validation mode
+   * @param <C> the consensus context type
+   * @return whether each header is valid, in the same order as {@code headers}
+   */
+  public static <C> boolean[] validateHeaders(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final List<BlockHeader> headers,
+      final List<BlockHeader> parents,
+      final HeaderValidationMode mode) {
+    checkArgument(headers.size() == parents.size(), "A parent is required for each header");
+    final Batch<C> batch = new Batch<>(protocolSchedule, protocolContext, headers, parents, mode);
+    if (headers.size() < MIN_PARALLEL_BATCH_SIZE) {
+      batch.validateRange(0, headers.size());
+    } else {
+      POOL.invoke(new ValidationTask<>(batch, 0, headers.size()));
+    }
+    return batch.results;
+  }
+
+  private static ForkJoinWorkerThread newWorkerThread(final ForkJoinPool pool) {
+    final ForkJoinWorkerThread thread =
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("HeaderValidation-" + thread.getPoolIndex());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static class Batch<C> {
+
+    private final ProtocolSchedule<C> protocolSchedule;
+    private final ProtocolContext<C> protocolContext;
+    private final List<BlockHeader> headers;
+    private final List<BlockHeader> parents;
+    private final HeaderValidationMode mode;
+    private final boolean[] results;
+
+    private Batch(
+        final ProtocolSchedule<C> protocolSchedule,
+        final ProtocolContext<C> protocolContext,
+        final List<BlockHeader> headers,
+        final List<BlockHeader> parents,
+        final HeaderValidationMode mode) {
+      this.protocolSchedule = protocolSchedule;
+      this.protocolContext = protocolContext;
+      this.headers = headers;
+      this.parents = parents;
+      this.mode = mode;
+      this.results = new boolean[headers.size()];
+    }
+
+    private void validateRange(final int from, final int to) {
+      for (int i = from; i < to; i++) {
+        final BlockHeader header = headers.get(i);
+        final BlockHeaderValidator<C> blockHeaderValidator =
+            protocolSchedule.getByBlockNumber(header.getNumber()).getBlockHeaderValidator();
+        results[i] =
+            blockHeaderValidator.validateHeader(header, parents.get(i), protocolContext, mode);
+      }
+    }
+  }
+
+  private static class ValidationTask<C> extends RecursiveAction {
+
+    private final Batch<C> batch;
+    private final int from;
+    private final int to;
+
+    private ValidationTask(final Batch<C> batch, final int from, final int to) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      // A single proof of work check is expensive enough to be worth its own task.
+      if (to - from == 1) {
+        batch.validateRange(from, to);
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      invokeAll(new ValidationTask<>(batch, from, middle), new ValidationTask<>(batch, middle, to));
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.core.WorldView;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockProcessor.TransactionReceiptFactory;
+import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Executes the transactions of a block optimistically in parallel, producing the same world state
+ * and receipts as executing them one after the other.
+ *
+ * <p>Each transaction is first executed on its own {@link SpeculativeWorldUpdater} over the world
+ * state as it was before the block, on a fork-join pool shared by the whole process and sized to
+ * the number of available processors. The speculative executions are then validated in block order:
+ * an execution that read nothing written by the transactions before it has its updates applied to
+ * the world state as they are, while any other transaction is executed again on the up-to-date
+ * world state. Transactions from a sender that already appears earlier in the block would always
+ * fail validation on the sender nonce, so they are not executed speculatively.
+ */
+final class ParallelTransactionExecutor {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          ParallelTransactionExecutor::newWorkerThread,
+          null,
+          false);
+
+  private final TransactionProcessor transactionProcessor;
+  private final TransactionReceiptFactory transactionReceiptFactory;
+
+  ParallelTransactionExecutor(
+      final TransactionProcessor transactionProcessor,
+      final TransactionReceiptFactory transactionReceiptFactory) {
+    this.transactionProcessor = transactionProcessor;
+    this.transactionReceiptFactory = transactionReceiptFactory;
+  }
+
+  /**
+   * Executes the transactions of a block and commits their updates to the world state.
+   *
+   * @param blockchain the blockchain the block is imported into
+   * @param worldState the world state before the block
+   * @param blockHeader the header of the block
+   * @param transactions the transactions of the block
+   * @param miningBeneficiary the account transaction fees are credited to
+   * @return the receipt of each transaction, or empty if a transaction is invalid or exceeds the
+   *     block gas limit
+   */
+  Optional<List<TransactionReceipt>> execute(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final BlockHeader blockHeader,
+      final List<Transaction> transactions,
+      final Address miningBeneficiary) {
+    final Execution[] speculations =
+        speculate(blockchain, worldState, blockHeader, transactions, miningBeneficiary);
+
+    final StateAccessSet written = new StateAccessSet();
+    final List<TransactionReceipt> receipts = new ArrayList<>(transactions.size());
+    long gasUsed = 0;
+    int reExecuted = 0;
+    for (int i = 0; i < transactions.size(); i++) {
+      final Transaction transaction = transactions.get(i);
+      if (MainnetBlockProcessor.exceedsGasBudget(blockHeader, transaction, gasUsed)) {
+        return Optional.empty();
+      }
+
+      Execution execution = speculations[i];
+      if (execution == null
+          || execution.result.isInvalid()
+          || execution.updater.getReads().readsAnyOf(written)) {
+        execution = execute(blockchain, worldState, blockHeader, transaction, miningBeneficiary);
+        reExecuted++;
+        if (execution.result.isInvalid()) {
+          return Optional.empty();
+        }
+      }
+
+      written.addAll(execution.updater.getWrites());
+      final WorldUpdater worldStateUpdater = worldState.updater();
+      execution.updater.applyTo(worldStateUpdater);
+      worldStateUpdater.commit();
+      gasUsed = transaction.getGasLimit() - execution.result.getGasRemaining() + gasUsed;
+      receipts.add(transactionReceiptFactory.create(execution.result, worldState, gasUsed));
+    }
+    LOG.trace(
+        "Executed {} of {} transactions again after speculative execution",
+        reExecuted,
+        transactions.size());
+    return Optional.of(receipts);
+  }
+
+  private Execution[] speculate(
+      final Blockchain blockchain,
+      final WorldView worldState,
+      final BlockHeader blockHeader,
+      final List<Transaction> transactions,
+      final Address miningBeneficiary) {
+    final Execution[] executions = new Execution[transactions.size()];
+    final boolean[] speculative = new boolean[transactions.size()];
+    final Set<Address> senders = new HashSet<>();
+    for (int i = 0; i < transactions.size(); i++) {
+      speculative[i] = senders.add(transactions.get(i).getSender());
+    }
+    POOL.invoke(
+        new SpeculationTask(
+            index -> {
+              if (!speculative[index]) {
+                return;
+              }
+              try {
+                executions[index] =
+                    execute(
+                        blockchain,
+                        worldState,
+                        blockHeader,
+                        transactions.get(index),
+                        miningBeneficiary);
+              } catch (final RuntimeException e) {
+                // The transaction will be executed again, on the up-to-date world state.
+                LOG.trace("Speculative execution of transaction {} failed", index, e);
+              }
+            },
+            0,
+            transactions.size()));
+    return executions;
+  }
+
+  private Execution execute(
+      final Blockchain blockchain,
+      final WorldView worldState,
+      final BlockHeader blockHeader,
+      final Transaction transaction,
+      final Address miningBeneficiary) {
+    final SpeculativeWorldUpdater updater =
+        new SpeculativeWorldUpdater(worldState, miningBeneficiary);
+    final TransactionProcessor.Result result =
+        transactionProcessor.processTransaction(
+            blockchain,
+            updater,
+            blockHeader,
+            transaction,
+            miningBeneficiary,
+            new BlockHashLookup(blockHeader, blockchain));
+    return new Execution(updater, result);
+  }
+
+  private static ForkJoinWorkerThread newWorkerThread(final ForkJoinPool pool) {
+    final ForkJoinWorkerThread thread =
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("TransactionSpeculation-" + thread.getPoolIndex());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static class Execution {
+
+    private final SpeculativeWorldUpdater updater;
+    private final TransactionProcessor.Result result;
+
+    private Execution(
+        final SpeculativeWorldUpdater updater, final TransactionProcessor.Result result) {
+      this.updater = updater;
+      this.result = result;
+    }
+  }
+
+  private static class SpeculationTask extends RecursiveAction {
+
+    private final IntConsumer action;
+    private final int from;
+    private final int to;
+
+    private SpeculationTask(final IntConsumer action, final int from, final int to) {
+      this.action = action;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        for (int index = from; index < to; index++) {
+          action.accept(index);
+        }
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      invokeAll(new SpeculationTask(action, from, middle), new SpeculationTask(action, middle, to));
+    }
+  }
+}
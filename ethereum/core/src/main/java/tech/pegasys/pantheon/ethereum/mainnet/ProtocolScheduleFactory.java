@@ -24,16 +24,30 @@ public class ProtocolScheduleFactory<C> {
   private final GenesisConfigOptions config;
   private final Function<ProtocolSpecBuilder<Void>, ProtocolSpecBuilder<C>> protocolSpecAdapter;
   private final int defaultChainId;
+  private final EthHasher ethHasher;
+  private final boolean parallelTransactionExecution;
 
   public ProtocolScheduleFactory(
       final MetricsSystem metricsSystem,
       final GenesisConfigOptions config,
       final int defaultChainId,
       final Function<ProtocolSpecBuilder<Void>, ProtocolSpecBuilder<C>> protocolSpecAdapter) {
+    this(metricsSystem, config, defaultChainId, protocolSpecAdapter, new EthHasher.Light(), false);
+  }
+
+  public ProtocolScheduleFactory(
+      final MetricsSystem metricsSystem,
+      final GenesisConfigOptions config,
+      final int defaultChainId,
+      final Function<ProtocolSpecBuilder<Void>, ProtocolSpecBuilder<C>> protocolSpecAdapter,
+      final EthHasher ethHasher,
+      final boolean parallelTransactionExecution) {
     this.metricsSystem = metricsSystem;
     this.config = config;
     this.protocolSpecAdapter = protocolSpecAdapter;
     this.defaultChainId = defaultChainId;
+    this.ethHasher = ethHasher;
+    this.parallelTransactionExecution = parallelTransactionExecution;
   }
 
   public ProtocolSchedule<C> createProtocolSchedule() {
@@ -41,11 +55,11 @@ public class ProtocolScheduleFactory<C> {
     final MutableProtocolSchedule<C> protocolSchedule = new MutableProtocolSchedule<>(chainId);
 
     addProtocolSpec(
-        protocolSchedule, OptionalLong.of(0), MainnetProtocolSpecs.frontierDefinition());
+        protocolSchedule, OptionalLong.of(0), MainnetProtocolSpecs.frontierDefinition(ethHasher));
     addProtocolSpec(
         protocolSchedule,
         config.getHomesteadBlockNumber(),
-        MainnetProtocolSpecs.homesteadDefinition());
+        MainnetProtocolSpecs.homesteadDefinition(ethHasher));
 
     config
         .getDaoForkBlock()
@@ -57,11 +71,11 @@ public class ProtocolScheduleFactory<C> {
                 addProtocolSpec(
                     protocolSchedule,
                     OptionalLong.of(daoBlockNumber),
-                    MainnetProtocolSpecs.daoRecoveryInitDefinition());
+                    MainnetProtocolSpecs.daoRecoveryInitDefinition(ethHasher));
                 addProtocolSpec(
                     protocolSchedule,
                     OptionalLong.of(daoBlockNumber + 1),
-                    MainnetProtocolSpecs.daoRecoveryTransitionDefinition());
+                    MainnetProtocolSpecs.daoRecoveryTransitionDefinition(ethHasher));
 
                 // Return to the previous protocol spec after the dao fork has completed.
                 protocolSchedule.putMilestone(daoBlockNumber + 10, originalProtocolSpec);
@@ -71,19 +85,19 @@ public class ProtocolScheduleFactory<C> {
     addProtocolSpec(
         protocolSchedule,
         config.getTangerineWhistleBlockNumber(),
-        MainnetProtocolSpecs.tangerineWhistleDefinition());
+        MainnetProtocolSpecs.tangerineWhistleDefinition(ethHasher));
     addProtocolSpec(
         protocolSchedule,
         config.getSpuriousDragonBlockNumber(),
-        MainnetProtocolSpecs.spuriousDragonDefinition(chainId));
+        MainnetProtocolSpecs.spuriousDragonDefinition(chainId, ethHasher));
     addProtocolSpec(
         protocolSchedule,
         config.getByzantiumBlockNumber(),
-        MainnetProtocolSpecs.byzantiumDefinition(chainId));
+        MainnetProtocolSpecs.byzantiumDefinition(chainId, ethHasher));
     addProtocolSpec(
         protocolSchedule,
         config.getConstantinopleBlockNumber(),
-        MainnetProtocolSpecs.constantinopleDefinition(chainId));
+        MainnetProtocolSpecs.constantinopleDefinition(chainId, ethHasher));
 
     return protocolSchedule;
   }
@@ -99,6 +113,7 @@ public class ProtocolScheduleFactory<C> {
                 protocolSpecAdapter
                     .apply(definition)
                     .metricsSystem(metricsSystem)
+                    .parallelTransactionExecution(parallelTransactionExecution)
                     .build(protocolSchedule)));
   }
 }
@@ -50,6 +50,7 @@ public class ProtocolSpecBuilder<T> {
   private String name;
   private MiningBeneficiaryCalculator miningBeneficiaryCalculator;
   private MetricsSystem metricsSystem;
+  private boolean parallelTransactionExecution;
 
   public ProtocolSpecBuilder<T> gasCalculator(final Supplier<GasCalculator> gasCalculatorBuilder) {
     this.gasCalculatorBuilder = gasCalculatorBuilder;
@@ -176,6 +177,12 @@ public class ProtocolSpecBuilder<T> {
     return this;
   }
 
+  public ProtocolSpecBuilder<T> parallelTransactionExecution(
+      final boolean parallelTransactionExecution) {
+    this.parallelTransactionExecution = parallelTransactionExecution;
+    return this;
+  }
+
   public <R> ProtocolSpecBuilder<R> changeConsensusContextType(
       final Function<DifficultyCalculator<R>, BlockHeaderValidator<R>> blockHeaderValidatorBuilder,
       final Function<DifficultyCalculator<R>, BlockHeaderValidator<R>> ommerHeaderValidatorBuilder,
@@ -203,6 +210,7 @@ public class ProtocolSpecBuilder<T> {
         .transactionReceiptFactory(transactionReceiptFactory)
         .transactionReceiptType(transactionReceiptType)
         .miningBeneficiaryCalculator(miningBeneficiaryCalculator)
+        .parallelTransactionExecution(parallelTransactionExecution)
         .name(name);
   }
 
@@ -253,7 +261,8 @@ public class ProtocolSpecBuilder<T> {
             transactionProcessor,
             transactionReceiptFactory,
             blockReward,
-            miningBeneficiaryCalculator);
+            miningBeneficiaryCalculator,
+            parallelTransactionExecution);
     final BlockValidator<T> blockValidator =
         blockValidatorBuilder.apply(blockHeaderValidator, blockBodyValidator, blockProcessor);
     final BlockImporter<T> blockImporter = blockImporterBuilder.apply(blockValidator);
@@ -289,7 +298,8 @@ public class ProtocolSpecBuilder<T> {
         TransactionProcessor transactionProcessor,
         TransactionReceiptFactory transactionReceiptFactory,
         Wei blockReward,
-        MiningBeneficiaryCalculator miningBeneficiaryCalculator);
+        MiningBeneficiaryCalculator miningBeneficiaryCalculator,
+        boolean parallelTransactionExecution);
   }
 
   public interface BlockValidatorBuilder<T> {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldView;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.NavigableMap;
+
+/**
+ * A {@link WorldView} that records which accounts and storage entries are read through it.
+ *
+ * <p>Account lookups are recorded whether or not the account exists, as the absence of an account
+ * is as much part of what a transaction observed as its content.
+ */
+class RecordingWorldView implements WorldView {
+
+  private final WorldView world;
+  private final StateAccessSet reads = new StateAccessSet();
+
+  RecordingWorldView(final WorldView world) {
+    this.world = world;
+  }
+
+  @Override
+  public RecordingAccount get(final Address address) {
+    reads.addAccount(address);
+    final Account account = world.get(address);
+    return account == null ? null : new RecordingAccount(account);
+  }
+
+  boolean hasRead(final Address address) {
+    return reads.containsAccount(address);
+  }
+
+  StateAccessSet getReads() {
+    return reads;
+  }
+
+  /** An {@link Account} that records the storage entries read from it. */
+  class RecordingAccount implements Account {
+
+    private final Account account;
+
+    private RecordingAccount(final Account account) {
+      this.account = account;
+    }
+
+    @Override
+    public Hash getAddressHash() {
+      return account.getAddressHash();
+    }
+
+    @Override
+    public Address getAddress() {
+      return account.getAddress();
+    }
+
+    @Override
+    public long getNonce() {
+      return account.getNonce();
+    }
+
+    @Override
+    public Wei getBalance() {
+      return account.getBalance();
+    }
+
+    @Override
+    public BytesValue getCode() {
+      return account.getCode();
+    }
+
+    @Override
+    public Hash getCodeHash() {
+      return account.getCodeHash();
+    }
+
+    @Override
+    public boolean hasCode() {
+      return account.hasCode();
+    }
+
+    @Override
+    public UInt256 getStorageValue(final UInt256 key) {
+      reads.addStorageSlot(account.getAddress(), key);
+      return account.getStorageValue(key);
+    }
+
+    @Override
+    public UInt256 getOriginalStorageValue(final UInt256 key) {
+      reads.addStorageSlot(account.getAddress(), key);
+      return account.getOriginalStorageValue(key);
+    }
+
+    @Override
+    public NavigableMap<Bytes32, UInt256> storageEntriesFrom(
+        final Bytes32 startKeyHash, final int limit) {
+      reads.addWholeStorage(account.getAddress());
+      return account.storageEntriesFrom(startKeyHash, limit);
+    }
+  }
+}
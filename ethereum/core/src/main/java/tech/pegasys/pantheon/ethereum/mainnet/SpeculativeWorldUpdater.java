@@ -0,0 +1,340 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import tech.pegasys.pantheon.ethereum.core.AbstractWorldUpdater;
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.core.WorldView;
+import tech.pegasys.pantheon.ethereum.mainnet.RecordingWorldView.RecordingAccount;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * A {@link WorldUpdater} in which a single transaction is executed ahead of its turn, recording the
+ * state it reads so that the execution can later be validated against the transactions that precede
+ * it in the block.
+ *
+ * <p>Every transaction credits its fee to the mining beneficiary, so recording that as a read of
+ * the beneficiary account would make all transactions of a block conflict with each other. Unless
+ * the transaction otherwise looks at the beneficiary, the fee is instead accumulated on the side
+ * and only added to the beneficiary balance when the updates are applied.
+ *
+ * <p>The buffered updates are never committed to the world state they were read from: they are
+ * replayed on another updater with {@link #applyTo(WorldUpdater)}.
+ */
+class SpeculativeWorldUpdater extends AbstractWorldUpdater<RecordingWorldView, RecordingAccount> {
+
+  private final Address miningBeneficiary;
+  private DeferredBeneficiaryAccount deferredBeneficiary;
+
+  SpeculativeWorldUpdater(final WorldView world, final Address miningBeneficiary) {
+    super(new RecordingWorldView(world));
+    this.miningBeneficiary = miningBeneficiary;
+  }
+
+  @Override
+  protected RecordingAccount getForMutation(final Address address) {
+    return wrappedWorldView().get(address);
+  }
+
+  @Override
+  public Account get(final Address address) {
+    materializeDeferredBeneficiary(address);
+    return super.get(address);
+  }
+
+  @Override
+  public MutableAccount getMutable(final Address address) {
+    materializeDeferredBeneficiary(address);
+    return super.getMutable(address);
+  }
+
+  @Override
+  public MutableAccount getOrCreate(final Address address) {
+    if (!address.equals(miningBeneficiary)) {
+      return super.getOrCreate(address);
+    }
+    if (deferredBeneficiary == null) {
+      if (isTracked(address) || wrappedWorldView().hasRead(address)) {
+        return super.getOrCreate(address);
+      }
+      deferredBeneficiary = new DeferredBeneficiaryAccount();
+    }
+    return deferredBeneficiary;
+  }
+
+  @Override
+  public void deleteAccount(final Address address) {
+    materializeDeferredBeneficiary(address);
+    super.deleteAccount(address);
+  }
+
+  @Override
+  public WorldUpdater updater() {
+    materializeDeferredBeneficiary(miningBeneficiary);
+    return super.updater();
+  }
+
+  @Override
+  public Collection<Account> getTouchedAccounts() {
+    final Collection<Account> touched = new ArrayList<>(updatedAccounts());
+    if (deferredBeneficiary != null) {
+      touched.add(deferredBeneficiary);
+    }
+    return touched;
+  }
+
+  @Override
+  public void revert() {
+    deletedAccounts().clear();
+    updatedAccounts().clear();
+    deferredBeneficiary = null;
+  }
+
+  @Override
+  public void commit() {
+    throw new UnsupportedOperationException(
+        "Speculative updates must be applied to another updater");
+  }
+
+  /**
+   * The state read by the transaction executed in this updater.
+   *
+   * @return the accounts and storage entries read from the underlying world state
+   */
+  StateAccessSet getReads() {
+    return wrappedWorldView().getReads();
+  }
+
+  /**
+   * The state written by the transaction executed in this updater.
+   *
+   * <p>Accounts that were only looked up are not included, and neither is the storage of accounts
+   * that were only updated in their header.
+   *
+   * @return the accounts and storage entries updated, created or deleted
+   */
+  StateAccessSet getWrites() {
+    final StateAccessSet writes = new StateAccessSet();
+    for (final Address address : deletedAccounts()) {
+      writes.addAccount(address);
+      writes.addWholeStorage(address);
+    }
+    for (final UpdateTrackingAccount<RecordingAccount> updated : updatedAccounts()) {
+      final Address address = updated.getAddress();
+      final RecordingAccount origin = updated.getWrappedAccount();
+      if (origin == null) {
+        writes.addAccount(address);
+        writes.addWholeStorage(address);
+      } else if (updated.codeWasUpdated()
+          || updated.getNonce() != origin.getNonce()
+          || !updated.getBalance().equals(origin.getBalance())) {
+        writes.addAccount(address);
+      }
+      if (updated.getStorageWasCleared()) {
+        writes.addWholeStorage(address);
+      }
+      for (final UInt256 key : updated.getUpdatedStorage().keySet()) {
+        writes.addStorageSlot(address, key);
+      }
+    }
+    if (deferredBeneficiary != null) {
+      writes.addAccount(miningBeneficiary);
+    }
+    return writes;
+  }
+
+  /**
+   * Replays the updates buffered in this updater on another updater.
+   *
+   * @param updater the updater to apply the updates to
+   */
+  void applyTo(final WorldUpdater updater) {
+    deletedAccounts().forEach(updater::deleteAccount);
+    for (final UpdateTrackingAccount<RecordingAccount> updated : updatedAccounts()) {
+      final Address address = updated.getAddress();
+      final MutableAccount account =
+          updated.getWrappedAccount() == null
+              ? updater.createAccount(address)
+              : updater.getMutable(address);
+      checkState(account != null, "Account %s was modified but no longer exists", address);
+      account.setNonce(updated.getNonce());
+      account.setBalance(updated.getBalance());
+      if (updated.codeWasUpdated()) {
+        account.setCode(updated.getCode());
+      }
+      if (updated.getStorageWasCleared()) {
+        account.clearStorage();
+      }
+      updated.getUpdatedStorage().forEach(account::setStorageValue);
+    }
+    if (deferredBeneficiary != null) {
+      updater.getOrCreate(miningBeneficiary).incrementBalance(deferredBeneficiary.fees);
+    }
+  }
+
+  private boolean isTracked(final Address address) {
+    if (deletedAccounts().contains(address)) {
+      return true;
+    }
+    for (final UpdateTrackingAccount<RecordingAccount> updated : updatedAccounts()) {
+      if (updated.getAddress().equals(address)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void materializeDeferredBeneficiary(final Address address) {
+    if (deferredBeneficiary != null && address.equals(miningBeneficiary)) {
+      deferredBeneficiary.materialize();
+    }
+  }
+
+  /**
+   * The mining beneficiary account, as handed out to a transaction that has not otherwise read it.
+   *
+   * <p>Fees credited to the account are accumulated without reading it. Any other access reads the
+   * account from the world state, credits it with the fees accumulated so far and from then on
+   * forwards everything to it.
+   */
+  private class DeferredBeneficiaryAccount implements MutableAccount {
+
+    private Wei fees = Wei.ZERO;
+    private MutableAccount account;
+
+    private MutableAccount materialize() {
+      if (account == null) {
+        deferredBeneficiary = null;
+        account = SpeculativeWorldUpdater.super.getOrCreate(miningBeneficiary);
+        account.incrementBalance(fees);
+      }
+      return account;
+    }
+
+    /**
+     * Credits the account, without reading it if it has not been read yet.
+     *
+     * @param value the amount to credit
+     * @return the previous balance, or {@code null} if the account has not been read
+     */
+    @Override
+    public Wei incrementBalance(final Wei value) {
+      if (account == null) {
+        fees = fees.plus(value);
+        return null;
+      }
+      return materialize().incrementBalance(value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      // A credited account has a balance, whatever its previous state.
+      return (account != null || fees.isZero()) && materialize().isEmpty();
+    }
+
+    @Override
+    public Address getAddress() {
+      return miningBeneficiary;
+    }
+
+    @Override
+    public Hash getAddressHash() {
+      return Hash.hash(miningBeneficiary);
+    }
+
+    @Override
+    public long getNonce() {
+      return materialize().getNonce();
+    }
+
+    @Override
+    public void setNonce(final long value) {
+      materialize().setNonce(value);
+    }
+
+    @Override
+    public Wei getBalance() {
+      return materialize().getBalance();
+    }
+
+    @Override
+    public void setBalance(final Wei value) {
+      materialize().setBalance(value);
+    }
+
+    @Override
+    public BytesValue getCode() {
+      return materialize().getCode();
+    }
+
+    @Override
+    public Hash getCodeHash() {
+      return materialize().getCodeHash();
+    }
+
+    @Override
+    public boolean hasCode() {
+      return materialize().hasCode();
+    }
+
+    @Override
+    public void setCode(final BytesValue code) {
+      materialize().setCode(code);
+    }
+
+    @Override
+    public UInt256 getStorageValue(final UInt256 key) {
+      return materialize().getStorageValue(key);
+    }
+
+    @Override
+    public UInt256 getOriginalStorageValue(final UInt256 key) {
+      return materialize().getOriginalStorageValue(key);
+    }
+
+    @Override
+    public NavigableMap<Bytes32, UInt256> storageEntriesFrom(
+        final Bytes32 startKeyHash, final int limit) {
+      return materialize().storageEntriesFrom(startKeyHash, limit);
+    }
+
+    @Override
+    public void setStorageValue(final UInt256 key, final UInt256 value) {
+      materialize().setStorageValue(key, value);
+    }
+
+    @Override
+    public void clearStorage() {
+      materialize().clearStorage();
+    }
+
+    @Override
+    public Map<UInt256, UInt256> getUpdatedStorage() {
+      return materialize().getUpdatedStorage();
+    }
+  }
+}
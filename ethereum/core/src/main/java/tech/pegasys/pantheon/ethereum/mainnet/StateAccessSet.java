@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of the world state read or written by one or more transactions.
+ *
+ * <p>An account header covers the existence, nonce, balance and code of an account. Storage slots
+ * are tracked individually, while accesses to the whole storage of an account cover reads that
+ * enumerate the storage and writes that clear it.
+ */
+class StateAccessSet {
+
+  private final Set<Address> accounts = new HashSet<>();
+  private final Map<Address, Set<UInt256>> storageSlots = new HashMap<>();
+  private final Set<Address> wholeStorages = new HashSet<>();
+
+  void addAccount(final Address address) {
+    accounts.add(address);
+  }
+
+  void addStorageSlot(final Address address, final UInt256 key) {
+    storageSlots.computeIfAbsent(address, a -> new HashSet<>()).add(key);
+  }
+
+  void addWholeStorage(final Address address) {
+    wholeStorages.add(address);
+  }
+
+  boolean containsAccount(final Address address) {
+    return accounts.contains(address);
+  }
+
+  void addAll(final StateAccessSet other) {
+    accounts.addAll(other.accounts);
+    other.storageSlots.forEach(
+        (address, keys) ->
+            storageSlots.computeIfAbsent(address, a -> new HashSet<>()).addAll(keys));
+    wholeStorages.addAll(other.wholeStorages);
+  }
+
+  /**
+   * Whether any of the state read, as recorded by this set, has been written, as recorded by the
+   * given set.
+   *
+   * @param writes the state that was written
+   * @return true if a value read may differ once the writes are applied
+   */
+  boolean readsAnyOf(final StateAccessSet writes) {
+    for (final Address address : accounts) {
+      if (writes.accounts.contains(address)) {
+        return true;
+      }
+    }
+    for (final Map.Entry<Address, Set<UInt256>> entry : storageSlots.entrySet()) {
+      final Address address = entry.getKey();
+      if (writes.wholeStorages.contains(address)) {
+        return true;
+      }
+      final Set<UInt256> writtenKeys = writes.storageSlots.get(address);
+      if (writtenKeys != null && !Collections.disjoint(entry.getValue(), writtenKeys)) {
+        return true;
+      }
+    }
+    for (final Address address : wholeStorages) {
+      if (writes.wholeStorages.contains(address) || writes.storageSlots.containsKey(address)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -15,8 +15,8 @@ package tech.pegasys.pantheon.ethereum.mainnet.headervalidationrules;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.mainnet.DetachedBlockHeaderValidationRule;
+import tech.pegasys.pantheon.ethereum.mainnet.EthHash;
 import tech.pegasys.pantheon.ethereum.mainnet.EthHasher;
-import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPOutput;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.bytes.BytesValues;
@@ -33,13 +33,23 @@ public final class ProofOfWorkValidationRule implements DetachedBlockHeaderValid
 
   private static final BigInteger ETHHASH_TARGET_UPPER_BOUND = BigInteger.valueOf(2).pow(256);
 
-  private static final EthHasher HASHER = new EthHasher.Light();
+  private static final ThreadLocal<byte[]> HASH_BUFFER =
+      ThreadLocal.withInitial(() -> new byte[64]);
+
+  private final EthHasher hasher;
+
+  public ProofOfWorkValidationRule() {
+    this(new EthHasher.Light());
+  }
+
+  public ProofOfWorkValidationRule(final EthHasher hasher) {
+    this.hasher = hasher;
+  }
 
   @Override
   public boolean validate(final BlockHeader header, final BlockHeader parent) {
-    final byte[] hashBuffer = new byte[64];
-    final Hash headerHash = hashHeader(header);
-    HASHER.hash(hashBuffer, header.getNonce(), header.getNumber(), headerHash.extractArray());
+    final byte[] hashBuffer = HASH_BUFFER.get();
+    hasher.hash(hashBuffer, header.getNonce(), header.getNumber(), EthHash.hashHeader(header));
 
     if (header.getDifficulty().isZero()) {
       LOG.trace("Rejecting header because difficulty is 0");
@@ -75,29 +85,6 @@ public final class ProofOfWorkValidationRule implements DetachedBlockHeaderValid
     return true;
   }
 
-  private Hash hashHeader(final BlockHeader header) {
-    final BytesValueRLPOutput out = new BytesValueRLPOutput();
-
-    // Encode header without nonce and mixhash
-    out.startList();
-    out.writeBytesValue(header.getParentHash());
-    out.writeBytesValue(header.getOmmersHash());
-    out.writeBytesValue(header.getCoinbase());
-    out.writeBytesValue(header.getStateRoot());
-    out.writeBytesValue(header.getTransactionsRoot());
-    out.writeBytesValue(header.getReceiptsRoot());
-    out.writeBytesValue(header.getLogsBloom().getBytes());
-    out.writeUInt256Scalar(header.getDifficulty());
-    out.writeLongScalar(header.getNumber());
-    out.writeLongScalar(header.getGasLimit());
-    out.writeLongScalar(header.getGasUsed());
-    out.writeLongScalar(header.getTimestamp());
-    out.writeBytesValue(header.getExtraData());
-    out.endList();
-
-    return Hash.hash(out.encoded());
-  }
-
   @Override
   public boolean includeInLightValidation() {
     return false;
@@ -26,6 +26,9 @@ import java.util.Arrays;
 public class BigIntegerModularExponentiationPrecompiledContract
     extends AbstractPrecompiledContract {
 
+  private static final int DATA_OFFSET = 96;
+  private static final int WORD_BYTES = 32;
+  private static final int GAS_DIVISOR = 20;
   private static final BigInteger WORD_SIZE = BigInteger.valueOf(32);
   private static final BigInteger BITS_IN_BYTE = BigInteger.valueOf(8);
   private static final BigInteger BASE_OFFSET = BigInteger.valueOf(96);
@@ -55,6 +58,34 @@ public class BigIntegerModularExponentiationPrecompiledContract
     // Typically gas calculations are delegated to a GasCalculator instance,
     // but the complexity and coupling wih other parts of the precompile seem
     // like reasonable reasons to do the math here instead.
+    final int baseLength = intParameter(input, BASE_LENGTH_OFFSET);
+    final int exponentLength = intParameter(input, EXPONENT_LENGTH_OFFSET);
+    final int modulusLength = intParameter(input, MODULUS_LENGTH_OFFSET);
+    if (baseLength < 0 || exponentLength < 0 || modulusLength < 0) {
+      return largeGasRequirement(input);
+    }
+    final long exponentOffset = (long) DATA_OFFSET + baseLength;
+    final int firstExponentBytesCap = Math.min(exponentLength, WORD_BYTES);
+    final long adjustedExponentLength =
+        Math.max(
+            adjustedExponentLength(
+                exponentLength, highestBit(input, exponentOffset, firstExponentBytesCap)),
+            1);
+    final long multiplicationComplexity =
+        multiplicationComplexity((long) Math.max(baseLength, modulusLength));
+    try {
+      return Gas.of(
+          Math.multiplyExact(multiplicationComplexity, adjustedExponentLength) / GAS_DIVISOR);
+    } catch (final ArithmeticException e) {
+      return Gas.of(
+          BigInteger.valueOf(multiplicationComplexity)
+              .multiply(BigInteger.valueOf(adjustedExponentLength))
+              .divide(GQUADDIVISOR));
+    }
+  }
+
+  // The gas requirement of inputs with lengths that do not fit in an int.
+  private static Gas largeGasRequirement(final BytesValue input) {
     final BigInteger baseLength = baseLength(input);
     final BigInteger exponentLength = exponentLength(input);
     final BigInteger modulusLength = modulusLength(input);
@@ -80,6 +111,36 @@ public class BigIntegerModularExponentiationPrecompiledContract
 
   @Override
   public BytesValue compute(final BytesValue input) {
+    final int baseLength = intParameter(input, BASE_LENGTH_OFFSET);
+    final int exponentLength = intParameter(input, EXPONENT_LENGTH_OFFSET);
+    final int modulusLength = intParameter(input, MODULUS_LENGTH_OFFSET);
+    if (modulusLength == 0) {
+      return BytesValue.EMPTY;
+    }
+    if (baseLength < 0 || exponentLength < 0 || modulusLength < 0) {
+      return computeLarge(input);
+    }
+    final long exponentOffset = (long) DATA_OFFSET + baseLength;
+    final long modulusOffset = exponentOffset + exponentLength;
+    final BigInteger mod = new BigInteger(1, extractBytes(input, modulusOffset, modulusLength));
+
+    // Result must be the length of the modulus.
+    final byte[] result = new byte[modulusLength];
+    if (mod.signum() != 0) {
+      final BigInteger base = new BigInteger(1, extractBytes(input, DATA_OFFSET, baseLength));
+      final BigInteger exp = new BigInteger(1, extractBytes(input, exponentOffset, exponentLength));
+      // BigInteger zero-pads positive values whose most significant bit is a 1, which never
+      // makes the result longer than the modulus.
+      final byte[] modExp = base.modPow(exp, mod).toByteArray();
+      final int length = Math.min(modExp.length, result.length);
+      System.arraycopy(modExp, modExp.length - length, result, result.length - length, length);
+    }
+    return BytesValue.wrap(result);
+  }
+
+  // The result for inputs with lengths that do not fit in an int, which are far too expensive
+  // to be executed on a real network.
+  private static BytesValue computeLarge(final BytesValue input) {
     final BigInteger baseLength = baseLength(input);
     final BigInteger exponentLength = exponentLength(input);
     final BigInteger modulusLength = modulusLength(input);
@@ -105,6 +166,62 @@ public class BigIntegerModularExponentiationPrecompiledContract
     return result;
   }
 
+  // Equation to estimate the multiplication complexity.
+  private static long multiplicationComplexity(final long x) {
+    if (x <= 64) {
+      return x * x;
+    } else if (x <= 1_024) {
+      return x * x / 4 + 96 * x - 3_072;
+    } else {
+      return x * x / 16 + 480 * x - 199_680;
+    }
+  }
+
+  private static long adjustedExponentLength(final int exponentLength, final int highestBit) {
+    if (exponentLength <= WORD_BYTES) {
+      return highestBit;
+    } else {
+      return (long) Byte.SIZE * (exponentLength - WORD_BYTES) + highestBit;
+    }
+  }
+
+  // The index of the highest bit set in the big-endian integer read at offset, or 0 if it is zero.
+  private static int highestBit(final BytesValue input, final long offset, final int length) {
+    for (int i = 0; i < length; i++) {
+      final int b = byteAt(input, offset + i);
+      if (b != 0) {
+        return 8 * (length - i - 1) + 31 - Integer.numberOfLeadingZeros(b);
+      }
+    }
+    return 0;
+  }
+
+  // Reads a length parameter, or returns -1 if it does not fit in an int.
+  private static int intParameter(final BytesValue input, final int offset) {
+    int value = 0;
+    for (int i = 0; i < PARAMETER_LENGTH; i++) {
+      if (value > (Integer.MAX_VALUE >>> 8)) {
+        return -1;
+      }
+      value = (value << 8) | byteAt(input, (long) offset + i);
+    }
+    return value;
+  }
+
+  // Input bytes beyond the end of the input are zero.
+  private static byte[] extractBytes(final BytesValue input, final long offset, final int length) {
+    final byte[] bytes = new byte[length];
+    if (offset < input.size()) {
+      final int available = (int) Math.min(length, input.size() - offset);
+      input.slice((int) offset, available).copyTo(MutableBytesValue.wrap(bytes), 0);
+    }
+    return bytes;
+  }
+
+  private static int byteAt(final BytesValue input, final long index) {
+    return index < input.size() ? input.get((int) index) & 0xFF : 0;
+  }
+
   // Equation to estimate the multiplication complexity.
   private static BigInteger multiplicationComplexity(final BigInteger x) {
     if (x.compareTo(BIGINT_64) <= 0) {
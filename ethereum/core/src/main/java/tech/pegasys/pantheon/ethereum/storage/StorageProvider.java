@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.ethereum.storage;
 import tech.pegasys.pantheon.ethereum.db.BlockchainStorage;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 
 import java.io.Closeable;
 
@@ -23,4 +24,6 @@ public interface StorageProvider extends Closeable {
   BlockchainStorage createBlockchainStorage(ProtocolSchedule<?> protocolSchedule);
 
   WorldStateStorage createWorldStateStorage();
+
+  KeyValueStorage createFastSyncStorage();
 }
@@ -31,6 +31,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 
@@ -87,6 +88,21 @@ public class KeyValueStoragePrefixedKeyBlockchainStorage implements BlockchainSt
     return get(TRANSACTION_RECEIPTS_PREFIX, blockHash).map(this::rlpDecodeTransactionReceipts);
   }
 
+  @Override
+  public List<Optional<BytesValue>> getBlockHeadersRlp(final List<Hash> blockHashes) {
+    return getAll(BLOCK_HEADER_PREFIX, blockHashes);
+  }
+
+  @Override
+  public List<Optional<BytesValue>> getBlockBodiesRlp(final List<Hash> blockHashes) {
+    return getAll(BLOCK_BODY_PREFIX, blockHashes);
+  }
+
+  @Override
+  public List<Optional<BytesValue>> getTransactionReceiptsRlp(final List<Hash> blockHashes) {
+    return getAll(TRANSACTION_RECEIPTS_PREFIX, blockHashes);
+  }
+
   @Override
   public Optional<Hash> getBlockHash(final long blockNumber) {
     return get(BLOCK_HASH_PREFIX, UInt256Bytes.of(blockNumber)).map(this::bytesToHash);
@@ -120,6 +136,15 @@ public class KeyValueStoragePrefixedKeyBlockchainStorage implements BlockchainSt
     return storage.get(BytesValues.concatenate(prefix, key));
   }
 
+  private List<Optional<BytesValue>> getAll(
+      final BytesValue prefix, final List<? extends BytesValue> keys) {
+    return storage.getAll(
+        keys
+            .stream()
+            .map(key -> BytesValues.concatenate(prefix, key))
+            .collect(Collectors.toList()));
+  }
+
   public static class Updater implements BlockchainStorage.Updater {
 
     private final KeyValueStorage.Transaction transaction;
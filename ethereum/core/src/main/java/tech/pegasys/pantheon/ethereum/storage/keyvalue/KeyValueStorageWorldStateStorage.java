@@ -43,6 +43,11 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
     return keyValueStorage.get(nodeHash);
   }
 
+  @Override
+  public Optional<BytesValue> getNodeData(final Hash hash) {
+    return keyValueStorage.get(hash);
+  }
+
   @Override
   public Updater updater() {
     return new Updater(keyValueStorage.startTransaction());
@@ -17,13 +17,10 @@ import static tech.pegasys.pantheon.ethereum.vm.ExceptionalHaltReason.INSUFFICIE
 
 import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame.State;
+import tech.pegasys.pantheon.ethereum.vm.OperationProfiler.Profile;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltException;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltManager;
-import tech.pegasys.pantheon.metrics.LabelledMetric;
-import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
-import tech.pegasys.pantheon.metrics.OperationTimer;
-import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.EnumSet;
@@ -36,9 +33,10 @@ public class EVM {
   private static final Logger LOG = getLogger();
 
   private static final int STOP_OPCODE = 0x00;
+  private static final int OPCODES = 256;
   private final OperationRegistry operations;
   private final Operation invalidOperation;
-  private final LabelledMetric<OperationTimer> labelledTimer;
+  private final OperationProfiler profiler;
 
   public EVM(
       final OperationRegistry operations,
@@ -46,15 +44,20 @@ public class EVM {
       final MetricsSystem metricsSystem) {
     this.operations = operations;
     this.invalidOperation = invalidOperation;
-    labelledTimer =
-        metricsSystem.createLabelledTimer(
-            MetricCategory.EVM, "operation_execution", "Timing for EVM operations", "operation");
+    this.profiler = new OperationProfiler(metricsSystem, operationNames());
   }
 
   public void runToHalt(final MessageFrame frame, final OperationTracer operationTracer)
       throws ExceptionalHaltException {
-    while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
-      executeNextOperation(frame, operationTracer);
+    final Profile profile = profiler.currentProfile();
+    try {
+      while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
+        executeNextOperation(frame, operationTracer, profile);
+      }
+    } finally {
+      if (frame.getMessageStackDepth() == 0 && frame.getState() != State.CODE_SUSPENDED) {
+        profile.flush();
+      }
     }
   }
 
@@ -70,7 +73,8 @@ public class EVM {
     }
   }
 
-  private void executeNextOperation(final MessageFrame frame, final OperationTracer operationTracer)
+  private void executeNextOperation(
+      final MessageFrame frame, final OperationTracer operationTracer, final Profile profile)
       throws ExceptionalHaltException {
     frame.setCurrentOperation(operationAtOffset(frame.getCode(), frame.getPC()));
     evaluateExceptionalHaltReasons(frame);
@@ -82,15 +86,23 @@ public class EVM {
           checkForExceptionalHalt(frame);
           logState(frame, currentGasCost);
           decrementRemainingGas(frame, currentGasCost);
-          final Operation currentOperation = frame.getCurrentOperation();
-          try (final TimingContext ignored =
-              labelledTimer.labels(currentOperation.getName()).startTimer()) {
-            currentOperation.execute(frame);
-          }
+          executeOperation(frame, profile);
           incrementProgramCounter(frame);
         });
   }
 
+  private void executeOperation(final MessageFrame frame, final Profile profile) {
+    final Operation operation = frame.getCurrentOperation();
+    if (profile.shouldTimeNextOperation()) {
+      final long start = System.nanoTime();
+      operation.execute(frame);
+      profile.recordTimedExecution(operation.getOpcode(), System.nanoTime() - start);
+    } else {
+      operation.execute(frame);
+      profile.recordExecution(operation.getOpcode());
+    }
+  }
+
   private void evaluateExceptionalHaltReasons(final MessageFrame frame) {
     final EnumSet<ExceptionalHaltReason> haltReasons =
         ExceptionalHaltManager.evaluateAll(frame, this);
@@ -151,6 +163,15 @@ public class EVM {
     }
   }
 
+  private String[] operationNames() {
+    final String[] names = new String[OPCODES];
+    for (int opcode = 0; opcode < OPCODES; opcode++) {
+      final Operation operation = operations.get(opcode);
+      names[opcode] = operation != null ? operation.getName() : invalidOperation.getName();
+    }
+    return names;
+  }
+
   private Operation operationAtOffset(final Code code, final int offset) {
     final BytesValue bytecode = code.getBytes();
     // If the length of the program code is shorter than the required offset, halt execution.
@@ -70,6 +70,9 @@ public class Memory {
    */
   private final ArrayList<MutableBytes32> data;
 
+  // Zeroed words left over from before the last reset, reused before allocating new ones.
+  private final ArrayList<MutableBytes32> spareWords = new ArrayList<>();
+
   // Really data.size(), but cached as a UInt256 to avoid recomputing it each time.
   private UInt256 activeWords = UInt256.ZERO;
 
@@ -199,11 +202,24 @@ public class Memory {
     data.ensureCapacity(newActiveWords);
     final int toAdd = newActiveWords - data.size();
     for (int i = 0; i < toAdd; i++) {
-      data.add(MutableBytes32.create());
+      data.add(
+          spareWords.isEmpty()
+              ? MutableBytes32.create()
+              : spareWords.remove(spareWords.size() - 1));
     }
     this.activeWords = UInt256.of(data.size());
   }
 
+  /** Clears the memory so it can be reused by another frame, keeping its words for reuse. */
+  void reset() {
+    for (final MutableBytes32 word : data) {
+      word.clear();
+    }
+    spareWords.addAll(data);
+    data.clear();
+    activeWords = UInt256.ZERO;
+  }
+
   /**
    * Returns true if the object is equal to this memory instance; otherwise false.
    *
@@ -29,6 +29,7 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 import tech.pegasys.pantheon.util.uint.UInt256Value;
 
+import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
@@ -175,7 +176,7 @@ public class MessageFrame {
     MESSAGE_CALL,
   }
 
-  private static final int MAX_STACK_SIZE = 1024;
+  static final int MAX_STACK_SIZE = 1024;
 
   // Global data fields.
   private final WorldUpdater worldState;
@@ -189,16 +190,17 @@ public class MessageFrame {
   private Gas gasRemaining;
   private final BlockHashLookup blockHashLookup;
   private int pc;
-  private final Memory memory;
-  private final OperandStack stack;
+  private Memory memory;
+  private PrimitiveOperandStack stack;
   private BytesValue output;
   private BytesValue returnData;
   private final boolean isStatic;
 
   // Transaction substate fields.
-  private final LogSeries logs;
+  // Most frames never log nor self-destruct, so these are only allocated when first needed.
+  private LogSeries logs;
   private Gas gasRefund;
-  private final Set<Address> selfDestructs;
+  private Set<Address> selfDestructs;
 
   // Execution Environment fields.
   private final Address recipient;
@@ -253,13 +255,12 @@ public class MessageFrame {
     this.gasRemaining = initialGas;
     this.blockHashLookup = blockHashLookup;
     this.pc = 0;
-    this.memory = new Memory();
-    this.stack = new PreAllocatedOperandStack(MAX_STACK_SIZE);
+    final MessageFrameResources resources = MessageFrameResources.forCurrentThread();
+    this.memory = resources.borrowMemory();
+    this.stack = resources.borrowStack();
     this.output = BytesValue.EMPTY;
     this.returnData = BytesValue.EMPTY;
-    this.logs = LogSeries.empty();
     this.gasRefund = Gas.ZERO;
-    this.selfDestructs = new HashSet<>();
     this.recipient = recipient;
     this.originator = originator;
     this.contract = contract;
@@ -434,6 +435,18 @@ public class MessageFrame {
     stack.set(offset, value);
   }
 
+  /**
+   * Returns the operand stack.
+   *
+   * <p>Operations use its primitive entry points to manipulate operands in place instead of popping
+   * and pushing {@link Bytes32} values.
+   *
+   * @return the operand stack
+   */
+  public PrimitiveOperandStack getOperandStack() {
+    return stack;
+  }
+
   /**
    * Return the current stack size.
    *
@@ -546,7 +559,7 @@ public class MessageFrame {
    * @param log The log to accumulate
    */
   public void addLog(final Log log) {
-    logs.add(log);
+    mutableLogs().add(log);
   }
 
   /**
@@ -555,12 +568,14 @@ public class MessageFrame {
    * @param logs The logs to accumulate
    */
   public void addLogs(final LogSeries logs) {
-    this.logs.addAll(logs);
+    if (!logs.isEmpty()) {
+      mutableLogs().addAll(logs);
+    }
   }
 
   /** Clear the accumulated logs. */
   public void clearLogs() {
-    logs.clear();
+    logs = null;
   }
 
   /**
@@ -569,6 +584,13 @@ public class MessageFrame {
    * @return the accumulated logs
    */
   public LogSeries getLogs() {
+    return logs != null ? logs : LogSeries.empty();
+  }
+
+  private LogSeries mutableLogs() {
+    if (logs == null) {
+      logs = LogSeries.empty();
+    }
     return logs;
   }
 
@@ -601,7 +623,7 @@ public class MessageFrame {
    * @param address The recipient to self-destruct
    */
   public void addSelfDestruct(final Address address) {
-    selfDestructs.add(address);
+    mutableSelfDestructs().add(address);
   }
 
   /**
@@ -610,12 +632,14 @@ public class MessageFrame {
    * @param addresses The addresses to self-destruct
    */
   public void addSelfDestructs(final Set<Address> addresses) {
-    selfDestructs.addAll(addresses);
+    if (!addresses.isEmpty()) {
+      mutableSelfDestructs().addAll(addresses);
+    }
   }
 
   /** Removes all entries in the self-destruct set. */
   public void clearSelfDestructs() {
-    selfDestructs.clear();
+    selfDestructs = null;
   }
 
   /**
@@ -624,6 +648,13 @@ public class MessageFrame {
    * @return the self-destruct set
    */
   public Set<Address> getSelfDestructs() {
+    return selfDestructs != null ? selfDestructs : Collections.emptySet();
+  }
+
+  private Set<Address> mutableSelfDestructs() {
+    if (selfDestructs == null) {
+      selfDestructs = new HashSet<>();
+    }
     return selfDestructs;
   }
 
@@ -776,6 +807,22 @@ public class MessageFrame {
     completer.accept(this);
   }
 
+  /**
+   * Returns the memory and operand stack of this frame to the pool of the current thread so they
+   * can be reused by the next frame created. This must only be called once the frame has completed:
+   * its memory and stack can no longer be accessed afterwards.
+   */
+  public void releaseResources() {
+    if (stack == null) {
+      return;
+    }
+    final MessageFrameResources resources = MessageFrameResources.forCurrentThread();
+    resources.release(stack);
+    resources.release(memory);
+    stack = null;
+    memory = null;
+  }
+
   /**
    * Returns the current message frame stack.
    *
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A per-thread pool of the operand stacks and memories used by {@link MessageFrame}s.
+ *
+ * <p>Each frame of a call chain needs its own stack and memory, and a {@link PrimitiveOperandStack}
+ * alone is a 32 KiB array. Frames borrow them from the pool of the thread creating them and hand
+ * them back once they complete, so a transaction making many nested calls reuses the same few
+ * instances rather than allocating new ones for every call. The pool is bounded, and memories that
+ * grew large are left to the garbage collector rather than retained.
+ */
+class MessageFrameResources {
+
+  static final int MAX_POOLED_PER_THREAD = 64;
+  static final long MAX_POOLED_MEMORY_BYTES = 64 * 1024;
+
+  private static final ThreadLocal<MessageFrameResources> POOLS =
+      ThreadLocal.withInitial(MessageFrameResources::new);
+
+  private final Deque<PrimitiveOperandStack> stacks = new ArrayDeque<>();
+  private final Deque<Memory> memories = new ArrayDeque<>();
+
+  static MessageFrameResources forCurrentThread() {
+    return POOLS.get();
+  }
+
+  PrimitiveOperandStack borrowStack() {
+    final PrimitiveOperandStack stack = stacks.pollFirst();
+    return stack != null ? stack : new PrimitiveOperandStack(MessageFrame.MAX_STACK_SIZE);
+  }
+
+  Memory borrowMemory() {
+    final Memory memory = memories.pollFirst();
+    return memory != null ? memory : new Memory();
+  }
+
+  void release(final PrimitiveOperandStack stack) {
+    if (stacks.size() < MAX_POOLED_PER_THREAD) {
+      stack.reset();
+      stacks.addFirst(stack);
+    }
+  }
+
+  void release(final Memory memory) {
+    if (memories.size() < MAX_POOLED_PER_THREAD
+        && memory.getActiveBytes() <= MAX_POOLED_MEMORY_BYTES) {
+      memory.reset();
+      memories.addFirst(memory);
+    }
+  }
+
+  int pooledStacks() {
+    return stacks.size();
+  }
+
+  int pooledMemories() {
+    return memories.size();
+  }
+}
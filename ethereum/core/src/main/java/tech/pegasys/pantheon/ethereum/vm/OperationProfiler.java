@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+
+/**
+ * Collects per-operation execution counts and sampled execution times for an {@link EVM}.
+ *
+ * <p>Each thread accumulates its figures in primitive arrays indexed by opcode, which are flushed
+ * to the {@link MetricCategory#EVM} counters when a transaction completes or after {@link
+ * #FLUSH_INTERVAL} operations, whichever comes first. Only one in every {@link
+ * #getTimingSampleInterval()} operations is timed; the interval is shared by all EVMs and can be
+ * changed at runtime.
+ */
+public class OperationProfiler {
+
+  public static final int DEFAULT_TIMING_SAMPLE_INTERVAL = 1024;
+  static final int FLUSH_INTERVAL = 16_384;
+
+  private static final int OPCODES = 256;
+
+  private static volatile int timingSampleInterval = DEFAULT_TIMING_SAMPLE_INTERVAL;
+
+  private final String[] operationNames;
+  private final LabelledMetric<Counter> executions;
+  private final LabelledMetric<Counter> sampledExecutions;
+  private final LabelledMetric<Counter> sampledExecutionNanos;
+  private final ThreadLocal<Profile> profiles = ThreadLocal.withInitial(Profile::new);
+
+  /**
+   * Creates a profiler.
+   *
+   * @param metricsSystem the metrics system the profile is flushed to
+   * @param operationNames the name of the operation for each opcode, used as the metric label
+   */
+  public OperationProfiler(final MetricsSystem metricsSystem, final String[] operationNames) {
+    checkArgument(operationNames.length == OPCODES, "An operation name is required per opcode");
+    this.operationNames = operationNames;
+    executions =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.EVM,
+            "operation_executions",
+            "Number of times each EVM operation was executed",
+            "operation");
+    sampledExecutions =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.EVM,
+            "operation_sampled_executions",
+            "Number of EVM operation executions that were timed",
+            "operation");
+    sampledExecutionNanos =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.EVM,
+            "operation_sampled_execution_nanoseconds",
+            "Total time spent in the EVM operation executions that were timed",
+            "operation");
+  }
+
+  /**
+   * Returns the number of operations executed between two timed operations.
+   *
+   * @return the timing sample interval, or 0 if timing is disabled
+   */
+  public static int getTimingSampleInterval() {
+    return timingSampleInterval;
+  }
+
+  /**
+   * Sets the number of operations executed between two timed operations, for all EVMs.
+   *
+   * @param interval the timing sample interval, or 0 to disable timing
+   */
+  public static void setTimingSampleInterval(final int interval) {
+    checkArgument(interval >= 0, "Timing sample interval must not be negative");
+    timingSampleInterval = interval;
+  }
+
+  /**
+   * Returns the profile of the current thread.
+   *
+   * @return the profile of the current thread
+   */
+  Profile currentProfile() {
+    return profiles.get();
+  }
+
+  /** The execution figures accumulated by a single thread since they were last flushed. */
+  class Profile {
+
+    private final long[] executionCounts = new long[OPCODES];
+    private final long[] sampledCounts = new long[OPCODES];
+    private final long[] sampledNanos = new long[OPCODES];
+    private int operationsUntilSample;
+    private int operationsUntilFlush = FLUSH_INTERVAL;
+
+    boolean shouldTimeNextOperation() {
+      final int interval = timingSampleInterval;
+      if (interval == 0 || --operationsUntilSample > 0) {
+        return false;
+      }
+      operationsUntilSample = interval;
+      return true;
+    }
+
+    void recordExecution(final int opcode) {
+      executionCounts[opcode]++;
+      if (--operationsUntilFlush == 0) {
+        flush();
+      }
+    }
+
+    void recordTimedExecution(final int opcode, final long nanos) {
+      sampledCounts[opcode]++;
+      sampledNanos[opcode] += nanos;
+      recordExecution(opcode);
+    }
+
+    void flush() {
+      for (int opcode = 0; opcode < OPCODES; opcode++) {
+        if (executionCounts[opcode] == 0) {
+          continue;
+        }
+        final String operationName = operationNames[opcode];
+        executions.labels(operationName).inc(executionCounts[opcode]);
+        executionCounts[opcode] = 0;
+        if (sampledCounts[opcode] != 0) {
+          sampledExecutions.labels(operationName).inc(sampledCounts[opcode]);
+          sampledExecutionNanos.labels(operationName).inc(sampledNanos[opcode]);
+          sampledCounts[opcode] = 0;
+          sampledNanos[opcode] = 0;
+        }
+      }
+      operationsUntilFlush = FLUSH_INTERVAL;
+    }
+  }
+}
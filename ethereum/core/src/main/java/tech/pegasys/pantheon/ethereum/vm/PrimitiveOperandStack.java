@@ -0,0 +1,409 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Arrays;
+
+/**
+ * An {@link OperandStack} whose operands are stored in a single pre-allocated {@code long[]}.
+ *
+ * <p>Each 256-bit operand occupies {@link #LIMBS} consecutive longs, most significant limb first.
+ * Pushing, popping and the arithmetic entry points below operate directly on those limbs, so they
+ * don't allocate. {@link Bytes32} values are only materialized when an operand is read through
+ * {@link #get(int)} or {@link #pop()}, which keeps tracers and the remaining operations working
+ * unchanged.
+ */
+public class PrimitiveOperandStack implements OperandStack {
+
+  static final int LIMBS = 4;
+
+  private final long[] entries;
+
+  private final int maxSize;
+
+  private int top;
+
+  public PrimitiveOperandStack(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException(
+          String.format("max size (%d) must be non-negative", maxSize));
+    }
+    this.entries = new long[maxSize * LIMBS];
+    this.maxSize = maxSize;
+    this.top = -1;
+  }
+
+  @Override
+  public Bytes32 get(final int offset) {
+    if (offset < 0 || offset >= size()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    return toBytes32(top - offset);
+  }
+
+  @Override
+  public Bytes32 pop() {
+    if (top < 0) {
+      throw new IllegalStateException("operand stack underflow");
+    }
+
+    return toBytes32(top--);
+  }
+
+  @Override
+  public void bulkPop(final int items) {
+    if (items < 0) {
+      throw new IllegalArgumentException(
+          String.format("requested number of items to bulk pop (%d) is negative", items));
+    }
+    checkArgument(items > 0, "number of items to pop must be greater than 0");
+    if (items > size()) {
+      throw new IllegalStateException(
+          String.format("requested to bulk pop %d items off a stack of size %d", items, size()));
+    }
+
+    top -= items;
+  }
+
+  @Override
+  public void push(final Bytes32 operand) {
+    final int base = nextBase();
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[base + i] = operand.getLong(i * Long.BYTES);
+    }
+    ++top;
+  }
+
+  /**
+   * Pushes an operand built from a range of bytes, as done by the {@code PUSHn} operations.
+   *
+   * <p>The low-order {@code width} bytes of the operand are filled with the {@code length} bytes
+   * read from {@code source} starting at {@code sourceOffset}, followed by zeros if {@code length}
+   * is smaller than {@code width}. All higher-order bytes are zero.
+   *
+   * @param source the bytes to read the operand from
+   * @param sourceOffset the offset in {@code source} of the first byte to read
+   * @param length the number of bytes to read from {@code source}
+   * @param width the number of low-order bytes of the operand the read bytes are aligned to
+   * @throws IllegalStateException when the stack is at capacity (e.g. a stack overflow occurs)
+   */
+  public void push(
+      final BytesValue source, final int sourceOffset, final int length, final int width) {
+    checkArgument(length <= width && width <= Bytes32.SIZE, "invalid push width");
+    final int base = nextBase();
+    Arrays.fill(entries, base, base + LIMBS, 0L);
+    final int start = Bytes32.SIZE - width;
+    for (int i = 0; i < length; ++i) {
+      final int position = start + i;
+      final int shift = (Long.BYTES - 1 - (position % Long.BYTES)) * Byte.SIZE;
+      entries[base + position / Long.BYTES] |= (source.get(sourceOffset + i) & 0xFFL) << shift;
+    }
+    ++top;
+  }
+
+  @Override
+  public void set(final int offset, final Bytes32 operand) {
+    if (offset < 0 || offset >= size()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    final int base = (top - offset) * LIMBS;
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[base + i] = operand.getLong(i * Long.BYTES);
+    }
+  }
+
+  /** Empties the stack so it can be reused by another frame. */
+  void reset() {
+    top = -1;
+  }
+
+  @Override
+  public int size() {
+    return top + 1;
+  }
+
+  /**
+   * Pushes a copy of the operand located at the offset from the top of the stack.
+   *
+   * @param offset the position relative to the top of the stack of the operand to duplicate
+   * @throws IndexOutOfBoundsException if the offset is out of range
+   * @throws IllegalStateException when the stack is at capacity
+   */
+  public void dup(final int offset) {
+    if (offset < 0 || offset >= size()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    final int base = nextBase();
+    System.arraycopy(entries, (top - offset) * LIMBS, entries, base, LIMBS);
+    ++top;
+  }
+
+  /**
+   * Exchanges the operand at the top of the stack with the one located at the offset.
+   *
+   * @param offset the position relative to the top of the stack of the operand to swap with
+   * @throws IndexOutOfBoundsException if the offset is out of range
+   */
+  public void swap(final int offset) {
+    if (offset < 0 || offset >= size()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    final int topBase = top * LIMBS;
+    final int otherBase = (top - offset) * LIMBS;
+    for (int i = 0; i < LIMBS; ++i) {
+      final long tmp = entries[topBase + i];
+      entries[topBase + i] = entries[otherBase + i];
+      entries[otherBase + i] = tmp;
+    }
+  }
+
+  /** Replaces the two topmost operands by their sum modulo 2^256. */
+  public void add() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    long carry = 0;
+    for (int i = LIMBS - 1; i >= 0; --i) {
+      final long x = entries[a + i];
+      final long sum = x + entries[b + i];
+      final long withCarry = sum + carry;
+      carry = (Long.compareUnsigned(sum, x) < 0 || (carry != 0 && withCarry == 0)) ? 1 : 0;
+      entries[b + i] = withCarry;
+    }
+    --top;
+  }
+
+  /** Replaces the two topmost operands by the top operand minus the second one, modulo 2^256. */
+  public void sub() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    long borrow = 0;
+    for (int i = LIMBS - 1; i >= 0; --i) {
+      final long x = entries[a + i];
+      final long y = entries[b + i];
+      final long difference = x - y;
+      final long withBorrow = difference - borrow;
+      borrow = (Long.compareUnsigned(x, y) < 0 || (borrow != 0 && difference == 0)) ? 1 : 0;
+      entries[b + i] = withBorrow;
+    }
+    --top;
+  }
+
+  /** Replaces the two topmost operands by their bitwise AND. */
+  public void and() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[b + i] &= entries[a + i];
+    }
+    --top;
+  }
+
+  /** Replaces the two topmost operands by their bitwise OR. */
+  public void or() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[b + i] |= entries[a + i];
+    }
+    --top;
+  }
+
+  /** Replaces the two topmost operands by their bitwise XOR. */
+  public void xor() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[b + i] ^= entries[a + i];
+    }
+    --top;
+  }
+
+  /** Replaces the top operand by its bitwise complement. */
+  public void not() {
+    final int a = unaryOperand();
+    for (int i = 0; i < LIMBS; ++i) {
+      entries[a + i] = ~entries[a + i];
+    }
+  }
+
+  /** Replaces the top operand by 1 if it is zero, or by 0 otherwise. */
+  public void isZero() {
+    final int a = unaryOperand();
+    final boolean zero = (entries[a] | entries[a + 1] | entries[a + 2] | entries[a + 3]) == 0;
+    setBoolean(a, zero);
+  }
+
+  /** Replaces the two topmost operands by 1 if they are equal, or by 0 otherwise. */
+  public void eq() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    boolean equal = true;
+    for (int i = 0; i < LIMBS; ++i) {
+      equal &= entries[a + i] == entries[b + i];
+    }
+    setBoolean(b, equal);
+    --top;
+  }
+
+  /**
+   * Replaces the two topmost operands by 1 if the top operand is less than the second one (both
+   * interpreted as unsigned), or by 0 otherwise.
+   */
+  public void lt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    setBoolean(b, compareUnsigned(a, b) < 0);
+    --top;
+  }
+
+  /**
+   * Replaces the two topmost operands by 1 if the top operand is greater than the second one (both
+   * interpreted as unsigned), or by 0 otherwise.
+   */
+  public void gt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    setBoolean(b, compareUnsigned(a, b) > 0);
+    --top;
+  }
+
+  /**
+   * Replaces the two topmost operands by 1 if the top operand is less than the second one (both
+   * interpreted as two's complement signed), or by 0 otherwise.
+   */
+  public void slt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    setBoolean(b, compareSigned(a, b) < 0);
+    --top;
+  }
+
+  /**
+   * Replaces the two topmost operands by 1 if the top operand is greater than the second one (both
+   * interpreted as two's complement signed), or by 0 otherwise.
+   */
+  public void sgt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS;
+    setBoolean(b, compareSigned(a, b) > 0);
+    --top;
+  }
+
+  private int nextBase() {
+    final int nextTop = top + 1;
+    if (nextTop == maxSize) {
+      throw new IllegalStateException("operand stack overflow");
+    }
+    return nextTop * LIMBS;
+  }
+
+  private int unaryOperand() {
+    if (top < 0) {
+      throw new IllegalStateException("operand stack underflow");
+    }
+    return top * LIMBS;
+  }
+
+  private int binaryOperands() {
+    if (top < 1) {
+      throw new IllegalStateException("operand stack underflow");
+    }
+    return top * LIMBS;
+  }
+
+  private int compareUnsigned(final int a, final int b) {
+    for (int i = 0; i < LIMBS; ++i) {
+      final int result = Long.compareUnsigned(entries[a + i], entries[b + i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private int compareSigned(final int a, final int b) {
+    final int result = Long.compare(entries[a], entries[b]);
+    if (result != 0) {
+      return result;
+    }
+    for (int i = 1; i < LIMBS; ++i) {
+      final int limbResult = Long.compareUnsigned(entries[a + i], entries[b + i]);
+      if (limbResult != 0) {
+        return limbResult;
+      }
+    }
+    return 0;
+  }
+
+  private void setBoolean(final int base, final boolean value) {
+    entries[base] = 0;
+    entries[base + 1] = 0;
+    entries[base + 2] = 0;
+    entries[base + 3] = value ? 1 : 0;
+  }
+
+  private Bytes32 toBytes32(final int index) {
+    final byte[] bytes = new byte[Bytes32.SIZE];
+    final int base = index * LIMBS;
+    for (int i = 0; i < Bytes32.SIZE; ++i) {
+      final long limb = entries[base + i / Long.BYTES];
+      bytes[i] = (byte) (limb >>> ((Long.BYTES - 1 - (i % Long.BYTES)) * Byte.SIZE));
+    }
+    return Bytes32.wrap(bytes);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < size(); ++i) {
+      builder.append(String.format("\n0x%04X ", i)).append(get(i));
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (int i = 0; i < size() * LIMBS; ++i) {
+      result = 31 * result + Long.hashCode(entries[i]);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (!(other instanceof PrimitiveOperandStack)) {
+      return false;
+    }
+
+    final PrimitiveOperandStack that = (PrimitiveOperandStack) other;
+    if (this.size() != that.size()) {
+      return false;
+    }
+    for (int i = 0; i < size() * LIMBS; ++i) {
+      if (this.entries[i] != that.entries[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
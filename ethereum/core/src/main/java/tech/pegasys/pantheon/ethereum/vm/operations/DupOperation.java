@@ -33,6 +33,6 @@ public class DupOperation extends AbstractOperation {
 
   @Override
   public void execute(final MessageFrame frame) {
-    frame.pushStackItem(frame.getStackItem(index - 1));
+    frame.getOperandStack().dup(index - 1);
   }
 }
@@ -16,8 +16,6 @@ import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.AbstractOperation;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
-import tech.pegasys.pantheon.util.bytes.Bytes32;
-import tech.pegasys.pantheon.util.uint.UInt256;
 
 public class IsZeroOperation extends AbstractOperation {
 
@@ -32,8 +30,6 @@ public class IsZeroOperation extends AbstractOperation {
 
   @Override
   public void execute(final MessageFrame frame) {
-    final UInt256 value = frame.popStackItem().asUInt256();
-
-    frame.pushStackItem(value.isZero() ? Bytes32.TRUE : Bytes32.FALSE);
+    frame.getOperandStack().isZero();
   }
 }
@@ -16,7 +16,6 @@ import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.AbstractOperation;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
-import tech.pegasys.pantheon.util.uint.UInt256;
 
 public class NotOperation extends AbstractOperation {
 
@@ -31,10 +30,6 @@ public class NotOperation extends AbstractOperation {
 
   @Override
   public void execute(final MessageFrame frame) {
-    final UInt256 value = frame.popStackItem().asUInt256();
-
-    final UInt256 result = value.not();
-
-    frame.pushStackItem(result.getBytes());
+    frame.getOperandStack().not();
   }
 }
@@ -30,6 +30,6 @@ public class PopOperation extends AbstractOperation {
 
   @Override
   public void execute(final MessageFrame frame) {
-    frame.popStackItem();
+    frame.popStackItems(1);
   }
 }
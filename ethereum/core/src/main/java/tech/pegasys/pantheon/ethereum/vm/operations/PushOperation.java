@@ -19,7 +19,6 @@ import tech.pegasys.pantheon.ethereum.vm.AbstractOperation;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
-import tech.pegasys.pantheon.util.bytes.MutableBytes32;
 
 public class PushOperation extends AbstractOperation {
 
@@ -41,8 +40,6 @@ public class PushOperation extends AbstractOperation {
     final BytesValue code = frame.getCode().getBytes();
 
     final int copyLength = min(length, code.size() - pc - 1);
-    final MutableBytes32 bytes = MutableBytes32.create();
-    code.slice(pc + 1, copyLength).copyTo(bytes, bytes.size() - length);
-    frame.pushStackItem(bytes);
+    frame.getOperandStack().push(code, pc + 1, copyLength, length);
   }
 }
@@ -16,7 +16,6 @@ import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.AbstractOperation;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
-import tech.pegasys.pantheon.util.bytes.Bytes32;
 
 public class SwapOperation extends AbstractOperation {
 
@@ -34,8 +33,6 @@ public class SwapOperation extends AbstractOperation {
 
   @Override
   public void execute(final MessageFrame frame) {
-    final Bytes32 tmp = frame.getStackItem(0);
-    frame.setStackItem(0, frame.getStackItem(index));
-    frame.setStackItem(index, tmp);
+    frame.getOperandStack().swap(index);
   }
 }
@@ -26,6 +26,15 @@ public interface WorldStateStorage {
 
   Optional<BytesValue> getAccountStorageTrieNode(Bytes32 nodeHash);
 
+  /**
+   * Looks up a trie node or contract code by its hash, without knowing which it is, as requested by
+   * peers downloading the world state.
+   *
+   * @param hash the hash of the node or code
+   * @return the stored node or code, if present
+   */
+  Optional<BytesValue> getNodeData(Hash hash);
+
   Updater updater();
 
   interface Updater {
@@ -25,6 +25,7 @@ import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldState
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 
 public class InMemoryStorageProvider implements StorageProvider {
 
@@ -57,6 +58,11 @@ public class InMemoryStorageProvider implements StorageProvider {
     return new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
   }
 
+  @Override
+  public KeyValueStorage createFastSyncStorage() {
+    return new InMemoryKeyValueStorage();
+  }
+
   @Override
   public void close() {}
 }
@@ -16,11 +16,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
 import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPOutput;
 import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 public class TransactionIntegrationTest {
@@ -52,4 +56,25 @@ public class TransactionIntegrationTest {
     transaction.writeTo(output);
     assertEquals(encodedString, output.encoded().toString());
   }
+
+  @Test
+  public void shouldRecoverSendersOfDecodedTransactionsInBatch() {
+    final List<Address> senders = new ArrayList<>();
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      final KeyPair keyPair = KeyPair.generate();
+      final Transaction signed = new TransactionTestFixture().nonce(i).createTransaction(keyPair);
+      final BytesValueRLPOutput output = new BytesValueRLPOutput();
+      signed.writeTo(output);
+      senders.add(signed.getSender());
+      transactions.add(Transaction.readFrom(RLP.input(output.encoded())));
+    }
+
+    Transaction.recoverSenders(transactions);
+
+    for (int i = 0; i < transactions.size(); i++) {
+      assertNotNull(transactions.get(i).sender);
+      assertEquals(senders.get(i), transactions.get(i).getSender());
+    }
+  }
 }
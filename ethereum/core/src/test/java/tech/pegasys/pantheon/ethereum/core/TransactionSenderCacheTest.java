@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.metrics.MetricCategory.BLOCKCHAIN;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPOutput;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.Observation;
+import tech.pegasys.pantheon.metrics.prometheus.PrometheusMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionSenderCacheTest {
+
+  private final KeyPair keyPair = KeyPair.generate();
+  private final Transaction signedTransaction =
+      new TransactionTestFixture().createTransaction(keyPair);
+  private final BytesValue encodedTransaction = encode(signedTransaction);
+
+  @Before
+  @After
+  public void clearCache() {
+    TransactionSenderCache.clear();
+  }
+
+  @Test
+  public void shouldCacheRecoveredSender() {
+    final Transaction transaction = decode(encodedTransaction);
+    assertThat(TransactionSenderCache.get(transaction.hash())).isNull();
+
+    assertThat(transaction.getSender()).isEqualTo(signedTransaction.getSender());
+    assertThat(TransactionSenderCache.get(transaction.hash()))
+        .isEqualTo(signedTransaction.getSender());
+  }
+
+  @Test
+  public void shouldUseCachedSenderForLaterCopiesOfTransaction() {
+    final Address cachedSender =
+        Address.fromHexString("0x0000000000000000000000000000000000000042");
+    TransactionSenderCache.put(signedTransaction.hash(), cachedSender);
+
+    assertThat(decode(encodedTransaction).getSender()).isEqualTo(cachedSender);
+  }
+
+  @Test
+  public void shouldUseCachedSenderWhenRecoveringInBatch() {
+    final Address cachedSender =
+        Address.fromHexString("0x0000000000000000000000000000000000000042");
+    TransactionSenderCache.put(signedTransaction.hash(), cachedSender);
+    final Transaction transaction = decode(encodedTransaction);
+
+    Transaction.recoverSenders(Collections.singletonList(transaction));
+
+    assertThat(transaction.sender).isEqualTo(cachedSender);
+  }
+
+  @Test
+  public void shouldPopulateCacheWhenRecoveringInBatch() {
+    final Transaction transaction = decode(encodedTransaction);
+
+    Transaction.recoverSenders(Collections.singletonList(transaction));
+
+    assertThat(TransactionSenderCache.get(transaction.hash()))
+        .isEqualTo(signedTransaction.getSender());
+  }
+
+  @Test
+  public void shouldReportHitsAndMisses() {
+    final MetricsSystem metricsSystem = PrometheusMetricsSystem.init();
+    TransactionSenderCache.registerMetrics(metricsSystem);
+
+    decode(encodedTransaction).getSender();
+    decode(encodedTransaction).getSender();
+
+    assertThat(observe(metricsSystem, "transaction_sender_cache_hits_total")).isEqualTo(1);
+    assertThat(observe(metricsSystem, "transaction_sender_cache_misses_total")).isEqualTo(1);
+    assertThat(observe(metricsSystem, "transaction_sender_cache_size")).isEqualTo(1);
+  }
+
+  private static double observe(final MetricsSystem metricsSystem, final String metricName) {
+    return metricsSystem
+        .getMetrics(BLOCKCHAIN)
+        .filter(observation -> observation.getMetricName().equals(metricName))
+        .map(Observation::getValue)
+        .map(Double.class::cast)
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("No observation of " + metricName));
+  }
+
+  private static BytesValue encode(final Transaction transaction) {
+    final BytesValueRLPOutput output = new BytesValueRLPOutput();
+    transaction.writeTo(output);
+    return output.encoded();
+  }
+
+  private static Transaction decode(final BytesValue encoded) {
+    return Transaction.readFrom(RLP.input(encoded));
+  }
+}
@@ -14,6 +14,14 @@ package tech.pegasys.pantheon.ethereum.core;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
 
+import tech.pegasys.pantheon.crypto.SECP256K1;
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 public class UtilTest {
@@ -30,4 +38,18 @@ public class UtilTest {
 
     assertThat(Util.fastDivCeiling(7, 3)).isEqualTo(3);
   }
+
+  @Test
+  public void signaturesToAddressesRecoversEachSigner() {
+    final Hash dataHash = Hash.hash(BytesValue.fromHexString("0x01"));
+    final List<Address> signers = new ArrayList<>();
+    final List<Signature> seals = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      final KeyPair keyPair = KeyPair.generate();
+      signers.add(Util.publicKeyToAddress(keyPair.getPublicKey()));
+      seals.add(SECP256K1.sign(dataHash, keyPair));
+    }
+
+    assertThat(Util.signaturesToAddresses(seals, dataHash)).isEqualTo(signers);
+  }
 }
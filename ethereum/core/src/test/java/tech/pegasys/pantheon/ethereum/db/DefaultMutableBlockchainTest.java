@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
@@ -31,6 +32,7 @@ import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -159,6 +161,53 @@ public class DefaultMutableBlockchainTest {
     assertThat(blockchain.getForks()).isEmpty();
   }
 
+  @Test
+  public void appendBlocks() {
+    final BlockDataGenerator gen = new BlockDataGenerator();
+    final List<Block> chain = gen.blockSequence(4);
+    final List<List<TransactionReceipt>> blockReceipts =
+        chain.stream().map(gen::receipts).collect(Collectors.toList());
+
+    final KeyValueStorage kvStore = new InMemoryKeyValueStorage();
+    final DefaultMutableBlockchain blockchain = createBlockchain(kvStore, chain.get(0));
+    final List<Block> addedBlocks = new ArrayList<>();
+    blockchain.observeBlockAdded((event, c) -> addedBlocks.add(event.getBlock()));
+    blockchain.appendBlock(chain.get(1), blockReceipts.get(1));
+    blockchain.appendBlocks(chain.subList(2, 4), blockReceipts.subList(2, 4));
+
+    for (int i = 1; i < chain.size(); i++) {
+      assertBlockDataIsStored(blockchain, chain.get(i), blockReceipts.get(i));
+    }
+
+    final Block head = chain.get(chain.size() - 1);
+    assertBlockIsHead(blockchain, head);
+    assertTotalDifficultiesAreConsistent(blockchain, head);
+    assertThat(blockchain.getForks()).isEmpty();
+    assertThat(addedBlocks).containsExactlyElementsOf(chain.subList(1, 4));
+  }
+
+  @Test
+  public void appendBlocksNotExtendingChainHead() {
+    final BlockDataGenerator gen = new BlockDataGenerator();
+    final List<Block> chain = gen.blockSequence(4);
+    final List<List<TransactionReceipt>> blockReceipts =
+        chain.stream().map(gen::receipts).collect(Collectors.toList());
+
+    final KeyValueStorage kvStore = new InMemoryKeyValueStorage();
+    final DefaultMutableBlockchain blockchain = createBlockchain(kvStore, chain.get(0));
+
+    // Skip block 2, so block 3 does not connect to block 1
+    final List<Block> blocks = Arrays.asList(chain.get(1), chain.get(3));
+    final List<List<TransactionReceipt>> receipts =
+        Arrays.asList(blockReceipts.get(1), blockReceipts.get(3));
+    assertThatThrownBy(() -> blockchain.appendBlocks(blocks, receipts))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // Nothing was written
+    assertBlockIsHead(blockchain, chain.get(0));
+    assertThat(blockchain.getBlockHeader(chain.get(1).getHash())).isEmpty();
+  }
+
   @Test
   public void appendBlockWithReorgToChainAtEqualHeight() {
     final BlockDataGenerator gen = new BlockDataGenerator(1);
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EthHashCacheFactoryTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void storedCacheIsReadBackByNewFactory() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+
+    final int[] generated =
+        new EthHashCacheFactory(Optional.of(directory)).ethHashCacheFor(1).getCache();
+    final Path file = directory.resolve("ethash-cache-0");
+    assertThat(file).exists();
+    assertThat(file.toFile().length()).isEqualTo(EthHash.cacheSize(0));
+
+    // Alter the stored cache so that reading it back can be told apart from regenerating it.
+    try (final RandomAccessFile stored = new RandomAccessFile(file.toFile(), "rw")) {
+      stored.write(new byte[] {1, 2, 3, 4});
+    }
+    final int[] expected = generated.clone();
+    expected[0] = 0x04030201;
+
+    final EthHashCacheFactory.EthHashDescriptor reloaded =
+        new EthHashCacheFactory(Optional.of(directory)).ethHashCacheFor(1);
+    assertThat(reloaded.getCache()).isEqualTo(expected);
+    assertThat(reloaded.getDatasetSize()).isEqualTo(EthHash.datasetSize(0));
+  }
+
+  @Test
+  public void nextEpochIsPreparedNearEpochBoundary() {
+    final EthHashCacheFactory factory = new EthHashCacheFactory();
+
+    factory.ethHashCacheFor(1);
+    assertThat(factory.descriptorCache.getIfPresent(1L)).isNull();
+
+    factory.ethHashCacheFor(EthHash.EPOCH_LENGTH - 1);
+    await()
+        .atMost(60, TimeUnit.SECONDS)
+        .untilAsserted(() -> assertThat(factory.descriptorCache.getIfPresent(1L)).isNotNull());
+  }
+
+  @Test
+  public void nextEpochIsOnlyQueuedForPreparationOnce() {
+    final ExecutorService preparer = mock(ExecutorService.class);
+    final EthHashCacheFactory factory = new EthHashCacheFactory(Optional.empty(), preparer);
+
+    factory.ethHashCacheFor(EthHash.EPOCH_LENGTH - 2);
+    factory.ethHashCacheFor(EthHash.EPOCH_LENGTH - 1);
+    factory.ethHashCacheFor(EthHash.EPOCH_LENGTH - 1);
+
+    verify(preparer, times(1)).execute(any());
+  }
+}
@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.mainnet;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
@@ -23,10 +24,20 @@ import tech.pegasys.pantheon.ethereum.mainnet.EthHashSolver.EthHashSolverJob;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
@@ -125,4 +136,79 @@ public class EthHashSolverTest {
     soln = solver.solveFor(EthHashSolverJob.createFromInputs(secondInputs));
     assertThat(soln.getMixHash()).isEqualTo(expectedSecondOutput.getMixHash());
   }
+
+  @Test
+  public void threadsSearchDisjointNonceRanges() throws Exception {
+    final long start = 1000L;
+    final long partitionSize = Long.divideUnsigned(-1L, 3);
+    final long winningNonce = start + 2 * partitionSize + 5;
+    final Set<Long> triedNonces = ConcurrentHashMap.newKeySet();
+    final AtomicBoolean duplicateNonce = new AtomicBoolean();
+    final CountDownLatch otherPartitionsStarted = new CountDownLatch(2);
+    final EthHasher hasher =
+        (buffer, nonce, number, headerHash) -> {
+          if (!triedNonces.add(nonce)) {
+            duplicateNonce.set(true);
+          }
+          if (nonce == start || nonce == start + partitionSize) {
+            otherPartitionsStarted.countDown();
+          } else if (nonce == winningNonce) {
+            // Don't let the last partition win before every thread got to hash a nonce.
+            try {
+              otherPartitionsStarted.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          Arrays.fill(buffer, nonce == winningNonce ? (byte) 0 : (byte) 0xFF);
+        };
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final EthHashSolver solver =
+          new EthHashSolver(Collections.singletonList(start), hasher, 3, executor);
+
+      final EthHashSolution solution =
+          solver.solveFor(
+              EthHashSolverJob.createFromInputs(
+                  new EthHashSolverInputs(UInt256.ONE, new byte[0], 5)));
+
+      assertThat(solution.getNonce()).isEqualTo(winningNonce);
+      assertThat(duplicateNonce).isFalse();
+      assertThat(triedNonces).contains(start, start + partitionSize, winningNonce);
+      assertThat(solver.hashesPerSecond()).isPresent();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void cancellingJobStopsAllThreads() throws Exception {
+    final AtomicLong hashes = new AtomicLong();
+    final EthHasher hasher =
+        (buffer, nonce, number, headerHash) -> {
+          hashes.incrementAndGet();
+          Arrays.fill(buffer, (byte) 0xFF);
+        };
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final EthHashSolver solver =
+          new EthHashSolver(Collections.singletonList(0L), hasher, 4, executor);
+      final EthHashSolverJob job =
+          EthHashSolverJob.createFromInputs(new EthHashSolverInputs(UInt256.ONE, new byte[0], 5));
+      final Future<EthHashSolution> solution = executor.submit(() -> solver.solveFor(job));
+
+      while (hashes.get() < 1000) {
+        Thread.sleep(1);
+      }
+      solver.cancel();
+
+      assertThatThrownBy(solution::get).hasCauseInstanceOf(CancellationException.class);
+      Thread.sleep(100);
+      final long hashesAfterCancel = hashes.get();
+      Thread.sleep(100);
+      assertThat(hashes.get()).isEqualTo(hashesAfterCancel);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
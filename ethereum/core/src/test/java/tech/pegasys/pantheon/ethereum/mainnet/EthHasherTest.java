@@ -18,7 +18,13 @@ import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
 import tech.pegasys.pantheon.ethereum.util.ByteArrayUtil;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import com.google.common.io.Resources;
+import com.google.common.primitives.Ints;
 import org.assertj.core.api.Assertions;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -28,13 +34,15 @@ import org.junit.rules.TemporaryFolder;
 /** Tests for {@link EthHasher}. */
 public final class EthHasherTest {
 
+  private static final long SMALL_DATASET_SIZE = 2048 * 128L;
+
   @Rule public final TemporaryFolder folder = new TemporaryFolder();
 
   // TODO: Find a faster way to test HashimotoFull, this test takes almost 2 minutes.
   @Test
   @Ignore
   public void hashimotoFull() throws Exception {
-    try (final EthHasher.Full hasher = new EthHasher.Full(folder.newFile().toPath())) {
+    try (final EthHasher.Full hasher = new EthHasher.Full(folder.newFolder().toPath())) {
       final RLPInput input =
           new BytesValueRLPInput(
               BytesValue.wrap(
@@ -43,10 +51,72 @@ public final class EthHasherTest {
       input.enterList();
       final BlockHeader header = BlockHeader.readFrom(input, MainnetBlockHashFunction::createHash);
       final byte[] buffer = new byte[64];
+      hasher.datasetFor(EthHash.epoch(header.getNumber())).get();
       hasher.hash(buffer, header.getNonce(), header.getNumber(), EthHash.hashHeader(header));
       Assertions.assertThat(
               ByteArrayUtil.compare(buffer, 0, 32, header.getMixHash().extractArray(), 0, 32))
           .isEqualTo(0);
     }
   }
+
+  @Test
+  public void fullDatasetHashesLikeLightCache() throws Exception {
+    final byte[] headerHash = EthHash.hashHeader(ValidationTestUtils.readHeader(300005));
+    final long nonce = 42L;
+    final byte[] expected =
+        EthHash.hashimotoLight(
+            SMALL_DATASET_SIZE,
+            EthHash.mkCache(Ints.checkedCast(EthHash.cacheSize(0)), 1),
+            headerHash,
+            nonce);
+
+    try (final EthHasher.Full hasher =
+        new EthHasher.Full(folder.newFolder().toPath(), epoch -> SMALL_DATASET_SIZE)) {
+      hasher.datasetFor(0).get();
+      final byte[] buffer = new byte[64];
+      hasher.hash(buffer, nonce, 1, headerHash);
+      Assertions.assertThat(buffer).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void reusesStoredDatasetAndGeneratesNextEpoch() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+    final Path datasetFile;
+    final long lastModified;
+    try (final EthHasher.Full hasher = new EthHasher.Full(directory, epoch -> SMALL_DATASET_SIZE)) {
+      hasher.datasetFor(0).get();
+      datasetFile = hasher.datasetFile(0);
+      lastModified = Files.getLastModifiedTime(datasetFile).toMillis();
+    }
+    Assertions.assertThat(Files.size(datasetFile)).isEqualTo(SMALL_DATASET_SIZE);
+
+    try (final EthHasher.Full hasher = new EthHasher.Full(directory, epoch -> SMALL_DATASET_SIZE)) {
+      hasher.datasetFor(0).get();
+      Assertions.assertThat(Files.getLastModifiedTime(datasetFile).toMillis())
+          .isEqualTo(lastModified);
+
+      hasher.hash(new byte[64], 0L, 1, new byte[32]);
+      hasher.datasetFor(1).get();
+      Assertions.assertThat(hasher.datasetFile(1)).exists();
+    }
+  }
+
+  @Test
+  public void retriesDatasetGenerationAfterFailure() throws Exception {
+    // A regular file where the directory should be makes the first generation fail.
+    final Path directory = folder.newFile().toPath();
+    try (final EthHasher.Full hasher = new EthHasher.Full(directory, epoch -> SMALL_DATASET_SIZE)) {
+      final CompletableFuture<?> failed = hasher.datasetFor(0);
+      Assertions.assertThatThrownBy(failed::get).isInstanceOf(ExecutionException.class);
+
+      hasher.hash(new byte[64], 0L, 1, new byte[32]);
+      Files.delete(directory);
+
+      final CompletableFuture<?> retried = hasher.datasetFor(0);
+      Assertions.assertThat(retried).isNotSameAs(failed);
+      retried.get();
+      Assertions.assertThat(hasher.datasetFile(0)).exists();
+    }
+  }
 }
@@ -36,7 +36,11 @@ public class MainnetBlockProcessorTest {
       mock(TransactionReceiptFactory.class);
   private final MainnetBlockProcessor blockProcessor =
       new MainnetBlockProcessor(
-          transactionProcessor, transactionReceiptFactory, Wei.ZERO, BlockHeader::getCoinbase);
+          transactionProcessor,
+          transactionReceiptFactory,
+          Wei.ZERO,
+          BlockHeader::getCoinbase,
+          false);
 
   @Test
   public void noAccountCreatedWhenBlockRewardIsZero() {
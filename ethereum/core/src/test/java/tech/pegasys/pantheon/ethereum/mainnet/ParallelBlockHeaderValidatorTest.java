@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static tech.pegasys.pantheon.ethereum.mainnet.ValidationTestUtils.readHeader;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ParallelBlockHeaderValidatorTest {
+
+  private final ProtocolSchedule<Void> protocolSchedule =
+      MainnetProtocolSchedule.create(new NoOpMetricsSystem());
+
+  @SuppressWarnings("unchecked")
+  private final ProtocolContext<Void> protocolContext = mock(ProtocolContext.class);
+
+  @Test
+  public void validatesEachHeaderAgainstItsParent() throws Exception {
+    final List<BlockHeader> headers =
+        Arrays.asList(
+            readHeader(300006), readHeader(1200001), readHeader(4400001), readHeader(1200001));
+    final List<BlockHeader> parents =
+        Arrays.asList(
+            readHeader(300005), readHeader(1200000), readHeader(4400000), readHeader(4400000));
+    assertThat(headers.size())
+        .isGreaterThanOrEqualTo(ParallelBlockHeaderValidator.MIN_PARALLEL_BATCH_SIZE);
+
+    final boolean[] results =
+        ParallelBlockHeaderValidator.validateHeaders(
+            protocolSchedule,
+            protocolContext,
+            headers,
+            parents,
+            HeaderValidationMode.DETACHED_ONLY);
+
+    assertThat(results).containsExactly(true, true, true, false);
+  }
+
+  @Test
+  public void validatesSmallBatchOnCallingThread() throws Exception {
+    final boolean[] results =
+        ParallelBlockHeaderValidator.validateHeaders(
+            protocolSchedule,
+            protocolContext,
+            Arrays.asList(readHeader(1200001), readHeader(1200001)),
+            Arrays.asList(readHeader(1200000), readHeader(300005)),
+            HeaderValidationMode.DETACHED_ONLY);
+
+    assertThat(results).containsExactly(true, false);
+  }
+}
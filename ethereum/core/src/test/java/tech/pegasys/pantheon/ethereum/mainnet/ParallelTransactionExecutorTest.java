@@ -0,0 +1,332 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.config.GenesisConfigOptions;
+import tech.pegasys.pantheon.config.StubGenesisConfigOptions;
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.ExecutionContextTestFixture;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.core.Util;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockProcessor.Result;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ParallelTransactionExecutorTest {
+
+  private static final long GAS_LIMIT = 8_000_000L;
+  private static final Wei INITIAL_BALANCE = Wei.fromEth(1_000);
+
+  // Increments the value stored at slot 0.
+  private static final Address COUNTER =
+      Address.fromHexString("0x1000000000000000000000000000000000000001");
+  private static final BytesValue COUNTER_CODE = BytesValue.fromHexString("0x600054600101600055");
+
+  // Stores the first word of the call data at the slot of the caller address.
+  private static final Address REGISTRY =
+      Address.fromHexString("0x1000000000000000000000000000000000000002");
+  private static final BytesValue REGISTRY_CODE = BytesValue.fromHexString("0x6000353355");
+
+  // Stores the balance of the mining beneficiary at slot 0.
+  private static final Address BENEFICIARY_PROBE =
+      Address.fromHexString("0x1000000000000000000000000000000000000003");
+  private static final BytesValue BENEFICIARY_PROBE_CODE = BytesValue.fromHexString("0x4131600055");
+
+  // Self-destructs, sending its balance to the address in the first word of the call data.
+  private static final Address SELF_DESTRUCT =
+      Address.fromHexString("0x1000000000000000000000000000000000000004");
+  private static final BytesValue SELF_DESTRUCT_CODE = BytesValue.fromHexString("0x600035ff");
+
+  // Deploys COUNTER_CODE.
+  private static final BytesValue COUNTER_INIT_CODE =
+      BytesValue.fromHexString("0x6009600c60003960096000f3600054600101600055");
+
+  private static final List<KeyPair> SENDERS = new ArrayList<>();
+
+  static {
+    for (int i = 0; i < 8; i++) {
+      SENDERS.add(KeyPair.generate());
+    }
+  }
+
+  private static final KeyPair BENEFICIARY_KEYS = KeyPair.generate();
+  private static final Address BENEFICIARY =
+      Util.publicKeyToAddress(BENEFICIARY_KEYS.getPublicKey());
+
+  @Parameters(name = "{0}")
+  public static Object[][] milestones() {
+    return new Object[][] {
+      {"Frontier", new StubGenesisConfigOptions()},
+      {"Constantinople", new StubGenesisConfigOptions().constantinopleBlock(0)},
+    };
+  }
+
+  @Parameter public String milestone;
+
+  @Parameter(value = 1)
+  public GenesisConfigOptions genesisConfig;
+
+  @Test
+  public void independentTransfers() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < SENDERS.size(); i++) {
+      transactions.add(transfer(SENDERS.get(i), 0, freshAddress(i), Wei.of(1_000)));
+    }
+    assertParallelExecutionMatchesSerialExecution(transactions);
+  }
+
+  @Test
+  public void transactionsFromTheSameSender() {
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            transfer(sender(0), 0, freshAddress(0), Wei.of(1)),
+            transfer(sender(1), 0, freshAddress(1), Wei.of(2)),
+            transfer(sender(0), 1, freshAddress(2), Wei.of(3)),
+            transfer(sender(0), 2, freshAddress(0), Wei.of(4))));
+  }
+
+  @Test
+  public void recipientSpendsFundsReceivedInTheSameBlock() {
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            transfer(sender(0), 0, address(sender(1)), INITIAL_BALANCE.dividedBy(2)),
+            transfer(sender(1), 0, freshAddress(0), INITIAL_BALANCE.plus(Wei.fromEth(100))),
+            transfer(sender(2), 0, freshAddress(1), Wei.of(1))));
+  }
+
+  @Test
+  public void sharedAndDisjointStorage() {
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            call(sender(0), 0, COUNTER, BytesValue.EMPTY),
+            call(sender(1), 0, REGISTRY, Bytes32.fromHexStringLenient("0x01")),
+            call(sender(2), 0, COUNTER, BytesValue.EMPTY),
+            call(sender(3), 0, REGISTRY, Bytes32.fromHexStringLenient("0x02")),
+            callWithGasLimit(sender(4), 0, COUNTER, 21_100),
+            call(sender(5), 0, COUNTER, BytesValue.EMPTY)));
+  }
+
+  @Test
+  public void miningBeneficiaryIsReadAndSpent() {
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            call(sender(0), 0, BENEFICIARY_PROBE, BytesValue.EMPTY),
+            transfer(sender(1), 0, BENEFICIARY, Wei.of(5)),
+            transfer(BENEFICIARY_KEYS, 0, freshAddress(0), Wei.of(7)),
+            call(sender(2), 0, BENEFICIARY_PROBE, BytesValue.EMPTY),
+            transaction(
+                sender(3), 0, freshAddress(1), Wei.ZERO, BytesValue.EMPTY, Wei.ZERO, 21_000),
+            transfer(sender(4), 0, freshAddress(2), Wei.of(1))));
+  }
+
+  @Test
+  public void freeTransactionsTouchTheMiningBeneficiary() {
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            transaction(
+                sender(0), 0, freshAddress(0), Wei.ZERO, BytesValue.EMPTY, Wei.ZERO, 21_000),
+            transaction(
+                sender(1), 0, freshAddress(1), Wei.ZERO, BytesValue.EMPTY, Wei.ZERO, 21_000)));
+  }
+
+  @Test
+  public void contractsCreatedAndDestroyed() {
+    final Address created = Address.contractAddress(address(sender(0)), 0);
+    assertParallelExecutionMatchesSerialExecution(
+        Arrays.asList(
+            transaction(sender(0), 0, null, Wei.of(10), COUNTER_INIT_CODE, Wei.of(1), 1_000_000),
+            call(sender(1), 0, created, BytesValue.EMPTY),
+            call(sender(2), 0, SELF_DESTRUCT, Bytes32.leftPad(address(sender(3)))),
+            transfer(sender(3), 0, freshAddress(0), INITIAL_BALANCE.minus(Wei.fromEth(1))),
+            call(sender(4), 0, SELF_DESTRUCT, Bytes32.leftPad(address(sender(5)))),
+            call(sender(6), 0, COUNTER, BytesValue.EMPTY)));
+  }
+
+  @Test
+  public void randomWorkload() {
+    final Random random = new Random(42);
+    final long[] nonces = new long[SENDERS.size()];
+    final Address[] targets = {
+      COUNTER, REGISTRY, BENEFICIARY_PROBE, BENEFICIARY, freshAddress(0), freshAddress(1)
+    };
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final int sender = random.nextInt(SENDERS.size());
+      final Address to =
+          random.nextBoolean()
+              ? targets[random.nextInt(targets.length)]
+              : address(sender(random.nextInt(SENDERS.size())));
+      transactions.add(
+          transaction(
+              sender(sender),
+              nonces[sender]++,
+              to,
+              Wei.of(random.nextInt(1_000)),
+              Bytes32.leftPad(BytesValue.of(random.nextInt(256))),
+              Wei.of(random.nextInt(3)),
+              60_000));
+    }
+    assertParallelExecutionMatchesSerialExecution(transactions);
+  }
+
+  @Test
+  public void invalidTransactionFailsTheBlock() {
+    final List<Transaction> transactions =
+        Arrays.asList(
+            transfer(sender(0), 0, freshAddress(0), Wei.of(1)),
+            transfer(sender(1), 1, freshAddress(1), Wei.of(1)));
+
+    assertThat(process(transactions, false).isSuccessful()).isFalse();
+    assertThat(process(transactions, true).isSuccessful()).isFalse();
+  }
+
+  private void assertParallelExecutionMatchesSerialExecution(final List<Transaction> transactions) {
+    final ExecutionContextTestFixture serialContext = ExecutionContextTestFixture.create();
+    final MutableWorldState serialWorldState = createWorldState(serialContext);
+    final Result serialResult = process(serialContext, serialWorldState, transactions, false);
+    final ExecutionContextTestFixture parallelContext = ExecutionContextTestFixture.create();
+    final MutableWorldState parallelWorldState = createWorldState(parallelContext);
+    final Result parallelResult = process(parallelContext, parallelWorldState, transactions, true);
+
+    assertThat(serialResult.isSuccessful()).isTrue();
+    assertThat(parallelResult.isSuccessful()).isTrue();
+    assertThat(encode(parallelResult.getReceipts())).isEqualTo(encode(serialResult.getReceipts()));
+    assertThat(parallelWorldState.rootHash()).isEqualTo(serialWorldState.rootHash());
+  }
+
+  private Result process(final List<Transaction> transactions, final boolean parallel) {
+    final ExecutionContextTestFixture context = ExecutionContextTestFixture.create();
+    return process(context, createWorldState(context), transactions, parallel);
+  }
+
+  private Result process(
+      final ExecutionContextTestFixture context,
+      final MutableWorldState worldState,
+      final List<Transaction> transactions,
+      final boolean parallel) {
+    final ProtocolSchedule<Void> protocolSchedule =
+        new ProtocolScheduleFactory<>(
+                new NoOpMetricsSystem(),
+                genesisConfig,
+                42,
+                Function.identity(),
+                new EthHasher.Light(),
+                parallel)
+            .createProtocolSchedule();
+    final BlockHeader blockHeader =
+        new BlockHeaderTestFixture()
+            .parentHash(context.getBlockchain().getChainHeadHash())
+            .number(1)
+            .coinbase(BENEFICIARY)
+            .gasLimit(GAS_LIMIT * transactions.size())
+            .buildHeader();
+    return protocolSchedule
+        .getByBlockNumber(1)
+        .getBlockProcessor()
+        .processBlock(context.getBlockchain(), worldState, blockHeader, transactions, emptyList());
+  }
+
+  private static MutableWorldState createWorldState(final ExecutionContextTestFixture context) {
+    final MutableWorldState worldState = context.getStateArchive().getMutable();
+    final WorldUpdater updater = worldState.updater();
+    for (final KeyPair sender : SENDERS) {
+      updater.getOrCreate(address(sender)).setBalance(INITIAL_BALANCE);
+    }
+    updater.getOrCreate(BENEFICIARY).setBalance(Wei.fromEth(1));
+    updater.getOrCreate(COUNTER).setCode(COUNTER_CODE);
+    updater.getOrCreate(REGISTRY).setCode(REGISTRY_CODE);
+    updater.getOrCreate(BENEFICIARY_PROBE).setCode(BENEFICIARY_PROBE_CODE);
+    final MutableAccount selfDestruct = updater.getOrCreate(SELF_DESTRUCT);
+    selfDestruct.setCode(SELF_DESTRUCT_CODE);
+    selfDestruct.setBalance(Wei.of(1_000_000));
+    updater.commit();
+    return worldState;
+  }
+
+  private static List<BytesValue> encode(final List<TransactionReceipt> receipts) {
+    return receipts.stream().map(receipt -> RLP.encode(receipt::writeTo)).collect(toList());
+  }
+
+  private static KeyPair sender(final int index) {
+    return SENDERS.get(index);
+  }
+
+  private static Address address(final KeyPair keyPair) {
+    return Util.publicKeyToAddress(keyPair.getPublicKey());
+  }
+
+  private static Address freshAddress(final int index) {
+    return Address.fromHexString(
+        String.format("0x20000000000000000000000000000000000000%02x", index));
+  }
+
+  private static Transaction transfer(
+      final KeyPair sender, final long nonce, final Address to, final Wei value) {
+    return transaction(sender, nonce, to, value, BytesValue.EMPTY, Wei.of(1), 21_000);
+  }
+
+  private static Transaction call(
+      final KeyPair sender, final long nonce, final Address to, final BytesValue payload) {
+    return transaction(sender, nonce, to, Wei.ZERO, payload, Wei.of(1), 200_000);
+  }
+
+  private static Transaction callWithGasLimit(
+      final KeyPair sender, final long nonce, final Address to, final long gasLimit) {
+    return transaction(sender, nonce, to, Wei.ZERO, BytesValue.EMPTY, Wei.of(1), gasLimit);
+  }
+
+  private static Transaction transaction(
+      final KeyPair sender,
+      final long nonce,
+      final Address to,
+      final Wei value,
+      final BytesValue payload,
+      final Wei gasPrice,
+      final long gasLimit) {
+    return Transaction.builder()
+        .nonce(nonce)
+        .gasPrice(gasPrice)
+        .gasLimit(gasLimit)
+        .to(to)
+        .value(value)
+        .payload(payload)
+        .signAndBuild(sender);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Gas;
+import tech.pegasys.pantheon.ethereum.mainnet.SpuriousDragonGasCalculator;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class BigIntegerModularExponentiationPrecompiledContractTest {
+
+  private final BigIntegerModularExponentiationPrecompiledContract contract =
+      new BigIntegerModularExponentiationPrecompiledContract(new SpuriousDragonGasCalculator());
+
+  @Parameters
+  public static Object[][] parameters() {
+    return new Object[][] {
+      // The examples of EIP-198.
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000001"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "03"
+            + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e"
+            + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f",
+        "0x0000000000000000000000000000000000000000000000000000000000000001",
+        13_056L
+      },
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000000"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e"
+            + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f",
+        "0x0000000000000000000000000000000000000000000000000000000000000000",
+        13_056L
+      },
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000000"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"
+            + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e",
+        null,
+        Long.MAX_VALUE
+      },
+      // Inputs shorter than their lengths are padded with zeros.
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000001"
+            + "0000000000000000000000000000000000000000000000000000000000000002"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "03"
+            + "ffff"
+            + "80",
+        "0x3b01b01ac41f2d6e917c6d6a221ce793802469026d9ab7578fa2e79e4da6aaab",
+        768L
+      },
+      // A large exponent length with empty base and modulus is free.
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000000"
+            + "ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"
+            + "0000000000000000000000000000000000000000000000000000000000000000",
+        "0x",
+        0L
+      },
+      // Exponents longer than a word are priced on their length beyond the first word.
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000001"
+            + "0000000000000000000000000000000000000000000000000000000000000040"
+            + "0000000000000000000000000000000000000000000000000000000000000001"
+            + "02"
+            + "0000000000000000000000000000000000000000000000000000000000000001"
+            + "0000000000000000000000000000000000000000000000000000000000000000"
+            + "07",
+        "0x02",
+        12L
+      },
+      // Lengths that do not fit in an int are still priced exactly.
+      {
+        "0x0000000000000000000000000000000000000000000000000000000000000000"
+            + "0000000000000000000000000000000000000000000000000000000100000000"
+            + "0000000000000000000000000000000000000000000000000000000000000001",
+        null,
+        1_717_986_905L
+      },
+    };
+  }
+
+  @Parameter public String input;
+
+  @Parameter(1)
+  public String expectedResult;
+
+  @Parameter(2)
+  public long expectedGas;
+
+  @Test
+  public void shouldComputeGasRequirement() {
+    assertThat(contract.gasRequirement(BytesValue.fromHexString(input)))
+        .isEqualTo(Gas.of(expectedGas));
+  }
+
+  @Test
+  public void shouldComputeResult() {
+    if (expectedResult != null) {
+      assertThat(contract.compute(BytesValue.fromHexString(input)))
+          .isEqualTo(BytesValue.fromHexString(expectedResult));
+    }
+  }
+}
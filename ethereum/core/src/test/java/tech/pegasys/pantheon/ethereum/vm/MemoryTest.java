@@ -38,6 +38,16 @@ public class MemoryTest {
     assertThat(memory.getWord(index)).isEqualTo(value);
   }
 
+  @Test
+  public void shouldBeEmptyAndZeroedAfterReset() {
+    memory.setWord(UInt256.of(32), WORD1);
+    memory.reset();
+
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.ZERO);
+    assertThat(memory.getWord(UInt256.of(32))).isEqualTo(Bytes32.ZERO);
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(2));
+  }
+
   @Test
   public void shouldSetMemoryWhenLengthEqualToSourceLength() {
     final BytesValue value = BytesValues.concatenate(WORD1, WORD2, WORD3);
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import org.junit.Test;
+
+public class MessageFrameResourcesTest {
+
+  private final MessageFrameResources resources = new MessageFrameResources();
+
+  @Test
+  public void shouldReuseReleasedStackOnceEmptied() {
+    final PrimitiveOperandStack stack = resources.borrowStack();
+    stack.push(Bytes32.fromHexString("0x01"));
+    resources.release(stack);
+
+    final PrimitiveOperandStack reused = resources.borrowStack();
+    assertThat(reused).isSameAs(stack);
+    assertThat(reused.size()).isZero();
+  }
+
+  @Test
+  public void shouldReuseReleasedMemoryOnceCleared() {
+    final Memory memory = resources.borrowMemory();
+    memory.setWord(UInt256.ZERO, Bytes32.fromHexString("0x01"));
+    resources.release(memory);
+
+    final Memory reused = resources.borrowMemory();
+    assertThat(reused).isSameAs(memory);
+    assertThat(reused.getActiveWords()).isEqualTo(UInt256.ZERO);
+    assertThat(reused.getWord(UInt256.ZERO)).isEqualTo(Bytes32.ZERO);
+  }
+
+  @Test
+  public void shouldNotPoolLargeMemory() {
+    final Memory memory = resources.borrowMemory();
+    memory.ensureCapacityForBytes(0, (int) MessageFrameResources.MAX_POOLED_MEMORY_BYTES + 1);
+    resources.release(memory);
+
+    assertThat(resources.pooledMemories()).isZero();
+    assertThat(resources.borrowMemory()).isNotSameAs(memory);
+  }
+
+  @Test
+  public void shouldBoundNumberOfPooledStacks() {
+    for (int i = 0; i <= MessageFrameResources.MAX_POOLED_PER_THREAD; i++) {
+      resources.release(new PrimitiveOperandStack(MessageFrame.MAX_STACK_SIZE));
+    }
+
+    assertThat(resources.pooledStacks()).isEqualTo(MessageFrameResources.MAX_POOLED_PER_THREAD);
+  }
+}
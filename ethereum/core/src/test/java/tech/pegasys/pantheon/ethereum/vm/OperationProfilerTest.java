@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.metrics.MetricCategory.EVM;
+
+import tech.pegasys.pantheon.ethereum.vm.OperationProfiler.Profile;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.Observation;
+import tech.pegasys.pantheon.metrics.prometheus.PrometheusMetricsSystem;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class OperationProfilerTest {
+
+  private static final int ADD = 0x01;
+  private static final int MUL = 0x02;
+
+  private final MetricsSystem metricsSystem = PrometheusMetricsSystem.init();
+  private final OperationProfiler profiler = new OperationProfiler(metricsSystem, names());
+
+  @After
+  public void resetTimingSampleInterval() {
+    OperationProfiler.setTimingSampleInterval(OperationProfiler.DEFAULT_TIMING_SAMPLE_INTERVAL);
+  }
+
+  @Test
+  public void shouldPublishExecutionCountsOnlyWhenFlushed() {
+    final Profile profile = profiler.currentProfile();
+    profile.recordExecution(ADD);
+    profile.recordExecution(ADD);
+    profile.recordExecution(MUL);
+
+    assertThat(metricsSystem.getMetrics(EVM)).isEmpty();
+
+    profile.flush();
+
+    assertThat(metricsSystem.getMetrics(EVM))
+        .containsExactlyInAnyOrder(
+            new Observation(EVM, "operation_executions", 2d, singletonList("ADD")),
+            new Observation(EVM, "operation_executions", 1d, singletonList("MUL")));
+  }
+
+  @Test
+  public void shouldFlushAutomaticallyAfterFlushInterval() {
+    final Profile profile = profiler.currentProfile();
+    for (int i = 0; i < OperationProfiler.FLUSH_INTERVAL; i++) {
+      profile.recordExecution(ADD);
+    }
+
+    assertThat(metricsSystem.getMetrics(EVM))
+        .containsExactly(
+            new Observation(
+                EVM,
+                "operation_executions",
+                (double) OperationProfiler.FLUSH_INTERVAL,
+                singletonList("ADD")));
+  }
+
+  @Test
+  public void shouldPublishSampledTimings() {
+    final Profile profile = profiler.currentProfile();
+    profile.recordTimedExecution(ADD, 100);
+    profile.recordTimedExecution(ADD, 50);
+    profile.flush();
+
+    assertThat(metricsSystem.getMetrics(EVM))
+        .containsExactlyInAnyOrder(
+            new Observation(EVM, "operation_executions", 2d, singletonList("ADD")),
+            new Observation(EVM, "operation_sampled_executions", 2d, singletonList("ADD")),
+            new Observation(
+                EVM, "operation_sampled_execution_nanoseconds", 150d, singletonList("ADD")));
+  }
+
+  @Test
+  public void shouldTimeOneOperationPerSampleInterval() {
+    OperationProfiler.setTimingSampleInterval(4);
+    final Profile profile = profiler.currentProfile();
+
+    int timed = 0;
+    for (int i = 0; i < 40; i++) {
+      if (profile.shouldTimeNextOperation()) {
+        timed++;
+      }
+    }
+
+    assertThat(timed).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldNotTimeOperationsWhenTimingIsDisabled() {
+    OperationProfiler.setTimingSampleInterval(0);
+    final Profile profile = profiler.currentProfile();
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(profile.shouldTimeNextOperation()).isFalse();
+    }
+  }
+
+  private static String[] names() {
+    final String[] names = new String[256];
+    Arrays.fill(names, "INVALID");
+    names[ADD] = "ADD";
+    names[MUL] = "MUL";
+    return names;
+  }
+}
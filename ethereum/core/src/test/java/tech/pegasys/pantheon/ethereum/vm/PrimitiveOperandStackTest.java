@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public class PrimitiveOperandStackTest {
+
+  private static final Bytes32 MAX = Bytes32.fromHexString("0x" + repeat("ff", 32));
+  private static final Bytes32 MIN_SIGNED = Bytes32.fromHexString("0x80" + repeat("00", 31));
+  private static final Bytes32 LIMB_BOUNDARY = Bytes32.fromHexString("0xffffffffffffffff");
+  private static final Bytes32 MIXED =
+      Bytes32.fromHexString("0x0123456789abcdeffedcba9876543210f0e1d2c3b4a5968778695a4b3c2d1e0f");
+
+  @Test
+  public void construction() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    assertThat(stack.size()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void construction_NegativeMaximumSize() {
+    new PrimitiveOperandStack(-1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void push_StackOverflow() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.push(Bytes32.fromHexString("0x02"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void pop_StackUnderflow() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    stack.pop();
+  }
+
+  @Test
+  public void pushPop() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    stack.push(MIXED);
+    assertThat(stack.size()).isEqualTo(1);
+    assertThat(stack.pop()).isEqualTo(MIXED);
+  }
+
+  @Test
+  public void bulkPop() {
+    final OperandStack stack = new PrimitiveOperandStack(3);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.push(Bytes32.fromHexString("0x02"));
+    stack.push(Bytes32.fromHexString("0x03"));
+    stack.bulkPop(2);
+    assertThat(stack.size()).isEqualTo(1);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0x01"));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void get_NegativeOffset() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    stack.get(-1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void get_IndexGreaterThanSize() {
+    final OperandStack stack = new PrimitiveOperandStack(1);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.get(2);
+  }
+
+  @Test
+  public void get() {
+    final OperandStack stack = new PrimitiveOperandStack(3);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.push(Bytes32.fromHexString("0x02"));
+    stack.push(Bytes32.fromHexString("0x03"));
+    assertThat(stack.size()).isEqualTo(3);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0x03"));
+    assertThat(stack.get(1)).isEqualTo(Bytes32.fromHexString("0x02"));
+    assertThat(stack.get(2)).isEqualTo(Bytes32.fromHexString("0x01"));
+  }
+
+  @Test
+  public void set() {
+    final OperandStack stack = new PrimitiveOperandStack(3);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.push(Bytes32.fromHexString("0x02"));
+    stack.push(Bytes32.fromHexString("0x03"));
+    stack.set(2, Bytes32.fromHexString("0x04"));
+    assertThat(stack.size()).isEqualTo(3);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0x03"));
+    assertThat(stack.get(1)).isEqualTo(Bytes32.fromHexString("0x02"));
+    assertThat(stack.get(2)).isEqualTo(Bytes32.fromHexString("0x04"));
+  }
+
+  @Test
+  public void pushBytes() {
+    final PrimitiveOperandStack stack = new PrimitiveOperandStack(2);
+    final BytesValue code = BytesValue.fromHexString("0x60aabbccdd");
+    stack.push(code, 1, 3, 3);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0xaabbcc"));
+
+    // Truncated code is padded with zeros on the right.
+    stack.push(code, 1, 4, 10);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0xaabbccdd000000000000"));
+  }
+
+  @Test
+  public void dupAndSwap() {
+    final PrimitiveOperandStack stack = new PrimitiveOperandStack(4);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.push(MIXED);
+    stack.push(Bytes32.fromHexString("0x03"));
+    stack.dup(1);
+    assertThat(stack.size()).isEqualTo(4);
+    assertThat(stack.get(0)).isEqualTo(MIXED);
+
+    stack.swap(3);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0x01"));
+    assertThat(stack.get(3)).isEqualTo(MIXED);
+  }
+
+  @Test
+  public void arithmeticMatchesUInt256() {
+    final Bytes32[] values = {
+      Bytes32.ZERO, Bytes32.fromHexString("0x01"), LIMB_BOUNDARY, MIN_SIGNED, MAX, MIXED
+    };
+    for (final Bytes32 a : values) {
+      for (final Bytes32 b : values) {
+        final UInt256 x = a.asUInt256();
+        final UInt256 y = b.asUInt256();
+        assertBinary(a, b, PrimitiveOperandStack::add, x.plus(y).getBytes());
+        assertBinary(a, b, PrimitiveOperandStack::sub, x.minus(y).getBytes());
+        assertBinary(a, b, PrimitiveOperandStack::and, x.and(y).getBytes());
+        assertBinary(a, b, PrimitiveOperandStack::or, x.or(y).getBytes());
+        assertBinary(a, b, PrimitiveOperandStack::xor, x.xor(y).getBytes());
+        assertBinary(a, b, PrimitiveOperandStack::eq, bool(x.equals(y)));
+        assertBinary(a, b, PrimitiveOperandStack::lt, bool(x.compareTo(y) < 0));
+        assertBinary(a, b, PrimitiveOperandStack::gt, bool(x.compareTo(y) > 0));
+        assertBinary(
+            a, b, PrimitiveOperandStack::slt, bool(a.asInt256().compareTo(b.asInt256()) < 0));
+        assertBinary(
+            a, b, PrimitiveOperandStack::sgt, bool(a.asInt256().compareTo(b.asInt256()) > 0));
+      }
+      assertUnary(a, PrimitiveOperandStack::not, a.asUInt256().not().getBytes());
+      assertUnary(a, PrimitiveOperandStack::isZero, bool(a.isZero()));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void binaryOperation_StackUnderflow() {
+    final PrimitiveOperandStack stack = new PrimitiveOperandStack(2);
+    stack.push(Bytes32.fromHexString("0x01"));
+    stack.add();
+  }
+
+  private static void assertBinary(
+      final Bytes32 top,
+      final Bytes32 second,
+      final Consumer<PrimitiveOperandStack> operation,
+      final Bytes32 expected) {
+    final PrimitiveOperandStack stack = new PrimitiveOperandStack(2);
+    stack.push(second);
+    stack.push(top);
+    operation.accept(stack);
+    assertThat(stack.size()).isEqualTo(1);
+    assertThat(stack.pop()).isEqualTo(expected);
+  }
+
+  private static void assertUnary(
+      final Bytes32 operand,
+      final Consumer<PrimitiveOperandStack> operation,
+      final Bytes32 expected) {
+    final PrimitiveOperandStack stack = new PrimitiveOperandStack(1);
+    stack.push(operand);
+    operation.accept(stack);
+    assertThat(stack.pop()).isEqualTo(expected);
+  }
+
+  private static Bytes32 bool(final boolean value) {
+    return value ? Bytes32.TRUE : Bytes32.FALSE;
+  }
+
+  private static String repeat(final String value, final int count) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < count; ++i) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+}
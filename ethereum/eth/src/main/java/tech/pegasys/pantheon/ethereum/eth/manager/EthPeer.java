@@ -21,6 +21,7 @@ import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
 import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockBodiesMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetNodeDataMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.GetReceiptsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection;
@@ -34,17 +35,23 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import com.google.common.collect.Iterables;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class EthPeer {
   private static final Logger LOG = LogManager.getLogger();
+
+  static final int INITIAL_REQUEST_CAPACITY = 5;
+  static final int MAX_REQUEST_CAPACITY = 20;
+
   private final PeerConnection connection;
 
   private final int maxTrackedSeenBlocks = 30_000;
@@ -55,9 +62,14 @@ public class EthPeer {
   private final AtomicBoolean statusHasBeenSentToPeer = new AtomicBoolean(false);
   private final AtomicBoolean statusHasBeenReceivedFromPeer = new AtomicBoolean(false);
 
-  private final RequestManager headersRequestManager = new RequestManager(this);
-  private final RequestManager bodiesRequestManager = new RequestManager(this);
-  private final RequestManager receiptsRequestManager = new RequestManager(this);
+  private final RequestManager headersRequestManager;
+  private final RequestManager bodiesRequestManager;
+  private final RequestManager receiptsRequestManager;
+  private final RequestManager nodeDataRequestManager;
+  // The number of requests that may be outstanding at once, increased by one after as many
+  // responses and halved on every timeout.
+  private int requestCapacity = INITIAL_REQUEST_CAPACITY;
+  private int responsesSinceCapacityIncrease;
 
   private final AtomicReference<Consumer<EthPeer>> onStatusesExchanged = new AtomicReference<>();
   private final PeerReputation reputation = new PeerReputation();
@@ -67,7 +79,19 @@ public class EthPeer {
       final PeerConnection connection,
       final String protocolName,
       final Consumer<EthPeer> onStatusesExchanged) {
+    this(connection, protocolName, onStatusesExchanged, (requestType, bytes, latency) -> {});
+  }
+
+  EthPeer(
+      final PeerConnection connection,
+      final String protocolName,
+      final Consumer<EthPeer> onStatusesExchanged,
+      final ResponseMetrics responseMetrics) {
     this.connection = connection;
+    headersRequestManager = requestManager("headers", responseMetrics);
+    bodiesRequestManager = requestManager("bodies", responseMetrics);
+    receiptsRequestManager = requestManager("receipts", responseMetrics);
+    nodeDataRequestManager = requestManager("node_data", responseMetrics);
     this.protocolName = protocolName;
     knownBlocks =
         Collections.newSetFromMap(
@@ -82,6 +106,14 @@ public class EthPeer {
     this.onStatusesExchanged.set(onStatusesExchanged);
   }
 
+  private RequestManager requestManager(
+      final String requestType, final ResponseMetrics responseMetrics) {
+    return new RequestManager(
+        this,
+        (bytes, latencyMillis) -> responseMetrics.record(requestType, bytes, latencyMillis),
+        System::nanoTime);
+  }
+
   public long addChainEstimatedHeightListener(final EstimatedHeightListener listener) {
     return chainHeadState.addEstimatedHeightListener(listener);
   }
@@ -92,9 +124,52 @@ public class EthPeer {
 
   public void recordRequestTimeout(final int requestCode) {
     LOG.debug("Timed out while waiting for response from peer {}", this);
+    requestManager(requestCode).ifPresent(RequestManager::recordTimeout);
+    synchronized (this) {
+      requestCapacity = Math.max(1, requestCapacity / 2);
+      responsesSinceCapacityIncrease = 0;
+    }
     reputation.recordRequestTimeout(requestCode).ifPresent(this::disconnect);
   }
 
+  private void recordResponse() {
+    synchronized (this) {
+      if (++responsesSinceCapacityIncrease >= requestCapacity) {
+        requestCapacity = Math.min(MAX_REQUEST_CAPACITY, requestCapacity + 1);
+        responsesSinceCapacityIncrease = 0;
+      }
+    }
+  }
+
+  private Optional<RequestManager> requestManager(final int requestCode) {
+    switch (requestCode) {
+      case EthPV62.GET_BLOCK_HEADERS:
+        return Optional.of(headersRequestManager);
+      case EthPV62.GET_BLOCK_BODIES:
+        return Optional.of(bodiesRequestManager);
+      case EthPV63.GET_RECEIPTS:
+        return Optional.of(receiptsRequestManager);
+      case EthPV63.GET_NODE_DATA:
+        return Optional.of(nodeDataRequestManager);
+      default:
+        return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the number of items to request from this peer, which is less than the number needed
+   * while the peer is recovering from timeouts.
+   *
+   * @param requestCode the code of the request message
+   * @param requestedSize the number of items needed
+   * @return the number of items to request, between 1 and {@code requestedSize}
+   */
+  public int requestSize(final int requestCode, final int requestedSize) {
+    return requestManager(requestCode)
+        .map(manager -> manager.requestSize(requestedSize))
+        .orElse(requestedSize);
+  }
+
   public void recordUselessResponse() {
     LOG.debug("Received useless response from peer {}", this);
     reputation.recordUselessResponse(System.currentTimeMillis()).ifPresent(this::disconnect);
@@ -115,11 +190,17 @@ public class EthPeer {
   public ResponseStream send(final MessageData messageData) throws PeerNotConnected {
     switch (messageData.getCode()) {
       case EthPV62.GET_BLOCK_HEADERS:
-        return sendHeadersRequest(messageData);
+        return sendHeadersRequest(
+            messageData, GetBlockHeadersMessage.readFrom(messageData).maxHeaders());
       case EthPV62.GET_BLOCK_BODIES:
-        return sendBodiesRequest(messageData);
+        return sendBodiesRequest(
+            messageData, Iterables.size(GetBlockBodiesMessage.readFrom(messageData).hashes()));
       case EthPV63.GET_RECEIPTS:
-        return sendReceiptsRequest(messageData);
+        return sendReceiptsRequest(
+            messageData, Iterables.size(GetReceiptsMessage.readFrom(messageData).hashes()));
+      case EthPV63.GET_NODE_DATA:
+        return sendNodeDataRequest(
+            messageData, Iterables.size(GetNodeDataMessage.readFrom(messageData).hashes()));
       default:
         connection.sendForProtocol(protocolName, messageData);
         return null;
@@ -131,7 +212,7 @@ public class EthPeer {
       throws PeerNotConnected {
     final GetBlockHeadersMessage message =
         GetBlockHeadersMessage.create(hash, maxHeaders, skip, reverse);
-    return sendHeadersRequest(message);
+    return sendHeadersRequest(message, maxHeaders);
   }
 
   public ResponseStream getHeadersByNumber(
@@ -139,33 +220,46 @@ public class EthPeer {
       throws PeerNotConnected {
     final GetBlockHeadersMessage message =
         GetBlockHeadersMessage.create(blockNumber, maxHeaders, skip, reverse);
-    return sendHeadersRequest(message);
+    return sendHeadersRequest(message, maxHeaders);
   }
 
-  private ResponseStream sendHeadersRequest(final MessageData messageData) throws PeerNotConnected {
+  private ResponseStream sendHeadersRequest(final MessageData messageData, final int requestSize)
+      throws PeerNotConnected {
     return headersRequestManager.dispatchRequest(
-        () -> connection.sendForProtocol(protocolName, messageData));
+        requestSize, () -> connection.sendForProtocol(protocolName, messageData));
   }
 
   public ResponseStream getBodies(final List<Hash> blockHashes) throws PeerNotConnected {
     final GetBlockBodiesMessage message = GetBlockBodiesMessage.create(blockHashes);
-    return sendBodiesRequest(message);
+    return sendBodiesRequest(message, blockHashes.size());
   }
 
-  private ResponseStream sendBodiesRequest(final MessageData messageData) throws PeerNotConnected {
+  private ResponseStream sendBodiesRequest(final MessageData messageData, final int requestSize)
+      throws PeerNotConnected {
     return bodiesRequestManager.dispatchRequest(
-        () -> connection.sendForProtocol(protocolName, messageData));
+        requestSize, () -> connection.sendForProtocol(protocolName, messageData));
   }
 
   public ResponseStream getReceipts(final List<Hash> blockHashes) throws PeerNotConnected {
     final GetReceiptsMessage message = GetReceiptsMessage.create(blockHashes);
-    return sendReceiptsRequest(message);
+    return sendReceiptsRequest(message, blockHashes.size());
   }
 
-  private ResponseStream sendReceiptsRequest(final MessageData messageData)
+  private ResponseStream sendReceiptsRequest(final MessageData messageData, final int requestSize)
       throws PeerNotConnected {
     return receiptsRequestManager.dispatchRequest(
-        () -> connection.sendForProtocol(protocolName, messageData));
+        requestSize, () -> connection.sendForProtocol(protocolName, messageData));
+  }
+
+  public ResponseStream getNodeData(final Iterable<Hash> nodeHashes) throws PeerNotConnected {
+    final GetNodeDataMessage message = GetNodeDataMessage.create(nodeHashes);
+    return sendNodeDataRequest(message, Iterables.size(nodeHashes));
+  }
+
+  private ResponseStream sendNodeDataRequest(final MessageData messageData, final int requestSize)
+      throws PeerNotConnected {
+    return nodeDataRequestManager.dispatchRequest(
+        requestSize, () -> connection.sendForProtocol(protocolName, messageData));
   }
 
   boolean validateReceivedMessage(final EthMessage message) {
@@ -189,6 +283,12 @@ public class EthPeer {
           return false;
         }
         break;
+      case EthPV63.NODE_DATA:
+        if (nodeDataRequestManager.outstandingRequests() == 0) {
+          LOG.warn("Unsolicited node data received.");
+          return false;
+        }
+        break;
       default:
         // Nothing to do
     }
@@ -206,14 +306,22 @@ public class EthPeer {
       case EthPV62.BLOCK_HEADERS:
         reputation.resetTimeoutCount(EthPV62.GET_BLOCK_HEADERS);
         headersRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       case EthPV62.BLOCK_BODIES:
         reputation.resetTimeoutCount(EthPV62.GET_BLOCK_BODIES);
         bodiesRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       case EthPV63.RECEIPTS:
         reputation.resetTimeoutCount(EthPV63.GET_RECEIPTS);
         receiptsRequestManager.dispatchResponse(message);
+        recordResponse();
+        break;
+      case EthPV63.NODE_DATA:
+        reputation.resetTimeoutCount(EthPV63.GET_NODE_DATA);
+        nodeDataRequestManager.dispatchResponse(message);
+        recordResponse();
         break;
       default:
         // Nothing to do
@@ -228,6 +336,7 @@ public class EthPeer {
     headersRequestManager.close();
     bodiesRequestManager.close();
     receiptsRequestManager.close();
+    nodeDataRequestManager.close();
     disconnectCallbacks.forEach(callback -> callback.onDisconnect(this));
   }
 
@@ -294,7 +403,28 @@ public class EthPeer {
   public int outstandingRequests() {
     return headersRequestManager.outstandingRequests()
         + bodiesRequestManager.outstandingRequests()
-        + receiptsRequestManager.outstandingRequests();
+        + receiptsRequestManager.outstandingRequests()
+        + nodeDataRequestManager.outstandingRequests();
+  }
+
+  public synchronized int requestCapacity() {
+    return requestCapacity;
+  }
+
+  public boolean hasAvailableRequestCapacity() {
+    return outstandingRequests() < requestCapacity();
+  }
+
+  /**
+   * Returns the average rate at which this peer delivered responses, summed over the request types.
+   *
+   * @return the average throughput in bytes per second, or 0 if the peer has not responded yet
+   */
+  public double averageBytesPerSecond() {
+    return headersRequestManager.averageBytesPerSecond()
+        + bodiesRequestManager.averageBytesPerSecond()
+        + receiptsRequestManager.averageBytesPerSecond()
+        + nodeDataRequestManager.averageBytesPerSecond();
   }
 
   public BytesValue nodeId() {
@@ -306,6 +436,11 @@ public class EthPeer {
     return nodeId().toString().substring(0, 20) + "...";
   }
 
+  @FunctionalInterface
+  interface ResponseMetrics {
+    void record(String requestType, int bytes, long latencyMillis);
+  }
+
   @FunctionalInterface
   public interface DisconnectCallback {
     void onDisconnect(EthPeer peer);
@@ -14,6 +14,10 @@ package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer.DisconnectCallback;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.util.Subscribers;
 
 import java.util.Collections;
@@ -25,7 +29,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 public class EthPeers {
+  private static final Logger LOG = LogManager.getLogger();
+
   public static final Comparator<EthPeer> TOTAL_DIFFICULTY =
       Comparator.comparing(
           ((final EthPeer p) -> p.chainState().getBestBlock().getTotalDifficulty()));
@@ -38,29 +47,64 @@ public class EthPeers {
   public static final Comparator<EthPeer> LEAST_TO_MOST_BUSY =
       Comparator.comparing(EthPeer::outstandingRequests);
 
-  private final int maxOutstandingRequests = 5;
+  /**
+   * Orders peers from the slowest to the fastest to deliver responses. Peers that haven't responded
+   * yet come last, so that they get measured.
+   */
+  public static final Comparator<EthPeer> THROUGHPUT =
+      Comparator.comparing(
+          (final EthPeer p) ->
+              p.averageBytesPerSecond() == 0 ? Double.MAX_VALUE : p.averageBytesPerSecond());
+
   private final Map<PeerConnection, EthPeer> connections = new ConcurrentHashMap<>();
   private final String protocolName;
   private final Subscribers<ConnectCallback> connectCallbacks = new Subscribers<>();
   private final Subscribers<DisconnectCallback> disconnectCallbacks = new Subscribers<>();
+  private final LabelledMetric<Counter> responseBytes;
+  private final LabelledMetric<Counter> responseMillis;
 
-  public EthPeers(final String protocolName) {
+  public EthPeers(final String protocolName, final MetricsSystem metricsSystem) {
     this.protocolName = protocolName;
+    // The bytes received in responses and the time spent waiting for them, per request type, from
+    // which the effective bandwidth of the peers can be derived.
+    responseBytes =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.PEERS,
+            "response_bytes_total",
+            "Total size of the responses received from peers",
+            "request");
+    responseMillis =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.PEERS,
+            "response_milliseconds_total",
+            "Total time spent waiting for the responses of peers",
+            "request");
   }
 
   void registerConnection(final PeerConnection peerConnection) {
-    final EthPeer peer = new EthPeer(peerConnection, protocolName, this::invokeConnectionCallbacks);
+    final EthPeer peer =
+        new EthPeer(
+            peerConnection, protocolName, this::invokeConnectionCallbacks, this::recordResponse);
     connections.putIfAbsent(peerConnection, peer);
   }
 
   void registerDisconnect(final PeerConnection connection) {
     final EthPeer peer = connections.remove(connection);
     if (peer != null) {
+      LOG.debug(
+          "Disconnected from peer {}, which delivered {} bytes per second on average",
+          peer,
+          Math.round(peer.averageBytesPerSecond()));
       disconnectCallbacks.forEach(callback -> callback.onDisconnect(peer));
       peer.handleDisconnect();
     }
   }
 
+  private void recordResponse(final String requestType, final int bytes, final long latencyMillis) {
+    responseBytes.labels(requestType).inc(bytes);
+    responseMillis.labels(requestType).inc(latencyMillis);
+  }
+
   EthPeer peer(final PeerConnection peerConnection) {
     return connections.get(peerConnection);
   }
@@ -94,20 +138,20 @@ public class EthPeers {
   }
 
   public Optional<EthPeer> idlePeer() {
-    return idlePeers().min(LEAST_TO_MOST_BUSY);
+    return idlePeers().max(THROUGHPUT);
   }
 
   private Stream<EthPeer> idlePeers() {
     final List<EthPeer> peers =
-        availablePeers()
-            .filter(p -> p.outstandingRequests() < maxOutstandingRequests)
-            .collect(Collectors.toList());
+        availablePeers().filter(EthPeer::hasAvailableRequestCapacity).collect(Collectors.toList());
     Collections.shuffle(peers);
     return peers.stream();
   }
 
   public Optional<EthPeer> idlePeer(final long withBlocksUpTo) {
-    return idlePeers().filter(p -> p.chainState().getEstimatedHeight() >= withBlocksUpTo).findAny();
+    return idlePeers()
+        .filter(p -> p.chainState().getEstimatedHeight() >= withBlocksUpTo)
+        .max(THROUGHPUT);
   }
 
   @FunctionalInterface
@@ -13,10 +13,9 @@
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
-import tech.pegasys.pantheon.ethereum.core.BlockBody;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
-import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
@@ -34,10 +33,11 @@ import tech.pegasys.pantheon.ethereum.rlp.RLPException;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
@@ -46,14 +46,45 @@ import org.apache.logging.log4j.Logger;
 class EthServer {
   private static final Logger LOG = LogManager.getLogger();
 
+  /**
+   * The encoded size after which no more items are added to a response. The item that crosses the
+   * limit is still sent, so it's a soft limit.
+   */
+  static final int DEFAULT_MAX_RESPONSE_BYTES = 2 * 1024 * 1024;
+
+  // Limits how much is read from storage beyond what fits in the response.
+  private static final int READ_BATCH_SIZE = 16;
+  private static final long RECENT_HEADERS_CACHE_BYTES = 1024 * 1024;
+  private static final long RECENT_BODIES_CACHE_BYTES = 8 * 1024 * 1024;
+  private static final RecentBlocksCache NO_CACHE = new RecentBlocksCache(0, 0);
+
   private final Blockchain blockchain;
+  private final WorldStateArchive worldStateArchive;
   private final EthMessages ethMessages;
   private final int requestLimit;
+  private final int maxResponseBytes;
+  private final RecentBlocksCache recentBlocks =
+      new RecentBlocksCache(RECENT_HEADERS_CACHE_BYTES, RECENT_BODIES_CACHE_BYTES);
+
+  EthServer(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final EthMessages ethMessages,
+      final int requestLimit) {
+    this(blockchain, worldStateArchive, ethMessages, requestLimit, DEFAULT_MAX_RESPONSE_BYTES);
+  }
 
-  EthServer(final Blockchain blockchain, final EthMessages ethMessages, final int requestLimit) {
+  EthServer(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final EthMessages ethMessages,
+      final int requestLimit,
+      final int maxResponseBytes) {
     this.blockchain = blockchain;
+    this.worldStateArchive = worldStateArchive;
     this.ethMessages = ethMessages;
     this.requestLimit = requestLimit;
+    this.maxResponseBytes = maxResponseBytes;
     this.setupListeners();
   }
 
@@ -68,7 +99,8 @@ class EthServer {
     LOG.trace("Responding to GET_BLOCK_HEADERS request");
     try {
       final MessageData response =
-          constructGetHeadersResponse(blockchain, message.getData(), requestLimit);
+          constructGetHeadersResponse(
+              blockchain, recentBlocks, message.getData(), requestLimit, maxResponseBytes);
       message.getPeer().send(response);
     } catch (final RLPException e) {
       message.getPeer().disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
@@ -81,7 +113,8 @@ class EthServer {
     LOG.trace("Responding to GET_BLOCK_BODIES request");
     try {
       final MessageData response =
-          constructGetBodiesResponse(blockchain, message.getData(), requestLimit);
+          constructGetBodiesResponse(
+              blockchain, recentBlocks, message.getData(), requestLimit, maxResponseBytes);
       message.getPeer().send(response);
     } catch (final RLPException e) {
       message.getPeer().disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
@@ -94,7 +127,8 @@ class EthServer {
     LOG.trace("Responding to GET_RECEIPTS request");
     try {
       final MessageData response =
-          constructGetReceiptsResponse(blockchain, message.getData(), requestLimit);
+          constructGetReceiptsResponse(
+              blockchain, message.getData(), requestLimit, maxResponseBytes);
       message.getPeer().send(response);
     } catch (final RLPException e) {
       message.getPeer().disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
@@ -106,7 +140,9 @@ class EthServer {
   private void handleGetNodeData(final EthMessage message) {
     LOG.trace("Responding to GET_NODE_DATA request");
     try {
-      final MessageData response = constructGetNodeDataResponse(message.getData(), requestLimit);
+      final MessageData response =
+          constructGetNodeDataResponse(
+              worldStateArchive, message.getData(), requestLimit, maxResponseBytes);
       message.getPeer().send(response);
     } catch (final RLPException e) {
       message.getPeer().disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
@@ -117,97 +153,161 @@ class EthServer {
 
   static MessageData constructGetHeadersResponse(
       final Blockchain blockchain, final MessageData message, final int requestLimit) {
+    return constructGetHeadersResponse(
+        blockchain, NO_CACHE, message, requestLimit, DEFAULT_MAX_RESPONSE_BYTES);
+  }
+
+  static MessageData constructGetHeadersResponse(
+      final Blockchain blockchain,
+      final RecentBlocksCache recentBlocks,
+      final MessageData message,
+      final int requestLimit,
+      final int maxResponseBytes) {
     final GetBlockHeadersMessage getHeaders = GetBlockHeadersMessage.readFrom(message);
     final Optional<Hash> hash = getHeaders.hash();
     final int skip = getHeaders.skip();
     final int maxHeaders = Math.min(requestLimit, getHeaders.maxHeaders());
     final boolean reversed = getHeaders.reverse();
-    final BlockHeader firstHeader;
+    final Optional<Hash> firstHash;
+    final Optional<Long> firstNumber;
     if (hash.isPresent()) {
-      final Hash startHash = hash.get();
-      firstHeader = blockchain.getBlockHeader(startHash).orElse(null);
+      firstHash = hash;
+      firstNumber = blockchain.getBlockHeader(hash.get()).map(BlockHeader::getNumber);
     } else {
-      final long firstNumber = getHeaders.blockNumber().getAsLong();
-      firstHeader = blockchain.getBlockHeader(firstNumber).orElse(null);
+      firstNumber = Optional.of(getHeaders.blockNumber().getAsLong());
+      firstHash = blockchain.getBlockHashByNumber(firstNumber.get());
     }
-    final Collection<BlockHeader> resp;
-    if (firstHeader == null) {
-      resp = Collections.emptyList();
-    } else {
-      resp = Lists.newArrayList(firstHeader);
-      final long numberDelta = reversed ? -(skip + 1) : (skip + 1);
-      for (int i = 1; i < maxHeaders; i++) {
-        final long blockNumber = firstHeader.getNumber() + i * numberDelta;
-        if (blockNumber < BlockHeader.GENESIS_BLOCK_NUMBER) {
-          break;
-        }
-        final Optional<BlockHeader> maybeHeader = blockchain.getBlockHeader(blockNumber);
-        if (maybeHeader.isPresent()) {
-          resp.add(maybeHeader.get());
-        } else {
-          break;
-        }
+    if (!firstHash.isPresent() || !firstNumber.isPresent()) {
+      return BlockHeadersMessage.create(Collections.emptyList());
+    }
+
+    // Only the hashes are looked up here; the headers themselves are sent as stored.
+    final List<Hash> hashes = Lists.newArrayList(firstHash.get());
+    final long numberDelta = reversed ? -(skip + 1) : (skip + 1);
+    for (int i = 1; i < maxHeaders; i++) {
+      final long blockNumber = firstNumber.get() + i * numberDelta;
+      if (blockNumber < BlockHeader.GENESIS_BLOCK_NUMBER) {
+        break;
+      }
+      final Optional<Hash> maybeHash = blockchain.getBlockHashByNumber(blockNumber);
+      if (maybeHash.isPresent()) {
+        hashes.add(maybeHash.get());
+      } else {
+        break;
       }
     }
-    return BlockHeadersMessage.create(resp);
+    return BlockHeadersMessage.createFromRlp(
+        readWithinBudget(
+            hashes,
+            batch -> recentBlocks.getBlockHeadersRlp(blockchain, batch),
+            maxResponseBytes,
+            true));
   }
 
   static MessageData constructGetBodiesResponse(
       final Blockchain blockchain, final MessageData message, final int requestLimit) {
-    final GetBlockBodiesMessage getBlockBodiesMessage = GetBlockBodiesMessage.readFrom(message);
-    final Iterable<Hash> hashes = getBlockBodiesMessage.hashes();
+    return constructGetBodiesResponse(
+        blockchain, NO_CACHE, message, requestLimit, DEFAULT_MAX_RESPONSE_BYTES);
+  }
 
-    final Collection<BlockBody> bodies = new ArrayList<>();
-    int count = 0;
-    for (final Hash hash : hashes) {
-      if (count >= requestLimit) {
-        break;
-      }
-      count++;
-      final Optional<BlockBody> maybeBody = blockchain.getBlockBody(hash);
-      if (!maybeBody.isPresent()) {
-        continue;
-      }
-      bodies.add(maybeBody.get());
-    }
-    return BlockBodiesMessage.create(bodies);
+  static MessageData constructGetBodiesResponse(
+      final Blockchain blockchain,
+      final RecentBlocksCache recentBlocks,
+      final MessageData message,
+      final int requestLimit,
+      final int maxResponseBytes) {
+    final GetBlockBodiesMessage getBlockBodiesMessage = GetBlockBodiesMessage.readFrom(message);
+    final List<Hash> hashes = requestedHashes(getBlockBodiesMessage.hashes(), requestLimit);
+    return BlockBodiesMessage.createFromRlp(
+        readWithinBudget(
+            hashes,
+            batch -> recentBlocks.getBlockBodiesRlp(blockchain, batch),
+            maxResponseBytes,
+            false));
   }
 
   static MessageData constructGetReceiptsResponse(
       final Blockchain blockchain, final MessageData message, final int requestLimit) {
+    return constructGetReceiptsResponse(
+        blockchain, message, requestLimit, DEFAULT_MAX_RESPONSE_BYTES);
+  }
+
+  static MessageData constructGetReceiptsResponse(
+      final Blockchain blockchain,
+      final MessageData message,
+      final int requestLimit,
+      final int maxResponseBytes) {
     final GetReceiptsMessage getReceipts = GetReceiptsMessage.readFrom(message);
-    final Iterable<Hash> hashes = getReceipts.hashes();
+    final List<Hash> hashes = requestedHashes(getReceipts.hashes(), requestLimit);
+    return ReceiptsMessage.createFromRlp(
+        readWithinBudget(hashes, blockchain::getTxReceiptsRlp, maxResponseBytes, false));
+  }
 
-    final List<List<TransactionReceipt>> receipts = new ArrayList<>();
-    int count = 0;
-    for (final Hash hash : hashes) {
-      if (count >= requestLimit) {
-        break;
-      }
-      count++;
-      final Optional<List<TransactionReceipt>> maybeReceipts = blockchain.getTxReceipts(hash);
-      if (!maybeReceipts.isPresent()) {
-        continue;
-      }
-      receipts.add(maybeReceipts.get());
-    }
-    return ReceiptsMessage.create(receipts);
+  static MessageData constructGetNodeDataResponse(
+      final WorldStateArchive worldStateArchive,
+      final MessageData message,
+      final int requestLimit) {
+    return constructGetNodeDataResponse(
+        worldStateArchive, message, requestLimit, DEFAULT_MAX_RESPONSE_BYTES);
   }
 
   static MessageData constructGetNodeDataResponse(
-      final MessageData message, final int requestLimit) {
+      final WorldStateArchive worldStateArchive,
+      final MessageData message,
+      final int requestLimit,
+      final int maxResponseBytes) {
     final GetNodeDataMessage getNodeDataMessage = GetNodeDataMessage.readFrom(message);
-    final Iterable<Hash> hashes = getNodeDataMessage.hashes();
+    final List<Hash> hashes = requestedHashes(getNodeDataMessage.hashes(), requestLimit);
+    // Nodes we don't have are left out, the requester matches the response to its hashes.
+    return NodeDataMessage.create(
+        readWithinBudget(
+            hashes,
+            batch ->
+                batch.stream().map(worldStateArchive::getNodeData).collect(Collectors.toList()),
+            maxResponseBytes,
+            false));
+  }
 
-    final List<BytesValue> nodeData = new ArrayList<>();
-    int count = 0;
+  private static List<Hash> requestedHashes(final Iterable<Hash> hashes, final int requestLimit) {
+    final List<Hash> requested = new ArrayList<>();
     for (final Hash hash : hashes) {
-      if (count >= requestLimit) {
+      if (requested.size() >= requestLimit) {
         break;
       }
-      count++;
-      // TODO: Lookup node data and add it to the list
+      requested.add(hash);
+    }
+    return requested;
+  }
+
+  /**
+   * Reads the encoded items for the given hashes in batches, until the response is full.
+   *
+   * @param hashes the hashes of the requested items
+   * @param reader reads the encoded items for a batch of hashes
+   * @param maxResponseBytes the encoded size after which no more items are added
+   * @param contiguous whether to stop at the first missing item rather than skip it
+   * @return the encoded items, in the order they were requested
+   */
+  private static List<BytesValue> readWithinBudget(
+      final List<Hash> hashes,
+      final Function<List<Hash>, List<Optional<BytesValue>>> reader,
+      final int maxResponseBytes,
+      final boolean contiguous) {
+    final List<BytesValue> encoded = new ArrayList<>();
+    int responseBytes = 0;
+    for (final List<Hash> batch : Lists.partition(hashes, READ_BATCH_SIZE)) {
+      for (final Optional<BytesValue> item : reader.apply(batch)) {
+        if (responseBytes >= maxResponseBytes) {
+          return encoded;
+        }
+        if (item.isPresent()) {
+          encoded.add(item.get());
+          responseBytes += item.get().size();
+        } else if (contiguous) {
+          return encoded;
+        }
+      }
     }
-    return NodeDataMessage.create(nodeData);
+    return encoded;
   }
 }
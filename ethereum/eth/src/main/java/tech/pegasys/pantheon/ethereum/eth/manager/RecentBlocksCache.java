@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.manager;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the RLP of the block headers and bodies most recently served to peers, keyed by block hash.
+ *
+ * <p>When a new block is propagated, most peers request its header and body within a short time of
+ * each other, so serving them from memory means the block is only read from storage once. Each
+ * cache is bounded by the total size of the encodings it holds.
+ */
+class RecentBlocksCache {
+
+  private final Cache<Hash, BytesValue> headers;
+  private final Cache<Hash, BytesValue> bodies;
+
+  RecentBlocksCache(final long maximumHeaderBytes, final long maximumBodyBytes) {
+    headers = createCache(maximumHeaderBytes);
+    bodies = createCache(maximumBodyBytes);
+  }
+
+  private static Cache<Hash, BytesValue> createCache(final long maximumBytes) {
+    return CacheBuilder.newBuilder()
+        .maximumWeight(maximumBytes)
+        .<Hash, BytesValue>weigher((hash, encoded) -> encoded.size())
+        .build();
+  }
+
+  List<Optional<BytesValue>> getBlockHeadersRlp(
+      final Blockchain blockchain, final List<Hash> blockHashes) {
+    return get(headers, blockHashes, blockchain::getBlockHeadersRlp);
+  }
+
+  List<Optional<BytesValue>> getBlockBodiesRlp(
+      final Blockchain blockchain, final List<Hash> blockHashes) {
+    return get(bodies, blockHashes, blockchain::getBlockBodiesRlp);
+  }
+
+  private static List<Optional<BytesValue>> get(
+      final Cache<Hash, BytesValue> cache,
+      final List<Hash> blockHashes,
+      final Function<List<Hash>, List<Optional<BytesValue>>> storageReader) {
+    final List<Optional<BytesValue>> values = new ArrayList<>(blockHashes.size());
+    final List<Hash> uncachedHashes = new ArrayList<>();
+    final List<Integer> uncachedIndices = new ArrayList<>();
+    for (final Hash blockHash : blockHashes) {
+      final Optional<BytesValue> cached = Optional.ofNullable(cache.getIfPresent(blockHash));
+      if (!cached.isPresent()) {
+        uncachedHashes.add(blockHash);
+        uncachedIndices.add(values.size());
+      }
+      values.add(cached);
+    }
+    if (uncachedHashes.isEmpty()) {
+      return values;
+    }
+
+    // Read everything that wasn't cached in a single call.
+    final List<Optional<BytesValue>> stored = storageReader.apply(uncachedHashes);
+    for (int i = 0; i < uncachedHashes.size(); i++) {
+      final Optional<BytesValue> value = stored.get(i);
+      if (value.isPresent()) {
+        cache.put(uncachedHashes.get(i), value.get());
+        values.set(uncachedIndices.get(i), value);
+      }
+    }
+    return values;
+  }
+}
@@ -18,35 +18,121 @@ import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+/**
+ * Tracks the requests of one type sent to a peer and routes the responses to them.
+ *
+ * <p>The latency and throughput of the peer's responses are measured as exponentially weighted
+ * moving averages. The number of items requested at once is limited per peer, additively increasing
+ * the limit with every response and halving it on every timeout, so that slow peers are asked for
+ * less data until they respond in time again.
+ */
 public class RequestManager {
+  static final int UNLIMITED_REQUEST_SIZE = Integer.MAX_VALUE;
+  static final int REQUEST_SIZE_INCREASE = 8;
+
+  private static final double AVERAGE_WEIGHT = 0.25;
+
   private final AtomicLong responseStreamId = new AtomicLong(0L);
   private final Map<Long, ResponseStream> responseStreams = new ConcurrentHashMap<>();
   private final EthPeer peer;
+  private final ResponseRecorder responseRecorder;
+  private final LongSupplier nanoClock;
 
   private final AtomicInteger outstandingRequests = new AtomicInteger(0);
+  private final Queue<PendingRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+
+  private int requestSizeLimit = UNLIMITED_REQUEST_SIZE;
+  private int largestNeededSize;
+  private double averageLatencyMillis;
+  private double averageBytesPerSecond;
 
   public RequestManager(final EthPeer peer) {
+    this(peer, (bytes, latencyMillis) -> {}, System::nanoTime);
+  }
+
+  RequestManager(
+      final EthPeer peer, final ResponseRecorder responseRecorder, final LongSupplier nanoClock) {
     this.peer = peer;
+    this.responseRecorder = responseRecorder;
+    this.nanoClock = nanoClock;
   }
 
   public int outstandingRequests() {
     return outstandingRequests.get();
   }
 
+  /**
+   * Returns the number of items to request from this peer when {@code requestedSize} items are
+   * needed.
+   *
+   * @param requestedSize the number of items needed
+   * @return the number of items to request, between 1 and {@code requestedSize}
+   */
+  public synchronized int requestSize(final int requestedSize) {
+    largestNeededSize = Math.max(largestNeededSize, requestedSize);
+    return Math.max(1, Math.min(requestedSize, requestSizeLimit));
+  }
+
+  /** @return the average time the peer took to respond, in milliseconds, or 0 if unknown */
+  public synchronized double averageLatencyMillis() {
+    return averageLatencyMillis;
+  }
+
+  /** @return the average rate at which the peer delivered responses, or 0 if unknown */
+  public synchronized double averageBytesPerSecond() {
+    return averageBytesPerSecond;
+  }
+
   public ResponseStream dispatchRequest(final RequestSender sender) throws PeerNotConnected {
+    return dispatchRequest(0, sender);
+  }
+
+  /**
+   * Sends a request for the given number of items.
+   *
+   * @param requestSize the number of items requested, or 0 if unknown
+   * @param sender sends the request to the peer
+   * @return the stream the responses to the request are delivered to
+   * @throws PeerNotConnected if the peer is no longer connected
+   */
+  public ResponseStream dispatchRequest(final int requestSize, final RequestSender sender)
+      throws PeerNotConnected {
     outstandingRequests.incrementAndGet();
+    pendingRequests.add(new PendingRequest(nanoClock.getAsLong(), requestSize));
     final ResponseStream stream = createStream();
     sender.send();
     return stream;
   }
 
+  /**
+   * Records that the peer did not respond in time to the oldest outstanding request, limiting the
+   * number of items requested from it to half of what that request asked for.
+   */
+  public void recordTimeout() {
+    final long now = nanoClock.getAsLong();
+    synchronized (this) {
+      final Optional<PendingRequest> timedOut =
+          pendingRequests.stream().filter(request -> !request.isExpired()).findFirst();
+      timedOut.ifPresent(request -> request.expire(now));
+      if (timedOut.isPresent() && timedOut.get().size > 0) {
+        requestSizeLimit = Math.max(1, Math.min(requestSizeLimit, timedOut.get().size) / 2);
+      } else if (requestSizeLimit != UNLIMITED_REQUEST_SIZE) {
+        requestSizeLimit = Math.max(1, requestSizeLimit / 2);
+      }
+      averageBytesPerSecond /= 2;
+    }
+  }
+
   public void dispatchResponse(final EthMessage message) {
+    recordResponse(message.getData().getSize());
     final Collection<ResponseStream> streams = new ArrayList<>(responseStreams.values());
     final int count = outstandingRequests.decrementAndGet();
 
@@ -61,6 +147,48 @@ public class RequestManager {
     closeOutstandingStreams(responseStreams.values());
   }
 
+  private void recordResponse(final int bytes) {
+    final long now = nanoClock.getAsLong();
+    final PendingRequest request = answeredRequest(now);
+    if (request == null || request.isExpired()) {
+      // A late answer to a request that timed out says nothing about the peer's current speed.
+      return;
+    }
+    final long latencyNanos = Math.max(1, now - request.time);
+    final double latencyMillis = latencyNanos / 1_000_000d;
+    final double bytesPerSecond = bytes * 1_000_000_000d / latencyNanos;
+    synchronized (this) {
+      if (averageLatencyMillis == 0) {
+        averageLatencyMillis = latencyMillis;
+        averageBytesPerSecond = bytesPerSecond;
+      } else {
+        averageLatencyMillis += AVERAGE_WEIGHT * (latencyMillis - averageLatencyMillis);
+        averageBytesPerSecond += AVERAGE_WEIGHT * (bytesPerSecond - averageBytesPerSecond);
+      }
+      if (requestSizeLimit != UNLIMITED_REQUEST_SIZE) {
+        requestSizeLimit += REQUEST_SIZE_INCREASE;
+        if (requestSizeLimit >= largestNeededSize) {
+          // The peer copes with the full requests again.
+          requestSizeLimit = UNLIMITED_REQUEST_SIZE;
+        }
+      }
+    }
+    responseRecorder.record(bytes, latencyNanos / 1_000_000);
+  }
+
+  /**
+   * Returns the request a response received now answers. Responses arrive in the order the requests
+   * were sent, but a request that timed out may never be answered. It is kept for as long again as
+   * it was waited for, so that a late answer to it is not taken for the answer to a later request.
+   */
+  private synchronized PendingRequest answeredRequest(final long now) {
+    PendingRequest request = pendingRequests.poll();
+    while (request != null && request.isExpired() && now >= request.lateResponseDeadline()) {
+      request = pendingRequests.poll();
+    }
+    return request;
+  }
+
   private ResponseStream createStream() {
     final long listenerId = nextStreamId();
     final ResponseStream stream = new ResponseStream(peer, () -> deregisterStream(listenerId));
@@ -81,6 +209,11 @@ public class RequestManager {
     return responseStreamId.incrementAndGet();
   }
 
+  @FunctionalInterface
+  public interface ResponseRecorder {
+    void record(int bytes, long latencyMillis);
+  }
+
   @FunctionalInterface
   public interface RequestSender {
     void send() throws PeerNotConnected;
@@ -105,6 +238,30 @@ public class RequestManager {
     void exec();
   }
 
+  private static class PendingRequest {
+    final long time;
+    final int size;
+    // When the request timed out, or -1 while it is still awaiting its response.
+    private long expiredTime = -1;
+
+    private PendingRequest(final long time, final int size) {
+      this.time = time;
+      this.size = size;
+    }
+
+    boolean isExpired() {
+      return expiredTime >= 0;
+    }
+
+    void expire(final long time) {
+      expiredTime = time;
+    }
+
+    long lateResponseDeadline() {
+      return expiredTime + (expiredTime - time);
+    }
+  }
+
   private static class Response {
     final boolean closed;
     final MessageData message;
@@ -44,6 +44,21 @@ public final class BlockBodiesMessage extends AbstractMessageData {
     return new BlockBodiesMessage(tmp.encoded());
   }
 
+  /**
+   * Creates a message from bodies that are already RLP encoded, such as when read from storage. The
+   * encodings are trusted and copied to the message as they are.
+   *
+   * @param encodedBodies the RLP encoding of each body
+   * @return the message
+   */
+  public static BlockBodiesMessage createFromRlp(final Iterable<BytesValue> encodedBodies) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedBodies.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new BlockBodiesMessage(tmp.encoded());
+  }
+
   private BlockBodiesMessage(final BytesValue data) {
     super(data);
   }
@@ -48,6 +48,21 @@ public final class BlockHeadersMessage extends AbstractMessageData {
     return new BlockHeadersMessage(tmp.encoded());
   }
 
+  /**
+   * Creates a message from headers that are already RLP encoded, such as when read from storage.
+   * The encodings are trusted and copied to the message as they are.
+   *
+   * @param encodedHeaders the RLP encoding of each header
+   * @return the message
+   */
+  public static BlockHeadersMessage createFromRlp(final Iterable<BytesValue> encodedHeaders) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedHeaders.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new BlockHeadersMessage(tmp.encoded());
+  }
+
   private BlockHeadersMessage(final BytesValue data) {
     super(data);
   }
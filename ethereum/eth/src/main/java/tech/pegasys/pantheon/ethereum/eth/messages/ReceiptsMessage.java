@@ -50,6 +50,21 @@ public final class ReceiptsMessage extends AbstractMessageData {
     return new ReceiptsMessage(tmp.encoded());
   }
 
+  /**
+   * Creates a message from lists of receipts that are already RLP encoded, such as when read from
+   * storage. The encodings are trusted and copied to the message as they are.
+   *
+   * @param encodedReceipts the RLP encoding of the list of receipts of each block
+   * @return the message
+   */
+  public static ReceiptsMessage createFromRlp(final Iterable<BytesValue> encodedReceipts) {
+    final BytesValueRLPOutput tmp = new BytesValueRLPOutput();
+    tmp.startList();
+    encodedReceipts.forEach(tmp::writeRLPUnsafe);
+    tmp.endList();
+    return new ReceiptsMessage(tmp.encoded());
+  }
+
   private ReceiptsMessage(final BytesValue data) {
     super(data);
   }
@@ -18,6 +18,7 @@ import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent.EventType;
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.core.Block;
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthMessage;
@@ -36,6 +37,7 @@ import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.Discon
 import tech.pegasys.pantheon.ethereum.rlp.RLPException;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.ArrayList;
@@ -167,7 +169,7 @@ public class BlockPropagationManager<C> {
         return;
       }
 
-      importOrSavePendingBlock(block);
+      importOrSavePendingBlock(block, message.getPeer().nodeId());
     } catch (final RLPException e) {
       message.getPeer().disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
     }
@@ -231,18 +233,21 @@ public class BlockPropagationManager<C> {
         GetBlockFromPeerTask.create(protocolSchedule, ethContext, newBlock.hash(), ethTasksTimer)
             .assignPeer(peer);
 
-    return getBlockTask.run().thenCompose((r) -> importOrSavePendingBlock(r.getResult()));
+    return getBlockTask
+        .run()
+        .thenCompose((r) -> importOrSavePendingBlock(r.getResult(), peer.nodeId()));
   }
 
   @VisibleForTesting
-  CompletableFuture<Block> importOrSavePendingBlock(final Block block) {
+  CompletableFuture<Block> importOrSavePendingBlock(
+      final Block block, final BytesValue sourceNodeId) {
     // Synchronize to avoid race condition where block import event fires after the
     // blockchain.contains() check and before the block is registered, causing onBlockAdded() to be
     // invoked for the parent of this block before we are able to register it.
     synchronized (pendingBlocks) {
       if (!protocolContext.getBlockchain().contains(block.getHeader().getParentHash())) {
         // Block isn't connected to local chain, save it to pending blocks collection
-        if (pendingBlocks.registerPendingBlock(block)) {
+        if (pendingBlocks.registerPendingBlock(block, sourceNodeId)) {
           LOG.info(
               "Saving announced block {} ({}) for future import",
               block.getHeader().getNumber(),
@@ -269,7 +274,11 @@ public class BlockPropagationManager<C> {
             protocolSchedule, protocolContext, block, HeaderValidationMode.FULL, ethTasksTimer);
     return ethContext
         .getScheduler()
-        .scheduleSyncWorkerTask(importTask::run)
+        .scheduleSyncWorkerTask(
+            () -> {
+              Transaction.recoverSenders(block.getBody().getTransactions());
+              return importTask.run();
+            })
         .whenComplete(
             (r, t) -> {
               importingBlocks.remove(block.getHash());
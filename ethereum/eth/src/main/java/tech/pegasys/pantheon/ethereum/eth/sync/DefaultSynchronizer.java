@@ -16,34 +16,53 @@ import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.core.SyncStatus;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.sync.fastsync.FastSyncStateStorage;
+import tech.pegasys.pantheon.ethereum.eth.sync.fastsync.FastSynchronizer;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.PendingBlocks;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.NodeDataRequestQueue;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.WorldStateDownloader;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class DefaultSynchronizer<C> implements Synchronizer {
 
   private static final Logger LOG = LogManager.getLogger();
+  private static final Duration FAST_SYNC_INITIAL_RETRY_DELAY = Duration.ofSeconds(5);
+  private static final Duration FAST_SYNC_MAX_RETRY_DELAY = Duration.ofMinutes(5);
 
+  private final EthContext ethContext;
   private final SyncState syncState;
   private final AtomicBoolean started = new AtomicBoolean(false);
   private final BlockPropagationManager<C> blockPropagationManager;
   private final Downloader<C> downloader;
+  private final Optional<FastSynchronizer<C>> fastSynchronizer;
 
   public DefaultSynchronizer(
       final SynchronizerConfiguration syncConfig,
       final ProtocolSchedule<C> protocolSchedule,
       final ProtocolContext<C> protocolContext,
+      final WorldStateStorage worldStateStorage,
+      final KeyValueStorage fastSyncStorage,
       final EthContext ethContext,
       final SyncState syncState,
+      final MetricsSystem metricsSystem,
       final LabelledMetric<OperationTimer> ethTasksTimer) {
+    this.ethContext = ethContext;
     this.syncState = syncState;
     this.blockPropagationManager =
         new BlockPropagationManager<>(
@@ -52,30 +71,106 @@ public class DefaultSynchronizer<C> implements Synchronizer {
             protocolContext,
             ethContext,
             syncState,
-            new PendingBlocks(),
+            new PendingBlocks(metricsSystem),
             ethTasksTimer);
     this.downloader =
         new Downloader<>(
-            syncConfig, protocolSchedule, protocolContext, ethContext, syncState, ethTasksTimer);
+            syncConfig,
+            protocolSchedule,
+            protocolContext,
+            ethContext,
+            syncState,
+            ethTasksTimer,
+            new SyncMetrics(metricsSystem));
 
     ChainHeadTracker.trackChainHeadForPeers(
         ethContext, protocolSchedule, protocolContext.getBlockchain(), syncConfig, ethTasksTimer);
-    if (syncConfig.syncMode().equals(SyncMode.FAST)) {
+    final FastSyncStateStorage fastSyncStateStorage =
+        new FastSyncStateStorage(
+            fastSyncStorage, ScheduleBasedBlockHashFunction.create(protocolSchedule));
+    if (fastSyncStateStorage.isFastSyncInProgress()
+        || syncConfig.syncMode().equals(SyncMode.FAST)) {
       LOG.info("Fast sync enabled.");
+      final WorldStateDownloader worldStateDownloader =
+          new WorldStateDownloader(
+              ethContext,
+              worldStateStorage,
+              new NodeDataRequestQueue(fastSyncStorage),
+              syncConfig.worldStateHashCountPerRequest(),
+              syncConfig.worldStateRequestParallelism(),
+              syncConfig.worldStateMaxRequestsWithoutProgress(),
+              ethTasksTimer);
+      this.fastSynchronizer =
+          Optional.of(
+              new FastSynchronizer<>(
+                  syncConfig,
+                  protocolSchedule,
+                  protocolContext,
+                  ethContext,
+                  fastSyncStateStorage,
+                  worldStateDownloader,
+                  ethTasksTimer));
+    } else {
+      this.fastSynchronizer = Optional.empty();
     }
   }
 
+  @VisibleForTesting
+  DefaultSynchronizer(
+      final EthContext ethContext,
+      final SyncState syncState,
+      final BlockPropagationManager<C> blockPropagationManager,
+      final Downloader<C> downloader,
+      final Optional<FastSynchronizer<C>> fastSynchronizer) {
+    this.ethContext = ethContext;
+    this.syncState = syncState;
+    this.blockPropagationManager = blockPropagationManager;
+    this.downloader = downloader;
+    this.fastSynchronizer = fastSynchronizer;
+  }
+
   @Override
   public void start() {
     if (started.compareAndSet(false, true)) {
       LOG.info("Starting synchronizer.");
-      blockPropagationManager.start();
-      downloader.start();
+      if (fastSynchronizer.isPresent()) {
+        startFastSync(fastSynchronizer.get(), FAST_SYNC_INITIAL_RETRY_DELAY);
+      } else {
+        startFullSync();
+      }
     } else {
       throw new IllegalStateException("Attempt to start an already started synchronizer.");
     }
   }
 
+  private void startFastSync(
+      final FastSynchronizer<C> fastSynchronizer, final Duration retryDelay) {
+    fastSynchronizer
+        .start()
+        .whenComplete(
+            (r, t) -> {
+              if (t == null) {
+                startFullSync();
+                return;
+              }
+              LOG.error("Fast sync failed, retrying in {} seconds.", retryDelay.getSeconds(), t);
+              final Duration doubledRetryDelay = retryDelay.multipliedBy(2);
+              final Duration nextRetryDelay =
+                  doubledRetryDelay.compareTo(FAST_SYNC_MAX_RETRY_DELAY) < 0
+                      ? doubledRetryDelay
+                      : FAST_SYNC_MAX_RETRY_DELAY;
+              ethContext
+                  .getScheduler()
+                  .scheduleFutureTask(
+                      () -> startFastSync(fastSynchronizer, nextRetryDelay), retryDelay);
+            });
+  }
+
+  private void startFullSync() {
+    blockPropagationManager.start();
+    downloader.start();
+  }
+
   @Override
   public Optional<SyncStatus> getSyncStatus() {
     if (!started.get()) {
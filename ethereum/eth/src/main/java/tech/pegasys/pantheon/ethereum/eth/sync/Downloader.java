@@ -22,6 +22,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeers;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncTarget;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.DetermineCommonAncestorTask;
@@ -63,6 +64,7 @@ public class Downloader<C> {
   private final EthContext ethContext;
   private final SyncState syncState;
   private final LabelledMetric<OperationTimer> ethTasksTimer;
+  private final SyncMetrics syncMetrics;
 
   private final Deque<BlockHeader> checkpointHeaders = new ConcurrentLinkedDeque<>();
   private int checkpointTimeouts = 0;
@@ -79,8 +81,10 @@ public class Downloader<C> {
       final ProtocolContext<C> protocolContext,
       final EthContext ethContext,
       final SyncState syncState,
-      final LabelledMetric<OperationTimer> ethTasksTimer) {
+      final LabelledMetric<OperationTimer> ethTasksTimer,
+      final SyncMetrics syncMetrics) {
     this.ethTasksTimer = ethTasksTimer;
+    this.syncMetrics = syncMetrics;
     this.config = config;
     this.protocolSchedule = protocolSchedule;
     this.protocolContext = protocolContext;
@@ -353,7 +357,15 @@ public class Downloader<C> {
               checkpointHeaders.getFirst(),
               config.downloaderChainSegmentSize(),
               ethTasksTimer);
-      importedBlocks = importTask.run().thenApply(PeerTaskResult::getResult);
+      importedBlocks =
+          importTask
+              .run()
+              .thenApply(PeerTaskResult::getResult)
+              .thenApply(
+                  blocks -> {
+                    syncMetrics.recordImportedBlocks(blocks);
+                    return blocks;
+                  });
     } else {
       final PipelinedImportChainSegmentTask<C> importTask =
           PipelinedImportChainSegmentTask.forCheckpoints(
@@ -362,6 +374,7 @@ public class Downloader<C> {
               ethContext,
               config.downloaderParallelism(),
               ethTasksTimer,
+              syncMetrics,
               Lists.newArrayList(checkpointHeaders));
       importedBlocks = importTask.run();
     }
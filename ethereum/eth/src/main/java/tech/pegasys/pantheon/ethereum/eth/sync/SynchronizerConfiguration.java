@@ -18,6 +18,7 @@ import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import com.google.common.collect.Range;
@@ -30,10 +31,20 @@ public class SynchronizerConfiguration {
   // TODO: Determine reasonable defaults here
   public static int DEFAULT_PIVOT_DISTANCE_FROM_HEAD = 500;
   public static float DEFAULT_FULL_VALIDATION_RATE = .1f;
+  public static int DEFAULT_FAST_SYNC_MINIMUM_PEERS = 5;
+  public static Duration DEFAULT_FAST_SYNC_MAXIMUM_PEER_WAIT_TIME = Duration.ofSeconds(20);
+  public static int DEFAULT_WORLD_STATE_HASH_COUNT_PER_REQUEST = 384;
+  public static int DEFAULT_WORLD_STATE_REQUEST_PARALLELISM = 10;
+  public static int DEFAULT_WORLD_STATE_MAX_REQUESTS_WITHOUT_PROGRESS = 1000;
 
   // Fast sync config
   private final int fastSyncPivotDistance;
   private final float fastSyncFullValidationRate;
+  private final int fastSyncMinimumPeerCount;
+  private final Duration fastSyncMaximumPeerWaitTime;
+  private final int worldStateHashCountPerRequest;
+  private final int worldStateRequestParallelism;
+  private final int worldStateMaxRequestsWithoutProgress;
 
   // Block propagation config
   private final Range<Long> blockPropagationRange;
@@ -58,6 +69,11 @@ public class SynchronizerConfiguration {
       final SyncMode requestedSyncMode,
       final int fastSyncPivotDistance,
       final float fastSyncFullValidationRate,
+      final int fastSyncMinimumPeerCount,
+      final Duration fastSyncMaximumPeerWaitTime,
+      final int worldStateHashCountPerRequest,
+      final int worldStateRequestParallelism,
+      final int worldStateMaxRequestsWithoutProgress,
       final Range<Long> blockPropagationRange,
       final Optional<SyncMode> syncMode,
       final long downloaderChangeTargetThresholdByHeight,
@@ -73,6 +89,11 @@ public class SynchronizerConfiguration {
     this.requestedSyncMode = requestedSyncMode;
     this.fastSyncPivotDistance = fastSyncPivotDistance;
     this.fastSyncFullValidationRate = fastSyncFullValidationRate;
+    this.fastSyncMinimumPeerCount = fastSyncMinimumPeerCount;
+    this.fastSyncMaximumPeerWaitTime = fastSyncMaximumPeerWaitTime;
+    this.worldStateHashCountPerRequest = worldStateHashCountPerRequest;
+    this.worldStateRequestParallelism = worldStateRequestParallelism;
+    this.worldStateMaxRequestsWithoutProgress = worldStateMaxRequestsWithoutProgress;
     this.blockPropagationRange = blockPropagationRange;
     this.syncMode = syncMode;
     this.downloaderChangeTargetThresholdByHeight = downloaderChangeTargetThresholdByHeight;
@@ -115,6 +136,11 @@ public class SynchronizerConfiguration {
         requestedSyncMode,
         fastSyncPivotDistance,
         fastSyncFullValidationRate,
+        fastSyncMinimumPeerCount,
+        fastSyncMaximumPeerWaitTime,
+        worldStateHashCountPerRequest,
+        worldStateRequestParallelism,
+        worldStateMaxRequestsWithoutProgress,
         blockPropagationRange,
         Optional.of(actualSyncMode),
         downloaderChangeTargetThresholdByHeight,
@@ -222,9 +248,65 @@ public class SynchronizerConfiguration {
     return fastSyncFullValidationRate;
   }
 
+  /**
+   * The number of peers to wait for before choosing the block that fast sync downloads the world
+   * state of.
+   *
+   * @return the number of peers fast sync waits for.
+   */
+  public int fastSyncMinimumPeerCount() {
+    return fastSyncMinimumPeerCount;
+  }
+
+  /**
+   * The longest fast sync waits for {@link #fastSyncMinimumPeerCount()} peers to connect before
+   * choosing the pivot block with the peers it already has.
+   *
+   * @return the maximum time fast sync waits for peers.
+   */
+  public Duration fastSyncMaximumPeerWaitTime() {
+    return fastSyncMaximumPeerWaitTime;
+  }
+
+  /**
+   * The number of trie nodes or contract codes requested from a peer at once while downloading the
+   * world state.
+   *
+   * @return the number of hashes sent in each node data request.
+   */
+  public int worldStateHashCountPerRequest() {
+    return worldStateHashCountPerRequest;
+  }
+
+  /**
+   * The number of node data requests that may be outstanding at once, across all peers, while
+   * downloading the world state.
+   *
+   * @return the maximum number of outstanding node data requests.
+   */
+  public int worldStateRequestParallelism() {
+    return worldStateRequestParallelism;
+  }
+
+  /**
+   * The number of node data requests in a row that may return no data before the world state
+   * download is considered stalled, which is the case once peers have pruned the requested state.
+   *
+   * @return the maximum number of node data requests in a row without any data received.
+   */
+  public int worldStateMaxRequestsWithoutProgress() {
+    return worldStateMaxRequestsWithoutProgress;
+  }
+
   public static class Builder {
     private int fastSyncPivotDistance = DEFAULT_PIVOT_DISTANCE_FROM_HEAD;
     private float fastSyncFullValidationRate = DEFAULT_FULL_VALIDATION_RATE;
+    private int fastSyncMinimumPeerCount = DEFAULT_FAST_SYNC_MINIMUM_PEERS;
+    private Duration fastSyncMaximumPeerWaitTime = DEFAULT_FAST_SYNC_MAXIMUM_PEER_WAIT_TIME;
+    private int worldStateHashCountPerRequest = DEFAULT_WORLD_STATE_HASH_COUNT_PER_REQUEST;
+    private int worldStateRequestParallelism = DEFAULT_WORLD_STATE_REQUEST_PARALLELISM;
+    private int worldStateMaxRequestsWithoutProgress =
+        DEFAULT_WORLD_STATE_MAX_REQUESTS_WITHOUT_PROGRESS;
     private SyncMode syncMode = SyncMode.FULL;
     private Range<Long> blockPropagationRange = Range.closed(-10L, 30L);
     private long downloaderChangeTargetThresholdByHeight = 20L;
@@ -248,6 +330,32 @@ public class SynchronizerConfiguration {
       return this;
     }
 
+    public Builder fastSyncMinimumPeerCount(final int fastSyncMinimumPeerCount) {
+      this.fastSyncMinimumPeerCount = fastSyncMinimumPeerCount;
+      return this;
+    }
+
+    public Builder fastSyncMaximumPeerWaitTime(final Duration fastSyncMaximumPeerWaitTime) {
+      this.fastSyncMaximumPeerWaitTime = fastSyncMaximumPeerWaitTime;
+      return this;
+    }
+
+    public Builder worldStateHashCountPerRequest(final int worldStateHashCountPerRequest) {
+      this.worldStateHashCountPerRequest = worldStateHashCountPerRequest;
+      return this;
+    }
+
+    public Builder worldStateRequestParallelism(final int worldStateRequestParallelism) {
+      this.worldStateRequestParallelism = worldStateRequestParallelism;
+      return this;
+    }
+
+    public Builder worldStateMaxRequestsWithoutProgress(
+        final int worldStateMaxRequestsWithoutProgress) {
+      this.worldStateMaxRequestsWithoutProgress = worldStateMaxRequestsWithoutProgress;
+      return this;
+    }
+
     public Builder syncMode(final SyncMode mode) {
       this.syncMode = mode;
       return this;
@@ -318,6 +426,11 @@ public class SynchronizerConfiguration {
           syncMode,
           fastSyncPivotDistance,
           fastSyncFullValidationRate,
+          fastSyncMinimumPeerCount,
+          fastSyncMaximumPeerWaitTime,
+          worldStateHashCountPerRequest,
+          worldStateRequestParallelism,
+          worldStateMaxRequestsWithoutProgress,
           blockPropagationRange,
           Optional.empty(),
           downloaderChangeTargetThresholdByHeight,
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fastsync;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.IncompleteResultsException;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.NoAvailablePeersException;
+import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.CompleteBlocksTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.DownloadHeaderSequenceTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.DownloadReceiptsTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetHeadersFromPeerByHashTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.ExceptionUtils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Downloads the headers, bodies and receipts of the blocks between the local chain head and the
+ * pivot block, and appends them to the blockchain without executing their transactions. Each
+ * segment is written to storage in a single transaction.
+ *
+ * <p>The headers are first walked back from the pivot block to the local chain head, recording the
+ * hash of the header at the end of each segment. Each segment is then downloaded backwards from
+ * that header and only appended once it connects to the local chain head, so every appended header
+ * is linked by hash to the pivot block.
+ *
+ * @param <C> the consensus algorithm context
+ */
+public class FastSyncChainDownloader<C> {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(2);
+
+  private final SynchronizerConfiguration syncConfig;
+  private final ProtocolSchedule<C> protocolSchedule;
+  private final ProtocolContext<C> protocolContext;
+  private final EthContext ethContext;
+  private final LabelledMetric<OperationTimer> ethTasksTimer;
+
+  public FastSyncChainDownloader(
+      final SynchronizerConfiguration syncConfig,
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthContext ethContext,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    this.syncConfig = syncConfig;
+    this.protocolSchedule = protocolSchedule;
+    this.protocolContext = protocolContext;
+    this.ethContext = ethContext;
+    this.ethTasksTimer = ethTasksTimer;
+  }
+
+  /**
+   * Downloads the chain up to and including the pivot block.
+   *
+   * @param pivotBlockHeader the header of the last block to download
+   * @return a future completed once the pivot block is the chain head
+   */
+  public CompletableFuture<Void> downloadChain(final BlockHeader pivotBlockHeader) {
+    final CompletableFuture<Void> result = new CompletableFuture<>();
+    final Deque<Hash> segmentEndHashes = new ArrayDeque<>();
+    segmentEndHashes.addFirst(pivotBlockHeader.getHash());
+    downloadSkeleton(pivotBlockHeader, segmentEndHashes, pivotBlockHeader, result);
+    return result;
+  }
+
+  /**
+   * Walks back from the pivot block one segment at a time until the local chain head is reached.
+   * Only the hashes of the headers at the end of the segments are kept, lowest first.
+   */
+  private void downloadSkeleton(
+      final BlockHeader pivotBlockHeader,
+      final Deque<Hash> segmentEndHashes,
+      final BlockHeader lowestSegmentEndHeader,
+      final CompletableFuture<Void> result) {
+    if (result.isDone()) {
+      return;
+    }
+    final int segmentSize = syncConfig.downloaderChainSegmentSize();
+    final long chainHeadNumber = protocolContext.getBlockchain().getChainHeadBlockNumber();
+    if (lowestSegmentEndHeader.getNumber() - segmentSize <= chainHeadNumber) {
+      downloadNextSegment(pivotBlockHeader, segmentEndHashes, result);
+      return;
+    }
+    DownloadHeaderSequenceTask.endingAtHeader(
+            protocolSchedule,
+            protocolContext,
+            ethContext,
+            lowestSegmentEndHeader,
+            segmentSize,
+            ethTasksTimer)
+        .run()
+        .whenComplete(
+            (headers, t) -> {
+              if (t == null) {
+                final BlockHeader segmentEndHeader = headers.get(0);
+                segmentEndHashes.addFirst(segmentEndHeader.getHash());
+                downloadSkeleton(pivotBlockHeader, segmentEndHashes, segmentEndHeader, result);
+              } else {
+                retry(
+                    t,
+                    result,
+                    () ->
+                        downloadSkeleton(
+                            pivotBlockHeader, segmentEndHashes, lowestSegmentEndHeader, result));
+              }
+            });
+  }
+
+  private void downloadNextSegment(
+      final BlockHeader pivotBlockHeader,
+      final Deque<Hash> segmentEndHashes,
+      final CompletableFuture<Void> result) {
+    final BlockHeader chainHead = protocolContext.getBlockchain().getChainHeadHeader();
+    if (chainHead.getNumber() >= pivotBlockHeader.getNumber()) {
+      LOG.info("Finished downloading chain to fast sync pivot block {}.", chainHead.getNumber());
+      result.complete(null);
+      return;
+    }
+    if (result.isDone()) {
+      return;
+    }
+    // The segment ends are spaced a segment apart, counting back from the pivot block.
+    final int segmentSize = syncConfig.downloaderChainSegmentSize();
+    long segmentEnd =
+        pivotBlockHeader.getNumber() - (long) (segmentEndHashes.size() - 1) * segmentSize;
+    while (segmentEnd <= chainHead.getNumber()) {
+      segmentEndHashes.removeFirst();
+      segmentEnd += segmentSize;
+    }
+    final Hash segmentEndHash = segmentEndHashes.getFirst();
+    final CompletableFuture<BlockHeader> segmentEndHeader =
+        segmentEndHash.equals(pivotBlockHeader.getHash())
+            ? CompletableFuture.completedFuture(pivotBlockHeader)
+            : getHeader(segmentEndHash, pivotBlockHeader.getNumber());
+    downloadSegment(chainHead, segmentEndHeader)
+        .whenComplete(
+            (r, t) -> {
+              if (t == null) {
+                downloadNextSegment(pivotBlockHeader, segmentEndHashes, result);
+              } else {
+                retry(
+                    t,
+                    result,
+                    () -> downloadNextSegment(pivotBlockHeader, segmentEndHashes, result));
+              }
+            });
+  }
+
+  private void retry(
+      final Throwable error, final CompletableFuture<Void> result, final Runnable retry) {
+    if (ExceptionUtils.rootCause(error) instanceof CancellationException) {
+      result.completeExceptionally(error);
+    } else {
+      LOG.debug("Failed to download chain to fast sync pivot block, retrying.", error);
+      ethContext.getScheduler().scheduleFutureTask(retry, RETRY_DELAY);
+    }
+  }
+
+  private CompletableFuture<Void> downloadSegment(
+      final BlockHeader chainHead, final CompletableFuture<BlockHeader> segmentEndHeader) {
+    return segmentEndHeader
+        .thenCompose(endHeader -> downloadHeaders(chainHead, endHeader))
+        .thenCompose(
+            headers ->
+                CompleteBlocksTask.forHeaders(protocolSchedule, ethContext, headers, ethTasksTimer)
+                    .run())
+        .thenCompose(
+            blocks ->
+                DownloadReceiptsTask.forHeaders(
+                        ethContext,
+                        blocks.stream().map(Block::getHeader).collect(Collectors.toList()),
+                        syncConfig.downloaderParallelism(),
+                        ethTasksTimer)
+                    .run()
+                    .thenAccept(receipts -> appendBlocks(blocks, receipts)));
+  }
+
+  private CompletableFuture<BlockHeader> getHeader(
+      final Hash blockHash, final long pivotBlockNumber) {
+    final Optional<EthPeer> peer = ethContext.getEthPeers().idlePeer(pivotBlockNumber);
+    if (!peer.isPresent()) {
+      final CompletableFuture<BlockHeader> failed = new CompletableFuture<>();
+      failed.completeExceptionally(new NoAvailablePeersException());
+      return failed;
+    }
+    return GetHeadersFromPeerByHashTask.forSingleHash(
+            protocolSchedule, ethContext, blockHash, ethTasksTimer)
+        .assignPeer(peer.get())
+        .run()
+        .thenApply(
+            peerResult -> {
+              if (peerResult.getResult().isEmpty()) {
+                throw new IncompleteResultsException();
+              }
+              return peerResult.getResult().get(0);
+            });
+  }
+
+  private CompletableFuture<List<BlockHeader>> downloadHeaders(
+      final BlockHeader chainHead, final BlockHeader segmentEndHeader) {
+    final int segmentLength = (int) (segmentEndHeader.getNumber() - chainHead.getNumber() - 1);
+    final CompletableFuture<List<BlockHeader>> headers =
+        segmentLength == 0
+            ? CompletableFuture.completedFuture(Collections.emptyList())
+            : DownloadHeaderSequenceTask.endingAtHeader(
+                    protocolSchedule,
+                    protocolContext,
+                    ethContext,
+                    segmentEndHeader,
+                    segmentLength,
+                    ethTasksTimer)
+                .run();
+    return headers.thenApply(
+        sequence -> {
+          final List<BlockHeader> segment = new ArrayList<>(sequence);
+          segment.add(segmentEndHeader);
+          final BlockHeader firstHeader = segment.get(0);
+          if (!firstHeader.getParentHash().equals(chainHead.getHash())) {
+            throw new InvalidBlockException(
+                "Chain segment does not connect to the chain head",
+                firstHeader.getNumber(),
+                firstHeader.getHash());
+          }
+          return segment;
+        });
+  }
+
+  private void appendBlocks(
+      final List<Block> blocks, final List<List<TransactionReceipt>> receipts) {
+    final MutableBlockchain blockchain = protocolContext.getBlockchain();
+    blockchain.appendBlocks(blocks, receipts);
+    LOG.info(
+        "Downloaded chain to block {} without execution.", blockchain.getChainHeadBlockNumber());
+  }
+}
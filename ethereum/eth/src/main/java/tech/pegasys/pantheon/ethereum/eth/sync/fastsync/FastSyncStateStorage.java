@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fastsync;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHashFunction;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Remembers the pivot block of a fast sync in progress, so that a restarted node finishes
+ * downloading the same world state instead of switching to full sync with an incomplete state.
+ */
+public class FastSyncStateStorage {
+
+  private static final BytesValue PIVOT_BLOCK_HEADER_KEY =
+      BytesValue.wrap("fastSyncPivotBlockHeader".getBytes(StandardCharsets.UTF_8));
+
+  private final KeyValueStorage storage;
+  private final BlockHashFunction blockHashFunction;
+
+  public FastSyncStateStorage(
+      final KeyValueStorage storage, final BlockHashFunction blockHashFunction) {
+    this.storage = storage;
+    this.blockHashFunction = blockHashFunction;
+  }
+
+  public boolean isFastSyncInProgress() {
+    return storage.get(PIVOT_BLOCK_HEADER_KEY).isPresent();
+  }
+
+  public Optional<BlockHeader> loadPivotBlockHeader() {
+    return storage
+        .get(PIVOT_BLOCK_HEADER_KEY)
+        .map(rlp -> BlockHeader.readFrom(RLP.input(rlp), blockHashFunction));
+  }
+
+  public void storePivotBlockHeader(final BlockHeader pivotBlockHeader) {
+    final KeyValueStorage.Transaction transaction = storage.startTransaction();
+    transaction.put(PIVOT_BLOCK_HEADER_KEY, RLP.encode(pivotBlockHeader::writeTo));
+    transaction.commit();
+  }
+
+  public void clear() {
+    final KeyValueStorage.Transaction transaction = storage.startTransaction();
+    transaction.remove(PIVOT_BLOCK_HEADER_KEY);
+    transaction.commit();
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fastsync;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.NoAvailablePeersException;
+import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncState;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetHeadersFromPeerByNumberTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.WaitForPeersTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.StalledDownloadException;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.WorldStateDownloader;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.ExceptionUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Brings the node up to date without executing the historical blocks. A pivot block a fixed
+ * distance behind the best peer is chosen, the chain is downloaded up to the pivot and the world
+ * state of the pivot is downloaded from peers, after which full sync takes over from the pivot.
+ *
+ * <p>The pivot is stored, so a fast sync interrupted by a restart resumes with the same pivot. A
+ * new pivot is selected when peers stop providing the world state of the current one.
+ *
+ * @param <C> the consensus algorithm context
+ */
+public class FastSynchronizer<C> {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(2);
+
+  private final SynchronizerConfiguration syncConfig;
+  private final ProtocolSchedule<C> protocolSchedule;
+  private final ProtocolContext<C> protocolContext;
+  private final EthContext ethContext;
+  private final FastSyncStateStorage fastSyncStateStorage;
+  private final FastSyncChainDownloader<C> chainDownloader;
+  private final WorldStateDownloader worldStateDownloader;
+  private final LabelledMetric<OperationTimer> ethTasksTimer;
+
+  public FastSynchronizer(
+      final SynchronizerConfiguration syncConfig,
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthContext ethContext,
+      final FastSyncStateStorage fastSyncStateStorage,
+      final WorldStateDownloader worldStateDownloader,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    this.syncConfig = syncConfig;
+    this.protocolSchedule = protocolSchedule;
+    this.protocolContext = protocolContext;
+    this.ethContext = ethContext;
+    this.fastSyncStateStorage = fastSyncStateStorage;
+    this.worldStateDownloader = worldStateDownloader;
+    this.ethTasksTimer = ethTasksTimer;
+    this.chainDownloader =
+        new FastSyncChainDownloader<>(
+            syncConfig, protocolSchedule, protocolContext, ethContext, ethTasksTimer);
+  }
+
+  /**
+   * Runs fast sync to completion.
+   *
+   * @return a future completed once both the chain and the world state of the pivot block have been
+   *     downloaded, or straight away if the chain is too short to be worth fast syncing
+   */
+  public CompletableFuture<Void> start() {
+    final Optional<BlockHeader> storedPivot = fastSyncStateStorage.loadPivotBlockHeader();
+    final CompletableFuture<Optional<BlockHeader>> pivot;
+    if (storedPivot.isPresent()) {
+      LOG.info("Resuming fast sync to pivot block {}.", storedPivot.get().getNumber());
+      pivot = CompletableFuture.completedFuture(storedPivot);
+    } else {
+      pivot = waitForPeers().thenCompose(r -> selectPivotBlock());
+    }
+    return pivot.thenCompose(
+        maybePivot ->
+            maybePivot
+                .map(this::downloadPivotBlock)
+                .orElseGet(() -> CompletableFuture.completedFuture(null)));
+  }
+
+  private CompletableFuture<Void> waitForPeers() {
+    final WaitForPeersTask waitForPeersTask =
+        WaitForPeersTask.create(ethContext, syncConfig.fastSyncMinimumPeerCount(), ethTasksTimer);
+    return ethContext
+        .getScheduler()
+        .timeout(waitForPeersTask, syncConfig.fastSyncMaximumPeerWaitTime())
+        .handle(
+            (result, error) -> {
+              if (ExceptionUtils.rootCause(error) instanceof TimeoutException) {
+                LOG.info(
+                    "Fast sync timed out waiting for {} peers, continuing with {} peers.",
+                    syncConfig.fastSyncMinimumPeerCount(),
+                    ethContext.getEthPeers().peerCount());
+              } else if (error != null) {
+                LOG.debug("Failed to wait for peers, continuing.", error);
+              }
+              return null;
+            });
+  }
+
+  private CompletableFuture<Void> downloadPivotBlock(final BlockHeader pivotBlockHeader) {
+    final CompletableFuture<Void> chainDownload = chainDownloader.downloadChain(pivotBlockHeader);
+    final CompletableFuture<BlockHeader> worldStateDownload =
+        downloadWorldState(worldStateDownloader.run(pivotBlockHeader), pivotBlockHeader);
+    return CompletableFuture.allOf(chainDownload, worldStateDownload)
+        .thenCompose(
+            r -> {
+              // The chain must reach the pivot whose world state was downloaded.
+              final BlockHeader finalPivotBlockHeader = worldStateDownload.join();
+              return chainDownloader
+                  .downloadChain(finalPivotBlockHeader)
+                  .thenApply(done -> finalPivotBlockHeader);
+            })
+        .thenAccept(
+            finalPivotBlockHeader -> {
+              fastSyncStateStorage.clear();
+              LOG.info("Fast sync completed at block {}.", finalPivotBlockHeader.getNumber());
+            });
+  }
+
+  private CompletableFuture<BlockHeader> downloadWorldState(
+      final CompletableFuture<Void> download, final BlockHeader pivotBlockHeader) {
+    return download
+        .handle(
+            (r, error) -> {
+              if (error == null) {
+                return CompletableFuture.completedFuture(pivotBlockHeader);
+              }
+              if (!(ExceptionUtils.rootCause(error) instanceof StalledDownloadException)) {
+                final CompletableFuture<BlockHeader> failed = new CompletableFuture<>();
+                failed.completeExceptionally(error);
+                return failed;
+              }
+              LOG.info(
+                  "World state of pivot block {} is no longer available, selecting a new pivot.",
+                  pivotBlockHeader.getNumber());
+              return selectPivotBlock()
+                  .thenCompose(
+                      newPivot -> {
+                        final BlockHeader newPivotBlockHeader = newPivot.orElse(pivotBlockHeader);
+                        return downloadWorldState(
+                            worldStateDownloader.restart(newPivotBlockHeader), newPivotBlockHeader);
+                      });
+            })
+        .thenCompose(future -> future);
+  }
+
+  private CompletableFuture<Optional<BlockHeader>> selectPivotBlock() {
+    final Optional<EthPeer> bestPeer = ethContext.getEthPeers().bestPeer();
+    if (!bestPeer.isPresent()) {
+      return retrySelectPivotBlock(new NoAvailablePeersException());
+    }
+    final FastSyncState fastSyncState = new FastSyncState(syncConfig);
+    fastSyncState.setFastSyncChainTarget(bestPeer.get().chainState().getEstimatedHeight());
+    final long pivotBlockNumber = fastSyncState.pivot();
+    if (pivotBlockNumber <= protocolContext.getBlockchain().getChainHeadBlockNumber()) {
+      LOG.info("Best peer's chain is too short for fast sync, switching to full sync.");
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    LOG.info("Selecting block {} as fast sync pivot.", pivotBlockNumber);
+    return GetHeadersFromPeerByNumberTask.forSingleNumber(
+            protocolSchedule, ethContext, pivotBlockNumber, ethTasksTimer)
+        .assignPeer(bestPeer.get())
+        .run()
+        .handle(
+            (peerResult, error) -> {
+              if (error != null || peerResult.getResult().isEmpty()) {
+                return retrySelectPivotBlock(error);
+              }
+              final BlockHeader pivotBlockHeader = peerResult.getResult().get(0);
+              fastSyncStateStorage.storePivotBlockHeader(pivotBlockHeader);
+              return CompletableFuture.completedFuture(Optional.of(pivotBlockHeader));
+            })
+        .thenCompose(future -> future);
+  }
+
+  private CompletableFuture<Optional<BlockHeader>> retrySelectPivotBlock(final Throwable error) {
+    LOG.debug("Failed to retrieve fast sync pivot block, retrying.", error);
+    return ethContext.getScheduler().scheduleFutureTask(this::selectPivotBlock, RETRY_DELAY);
+  }
+}
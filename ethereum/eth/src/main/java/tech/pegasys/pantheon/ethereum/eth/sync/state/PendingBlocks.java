@@ -12,23 +12,95 @@
  */
 package tech.pegasys.pantheon.ethereum.eth.sync.state;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import tech.pegasys.pantheon.ethereum.core.Block;
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-
-import io.netty.util.internal.ConcurrentSet;
 
+/**
+ * Blocks received from the network that cannot be imported yet because their parent is unknown.
+ *
+ * <p>The collection is bounded both in number of blocks and in total encoded size. When it is full,
+ * the blocks furthest ahead of the chain are evicted first, since they are the least likely to
+ * become importable. Each peer may only contribute a limited number of blocks, so that a single
+ * peer cannot fill the collection with blocks that will never be imported.
+ */
 public class PendingBlocks {
 
-  private final Map<Hash, Block> pendingBlocks = new ConcurrentHashMap<>();
-  private final Map<Hash, Set<Hash>> pendingBlocksByParentHash = new ConcurrentHashMap<>();
+  public static final int DEFAULT_MAX_BLOCKS = 512;
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+  public static final int DEFAULT_MAX_BLOCKS_PER_PEER = 64;
+
+  /** The source recorded for blocks that were not received from a known peer. */
+  static final BytesValue UNKNOWN_SOURCE = BytesValue.EMPTY;
+
+  private final int maxBlocks;
+  private final long maxBytes;
+  private final int maxBlocksPerPeer;
+
+  private final Map<Hash, PendingBlock> pendingBlocks = new ConcurrentHashMap<>();
+  private final Map<Hash, Set<Hash>> pendingBlocksByParentHash = new HashMap<>();
+  private final NavigableMap<Long, Set<Hash>> pendingBlocksByNumber = new TreeMap<>();
+  private final Map<BytesValue, Integer> pendingBlockCountBySource = new HashMap<>();
+  private volatile long pendingBytes;
+
+  private final LabelledMetric<Counter> evictedBlocks;
+
+  public PendingBlocks() {
+    this(new NoOpMetricsSystem());
+  }
+
+  public PendingBlocks(final MetricsSystem metricsSystem) {
+    this(DEFAULT_MAX_BLOCKS, DEFAULT_MAX_BYTES, DEFAULT_MAX_BLOCKS_PER_PEER, metricsSystem);
+  }
+
+  public PendingBlocks(
+      final int maxBlocks,
+      final long maxBytes,
+      final int maxBlocksPerPeer,
+      final MetricsSystem metricsSystem) {
+    checkArgument(maxBlocks > 0, "Maximum number of pending blocks must be positive");
+    checkArgument(maxBytes > 0, "Maximum size of pending blocks must be positive");
+    checkArgument(
+        maxBlocksPerPeer > 0, "Maximum number of pending blocks per peer must be positive");
+    this.maxBlocks = maxBlocks;
+    this.maxBytes = maxBytes;
+    this.maxBlocksPerPeer = maxBlocksPerPeer;
+
+    metricsSystem.createGauge(
+        MetricCategory.SYNCHRONIZER,
+        "pending_blocks",
+        "Number of blocks received ahead of the chain and waiting for their parent",
+        () -> (double) pendingBlocks.size());
+    metricsSystem.createGauge(
+        MetricCategory.SYNCHRONIZER,
+        "pending_blocks_bytes",
+        "Total encoded size of the blocks waiting for their parent",
+        () -> (double) pendingBytes);
+    evictedBlocks =
+        metricsSystem.createLabelledCounter(
+            MetricCategory.SYNCHRONIZER,
+            "pending_blocks_evicted_total",
+            "Number of pending blocks dropped because a limit was reached",
+            "reason");
+  }
 
   /**
    * Track the given block.
@@ -37,24 +109,47 @@ public class PendingBlocks {
    * @return true if the block was added (was not previously present)
    */
   public boolean registerPendingBlock(final Block pendingBlock) {
-    final Block previousValue =
-        this.pendingBlocks.putIfAbsent(pendingBlock.getHash(), pendingBlock);
-    if (previousValue != null) {
+    return registerPendingBlock(pendingBlock, UNKNOWN_SOURCE);
+  }
+
+  /**
+   * Track the given block, counting it against the quota of the peer it was received from.
+   *
+   * @param pendingBlock the block to track
+   * @param sourceNodeId the id of the peer the block was received from
+   * @return true if the block was added, false if it was already present or a limit was reached
+   */
+  public synchronized boolean registerPendingBlock(
+      final Block pendingBlock, final BytesValue sourceNodeId) {
+    if (pendingBlocks.containsKey(pendingBlock.getHash())) {
+      return false;
+    }
+    if (pendingBlockCountBySource.getOrDefault(sourceNodeId, 0) >= maxBlocksPerPeer) {
+      evictedBlocks.labels("peer_quota").inc();
       return false;
     }
 
+    final PendingBlock block = new PendingBlock(pendingBlock, sourceNodeId);
+    while (pendingBlocks.size() + 1 > maxBlocks || pendingBytes + block.size > maxBytes) {
+      // Make room by dropping the blocks furthest ahead, unless the new block is one of them.
+      if (pendingBlocksByNumber.isEmpty() || pendingBlocksByNumber.lastKey() <= block.number()) {
+        evictedBlocks.labels("capacity").inc();
+        return false;
+      }
+      final Hash evicted = pendingBlocksByNumber.lastEntry().getValue().iterator().next();
+      remove(pendingBlocks.get(evicted));
+      evictedBlocks.labels("capacity").inc();
+    }
+
+    pendingBlocks.put(pendingBlock.getHash(), block);
     pendingBlocksByParentHash
-        .computeIfAbsent(
-            pendingBlock.getHeader().getParentHash(),
-            h -> {
-              final ConcurrentSet<Hash> set = new ConcurrentSet<>();
-              // Go ahead and add our value at construction, so that we don't set an empty set which
-              // could be removed in deregisterPendingBlock
-              set.add(pendingBlock.getHash());
-              return set;
-            })
+        .computeIfAbsent(pendingBlock.getHeader().getParentHash(), h -> new HashSet<>())
         .add(pendingBlock.getHash());
-
+    pendingBlocksByNumber
+        .computeIfAbsent(block.number(), n -> new HashSet<>())
+        .add(pendingBlock.getHash());
+    pendingBlockCountBySource.merge(sourceNodeId, 1, Integer::sum);
+    pendingBytes += block.size;
     return true;
   }
 
@@ -64,38 +159,71 @@ public class PendingBlocks {
    * @param block the block that is no longer pending
    * @return true if this block was removed
    */
-  public boolean deregisterPendingBlock(final Block block) {
-    final Hash parentHash = block.getHeader().getParentHash();
-    final Block removed = pendingBlocks.remove(block.getHash());
-    final Set<Hash> blocksForParent = pendingBlocksByParentHash.get(parentHash);
-    if (blocksForParent != null) {
-      blocksForParent.remove(block.getHash());
-      pendingBlocksByParentHash.remove(parentHash, Collections.emptySet());
+  public synchronized boolean deregisterPendingBlock(final Block block) {
+    final PendingBlock removed = pendingBlocks.get(block.getHash());
+    if (removed == null) {
+      return false;
     }
-    return removed != null;
+    remove(removed);
+    return true;
   }
 
-  public void purgeBlocksOlderThan(final long blockNumber) {
-    pendingBlocks
-        .values()
-        .stream()
-        .filter(b -> b.getHeader().getNumber() < blockNumber)
-        .forEach(this::deregisterPendingBlock);
+  public synchronized void purgeBlocksOlderThan(final long blockNumber) {
+    final Map<Long, Set<Hash>> blocksToPurge = pendingBlocksByNumber.headMap(blockNumber);
+    final List<Hash> hashesToPurge = new ArrayList<>();
+    blocksToPurge.values().forEach(hashesToPurge::addAll);
+    hashesToPurge.forEach(hash -> remove(pendingBlocks.get(hash)));
   }
 
   public boolean contains(final Hash blockHash) {
     return pendingBlocks.containsKey(blockHash);
   }
 
-  public List<Block> childrenOf(final Hash parentBlock) {
+  public synchronized List<Block> childrenOf(final Hash parentBlock) {
     final Set<Hash> blocksByParent = pendingBlocksByParentHash.get(parentBlock);
     if (blocksByParent == null || blocksByParent.size() == 0) {
       return Collections.emptyList();
     }
-    return blocksByParent
-        .stream()
-        .map(pendingBlocks::get)
-        .filter(Objects::nonNull)
-        .collect(Collectors.toList());
+    final List<Block> children = new ArrayList<>(blocksByParent.size());
+    blocksByParent.forEach(hash -> children.add(pendingBlocks.get(hash).block));
+    return children;
+  }
+
+  private void remove(final PendingBlock pendingBlock) {
+    final Hash hash = pendingBlock.block.getHash();
+    pendingBlocks.remove(hash);
+    removeFromIndex(
+        pendingBlocksByParentHash, pendingBlock.block.getHeader().getParentHash(), hash);
+    removeFromIndex(pendingBlocksByNumber, pendingBlock.number(), hash);
+    pendingBlockCountBySource.computeIfPresent(
+        pendingBlock.sourceNodeId, (source, count) -> count == 1 ? null : count - 1);
+    pendingBytes -= pendingBlock.size;
+  }
+
+  private static <K> void removeFromIndex(
+      final Map<K, Set<Hash>> index, final K key, final Hash hash) {
+    final Set<Hash> hashes = index.get(key);
+    if (hashes != null) {
+      hashes.remove(hash);
+      if (hashes.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  private static class PendingBlock {
+    private final Block block;
+    private final BytesValue sourceNodeId;
+    private final int size;
+
+    private PendingBlock(final Block block, final BytesValue sourceNodeId) {
+      this.block = block;
+      this.sourceNodeId = sourceNodeId;
+      this.size = block.calculateSize();
+    }
+
+    private long number() {
+      return block.getHeader().getNumber();
+    }
   }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.state;
+
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures how fast the chain is being downloaded and imported.
+ *
+ * <p>Import throughput is exported both as running totals and as rates averaged over the last
+ * {@link #RATE_WINDOW_SECONDS} seconds. Each stage of the chain segment import pipeline exports the
+ * number of chunks queued for it, the time chunks spend waiting for the previous chunk to leave the
+ * stage, and the time spent processing them.
+ */
+public class SyncMetrics {
+
+  static final long RATE_WINDOW_SECONDS = 30;
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(RATE_WINDOW_SECONDS);
+
+  private final LongSupplier nanoClock;
+  private final Counter importedBlocks;
+  private final Counter importedGas;
+  private final Counter importedTransactions;
+  private final Deque<ImportSample> recentImports = new ArrayDeque<>();
+
+  private final Map<PipelineStage, AtomicInteger> queueDepths = new EnumMap<>(PipelineStage.class);
+  private final LabelledMetric<OperationTimer> stageWaitTimer;
+  private final LabelledMetric<OperationTimer> stageProcessingTimer;
+
+  public SyncMetrics(final MetricsSystem metricsSystem) {
+    this(metricsSystem, System::nanoTime);
+  }
+
+  SyncMetrics(final MetricsSystem metricsSystem, final LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    importedBlocks =
+        metricsSystem.createCounter(
+            MetricCategory.SYNCHRONIZER, "imported_blocks_total", "Number of blocks imported");
+    importedGas =
+        metricsSystem.createCounter(
+            MetricCategory.SYNCHRONIZER,
+            "imported_gas_total",
+            "Total gas used by the blocks imported");
+    importedTransactions =
+        metricsSystem.createCounter(
+            MetricCategory.SYNCHRONIZER,
+            "imported_transactions_total",
+            "Number of transactions in the blocks imported");
+    metricsSystem.createGauge(
+        MetricCategory.SYNCHRONIZER,
+        "import_blocks_per_second",
+        "Blocks imported per second over the last " + RATE_WINDOW_SECONDS + " seconds",
+        this::blocksPerSecond);
+    metricsSystem.createGauge(
+        MetricCategory.SYNCHRONIZER,
+        "import_gas_per_second",
+        "Gas imported per second over the last " + RATE_WINDOW_SECONDS + " seconds",
+        this::gasPerSecond);
+    metricsSystem.createGauge(
+        MetricCategory.SYNCHRONIZER,
+        "import_transactions_per_second",
+        "Transactions imported per second over the last " + RATE_WINDOW_SECONDS + " seconds",
+        this::transactionsPerSecond);
+
+    for (final PipelineStage stage : PipelineStage.values()) {
+      final AtomicInteger queueDepth = new AtomicInteger();
+      queueDepths.put(stage, queueDepth);
+      metricsSystem.createGauge(
+          MetricCategory.SYNCHRONIZER,
+          "pipeline_" + stage.label + "_queue_depth",
+          "Number of chunks waiting for or in the " + stage.label + " stage",
+          () -> (double) queueDepth.get());
+    }
+    stageWaitTimer =
+        metricsSystem.createLabelledTimer(
+            MetricCategory.SYNCHRONIZER,
+            "pipeline_stage_wait",
+            "Time chunks wait for the previous chunk to leave a pipeline stage",
+            "stage");
+    stageProcessingTimer =
+        metricsSystem.createLabelledTimer(
+            MetricCategory.SYNCHRONIZER,
+            "pipeline_stage_processing",
+            "Time spent processing a chunk in a pipeline stage",
+            "stage");
+  }
+
+  /**
+   * Records that the given blocks were imported.
+   *
+   * @param blocks the imported blocks
+   */
+  public void recordImportedBlocks(final List<Block> blocks) {
+    long gas = 0;
+    long transactions = 0;
+    for (final Block block : blocks) {
+      gas += block.getHeader().getGasUsed();
+      transactions += block.getBody().getTransactions().size();
+    }
+    importedBlocks.inc(blocks.size());
+    importedGas.inc(gas);
+    importedTransactions.inc(transactions);
+    final long now = nanoClock.getAsLong();
+    synchronized (recentImports) {
+      recentImports.addLast(new ImportSample(now, blocks.size(), gas, transactions));
+      pruneRecentImports(now);
+    }
+  }
+
+  public double blocksPerSecond() {
+    return ratePerSecond(sample -> sample.blocks);
+  }
+
+  public double gasPerSecond() {
+    return ratePerSecond(sample -> sample.gas);
+  }
+
+  public double transactionsPerSecond() {
+    return ratePerSecond(sample -> sample.transactions);
+  }
+
+  private double ratePerSecond(final ToLongFunction<ImportSample> amount) {
+    long total = 0;
+    synchronized (recentImports) {
+      pruneRecentImports(nanoClock.getAsLong());
+      for (final ImportSample sample : recentImports) {
+        total += amount.applyAsLong(sample);
+      }
+    }
+    return (double) total / RATE_WINDOW_SECONDS;
+  }
+
+  int recentImportSampleCount() {
+    synchronized (recentImports) {
+      return recentImports.size();
+    }
+  }
+
+  // Callers must hold the recentImports lock.
+  private void pruneRecentImports(final long now) {
+    final long windowStart = now - RATE_WINDOW_NANOS;
+    while (!recentImports.isEmpty() && recentImports.peekFirst().time < windowStart) {
+      recentImports.removeFirst();
+    }
+  }
+
+  /**
+   * Starts tracking a chunk through a pipeline stage.
+   *
+   * @param stage the pipeline stage the chunk is queued for
+   * @return the tracker to notify as the chunk progresses through the stage
+   */
+  public StageTracker enterStage(final PipelineStage stage) {
+    queueDepths.get(stage).incrementAndGet();
+    return new StageTracker(stage);
+  }
+
+  public enum PipelineStage {
+    DOWNLOAD_HEADERS("download_headers"),
+    DOWNLOAD_BODIES("download_bodies"),
+    EXTRACT_SENDERS("extract_senders"),
+    IMPORT_BLOCKS("import_blocks");
+
+    private final String label;
+
+    PipelineStage(final String label) {
+      this.label = label;
+    }
+  }
+
+  /** Follows a single chunk through a pipeline stage. */
+  public class StageTracker {
+    private final PipelineStage stage;
+    private TimingContext waitTimer;
+    private TimingContext processingTimer;
+
+    private StageTracker(final PipelineStage stage) {
+      this.stage = stage;
+    }
+
+    /** The input of the chunk is available, but the stage may still be busy with earlier chunks. */
+    public void inputReady() {
+      waitTimer = stageWaitTimer.labels(stage.label).startTimer();
+    }
+
+    /** The stage started processing the chunk. */
+    public void started() {
+      if (waitTimer != null) {
+        waitTimer.stopTimer();
+      }
+      processingTimer = stageProcessingTimer.labels(stage.label).startTimer();
+    }
+
+    /** The chunk left the stage, whether or not it was processed successfully. */
+    public void completed() {
+      if (processingTimer != null) {
+        processingTimer.stopTimer();
+      }
+      queueDepths.get(stage).decrementAndGet();
+    }
+  }
+
+  private static class ImportSample {
+    private final long time;
+    private final long blocks;
+    private final long gas;
+    private final long transactions;
+
+    private ImportSample(
+        final long time, final long blocks, final long gas, final long transactions) {
+      this.time = time;
+      this.blocks = blocks;
+      this.gas = gas;
+      this.transactions = transactions;
+    }
+  }
+}
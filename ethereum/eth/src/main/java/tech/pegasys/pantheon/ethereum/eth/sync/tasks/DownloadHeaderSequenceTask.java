@@ -21,19 +21,21 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerTask.PeerTaskResult;
 import tech.pegasys.pantheon.ethereum.eth.manager.AbstractRetryingPeerTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.NoAvailablePeersException;
 import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.PeerBreachedProtocolException;
 import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.PeerDisconnectedException;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
-import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.mainnet.ParallelBlockHeaderValidator;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
-import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.OperationTimer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
@@ -62,6 +64,7 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
   private final long startingBlockNumber;
 
   private int lastFilledHeaderIndex;
+  private Optional<EthPeer> assignedPeer = Optional.empty();
 
   private DownloadHeaderSequenceTask(
       final ProtocolSchedule<C> protocolSchedule,
@@ -140,10 +143,17 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
 
   @Override
   protected boolean isRetryableError(final Throwable error) {
-    return error instanceof NoAvailablePeersException
-        || error instanceof TimeoutException
-        || error instanceof PeerBreachedProtocolException
-        || error instanceof PeerDisconnectedException;
+    final boolean isPeerError =
+        error instanceof NoAvailablePeersException
+            || error instanceof PeerBreachedProtocolException
+            || error instanceof PeerDisconnectedException;
+
+    return error instanceof TimeoutException || (!assignedPeer.isPresent() && isPeerError);
+  }
+
+  public DownloadHeaderSequenceTask<C> assignPeer(final EthPeer peer) {
+    assignedPeer = Optional.of(peer);
+    return this;
   }
 
   private CompletableFuture<PeerTaskResult<List<BlockHeader>>> downloadHeaders() {
@@ -165,6 +175,7 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
                   referenceHeaderForNextRequest.getNumber(),
                   count + 1,
                   ethTasksTimer);
+          assignedPeer.ifPresent(headersTask::assignPeer);
           return headersTask.run();
         });
   }
@@ -175,6 +186,10 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
         ethContext.getScheduler(),
         () -> {
           final CompletableFuture<List<BlockHeader>> future = new CompletableFuture<>();
+          // Pair each received header with the child it must connect to, in response order.
+          final List<BlockHeader> children = new ArrayList<>();
+          final List<BlockHeader> parents = new ArrayList<>();
+          final List<Integer> headerIndices = new ArrayList<>();
           BlockHeader child = null;
           boolean firstSkipped = false;
           final int previousHeaderIndex = lastFilledHeaderIndex;
@@ -191,8 +206,16 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
               child =
                   (headerIndex == segmentLength - 1) ? referenceHeader : headers[headerIndex + 1];
             }
+            children.add(child);
+            parents.add(header);
+            headerIndices.add(headerIndex);
+            child = header;
+          }
 
-            if (!validateHeader(child, header)) {
+          final boolean[] valid = validateHeaders(children, parents);
+          for (int i = 0; i < valid.length; i++) {
+            final BlockHeader header = parents.get(i);
+            if (!valid[i]) {
               // Invalid headers - disconnect from peer
               LOG.debug(
                   "Received invalid headers from peer, disconnecting from: {}",
@@ -203,28 +226,40 @@ public class DownloadHeaderSequenceTask<C> extends AbstractRetryingPeerTask<List
                       "Invalid header", header.getNumber(), header.getHash()));
               return future;
             }
+            final int headerIndex = headerIndices.get(i);
             headers[headerIndex] = header;
             lastFilledHeaderIndex = headerIndex;
-            child = header;
           }
           future.complete(asList(headers).subList(lastFilledHeaderIndex, previousHeaderIndex));
           return future;
         });
   }
 
-  private boolean validateHeader(final BlockHeader child, final BlockHeader header) {
+  /**
+   * Validates each header as the parent of the child at the same position. The range checks are
+   * applied first, and the detached rules of every pair that passes them run in parallel.
+   */
+  private boolean[] validateHeaders(
+      final List<BlockHeader> children, final List<BlockHeader> parents) {
     final long finalBlockNumber = startingBlockNumber + segmentLength;
-    final boolean blockInRange =
-        header.getNumber() >= startingBlockNumber && header.getNumber() < finalBlockNumber;
-    if (!blockInRange) {
-      return false;
-    }
-    if (child == null) {
-      return false;
+    final List<BlockHeader> checkedChildren = new ArrayList<>(children.size());
+    final List<BlockHeader> checkedParents = new ArrayList<>(parents.size());
+    for (int i = 0; i < children.size(); i++) {
+      final BlockHeader child = children.get(i);
+      final BlockHeader header = parents.get(i);
+      final boolean blockInRange =
+          header.getNumber() >= startingBlockNumber && header.getNumber() < finalBlockNumber;
+      if (!blockInRange || child == null) {
+        break;
+      }
+      checkedChildren.add(child);
+      checkedParents.add(header);
     }
 
-    final ProtocolSpec<C> protocolSpec = protocolSchedule.getByBlockNumber(child.getNumber());
-    final BlockHeaderValidator<C> blockHeaderValidator = protocolSpec.getBlockHeaderValidator();
-    return blockHeaderValidator.validateHeader(child, header, protocolContext, DETACHED_ONLY);
+    final boolean[] detachedResults =
+        ParallelBlockHeaderValidator.validateHeaders(
+            protocolSchedule, protocolContext, checkedChildren, checkedParents, DETACHED_ONLY);
+    // Pairs after the first one failing the range checks stay invalid.
+    return Arrays.copyOf(detachedResults, children.size());
   }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.tasks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractRetryingPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeers;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.NoAvailablePeersException;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.PeerBreachedProtocolException;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.PeerDisconnectedException;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Given a set of headers, repeatedly requests the transaction receipts of the corresponding blocks
+ * until all of them have been received. The outstanding headers are split into batches which are
+ * requested in parallel from different peers, and receipts are only accepted if they match the
+ * receipts root of their header. The result lists the receipts in the same order as the supplied
+ * headers.
+ */
+public class DownloadReceiptsTask extends AbstractRetryingPeerTask<List<List<TransactionReceipt>>> {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final int DEFAULT_RETRIES = 3;
+
+  private final EthContext ethContext;
+  private final LabelledMetric<OperationTimer> ethTasksTimer;
+
+  private final List<BlockHeader> headers;
+  private final int parallelism;
+  private final Map<BlockHeader, List<TransactionReceipt>> receipts = new ConcurrentHashMap<>();
+
+  private DownloadReceiptsTask(
+      final EthContext ethContext,
+      final List<BlockHeader> headers,
+      final int parallelism,
+      final int maxRetries,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    super(ethContext, maxRetries, ethTasksTimer);
+    checkArgument(headers.size() > 0, "Must supply a non-empty headers list");
+    checkArgument(parallelism > 0, "Parallelism must be positive");
+    this.ethContext = ethContext;
+    this.ethTasksTimer = ethTasksTimer;
+    this.headers = headers;
+    this.parallelism = parallelism;
+
+    // Blocks without transactions have no receipts to request.
+    headers
+        .stream()
+        .filter(header -> header.getReceiptsRoot().equals(Hash.EMPTY_TRIE_HASH))
+        .forEach(header -> receipts.put(header, emptyList()));
+  }
+
+  public static DownloadReceiptsTask forHeaders(
+      final EthContext ethContext,
+      final List<BlockHeader> headers,
+      final int parallelism,
+      final int maxRetries,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    return new DownloadReceiptsTask(ethContext, headers, parallelism, maxRetries, ethTasksTimer);
+  }
+
+  public static DownloadReceiptsTask forHeaders(
+      final EthContext ethContext,
+      final List<BlockHeader> headers,
+      final int parallelism,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    return new DownloadReceiptsTask(
+        ethContext, headers, parallelism, DEFAULT_RETRIES, ethTasksTimer);
+  }
+
+  @Override
+  protected CompletableFuture<List<List<TransactionReceipt>>> executePeerTask() {
+    final List<BlockHeader> incompleteHeaders = incompleteHeaders();
+    if (incompleteHeaders.isEmpty()) {
+      completeResult();
+      return CompletableFuture.completedFuture(emptyList());
+    }
+    // Spread the batches over the fastest idle peers, each of which gets a single batch.
+    final long lastBlockNumber = incompleteHeaders.get(incompleteHeaders.size() - 1).getNumber();
+    final List<EthPeer> peers =
+        ethContext
+            .getEthPeers()
+            .availablePeers()
+            .filter(EthPeer::hasAvailableRequestCapacity)
+            .filter(peer -> peer.chainState().getEstimatedHeight() >= lastBlockNumber)
+            .sorted(EthPeers.THROUGHPUT.reversed())
+            .limit(parallelism)
+            .collect(Collectors.toList());
+    final int batchCount = Math.max(1, peers.size());
+    final int batchSize = (incompleteHeaders.size() + batchCount - 1) / batchCount;
+    LOG.debug(
+        "Requesting receipts for {} blocks from {} peers, starting with {}.",
+        incompleteHeaders.size(),
+        batchCount,
+        incompleteHeaders.get(0).getNumber());
+
+    final List<List<BlockHeader>> batches = Lists.partition(incompleteHeaders, batchSize);
+    final List<List<TransactionReceipt>> received = new ArrayList<>();
+    final CompletableFuture<?>[] requests = new CompletableFuture<?>[batches.size()];
+    for (int i = 0; i < batches.size(); i++) {
+      final GetReceiptsFromPeerTask task =
+          GetReceiptsFromPeerTask.forHeaders(ethContext, batches.get(i), ethTasksTimer);
+      if (i < peers.size()) {
+        task.assignPeer(peers.get(i));
+      }
+      requests[i] =
+          executeSubTask(task::run)
+              .thenAccept(
+                  peerResult -> {
+                    // Keep whatever arrived, even if another batch fails.
+                    receipts.putAll(peerResult.getResult());
+                    synchronized (received) {
+                      received.addAll(peerResult.getResult().values());
+                    }
+                  });
+    }
+
+    return CompletableFuture.allOf(requests)
+        .thenApply(
+            done -> {
+              if (incompleteHeaders().isEmpty()) {
+                completeResult();
+              }
+              return received;
+            });
+  }
+
+  @Override
+  protected boolean isRetryableError(final Throwable error) {
+    return error instanceof TimeoutException
+        || error instanceof PeerBreachedProtocolException
+        || error instanceof PeerDisconnectedException
+        || error instanceof NoAvailablePeersException;
+  }
+
+  private void completeResult() {
+    result.get().complete(headers.stream().map(receipts::get).collect(Collectors.toList()));
+  }
+
+  private List<BlockHeader> incompleteHeaders() {
+    return headers
+        .stream()
+        .filter(header -> !receipts.containsKey(header))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.tasks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractEthTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeers;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.ExceptionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Fills in the headers between a skeleton of checkpoint headers, the first of which is assumed to
+ * be known already.
+ *
+ * <p>Gaps are downloaded concurrently, with one gap in flight for every peer that has the whole
+ * skeleton, so the download is spread over all suitable peers rather than just the one the skeleton
+ * came from. Each gap is assigned to the least busy of those peers and downloaded backwards from
+ * its closing checkpoint by a {@link DownloadHeaderSequenceTask}, which only accepts headers linked
+ * to that checkpoint by hash. If the peer is too slow, sends nothing useful or sends invalid
+ * headers, the gap is reassigned to another peer, a limited number of times. Finally, the first
+ * header of each gap must connect to its opening checkpoint; if it doesn't, the skeleton itself is
+ * wrong and the task fails with an {@link InvalidBlockException}.
+ *
+ * @param <C> the consensus algorithm context
+ */
+public class FillHeaderSkeletonTask<C> extends AbstractEthTask<List<BlockHeader>> {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final int MAX_GAP_ATTEMPTS = 3;
+  private static final int RETRIES_PER_PEER = 1;
+
+  private final ProtocolSchedule<C> protocolSchedule;
+  private final ProtocolContext<C> protocolContext;
+  private final EthContext ethContext;
+  private final LabelledMetric<OperationTimer> ethTasksTimer;
+
+  private final List<BlockHeader> checkpointHeaders;
+  private final List<CompletableFuture<List<BlockHeader>>> gaps;
+  private int gapsStarted;
+  private int activeGaps;
+
+  private FillHeaderSkeletonTask(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthContext ethContext,
+      final List<BlockHeader> checkpointHeaders,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    super(ethTasksTimer);
+    checkArgument(checkpointHeaders.size() > 1, "Must supply at least two checkpoint headers");
+    this.protocolSchedule = protocolSchedule;
+    this.protocolContext = protocolContext;
+    this.ethContext = ethContext;
+    this.ethTasksTimer = ethTasksTimer;
+    this.checkpointHeaders = checkpointHeaders;
+
+    gaps = new ArrayList<>(checkpointHeaders.size() - 1);
+    for (int i = 0; i < checkpointHeaders.size() - 1; i++) {
+      gaps.add(new CompletableFuture<>());
+    }
+  }
+
+  public static <C> FillHeaderSkeletonTask<C> forCheckpoints(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthContext ethContext,
+      final List<BlockHeader> checkpointHeaders,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    return new FillHeaderSkeletonTask<>(
+        protocolSchedule, protocolContext, ethContext, checkpointHeaders, ethTasksTimer);
+  }
+
+  /**
+   * Returns the headers of a single gap, in ascending order.
+   *
+   * @param gapIndex the index of the checkpoint header opening the gap
+   * @return a future completed with the headers after the opening checkpoint, up to and including
+   *     the closing checkpoint
+   */
+  public CompletableFuture<List<BlockHeader>> gapHeaders(final int gapIndex) {
+    return gaps.get(gapIndex);
+  }
+
+  @Override
+  protected void executeTask() {
+    LOG.debug(
+        "Filling header skeleton from {} to {} in {} gaps.",
+        checkpointHeaders.get(0).getNumber(),
+        checkpointHeaders.get(checkpointHeaders.size() - 1).getNumber(),
+        gaps.size());
+    startGaps();
+  }
+
+  private synchronized void startGaps() {
+    if (result.get().isDone()) {
+      return;
+    }
+    final long maxActiveGaps = Math.max(1, peersWithSkeleton().count());
+    while (gapsStarted < gaps.size() && activeGaps < maxActiveGaps) {
+      activeGaps++;
+      fillGap(gapsStarted++, 1, new HashSet<>());
+    }
+  }
+
+  private void fillGap(final int gapIndex, final int attempt, final Set<EthPeer> failedPeers) {
+    final BlockHeader firstCheckpoint = checkpointHeaders.get(gapIndex);
+    final BlockHeader lastCheckpoint = checkpointHeaders.get(gapIndex + 1);
+    final Optional<EthPeer> peer = selectPeer(failedPeers);
+    downloadGap(firstCheckpoint, lastCheckpoint, peer)
+        .whenComplete(
+            (headers, error) -> {
+              if (error == null) {
+                validateGap(firstCheckpoint, headers)
+                    .whenComplete((r, t) -> completeGap(gapIndex, headers, t));
+              } else if (attempt < MAX_GAP_ATTEMPTS
+                  && !(ExceptionUtils.rootCause(error) instanceof CancellationException)) {
+                LOG.debug(
+                    "Reassigning headers {} to {} after failed attempt {}: {}",
+                    firstCheckpoint.getNumber() + 1,
+                    lastCheckpoint.getNumber(),
+                    attempt,
+                    ExceptionUtils.rootCause(error).getMessage());
+                peer.ifPresent(failedPeers::add);
+                fillGap(gapIndex, attempt + 1, failedPeers);
+              } else {
+                completeGap(gapIndex, headers, error);
+              }
+            });
+  }
+
+  /**
+   * Picks the least busy peer with the whole skeleton that hasn't failed this gap yet, preferring
+   * the fastest one. If there is none, the download picks its own peers as it goes.
+   */
+  private Optional<EthPeer> selectPeer(final Set<EthPeer> failedPeers) {
+    return peersWithSkeleton()
+        .filter(EthPeer::hasAvailableRequestCapacity)
+        .filter(peer -> !failedPeers.contains(peer))
+        .min(EthPeers.LEAST_TO_MOST_BUSY.thenComparing(EthPeers.THROUGHPUT.reversed()));
+  }
+
+  private Stream<EthPeer> peersWithSkeleton() {
+    final long lastCheckpoint = checkpointHeaders.get(checkpointHeaders.size() - 1).getNumber();
+    return ethContext
+        .getEthPeers()
+        .availablePeers()
+        .filter(peer -> peer.chainState().getEstimatedHeight() >= lastCheckpoint);
+  }
+
+  private CompletableFuture<List<BlockHeader>> downloadGap(
+      final BlockHeader firstCheckpoint,
+      final BlockHeader lastCheckpoint,
+      final Optional<EthPeer> peer) {
+    final int gapLength =
+        Math.toIntExact(lastCheckpoint.getNumber() - firstCheckpoint.getNumber() - 1);
+    final CompletableFuture<List<BlockHeader>> gapHeaders;
+    if (gapLength == 0) {
+      gapHeaders = CompletableFuture.completedFuture(Collections.emptyList());
+    } else {
+      final DownloadHeaderSequenceTask<C> task =
+          peer.isPresent()
+              ? DownloadHeaderSequenceTask.endingAtHeader(
+                      protocolSchedule,
+                      protocolContext,
+                      ethContext,
+                      lastCheckpoint,
+                      gapLength,
+                      RETRIES_PER_PEER,
+                      ethTasksTimer)
+                  .assignPeer(peer.get())
+              : DownloadHeaderSequenceTask.endingAtHeader(
+                  protocolSchedule,
+                  protocolContext,
+                  ethContext,
+                  lastCheckpoint,
+                  gapLength,
+                  ethTasksTimer);
+      gapHeaders = executeSubTask(task::run);
+    }
+    return gapHeaders.thenApply(
+        headers -> {
+          final List<BlockHeader> filledGap = new ArrayList<>(headers);
+          filledGap.add(lastCheckpoint);
+          return filledGap;
+        });
+  }
+
+  private CompletableFuture<Void> validateGap(
+      final BlockHeader firstCheckpoint, final List<BlockHeader> headers) {
+    return executeWorkerSubTask(
+        ethContext.getScheduler(),
+        () -> {
+          final CompletableFuture<Void> result = new CompletableFuture<>();
+          final BlockHeader childHeader = headers.get(0);
+          final BlockHeaderValidator<C> blockHeaderValidator =
+              protocolSchedule.getByBlockNumber(childHeader.getNumber()).getBlockHeaderValidator();
+          if (blockHeaderValidator.validateHeader(
+              childHeader, firstCheckpoint, protocolContext, HeaderValidationMode.DETACHED_ONLY)) {
+            result.complete(null);
+          } else {
+            result.completeExceptionally(
+                new InvalidBlockException(
+                    "Provided first header does not connect to last header.",
+                    firstCheckpoint.getNumber(),
+                    firstCheckpoint.getHash()));
+          }
+          return result;
+        });
+  }
+
+  private void completeGap(
+      final int gapIndex, final List<BlockHeader> headers, final Throwable error) {
+    if (error != null) {
+      gaps.get(gapIndex).completeExceptionally(error);
+      result.get().completeExceptionally(error);
+      return;
+    }
+    gaps.get(gapIndex).complete(headers);
+    synchronized (this) {
+      activeGaps--;
+    }
+    if (gaps.stream().allMatch(CompletableFuture::isDone)) {
+      final List<BlockHeader> allHeaders = new ArrayList<>();
+      gaps.forEach(gap -> allHeaders.addAll(gap.join()));
+      result.get().complete(allHeaders);
+    } else {
+      startGaps();
+    }
+  }
+
+  @Override
+  protected void cleanup() {
+    super.cleanup();
+    // Don't leave anyone waiting on gaps that will never be filled.
+    gaps.forEach(gap -> gap.cancel(false));
+  }
+}
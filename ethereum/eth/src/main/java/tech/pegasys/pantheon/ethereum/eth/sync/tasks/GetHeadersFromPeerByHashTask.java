@@ -19,6 +19,7 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
@@ -122,8 +123,9 @@ public class GetHeadersFromPeerByHashTask extends AbstractGetHeadersFromPeerTask
 
   @Override
   protected ResponseStream sendRequest(final EthPeer peer) throws PeerNotConnected {
-    LOG.debug("Requesting {} headers from peer {}.", count, peer);
-    return peer.getHeadersByHash(referenceHash, count, skip, reverse);
+    final int requestSize = peer.requestSize(EthPV62.GET_BLOCK_HEADERS, count);
+    LOG.debug("Requesting {} of {} headers from peer {}.", requestSize, count, peer);
+    return peer.getHeadersByHash(referenceHash, requestSize, skip, reverse);
   }
 
   @Override
@@ -16,6 +16,7 @@ import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
@@ -86,8 +87,9 @@ public class GetHeadersFromPeerByNumberTask extends AbstractGetHeadersFromPeerTa
 
   @Override
   protected ResponseStream sendRequest(final EthPeer peer) throws PeerNotConnected {
-    LOG.debug("Requesting {} headers from peer {}.", count, peer);
-    return peer.getHeadersByNumber(blockNumber, count, skip, reverse);
+    final int requestSize = peer.requestSize(EthPV62.GET_BLOCK_HEADERS, count);
+    LOG.debug("Requesting {} of {} headers from peer {}.", requestSize, count, peer);
+    return peer.getHeadersByNumber(blockNumber, requestSize, skip, reverse);
   }
 
   @Override
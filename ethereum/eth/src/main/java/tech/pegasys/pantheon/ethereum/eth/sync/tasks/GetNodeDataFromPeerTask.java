@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.tasks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerRequestTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
+import tech.pegasys.pantheon.ethereum.eth.messages.NodeDataMessage;
+import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
+import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection.PeerNotConnected;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Requests state trie nodes and contract code from a peer by hash. Each returned item is matched to
+ * the request by its hash, so items that were not requested are discarded.
+ */
+public class GetNodeDataFromPeerTask extends AbstractPeerRequestTask<Map<Hash, BytesValue>> {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final Set<Hash> hashes;
+
+  private GetNodeDataFromPeerTask(
+      final EthContext ethContext,
+      final Set<Hash> hashes,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    super(ethContext, EthPV63.GET_NODE_DATA, ethTasksTimer);
+    checkArgument(hashes.size() > 0);
+    this.hashes = hashes;
+  }
+
+  public static GetNodeDataFromPeerTask forHashes(
+      final EthContext ethContext,
+      final Iterable<Hash> hashes,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    final Set<Hash> uniqueHashes = new LinkedHashSet<>();
+    hashes.forEach(uniqueHashes::add);
+    return new GetNodeDataFromPeerTask(ethContext, uniqueHashes, ethTasksTimer);
+  }
+
+  @Override
+  protected ResponseStream sendRequest(final EthPeer peer) throws PeerNotConnected {
+    final int requestSize = peer.requestSize(EthPV63.GET_NODE_DATA, hashes.size());
+    final List<Hash> requestedHashes =
+        hashes.stream().limit(requestSize).collect(Collectors.toList());
+    LOG.debug("Requesting {} node data entries from peer {}.", requestedHashes.size(), peer);
+    return peer.getNodeData(requestedHashes);
+  }
+
+  @Override
+  protected Optional<Map<Hash, BytesValue>> processResponse(
+      final boolean streamClosed, final MessageData message, final EthPeer peer) {
+    if (streamClosed) {
+      // All outstanding requests have been responded to and we still haven't found the response
+      // we wanted. It must have been empty or contain data that didn't match.
+      peer.recordUselessResponse();
+      return Optional.of(Collections.emptyMap());
+    }
+
+    final NodeDataMessage nodeDataMessage = NodeDataMessage.readFrom(message);
+    final Map<Hash, BytesValue> nodeData = new HashMap<>();
+    for (final BytesValue data : nodeDataMessage.nodeData()) {
+      final Hash hash = Hash.hash(data);
+      if (!hashes.contains(hash)) {
+        // This message contains unrelated data - exit
+        return Optional.empty();
+      }
+      nodeData.put(hash, data);
+    }
+    if (nodeData.isEmpty()) {
+      // Message contains no data - nothing to do
+      return Optional.empty();
+    }
+    return Optional.of(nodeData);
+  }
+}
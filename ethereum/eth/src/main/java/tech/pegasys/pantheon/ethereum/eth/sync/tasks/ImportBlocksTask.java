@@ -131,7 +131,12 @@ public class ImportBlocksTask<C> extends AbstractPeerTask<List<Block>> {
     }
     final Supplier<CompletableFuture<List<Block>>> task =
         PersistBlockTask.forSequentialBlocks(
-            protocolSchedule, protocolContext, blocks, HeaderValidationMode.FULL, ethTasksTimer);
+            protocolSchedule,
+            protocolContext,
+            ethContext.getScheduler(),
+            blocks,
+            HeaderValidationMode.FULL,
+            ethTasksTimer);
     return executeWorkerSubTask(ethContext.getScheduler(), task);
   }
 }
@@ -16,9 +16,15 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.BlockImporter;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.eth.manager.AbstractEthTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.mainnet.BodyValidation;
 import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
@@ -27,6 +33,7 @@ import tech.pegasys.pantheon.metrics.OperationTimer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
@@ -60,43 +67,124 @@ public class PersistBlockTask<C> extends AbstractEthTask<Block> {
         protocolSchedule, protocolContext, block, headerValidationMode, ethTasksTimer);
   }
 
+  /**
+   * Imports a sequence of blocks, each of which must be the child of the one before it.
+   *
+   * <p>Blocks are imported one at a time, but the checks that do not depend on the parent's state
+   * are run ahead of the import on the sync workers: the transactions root and ommers hash are
+   * compared with the header, transaction senders are recovered and, where the parent is part of
+   * the sequence, the detached header rules are applied. A block is only imported once both its
+   * predecessor has been imported and these checks have passed, so while one block executes the
+   * following ones are being prepared. The checks are repeated by the block importer where they are
+   * part of its own validation.
+   *
+   * <p>Blocks are only prevalidated when imported with {@link HeaderValidationMode#FULL}. Any other
+   * mode means the caller has already applied the detached header rules and recovered the senders,
+   * and the importer recomputes the body roots itself, so prevalidation would only repeat work.
+   *
+   * @param protocolSchedule the protocol schedule
+   * @param protocolContext the protocol context
+   * @param ethScheduler the scheduler the checks are run on
+   * @param blocks the blocks to import, in ascending order
+   * @param headerValidationMode the header validation mode to import the blocks with
+   * @param ethTasksTimer the timer for the import tasks
+   * @param <C> the consensus context type
+   * @return a supplier of the future completed with the imported blocks
+   */
   public static <C> Supplier<CompletableFuture<List<Block>>> forSequentialBlocks(
       final ProtocolSchedule<C> protocolSchedule,
       final ProtocolContext<C> protocolContext,
+      final EthScheduler ethScheduler,
       final List<Block> blocks,
       final HeaderValidationMode headerValidationMode,
       final LabelledMetric<OperationTimer> ethTasksTimer) {
     checkArgument(blocks.size() > 0);
     return () -> {
       final List<Block> successfulImports = new ArrayList<>();
-      CompletableFuture<Block> future = null;
+      CompletableFuture<Block> future = CompletableFuture.completedFuture(null);
+      Optional<BlockHeader> parentHeader = Optional.empty();
       for (final Block block : blocks) {
-        if (future == null) {
-          future =
-              importBlockAndAddToList(
-                  protocolSchedule,
-                  protocolContext,
-                  block,
-                  successfulImports,
-                  headerValidationMode,
-                  ethTasksTimer);
-          continue;
-        }
+        final CompletableFuture<HeaderValidationMode> prevalidation =
+            headerValidationMode == HeaderValidationMode.FULL
+                ? schedulePrevalidation(
+                    protocolSchedule, protocolContext, ethScheduler, block, parentHeader)
+                : CompletableFuture.completedFuture(headerValidationMode);
         future =
-            future.thenCompose(
-                b ->
-                    importBlockAndAddToList(
-                        protocolSchedule,
-                        protocolContext,
-                        block,
-                        successfulImports,
-                        headerValidationMode,
-                        ethTasksTimer));
+            future
+                .thenCombine(prevalidation, (previousBlock, importMode) -> importMode)
+                .thenCompose(
+                    importMode ->
+                        importBlockAndAddToList(
+                            protocolSchedule,
+                            protocolContext,
+                            block,
+                            successfulImports,
+                            importMode,
+                            ethTasksTimer));
+        parentHeader = Optional.of(block.getHeader());
       }
       return future.thenApply(r -> successfulImports);
     };
   }
 
+  private static <C> CompletableFuture<HeaderValidationMode> schedulePrevalidation(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthScheduler ethScheduler,
+      final Block block,
+      final Optional<BlockHeader> parentHeader) {
+    return ethScheduler.scheduleSyncWorkerTask(
+        () -> {
+          final CompletableFuture<HeaderValidationMode> result = new CompletableFuture<>();
+          try {
+            result.complete(prevalidate(protocolSchedule, protocolContext, block, parentHeader));
+          } catch (final Exception e) {
+            result.completeExceptionally(e);
+          }
+          return result;
+        });
+  }
+
+  /**
+   * Runs the checks on a block that do not require its parent to be imported, for a block that
+   * would otherwise be imported with full header validation.
+   *
+   * @return the header validation mode the block should be imported with
+   */
+  private static <C> HeaderValidationMode prevalidate(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final Block block,
+      final Optional<BlockHeader> parentHeader) {
+    final BlockHeader header = block.getHeader();
+    final BlockBody body = block.getBody();
+    if (!BodyValidation.transactionsRoot(body.getTransactions())
+        .equals(header.getTransactionsRoot())) {
+      throw new InvalidBlockException(
+          "Transactions root does not match header", header.getNumber(), block.getHash());
+    }
+    if (!BodyValidation.ommersHash(body.getOmmers()).equals(header.getOmmersHash())) {
+      throw new InvalidBlockException(
+          "Ommers hash does not match header", header.getNumber(), block.getHash());
+    }
+
+    HeaderValidationMode importMode = HeaderValidationMode.FULL;
+    if (parentHeader.isPresent() && parentHeader.get().getHash().equals(header.getParentHash())) {
+      final BlockHeaderValidator<C> blockHeaderValidator =
+          protocolSchedule.getByBlockNumber(header.getNumber()).getBlockHeaderValidator();
+      if (!blockHeaderValidator.validateHeader(
+          header, parentHeader.get(), protocolContext, HeaderValidationMode.DETACHED_ONLY)) {
+        throw new InvalidBlockException(
+            "Invalid block header", header.getNumber(), block.getHash());
+      }
+      // The detached rules have been applied against the same parent the importer will use.
+      importMode = HeaderValidationMode.SKIP_DETACHED;
+    }
+
+    Transaction.recoverSenders(body.getTransactions());
+    return importMode;
+  }
+
   private static <C> CompletableFuture<Block> importBlockAndAddToList(
       final ProtocolSchedule<C> protocolSchedule,
       final ProtocolContext<C> protocolContext,
@@ -18,11 +18,11 @@ import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.eth.manager.AbstractEthTask;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
-import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
-import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics.PipelineStage;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics.StageTracker;
 import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
-import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.OperationTimer;
 import tech.pegasys.pantheon.util.ExceptionUtils;
@@ -34,6 +34,7 @@ import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.google.common.collect.Lists;
@@ -48,6 +49,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
   private final ProtocolSchedule<C> protocolSchedule;
   private final List<Block> importedBlocks = new ArrayList<>();
   private final LabelledMetric<OperationTimer> ethTasksTimer;
+  private final SyncMetrics syncMetrics;
 
   // First header is assumed  to already be imported
   private final List<BlockHeader> checkpointHeaders;
@@ -55,6 +57,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
   private int chunksIssued;
   private int chunksCompleted;
   private final int maxActiveChunks;
+  private final FillHeaderSkeletonTask<C> fillHeadersTask;
 
   private final Deque<CompletableFuture<List<BlockHeader>>> downloadAndValidateHeadersTasks =
       new ConcurrentLinkedDeque<>();
@@ -71,17 +74,22 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
       final EthContext ethContext,
       final int maxActiveChunks,
       final List<BlockHeader> checkpointHeaders,
-      final LabelledMetric<OperationTimer> ethTasksTimer) {
+      final LabelledMetric<OperationTimer> ethTasksTimer,
+      final SyncMetrics syncMetrics) {
     super(ethTasksTimer);
     this.protocolSchedule = protocolSchedule;
     this.protocolContext = protocolContext;
     this.ethContext = ethContext;
     this.ethTasksTimer = ethTasksTimer;
+    this.syncMetrics = syncMetrics;
     this.checkpointHeaders = checkpointHeaders;
     this.chunksInTotal = checkpointHeaders.size() - 1;
     this.chunksIssued = 0;
     this.chunksCompleted = 0;
     this.maxActiveChunks = maxActiveChunks;
+    this.fillHeadersTask =
+        FillHeaderSkeletonTask.forCheckpoints(
+            protocolSchedule, protocolContext, ethContext, checkpointHeaders, ethTasksTimer);
   }
 
   public static <C> PipelinedImportChainSegmentTask<C> forCheckpoints(
@@ -90,6 +98,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
       final EthContext ethContext,
       final int maxActiveChunks,
       final LabelledMetric<OperationTimer> ethTasksTimer,
+      final SyncMetrics syncMetrics,
       final BlockHeader... checkpointHeaders) {
     return forCheckpoints(
         protocolSchedule,
@@ -97,6 +106,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
         ethContext,
         maxActiveChunks,
         ethTasksTimer,
+        syncMetrics,
         Arrays.asList(checkpointHeaders));
   }
 
@@ -106,6 +116,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
       final EthContext ethContext,
       final int maxActiveChunks,
       final LabelledMetric<OperationTimer> ethTasksTimer,
+      final SyncMetrics syncMetrics,
       final List<BlockHeader> checkpointHeaders) {
     return new PipelinedImportChainSegmentTask<>(
         protocolSchedule,
@@ -113,7 +124,8 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
         ethContext,
         maxActiveChunks,
         checkpointHeaders,
-        ethTasksTimer);
+        ethTasksTimer,
+        syncMetrics);
   }
 
   @Override
@@ -122,31 +134,39 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
         "Importing chain segment from {} to {}.",
         firstHeader().getNumber(),
         lastHeader().getNumber());
+    // Headers are filled in for all chunks at once, from every suitable peer.
+    executeSubTask(fillHeadersTask::run);
     for (int i = 0; i < chunksInTotal && i < maxActiveChunks; i++) {
       createNextChunkPipeline();
     }
   }
 
   private void createNextChunkPipeline() {
-    final BlockHeader firstChunkHeader = checkpointHeaders.get(chunksIssued);
-    final BlockHeader lastChunkHeader = checkpointHeaders.get(chunksIssued + 1);
-
+    final int chunkIndex = chunksIssued;
     final CompletableFuture<List<BlockHeader>> downloadAndValidateHeadersTask =
-        lastDownloadAndValidateHeadersTask()
-            .thenCompose((ignore) -> downloadNextHeaders(firstChunkHeader, lastChunkHeader))
-            .thenCompose(this::validateHeaders);
+        runStage(
+            PipelineStage.DOWNLOAD_HEADERS,
+            CompletableFuture.completedFuture(null),
+            lastDownloadAndValidateHeadersTask(),
+            (ignore) -> fillHeadersTask.gapHeaders(chunkIndex));
     final CompletableFuture<List<Block>> downloadBodiesTask =
-        downloadAndValidateHeadersTask
-            .thenCombine(lastDownloadBodiesTask(), (headers, ignored) -> headers)
-            .thenCompose(this::downloadBlocks);
+        runStage(
+            PipelineStage.DOWNLOAD_BODIES,
+            downloadAndValidateHeadersTask,
+            lastDownloadBodiesTask(),
+            this::downloadBlocks);
     final CompletableFuture<List<Block>> extractTransactionSendersTask =
-        downloadBodiesTask
-            .thenCombine(lastExtractTransactionSendersTasks(), (blocks, ignored) -> blocks)
-            .thenCompose(this::extractTransactionSenders);
+        runStage(
+            PipelineStage.EXTRACT_SENDERS,
+            downloadBodiesTask,
+            lastExtractTransactionSendersTasks(),
+            this::extractTransactionSenders);
     final CompletableFuture<List<Block>> validateAndImportBlocksTask =
-        extractTransactionSendersTask
-            .thenCombine(lastValidateAndImportBlocksTasks(), (blocks, ignored) -> blocks)
-            .thenCompose(this::validateAndImportBlocks);
+        runStage(
+            PipelineStage.IMPORT_BLOCKS,
+            extractTransactionSendersTask,
+            lastValidateAndImportBlocksTasks(),
+            this::validateAndImportBlocks);
     validateAndImportBlocksTask.whenComplete(this::completeChunkPipelineAndMaybeLaunchNextOne);
 
     downloadAndValidateHeadersTasks.addLast(downloadAndValidateHeadersTask);
@@ -156,6 +176,33 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
     chunksIssued++;
   }
 
+  /**
+   * Runs a pipeline stage for a chunk once its input is available and the stage is done with the
+   * previous chunk, so that chunks leave each stage in order.
+   */
+  private <I, O> CompletableFuture<O> runStage(
+      final PipelineStage stage,
+      final CompletableFuture<I> input,
+      final CompletableFuture<?> previousChunk,
+      final Function<I, CompletableFuture<O>> action) {
+    final StageTracker tracker = syncMetrics.enterStage(stage);
+    final CompletableFuture<O> result =
+        input
+            .thenApply(
+                value -> {
+                  tracker.inputReady();
+                  return value;
+                })
+            .thenCombine(previousChunk, (value, ignored) -> value)
+            .thenCompose(
+                value -> {
+                  tracker.started();
+                  return action.apply(value);
+                });
+    result.whenComplete((r, t) -> tracker.completed());
+    return result;
+  }
+
   public void completeChunkPipelineAndMaybeLaunchNextOne(
       final List<Block> blocks, final Throwable throwable) {
     if (throwable != null) {
@@ -167,6 +214,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
       result.get().completeExceptionally(throwable);
     } else {
       importedBlocks.addAll(blocks);
+      syncMetrics.recordImportedBlocks(blocks);
       final BlockHeader firstHeader = blocks.get(0).getHeader();
       final BlockHeader lastHeader = blocks.get(blocks.size() - 1).getHeader();
       chunksCompleted++;
@@ -194,64 +242,6 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
     }
   }
 
-  private CompletableFuture<List<BlockHeader>> downloadNextHeaders(
-      final BlockHeader firstChunkHeader, final BlockHeader lastChunkHeader) {
-    // Download the headers we're missing (between first and last)
-    LOG.debug(
-        "Downloading headers {} to {}",
-        firstChunkHeader.getNumber() + 1,
-        lastChunkHeader.getNumber());
-    final int segmentLength =
-        Math.toIntExact(lastChunkHeader.getNumber() - firstChunkHeader.getNumber() - 1);
-    if (segmentLength == 0) {
-      return CompletableFuture.completedFuture(
-          Lists.newArrayList(firstChunkHeader, lastChunkHeader));
-    }
-    final DownloadHeaderSequenceTask<C> task =
-        DownloadHeaderSequenceTask.endingAtHeader(
-            protocolSchedule,
-            protocolContext,
-            ethContext,
-            lastChunkHeader,
-            segmentLength,
-            ethTasksTimer);
-    return executeSubTask(task::run)
-        .thenApply(
-            headers -> {
-              final List<BlockHeader> finalHeaders = Lists.newArrayList(firstChunkHeader);
-              finalHeaders.addAll(headers);
-              finalHeaders.add(lastChunkHeader);
-              return finalHeaders;
-            });
-  }
-
-  private CompletableFuture<List<BlockHeader>> validateHeaders(final List<BlockHeader> headers) {
-    // First header needs to be validated
-    return executeWorkerSubTask(
-        ethContext.getScheduler(),
-        () -> {
-          final CompletableFuture<List<BlockHeader>> result = new CompletableFuture<>();
-          final BlockHeader parentHeader = headers.get(0);
-          final BlockHeader childHeader = headers.get(1);
-          final ProtocolSpec<C> protocolSpec =
-              protocolSchedule.getByBlockNumber(childHeader.getNumber());
-          final BlockHeaderValidator<C> blockHeaderValidator =
-              protocolSpec.getBlockHeaderValidator();
-          if (blockHeaderValidator.validateHeader(
-              childHeader, parentHeader, protocolContext, HeaderValidationMode.DETACHED_ONLY)) {
-            // The first header will be imported by the previous request range.
-            result.complete(headers.subList(1, headers.size()));
-          } else {
-            result.completeExceptionally(
-                new InvalidBlockException(
-                    "Provided first header does not connect to last header.",
-                    parentHeader.getNumber(),
-                    parentHeader.getHash()));
-          }
-          return result;
-        });
-  }
-
   private CompletableFuture<List<Block>> downloadBlocks(final List<BlockHeader> headers) {
     LOG.debug(
         "Downloading bodies {} to {}",
@@ -271,6 +261,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
         PersistBlockTask.forSequentialBlocks(
             protocolSchedule,
             protocolContext,
+            ethContext.getScheduler(),
             blocks,
             HeaderValidationMode.SKIP_DETACHED,
             ethTasksTimer);
@@ -287,10 +278,7 @@ public class PipelinedImportChainSegmentTask<C> extends AbstractEthTask<List<Blo
         () -> {
           final CompletableFuture<List<Block>> result = new CompletableFuture<>();
           for (final Block block : blocks) {
-            for (final Transaction transaction : block.getBody().getTransactions()) {
-              // This method internally performs the transaction sender extraction.
-              transaction.getSender();
-            }
+            Transaction.recoverSenders(block.getBody().getTransactions());
           }
           result.complete(blocks);
           return result;
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeDecoder;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/** A trie node or contract code of the world state that is requested from peers by its hash. */
+public class NodeDataRequest {
+
+  public enum RequestType {
+    ACCOUNT_TRIE_NODE,
+    STORAGE_TRIE_NODE,
+    CODE
+  }
+
+  private final RequestType requestType;
+  private final Hash hash;
+  private final boolean checkStoredChildren;
+  private Optional<BytesValue> data = Optional.empty();
+
+  private NodeDataRequest(
+      final RequestType requestType, final Hash hash, final boolean checkStoredChildren) {
+    this.requestType = requestType;
+    this.hash = hash;
+    this.checkStoredChildren = checkStoredChildren;
+  }
+
+  public static NodeDataRequest createAccountTrieNodeRequest(final Hash hash) {
+    return new NodeDataRequest(RequestType.ACCOUNT_TRIE_NODE, hash, false);
+  }
+
+  public static NodeDataRequest createStorageTrieNodeRequest(final Hash hash) {
+    return new NodeDataRequest(RequestType.STORAGE_TRIE_NODE, hash, false);
+  }
+
+  public static NodeDataRequest createCodeRequest(final Hash hash) {
+    return new NodeDataRequest(RequestType.CODE, hash, false);
+  }
+
+  public static NodeDataRequest deserialize(final BytesValue encoded) {
+    final RLPInput in = RLP.input(encoded);
+    in.enterList();
+    final RequestType requestType = RequestType.values()[in.readIntScalar()];
+    final Hash hash = Hash.wrap(in.readBytes32());
+    final boolean checkStoredChildren = !in.isEndOfCurrentList() && in.readIntScalar() == 1;
+    in.leaveList();
+    return new NodeDataRequest(requestType, hash, checkStoredChildren);
+  }
+
+  public BytesValue serialize() {
+    return RLP.encode(
+        out -> {
+          out.startList();
+          out.writeIntScalar(requestType.ordinal());
+          out.writeBytesValue(hash);
+          if (checkStoredChildren) {
+            out.writeIntScalar(1);
+          }
+          out.endList();
+        });
+  }
+
+  /**
+   * Returns the same request, but one whose node is looked into even when it is already stored, as
+   * are the nodes below it. Nodes stored by a download for another state root may be missing some
+   * of their children, because the requests for those were discarded.
+   *
+   * @return a request that checks the children of a stored node
+   */
+  public NodeDataRequest checkingStoredChildren() {
+    return new NodeDataRequest(requestType, hash, true);
+  }
+
+  public boolean checksStoredChildren() {
+    return checkStoredChildren;
+  }
+
+  public RequestType getRequestType() {
+    return requestType;
+  }
+
+  public Hash getHash() {
+    return hash;
+  }
+
+  public Optional<BytesValue> getData() {
+    return data;
+  }
+
+  public void setData(final BytesValue data) {
+    this.data = Optional.of(data);
+  }
+
+  /**
+   * Checks whether this node is already in the local world state. Nodes are only stored once the
+   * requests for their children have been queued, so the nodes below a stored node are either
+   * stored or queued too.
+   *
+   * @param worldStateStorage the local world state storage
+   * @return true if the node doesn't need to be requested
+   */
+  public boolean existsInStorage(final WorldStateStorage worldStateStorage) {
+    return loadFromStorage(worldStateStorage).isPresent();
+  }
+
+  /**
+   * Reads this node from the local world state.
+   *
+   * @param worldStateStorage the local world state storage
+   * @return the node data, if it is stored
+   */
+  public Optional<BytesValue> loadFromStorage(final WorldStateStorage worldStateStorage) {
+    switch (requestType) {
+      case ACCOUNT_TRIE_NODE:
+        return worldStateStorage.getAccountStateTrieNode(hash);
+      case STORAGE_TRIE_NODE:
+        return worldStateStorage.getAccountStorageTrieNode(hash);
+      case CODE:
+        return worldStateStorage.getCode(hash);
+      default:
+        throw new IllegalStateException("Unknown request type " + requestType);
+    }
+  }
+
+  public void persist(final WorldStateStorage.Updater updater) {
+    final BytesValue value = requireData();
+    switch (requestType) {
+      case ACCOUNT_TRIE_NODE:
+        updater.putAccountStateTrieNode(hash, value);
+        break;
+      case STORAGE_TRIE_NODE:
+        updater.putAccountStorageTrieNode(hash, value);
+        break;
+      case CODE:
+        updater.putCode(value);
+        break;
+      default:
+        throw new IllegalStateException("Unknown request type " + requestType);
+    }
+  }
+
+  /**
+   * Returns the requests for the nodes referenced by this node: the child nodes of a trie node, and
+   * the storage trie and code of each account held by an account trie node.
+   *
+   * @return the requests for the referenced nodes
+   */
+  public List<NodeDataRequest> getChildRequests() {
+    final BytesValue value = requireData();
+    final List<NodeDataRequest> childRequests = new ArrayList<>();
+    switch (requestType) {
+      case ACCOUNT_TRIE_NODE:
+        TrieNodeDecoder.decodeReferences(
+            value,
+            childHash -> childRequests.add(childRequest(RequestType.ACCOUNT_TRIE_NODE, childHash)),
+            account -> addAccountRequests(account, childRequests));
+        break;
+      case STORAGE_TRIE_NODE:
+        TrieNodeDecoder.decodeReferences(
+            value,
+            childHash -> childRequests.add(childRequest(RequestType.STORAGE_TRIE_NODE, childHash)),
+            storageValue -> {});
+        break;
+      case CODE:
+        break;
+      default:
+        throw new IllegalStateException("Unknown request type " + requestType);
+    }
+    return childRequests;
+  }
+
+  private NodeDataRequest childRequest(final RequestType requestType, final Bytes32 hash) {
+    return new NodeDataRequest(requestType, Hash.wrap(hash), checkStoredChildren);
+  }
+
+  private void addAccountRequests(
+      final BytesValue account, final List<NodeDataRequest> childRequests) {
+    final RLPInput in = RLP.input(account);
+    in.enterList();
+    in.skipNext(); // nonce
+    in.skipNext(); // balance
+    final Hash storageRoot = Hash.wrap(in.readBytes32());
+    final Hash codeHash = Hash.wrap(in.readBytes32());
+    in.leaveList();
+
+    if (!storageRoot.equals(Hash.EMPTY_TRIE_HASH)) {
+      childRequests.add(childRequest(RequestType.STORAGE_TRIE_NODE, storageRoot));
+    }
+    if (!codeHash.equals(Hash.EMPTY)) {
+      childRequests.add(childRequest(RequestType.CODE, codeHash));
+    }
+  }
+
+  private BytesValue requireData() {
+    checkState(data.isPresent(), "Node data has not been received for %s", hash);
+    return data.get();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final NodeDataRequest that = (NodeDataRequest) o;
+    return requestType == that.requestType && Objects.equals(hash, that.hash);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(requestType, hash);
+  }
+
+  @Override
+  public String toString() {
+    return "NodeDataRequest{" + "requestType=" + requestType + ", hash=" + hash + '}';
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import com.google.common.primitives.Longs;
+
+/**
+ * A first-in first-out queue of {@link NodeDataRequest}s kept in a {@link KeyValueStorage}, so that
+ * a world state download can be resumed after a restart.
+ *
+ * <p>Requests are numbered in the order they are added and stay in storage until they are marked
+ * completed, so requests that were in flight when the node stopped are sent again. Only the range
+ * of numbers that may still be stored is tracked, which avoids scanning the storage on startup.
+ */
+public class NodeDataRequestQueue {
+
+  private static final BytesValue KEY_PREFIX =
+      BytesValue.wrap("worldStateDownloadQueue".getBytes(StandardCharsets.UTF_8));
+  private static final BytesValue BOUNDS_KEY =
+      BytesValues.concatenate(KEY_PREFIX, BytesValue.of(0));
+  private static final BytesValue REQUEST_KEY_PREFIX =
+      BytesValues.concatenate(KEY_PREFIX, BytesValue.of(1));
+
+  private final KeyValueStorage storage;
+  // Requests numbered from head (inclusive) to tail (exclusive) may still be in storage.
+  private long head;
+  private long tail;
+  // The number of the next request to read from storage.
+  private long nextToRead;
+  // The numbers of the requests that have been handed out but not completed yet.
+  private final TreeSet<Long> inProgress = new TreeSet<>();
+  private final Deque<Task> failed = new ArrayDeque<>();
+
+  public NodeDataRequestQueue(final KeyValueStorage storage) {
+    this.storage = storage;
+    final Optional<BytesValue> bounds = storage.get(BOUNDS_KEY);
+    if (bounds.isPresent()) {
+      final RLPInput in = RLP.input(bounds.get());
+      in.enterList();
+      head = in.readLongScalar();
+      tail = in.readLongScalar();
+      in.leaveList();
+    }
+    nextToRead = head;
+  }
+
+  /**
+   * Adds requests to the end of the queue, in a single storage transaction.
+   *
+   * @param requests the requests to add
+   */
+  public synchronized void enqueue(final Collection<NodeDataRequest> requests) {
+    if (requests.isEmpty()) {
+      return;
+    }
+    final KeyValueStorage.Transaction transaction = storage.startTransaction();
+    for (final NodeDataRequest request : requests) {
+      transaction.put(requestKey(tail++), request.serialize());
+    }
+    putBounds(transaction);
+    transaction.commit();
+  }
+
+  /**
+   * Takes requests from the front of the queue. Requests that failed before are returned first. The
+   * requests stay in storage until they are marked completed.
+   *
+   * @param maxRequests the maximum number of requests to return
+   * @return the requests, which are fewer than requested when the queue runs out
+   */
+  public synchronized List<Task> dequeue(final int maxRequests) {
+    final List<Task> tasks = new ArrayList<>(maxRequests);
+    while (tasks.size() < maxRequests && !failed.isEmpty()) {
+      tasks.add(failed.remove());
+    }
+    while (tasks.size() < maxRequests && nextToRead < tail) {
+      final long number = nextToRead++;
+      final Optional<BytesValue> encoded = storage.get(requestKey(number));
+      if (encoded.isPresent()) {
+        inProgress.add(number);
+        tasks.add(new Task(number, NodeDataRequest.deserialize(encoded.get())));
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Removes requests that have been fulfilled from storage, in a single storage transaction.
+   *
+   * @param tasks the completed requests
+   */
+  public synchronized void markCompleted(final Collection<Task> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    final KeyValueStorage.Transaction transaction = storage.startTransaction();
+    for (final Task task : tasks) {
+      transaction.remove(requestKey(task.number));
+      inProgress.remove(task.number);
+    }
+    final long newHead = inProgress.isEmpty() ? nextToRead : inProgress.first();
+    if (newHead != head) {
+      head = newHead;
+      putBounds(transaction);
+    }
+    transaction.commit();
+  }
+
+  /**
+   * Returns requests that could not be fulfilled to the front of the queue.
+   *
+   * @param tasks the failed requests
+   */
+  public synchronized void markFailed(final Collection<Task> tasks) {
+    tasks.forEach(failed::addFirst);
+  }
+
+  /**
+   * Returns the requests that have been handed out but not completed to the front of the queue, so
+   * that a download can be started again after being stopped.
+   */
+  public synchronized void rewind() {
+    nextToRead = head;
+    inProgress.clear();
+    failed.clear();
+  }
+
+  /**
+   * Checks whether all requests have been completed.
+   *
+   * @return true if no requests are queued or in progress
+   */
+  public synchronized boolean isEmpty() {
+    return inProgress.isEmpty() && nextToRead >= tail;
+  }
+
+  /** Removes the queue from storage. Requests that haven't been completed are discarded. */
+  public synchronized void clear() {
+    final KeyValueStorage.Transaction transaction = storage.startTransaction();
+    for (long number = head; number < tail; number++) {
+      transaction.remove(requestKey(number));
+    }
+    transaction.remove(BOUNDS_KEY);
+    transaction.commit();
+    head = tail = nextToRead = 0;
+    inProgress.clear();
+    failed.clear();
+  }
+
+  private void putBounds(final KeyValueStorage.Transaction transaction) {
+    transaction.put(
+        BOUNDS_KEY,
+        RLP.encode(
+            out -> {
+              out.startList();
+              out.writeLongScalar(head);
+              out.writeLongScalar(tail);
+              out.endList();
+            }));
+  }
+
+  private static BytesValue requestKey(final long number) {
+    return BytesValues.concatenate(REQUEST_KEY_PREFIX, BytesValue.wrap(Longs.toByteArray(number)));
+  }
+
+  /** A request taken from the queue, which stays in storage until it is marked completed. */
+  public static class Task {
+    private final long number;
+    private final NodeDataRequest request;
+
+    private Task(final long number, final NodeDataRequest request) {
+      this.number = number;
+      this.request = request;
+    }
+
+    public NodeDataRequest getRequest() {
+      return request;
+    }
+  }
+}
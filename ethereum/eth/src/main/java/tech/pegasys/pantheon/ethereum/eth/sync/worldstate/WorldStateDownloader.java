@@ -0,0 +1,305 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerTask.PeerTaskResult;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetNodeDataFromPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.NodeDataRequestQueue.Task;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Downloads the world state of a block, breadth first, by requesting trie nodes and contract code
+ * from several peers in parallel.
+ *
+ * <p>The requests still to be made are kept in a {@link NodeDataRequestQueue}, so an interrupted
+ * download resumes where it stopped. When a node is received the requests for its children are
+ * queued before the node is stored, and the node's own request is removed last. Nodes found in
+ * storage are therefore never requested again, nor are their children.
+ *
+ * <p>Once peers stop returning nodes, typically because they have pruned the requested state, the
+ * download fails with a {@link StalledDownloadException} and can be restarted for a newer block.
+ */
+public class WorldStateDownloader {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final Duration WAIT_FOR_PEERS_DELAY = Duration.ofSeconds(1);
+
+  private final EthContext ethContext;
+  private final WorldStateStorage worldStateStorage;
+  private final NodeDataRequestQueue pendingRequests;
+  private final int hashCountPerRequest;
+  private final int maxOutstandingRequests;
+  private final int maxRequestsWithoutProgress;
+  private final LabelledMetric<OperationTimer> ethTasksTimer;
+
+  private CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+  private Hash stateRoot = Hash.EMPTY_TRIE_HASH;
+  private int outstandingRequests;
+  private int requestsWithoutProgress;
+  private boolean waitingForPeers;
+  private long nodesDownloaded;
+
+  public WorldStateDownloader(
+      final EthContext ethContext,
+      final WorldStateStorage worldStateStorage,
+      final NodeDataRequestQueue pendingRequests,
+      final int hashCountPerRequest,
+      final int maxOutstandingRequests,
+      final int maxRequestsWithoutProgress,
+      final LabelledMetric<OperationTimer> ethTasksTimer) {
+    this.ethContext = ethContext;
+    this.worldStateStorage = worldStateStorage;
+    this.pendingRequests = pendingRequests;
+    this.hashCountPerRequest = hashCountPerRequest;
+    this.maxOutstandingRequests = maxOutstandingRequests;
+    this.maxRequestsWithoutProgress = maxRequestsWithoutProgress;
+    this.ethTasksTimer = ethTasksTimer;
+  }
+
+  /**
+   * Downloads the world state of a block, resuming from the requests left in the queue. The
+   * download can be run again once the previous run has stopped.
+   *
+   * @param header the header of the block whose world state is downloaded
+   * @return a future completed once every node of the world state is stored, which stops the
+   *     download if cancelled
+   */
+  public synchronized CompletableFuture<Void> run(final BlockHeader header) {
+    checkState(result.isDone(), "World state download is already running");
+    result = new CompletableFuture<>();
+    requestsWithoutProgress = 0;
+    pendingRequests.rewind();
+    stateRoot = header.getStateRoot();
+    final NodeDataRequest rootRequest = NodeDataRequest.createAccountTrieNodeRequest(stateRoot);
+    if (pendingRequests.isEmpty()) {
+      if (stateRoot.equals(Hash.EMPTY_TRIE_HASH)
+          || rootRequest.existsInStorage(worldStateStorage)) {
+        LOG.info("World state for block {} is already available.", header.getNumber());
+        result.complete(null);
+        return result;
+      }
+      pendingRequests.enqueue(Collections.singletonList(rootRequest));
+    }
+    LOG.info("Downloading world state for block {} ({}).", header.getNumber(), stateRoot);
+    requestNodeData();
+    return result;
+  }
+
+  /**
+   * Downloads the world state of a block after the download for another block has stalled. The
+   * requests left in the queue are discarded, so nodes already stored are not requested again but
+   * the nodes below them are checked, as some of those may only have been queued.
+   *
+   * @param header the header of the block whose world state is downloaded
+   * @return a future completed once every node of the world state is stored, which stops the
+   *     download if cancelled
+   */
+  public synchronized CompletableFuture<Void> restart(final BlockHeader header) {
+    checkState(result.isDone(), "World state download is already running");
+    pendingRequests.clear();
+    final Hash stateRoot = header.getStateRoot();
+    if (!stateRoot.equals(Hash.EMPTY_TRIE_HASH)) {
+      pendingRequests.enqueue(
+          Collections.singletonList(
+              NodeDataRequest.createAccountTrieNodeRequest(stateRoot).checkingStoredChildren()));
+    }
+    return run(header);
+  }
+
+  private synchronized void requestNodeData() {
+    waitingForPeers = false;
+    while (!result.isDone() && outstandingRequests < maxOutstandingRequests) {
+      final Optional<EthPeer> maybePeer = ethContext.getEthPeers().idlePeer();
+      if (!maybePeer.isPresent()) {
+        waitForPeers();
+        return;
+      }
+      final List<Task> tasks = nextTasks();
+      if (tasks.isEmpty()) {
+        checkCompleted();
+        return;
+      }
+      outstandingRequests++;
+      final CompletableFuture<Void> runResult = result;
+      final List<Hash> hashes =
+          tasks.stream().map(task -> task.getRequest().getHash()).collect(Collectors.toList());
+      GetNodeDataFromPeerTask.forHashes(ethContext, hashes, ethTasksTimer)
+          .assignPeer(maybePeer.get())
+          .run()
+          .whenComplete(
+              (peerResult, error) ->
+                  ethContext
+                      .getScheduler()
+                      .scheduleSyncWorkerTask(
+                          () -> handleResponse(runResult, tasks, peerResult, error)));
+    }
+  }
+
+  /**
+   * Takes the next requests from the queue, completing straight away those already stored. The
+   * children of a stored node are queued when the request asks for them to be checked.
+   */
+  private List<Task> nextTasks() {
+    while (true) {
+      final List<Task> tasks = pendingRequests.dequeue(hashCountPerRequest);
+      final List<Task> storedTasks = new ArrayList<>();
+      final List<Task> missingTasks = new ArrayList<>();
+      final List<NodeDataRequest> childRequests = new ArrayList<>();
+      for (final Task task : tasks) {
+        final NodeDataRequest request = task.getRequest();
+        final Optional<BytesValue> storedData = request.loadFromStorage(worldStateStorage);
+        if (!storedData.isPresent()) {
+          missingTasks.add(task);
+          continue;
+        }
+        if (request.checksStoredChildren()) {
+          request.setData(storedData.get());
+          childRequests.addAll(request.getChildRequests());
+        }
+        storedTasks.add(task);
+      }
+      pendingRequests.enqueue(childRequests);
+      pendingRequests.markCompleted(storedTasks);
+      if (tasks.isEmpty() || !missingTasks.isEmpty()) {
+        return missingTasks;
+      }
+    }
+  }
+
+  private synchronized void handleResponse(
+      final CompletableFuture<Void> runResult,
+      final List<Task> tasks,
+      final PeerTaskResult<Map<Hash, BytesValue>> peerResult,
+      final Throwable error) {
+    outstandingRequests--;
+    if (result.isDone()) {
+      return;
+    }
+    if (runResult != result) {
+      // The tasks of a previous run have been returned to the queue already.
+      requestNodeData();
+      return;
+    }
+    if (error != null) {
+      LOG.debug("Failed to download world state nodes.", error);
+      pendingRequests.markFailed(tasks);
+      if (!checkStalled(0)) {
+        requestNodeData();
+      }
+      return;
+    }
+
+    final Map<Hash, BytesValue> nodeData = peerResult.getResult();
+    final List<Task> receivedTasks = new ArrayList<>();
+    final List<Task> failedTasks = new ArrayList<>();
+    final List<NodeDataRequest> childRequests = new ArrayList<>();
+    try {
+      for (final Task task : tasks) {
+        final NodeDataRequest request = task.getRequest();
+        final BytesValue data = nodeData.get(request.getHash());
+        if (data == null) {
+          failedTasks.add(task);
+          continue;
+        }
+        request.setData(data);
+        for (final NodeDataRequest childRequest : request.getChildRequests()) {
+          if (childRequest.checksStoredChildren()
+              || !childRequest.existsInStorage(worldStateStorage)) {
+            childRequests.add(childRequest);
+          }
+        }
+        receivedTasks.add(task);
+      }
+
+      pendingRequests.enqueue(childRequests);
+      final WorldStateStorage.Updater updater = worldStateStorage.updater();
+      receivedTasks.forEach(task -> task.getRequest().persist(updater));
+      updater.commit();
+      pendingRequests.markCompleted(receivedTasks);
+      pendingRequests.markFailed(failedTasks);
+    } catch (final RuntimeException e) {
+      LOG.error("Failed to store downloaded world state nodes.", e);
+      result.completeExceptionally(e);
+      return;
+    }
+
+    nodesDownloaded += receivedTasks.size();
+    if (receivedTasks.size() > 0 && (nodesDownloaded % 10_000) < receivedTasks.size()) {
+      LOG.info("Downloaded {} world state nodes.", nodesDownloaded);
+    }
+    if (!checkStalled(receivedTasks.size())) {
+      requestNodeData();
+    }
+  }
+
+  /** Fails the download once too many requests in a row have returned no nodes. */
+  private boolean checkStalled(final int nodesReceived) {
+    requestsWithoutProgress = nodesReceived > 0 ? 0 : requestsWithoutProgress + 1;
+    if (requestsWithoutProgress < maxRequestsWithoutProgress) {
+      return false;
+    }
+    LOG.info(
+        "World state download stalled, {} requests in a row returned no nodes.",
+        requestsWithoutProgress);
+    result.completeExceptionally(
+        new StalledDownloadException(
+            "No world state nodes received in " + requestsWithoutProgress + " requests"));
+    return true;
+  }
+
+  private void waitForPeers() {
+    if (outstandingRequests > 0 || waitingForPeers) {
+      // Outstanding responses will trigger more requests.
+      return;
+    }
+    waitingForPeers = true;
+    ethContext.getScheduler().scheduleFutureTask(this::requestNodeData, WAIT_FOR_PEERS_DELAY);
+  }
+
+  private void checkCompleted() {
+    if (outstandingRequests > 0 || !pendingRequests.isEmpty()) {
+      return;
+    }
+    final NodeDataRequest rootRequest = NodeDataRequest.createAccountTrieNodeRequest(stateRoot);
+    if (!stateRoot.equals(Hash.EMPTY_TRIE_HASH)
+        && !rootRequest.existsInStorage(worldStateStorage)) {
+      // The queue was left by a download for another state root.
+      pendingRequests.enqueue(Collections.singletonList(rootRequest.checkingStoredChildren()));
+      requestNodeData();
+      return;
+    }
+    LOG.info("Finished downloading world state ({} nodes).", nodesDownloaded);
+    pendingRequests.clear();
+    result.complete(null);
+  }
+}
@@ -20,6 +20,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseCallbac
 import tech.pegasys.pantheon.ethereum.eth.manager.RequestManager.ResponseStream;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.messages.ReceiptsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.api.PeerConnection;
@@ -187,6 +188,29 @@ public class EthPeerTest {
     assertThat(bodiesClosedCount.get()).isEqualTo(1);
   }
 
+  @Test
+  public void requestCapacityHalvesOnTimeoutAndGrowsWithResponses() throws PeerNotConnected {
+    final EthPeer peer = createPeer();
+    final EthMessage headersMessage =
+        new EthMessage(peer, BlockHeadersMessage.create(Collections.singletonList(gen.header())));
+    assertThat(peer.requestCapacity()).isEqualTo(EthPeer.INITIAL_REQUEST_CAPACITY);
+
+    peer.getHeadersByHash(gen.hash(), 5, 0, false);
+    peer.recordRequestTimeout(EthPV62.GET_BLOCK_HEADERS);
+    assertThat(peer.requestCapacity()).isEqualTo(EthPeer.INITIAL_REQUEST_CAPACITY / 2);
+    assertThat(peer.requestSize(EthPV62.GET_BLOCK_HEADERS, 5)).isEqualTo(2);
+
+    // Capacity grows by one after as many responses as the current capacity.
+    final int capacity = peer.requestCapacity();
+    for (int i = 0; i < capacity; i++) {
+      peer.getHeadersByHash(gen.hash(), 5, 0, false);
+      peer.dispatch(headersMessage);
+    }
+    assertThat(peer.requestCapacity()).isEqualTo(capacity + 1);
+    assertThat(peer.hasAvailableRequestCapacity()).isTrue();
+    assertThat(peer.averageBytesPerSecond()).isGreaterThan(0);
+  }
+
   private void messageStream(
       final ResponseStreamSupplier getStream,
       final MessageData targetMessage,
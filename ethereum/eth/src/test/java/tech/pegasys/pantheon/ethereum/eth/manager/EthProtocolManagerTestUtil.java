@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryBlockchain;
+import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryWorldStateArchive;
 
 import tech.pegasys.pantheon.config.GenesisConfigFile;
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
@@ -34,7 +35,13 @@ public class EthProtocolManagerTestUtil {
     final int networkId = 1;
     final EthScheduler ethScheduler = new DeterministicEthScheduler(timeoutPolicy);
     return new EthProtocolManager(
-        blockchain, networkId, false, EthProtocolManager.DEFAULT_REQUEST_LIMIT, ethScheduler);
+        blockchain,
+        createInMemoryWorldStateArchive(),
+        networkId,
+        false,
+        EthProtocolManager.DEFAULT_REQUEST_LIMIT,
+        ethScheduler,
+        new NoOpMetricsSystem());
   }
 
   public static EthProtocolManager create(final Blockchain blockchain) {
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.manager;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.BlockchainSetupUtil;
+import tech.pegasys.pantheon.ethereum.eth.messages.BlockBodiesMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.BlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockBodiesMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetNodeDataMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetReceiptsMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.NodeDataMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.ReceiptsMessage;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import com.google.common.collect.Lists;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EthServerTest {
+
+  private static Blockchain blockchain;
+  private static ProtocolSchedule<Void> protocolSchedule;
+
+  @BeforeClass
+  public static void setup() {
+    final BlockchainSetupUtil<Void> blockchainSetupUtil = BlockchainSetupUtil.forTesting();
+    blockchainSetupUtil.importAllBlocks();
+    blockchain = blockchainSetupUtil.getBlockchain();
+    protocolSchedule = blockchainSetupUtil.getProtocolSchedule();
+  }
+
+  @Test
+  public void rawResponsesMatchReencodedBlocks() {
+    final List<Hash> hashes = blockHashes(1, 10);
+    final List<BlockBody> bodies =
+        hashes.stream().map(hash -> blockchain.getBlockBody(hash).get()).collect(toList());
+    final List<List<TransactionReceipt>> receipts =
+        hashes.stream().map(hash -> blockchain.getTxReceipts(hash).get()).collect(toList());
+    final List<BlockHeader> headers =
+        hashes.stream().map(hash -> blockchain.getBlockHeader(hash).get()).collect(toList());
+
+    assertThat(
+            EthServer.constructGetHeadersResponse(
+                    blockchain, GetBlockHeadersMessage.create(1, 10, 0, false), 200)
+                .getData())
+        .isEqualTo(BlockHeadersMessage.create(headers).getData());
+    assertThat(
+            EthServer.constructGetBodiesResponse(
+                    blockchain, GetBlockBodiesMessage.create(hashes), 200)
+                .getData())
+        .isEqualTo(BlockBodiesMessage.create(bodies).getData());
+    assertThat(
+            EthServer.constructGetReceiptsResponse(
+                    blockchain, GetReceiptsMessage.create(hashes), 200)
+                .getData())
+        .isEqualTo(ReceiptsMessage.create(receipts).getData());
+  }
+
+  @Test
+  public void headersResponseIsLimitedByEncodedSize() {
+    final BlockHeader firstHeader = blockchain.getBlockHeader(1).get();
+    final int maxResponseBytes = RLP.encode(firstHeader::writeTo).size() + 1;
+
+    final MessageData response =
+        EthServer.constructGetHeadersResponse(
+            blockchain,
+            new RecentBlocksCache(0, 0),
+            GetBlockHeadersMessage.create(1, 10, 0, false),
+            200,
+            maxResponseBytes);
+
+    // The header crossing the limit is still sent
+    assertThat(
+            Lists.newArrayList(BlockHeadersMessage.readFrom(response).getHeaders(protocolSchedule)))
+        .containsExactly(firstHeader, blockchain.getBlockHeader(2).get());
+  }
+
+  @Test
+  public void bodiesResponseIsLimitedByEncodedSize() {
+    final List<Hash> hashes = blockHashes(1, 10);
+
+    final MessageData response =
+        EthServer.constructGetBodiesResponse(
+            blockchain, new RecentBlocksCache(0, 0), GetBlockBodiesMessage.create(hashes), 200, 1);
+
+    assertThat(BlockBodiesMessage.readFrom(response).bodies(protocolSchedule))
+        .containsExactly(blockchain.getBlockBody(hashes.get(0)).get());
+  }
+
+  @Test
+  public void receiptsResponseIsLimitedByEncodedSize() {
+    final List<Hash> hashes = blockHashes(1, 10);
+
+    final MessageData response =
+        EthServer.constructGetReceiptsResponse(
+            blockchain, GetReceiptsMessage.create(hashes), 200, 1);
+
+    assertThat(ReceiptsMessage.readFrom(response).receipts())
+        .containsExactly(blockchain.getTxReceipts(hashes.get(0)).get());
+  }
+
+  @Test
+  public void nodeDataResponseContainsStoredNodesAndCode() {
+    final BytesValue node = BytesValue.of(1, 2, 3);
+    final BytesValue code = BytesValue.of(4, 5, 6);
+    final WorldStateStorage worldStateStorage =
+        new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+    final WorldStateStorage.Updater updater = worldStateStorage.updater();
+    updater.putAccountStateTrieNode(Hash.hash(node), node);
+    updater.putCode(code);
+    updater.commit();
+    final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
+
+    final MessageData response =
+        EthServer.constructGetNodeDataResponse(
+            worldStateArchive,
+            GetNodeDataMessage.create(
+                Arrays.asList(Hash.hash(node), Hash.hash(BytesValue.of(7)), Hash.hash(code))),
+            200);
+
+    // Unknown hashes are left out of the response
+    assertThat(NodeDataMessage.readFrom(response).nodeData()).containsExactly(node, code);
+  }
+
+  @Test
+  public void recentlyServedBlocksAreNotReadFromStorageAgain() {
+    final Blockchain spiedBlockchain = spy(blockchain);
+    final RecentBlocksCache recentBlocks = new RecentBlocksCache(1024 * 1024, 1024 * 1024);
+    final MessageData request = GetBlockBodiesMessage.create(blockHashes(1, 5));
+
+    final MessageData firstResponse =
+        EthServer.constructGetBodiesResponse(
+            spiedBlockchain, recentBlocks, request, 200, EthServer.DEFAULT_MAX_RESPONSE_BYTES);
+    final MessageData secondResponse =
+        EthServer.constructGetBodiesResponse(
+            spiedBlockchain, recentBlocks, request, 200, EthServer.DEFAULT_MAX_RESPONSE_BYTES);
+
+    assertThat(secondResponse.getData()).isEqualTo(firstResponse.getData());
+    verify(spiedBlockchain, times(1)).getBlockBodiesRlp(any());
+  }
+
+  private List<Hash> blockHashes(final long first, final long last) {
+    return LongStream.rangeClosed(first, last)
+        .mapToObj(number -> blockchain.getBlockHashByNumber(number).get())
+        .collect(toList());
+  }
+}
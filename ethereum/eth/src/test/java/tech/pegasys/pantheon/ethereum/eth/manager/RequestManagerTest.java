@@ -29,7 +29,9 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.junit.Test;
@@ -211,6 +213,166 @@ public class RequestManagerTest {
     assertThat(closedCountB.get()).isEqualTo(1);
   }
 
+  @Test
+  public void halvesRequestSizeOnTimeoutAndRecoversAfterResponses() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager =
+        new RequestManager(peer, (bytes, latencyMillis) -> {}, () -> 0L);
+
+    assertThat(requestManager.requestSize(192)).isEqualTo(192);
+    requestManager.dispatchRequest(192, () -> {});
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(96);
+    requestManager.dispatchRequest(96, () -> {});
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(48);
+
+    // Each response increases the limit until full requests are made again.
+    int expectedSize = 48;
+    while (expectedSize < 192) {
+      requestManager.dispatchRequest(() -> {});
+      requestManager.dispatchResponse(mockMessage(peer));
+      expectedSize = Math.min(192, expectedSize + RequestManager.REQUEST_SIZE_INCREASE);
+      assertThat(requestManager.requestSize(192)).isEqualTo(expectedSize);
+    }
+    assertThat(requestManager.requestSize(500)).isEqualTo(500);
+  }
+
+  @Test
+  public void requestSizeIsNeverLessThanOne() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager =
+        new RequestManager(peer, (bytes, latencyMillis) -> {}, () -> 0L);
+
+    for (int i = 0; i < 10; i++) {
+      requestManager.dispatchRequest(requestManager.requestSize(4), () -> {});
+      requestManager.recordTimeout();
+    }
+    assertThat(requestManager.requestSize(4)).isEqualTo(1);
+  }
+
+  @Test
+  public void halvesRequestSizeOfTheRequestThatTimedOut() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager =
+        new RequestManager(peer, (bytes, latencyMillis) -> {}, () -> 0L);
+
+    requestManager.dispatchRequest(100, () -> {});
+    requestManager.dispatchRequest(10, () -> {});
+
+    // The oldest request is the first to time out.
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(50);
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(5);
+  }
+
+  @Test
+  public void halvesLimitOnTimeoutOfUnsizedRequest() throws Exception {
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager =
+        new RequestManager(peer, (bytes, latencyMillis) -> {}, () -> 0L);
+
+    requestManager.dispatchRequest(() -> {});
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(192);
+
+    requestManager.dispatchRequest(64, () -> {});
+    requestManager.recordTimeout();
+    requestManager.dispatchRequest(() -> {});
+    requestManager.recordTimeout();
+    assertThat(requestManager.requestSize(192)).isEqualTo(16);
+  }
+
+  @Test
+  public void measuresLatencyAndThroughputOfResponses() throws Exception {
+    final EthPeer peer = createPeer();
+    final AtomicLong nanoTime = new AtomicLong();
+    final List<Long> recordedLatencies = new ArrayList<>();
+    final List<Integer> recordedSizes = new ArrayList<>();
+    final RequestManager requestManager =
+        new RequestManager(
+            peer,
+            (bytes, latencyMillis) -> {
+              recordedSizes.add(bytes);
+              recordedLatencies.add(latencyMillis);
+            },
+            nanoTime::get);
+
+    assertThat(requestManager.averageBytesPerSecond()).isZero();
+
+    requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    requestManager.dispatchResponse(messageOfSize(peer, 1000));
+
+    assertThat(requestManager.averageLatencyMillis()).isEqualTo(500d);
+    assertThat(requestManager.averageBytesPerSecond()).isEqualTo(2000d);
+    assertThat(recordedSizes).containsExactly(1000);
+    assertThat(recordedLatencies).containsExactly(500L);
+
+    requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    requestManager.dispatchResponse(messageOfSize(peer, 1000));
+
+    // Averages move a quarter of the way towards the new sample.
+    assertThat(requestManager.averageLatencyMillis()).isEqualTo(400d);
+    assertThat(requestManager.averageBytesPerSecond()).isEqualTo(4000d);
+
+    requestManager.dispatchRequest(() -> {});
+    requestManager.recordTimeout();
+    assertThat(requestManager.averageBytesPerSecond()).isEqualTo(2000d);
+  }
+
+  @Test
+  public void ignoresLateResponseToTimedOutRequest() throws Exception {
+    final EthPeer peer = createPeer();
+    final AtomicLong nanoTime = new AtomicLong();
+    final List<Long> recordedLatencies = new ArrayList<>();
+    final RequestManager requestManager =
+        new RequestManager(
+            peer, (bytes, latencyMillis) -> recordedLatencies.add(latencyMillis), nanoTime::get);
+
+    requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    requestManager.recordTimeout();
+    requestManager.dispatchRequest(() -> {});
+
+    // The answer to the request that timed out arrives late.
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+    requestManager.dispatchResponse(messageOfSize(peer, 1000));
+    assertThat(recordedLatencies).isEmpty();
+    assertThat(requestManager.averageLatencyMillis()).isZero();
+
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+    requestManager.dispatchResponse(messageOfSize(peer, 1000));
+    assertThat(recordedLatencies).containsExactly(500L);
+    assertThat(requestManager.averageLatencyMillis()).isEqualTo(500d);
+  }
+
+  @Test
+  public void stopsWaitingForLateResponseToTimedOutRequest() throws Exception {
+    final EthPeer peer = createPeer();
+    final AtomicLong nanoTime = new AtomicLong();
+    final List<Long> recordedLatencies = new ArrayList<>();
+    final RequestManager requestManager =
+        new RequestManager(
+            peer, (bytes, latencyMillis) -> recordedLatencies.add(latencyMillis), nanoTime::get);
+
+    requestManager.dispatchRequest(() -> {});
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    requestManager.recordTimeout();
+    requestManager.dispatchRequest(() -> {});
+
+    // The request that timed out is never answered, so this answers the second request.
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+    requestManager.dispatchResponse(messageOfSize(peer, 1000));
+    assertThat(recordedLatencies).containsExactly(300L);
+  }
+
+  private EthMessage messageOfSize(final EthPeer peer, final int size) {
+    return new EthMessage(peer, new RawMessage(1, BytesValue.wrap(new byte[size])));
+  }
+
   private EthMessage mockMessage(final EthPeer peer) {
     return new EthMessage(peer, new RawMessage(1, BytesValue.EMPTY));
   }
@@ -44,6 +44,7 @@ import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.OperationTimer;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.Collections;
@@ -431,7 +432,7 @@ public class BlockPropagationManagerTest {
     final Responder responder = RespondingEthPeer.blockchainResponder(fullBlockchain);
     peer.respondWhile(responder, peer::hasOutstandingRequests);
 
-    verify(propManager, times(0)).importOrSavePendingBlock(any());
+    verify(propManager, times(0)).importOrSavePendingBlock(any(), any());
     assertThat(blockchain.contains(oldBlock.getHash())).isFalse();
   }
 
@@ -457,7 +458,7 @@ public class BlockPropagationManagerTest {
     final Responder responder = RespondingEthPeer.blockchainResponder(fullBlockchain);
     peer.respondWhile(responder, peer::hasOutstandingRequests);
 
-    verify(propManager, times(0)).importOrSavePendingBlock(any());
+    verify(propManager, times(0)).importOrSavePendingBlock(any(), any());
     assertThat(blockchain.contains(oldBlock.getHash())).isFalse();
   }
 
@@ -546,7 +547,8 @@ public class BlockPropagationManagerTest {
     when(ethScheduler.scheduleSyncWorkerTask(any(Supplier.class)))
         .thenReturn(new CompletableFuture<>());
     final EthContext ethContext =
-        new EthContext("eth", new EthPeers("eth"), new EthMessages(), ethScheduler);
+        new EthContext(
+            "eth", new EthPeers("eth", new NoOpMetricsSystem()), new EthMessages(), ethScheduler);
     final BlockPropagationManager<Void> blockPropagationManager =
         new BlockPropagationManager<>(
             syncConfig,
@@ -559,9 +561,10 @@ public class BlockPropagationManagerTest {
 
     blockchainUtil.importFirstBlocks(2);
     final Block nextBlock = blockchainUtil.getBlock(2);
+    final BytesValue peerId = BytesValue.fromHexString("0x01");
 
-    blockPropagationManager.importOrSavePendingBlock(nextBlock);
-    blockPropagationManager.importOrSavePendingBlock(nextBlock);
+    blockPropagationManager.importOrSavePendingBlock(nextBlock, peerId);
+    blockPropagationManager.importOrSavePendingBlock(nextBlock, peerId);
 
     verify(ethScheduler, times(1)).scheduleSyncWorkerTask(any(Supplier.class));
   }
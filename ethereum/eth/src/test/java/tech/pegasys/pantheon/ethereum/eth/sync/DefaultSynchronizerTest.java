@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.sync.fastsync.FastSynchronizer;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class DefaultSynchronizerTest {
+
+  @SuppressWarnings("unchecked")
+  private final BlockPropagationManager<Void> blockPropagationManager =
+      mock(BlockPropagationManager.class);
+
+  @SuppressWarnings("unchecked")
+  private final Downloader<Void> downloader = mock(Downloader.class);
+
+  @SuppressWarnings("unchecked")
+  private final FastSynchronizer<Void> fastSynchronizer = mock(FastSynchronizer.class);
+
+  private final DefaultSynchronizer<Void> synchronizer =
+      new DefaultSynchronizer<>(
+          EthProtocolManagerTestUtil.create().ethContext(),
+          mock(SyncState.class),
+          blockPropagationManager,
+          downloader,
+          Optional.of(fastSynchronizer));
+
+  @Test
+  public void startsFullSyncOnceFastSyncCompletes() {
+    final CompletableFuture<Void> fastSyncResult = new CompletableFuture<>();
+    when(fastSynchronizer.start()).thenReturn(fastSyncResult);
+
+    synchronizer.start();
+    verify(downloader, never()).start();
+
+    fastSyncResult.complete(null);
+    verify(blockPropagationManager).start();
+    verify(downloader).start();
+  }
+
+  @Test
+  public void retriesFastSyncWhenItFails() {
+    final CompletableFuture<Void> failedFastSync = new CompletableFuture<>();
+    failedFastSync.completeExceptionally(new RuntimeException("Storage failure"));
+    when(fastSynchronizer.start())
+        .thenReturn(failedFastSync)
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    synchronizer.start();
+
+    verify(fastSynchronizer, times(2)).start();
+    verify(blockPropagationManager).start();
+    verify(downloader).start();
+  }
+}
@@ -36,6 +36,7 @@ import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
 import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.BlockchainSetupUtil;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.messages.GetBlockHeadersMessage;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
@@ -89,7 +90,13 @@ public class DownloaderTest {
 
   private Downloader<?> downloader(final SynchronizerConfiguration syncConfig) {
     return new Downloader<>(
-        syncConfig, protocolSchedule, protocolContext, ethContext, syncState, ethTashsTimer);
+        syncConfig,
+        protocolSchedule,
+        protocolContext,
+        ethContext,
+        syncState,
+        ethTashsTimer,
+        new SyncMetrics(new NoOpMetricsSystem()));
   }
 
   private Downloader<?> downloader() {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.fastsync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryBlockchain;
+import static tech.pegasys.pantheon.ethereum.core.InMemoryStorageProvider.createInMemoryWorldStateArchive;
+
+import tech.pegasys.pantheon.config.GenesisConfigFile;
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
+import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolScheduleFactory;
+import tech.pegasys.pantheon.ethereum.mainnet.headervalidationrules.AncestryValidationRule;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class FastSyncChainDownloaderTest {
+
+  private static final int PIVOT_BLOCK_NUMBER = 15;
+
+  // Only the links between headers are checked, so the test chains need no proof of work.
+  private final ProtocolSchedule<Void> protocolSchedule =
+      new ProtocolScheduleFactory<>(
+              new NoOpMetricsSystem(),
+              GenesisConfigFile.DEFAULT.getConfigOptions(),
+              1,
+              specBuilder ->
+                  specBuilder.blockHeaderValidatorBuilder(
+                      difficultyCalculator ->
+                          new BlockHeaderValidator.Builder<Void>()
+                              .addRule(new AncestryValidationRule())
+                              .build()))
+          .createProtocolSchedule();
+  private final SynchronizerConfiguration syncConfig =
+      SynchronizerConfiguration.builder().downloaderChainSegmentSize(4).build();
+
+  private final Block genesisBlock = block(null, BytesValue.EMPTY);
+  private final MutableBlockchain localBlockchain = createInMemoryBlockchain(genesisBlock);
+  private final MutableBlockchain otherBlockchain =
+      chain(0, PIVOT_BLOCK_NUMBER + 5, BytesValue.EMPTY);
+  private final BlockHeader pivotBlockHeader =
+      otherBlockchain.getBlockHeader(PIVOT_BLOCK_NUMBER).get();
+  private final EthProtocolManager ethProtocolManager =
+      EthProtocolManagerTestUtil.create(localBlockchain);
+
+  @Test
+  public void downloadsChainToPivotBlock() {
+    final RespondingEthPeer peer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, otherBlockchain);
+    final Responder responder = RespondingEthPeer.blockchainResponder(otherBlockchain);
+
+    final CompletableFuture<Void> result = downloader().downloadChain(pivotBlockHeader);
+    peer.respondWhile(responder, () -> !result.isDone());
+
+    assertThat(result).isCompleted();
+    assertChainDownloadedToPivotBlock();
+  }
+
+  @Test
+  public void doesNotAppendSegmentsFromForkedPeer() {
+    // The forked chain leaves the other chain after block 5 and is longer than it.
+    final MutableBlockchain forkedBlockchain = chain(5, PIVOT_BLOCK_NUMBER + 10, BytesValue.of(1));
+    final RespondingEthPeer forkedPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, forkedBlockchain);
+    final Responder forkedResponder = RespondingEthPeer.blockchainResponder(forkedBlockchain);
+    final RespondingEthPeer peer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, otherBlockchain);
+    final Responder responder = RespondingEthPeer.blockchainResponder(otherBlockchain);
+
+    final CompletableFuture<Void> result = downloader().downloadChain(pivotBlockHeader);
+    for (int i = 0; i < 100 && !result.isDone(); i++) {
+      forkedPeer.respond(forkedResponder);
+      peer.respond(responder);
+    }
+
+    assertThat(result).isCompleted();
+    assertChainDownloadedToPivotBlock();
+  }
+
+  private FastSyncChainDownloader<Void> downloader() {
+    return new FastSyncChainDownloader<>(
+        syncConfig,
+        protocolSchedule,
+        new ProtocolContext<>(localBlockchain, createInMemoryWorldStateArchive(), null),
+        ethProtocolManager.ethContext(),
+        NoOpMetricsSystem.NO_OP_LABELLED_TIMER);
+  }
+
+  private void assertChainDownloadedToPivotBlock() {
+    assertThat(localBlockchain.getChainHeadHash()).isEqualTo(pivotBlockHeader.getHash());
+    for (long number = 1; number <= PIVOT_BLOCK_NUMBER; number++) {
+      assertThat(localBlockchain.getBlockHashByNumber(number))
+          .isEqualTo(otherBlockchain.getBlockHashByNumber(number));
+    }
+  }
+
+  /**
+   * Creates a chain that shares the blocks of the other chain up to the given block number and is
+   * then extended with new blocks up to the given length.
+   */
+  private MutableBlockchain chain(
+      final long sharedBlockNumber, final long chainHeadNumber, final BytesValue extraData) {
+    final MutableBlockchain blockchain = createInMemoryBlockchain(genesisBlock);
+    for (long number = 1; number <= sharedBlockNumber; number++) {
+      appendBlock(
+          blockchain, new Block(otherBlockchain.getBlockHeader(number).get(), BlockBody.empty()));
+    }
+    while (blockchain.getChainHeadBlockNumber() < chainHeadNumber) {
+      appendBlock(blockchain, block(blockchain.getChainHeadHeader(), extraData));
+    }
+    return blockchain;
+  }
+
+  private static void appendBlock(final MutableBlockchain blockchain, final Block block) {
+    blockchain.appendBlock(block, Collections.emptyList());
+  }
+
+  /** Creates an empty block, so that its body and receipts need not be downloaded. */
+  private static Block block(final BlockHeader parent, final BytesValue extraData) {
+    final BlockHeaderTestFixture header =
+        new BlockHeaderTestFixture()
+            .difficulty(UInt256.ONE)
+            .transactionsRoot(Hash.EMPTY_TRIE_HASH)
+            .receiptsRoot(Hash.EMPTY_TRIE_HASH)
+            .extraData(extraData);
+    if (parent != null) {
+      header.number(parent.getNumber() + 1).parentHash(parent.getHash());
+    }
+    return new Block(header.buildHeader(), BlockBody.empty());
+  }
+}
@@ -16,6 +16,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import tech.pegasys.pantheon.ethereum.core.Block;
 import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.Observation;
+import tech.pegasys.pantheon.metrics.prometheus.PrometheusMetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -27,6 +32,10 @@ import org.junit.Test;
 
 public class PendingBlocksTest {
 
+  private static final BytesValue PEER_A = BytesValue.fromHexString("0x0a");
+  private static final BytesValue PEER_B = BytesValue.fromHexString("0x0b");
+
+  private final MetricsSystem metricsSystem = PrometheusMetricsSystem.init();
   private PendingBlocks pendingBlocks;
   private BlockDataGenerator gen;
 
@@ -122,4 +131,71 @@ public class PendingBlocksTest {
       assertThat(pendingBlocks.childrenOf(block.getHeader().getParentHash()).size()).isEqualTo(1);
     }
   }
+
+  @Test
+  public void evictsBlocksFurthestAheadWhenFull() {
+    final PendingBlocks pendingBlocks = new PendingBlocks(3, Long.MAX_VALUE, 10, metricsSystem);
+    final List<Block> blocks = gen.blockSequence(5);
+
+    pendingBlocks.registerPendingBlock(blocks.get(1), PEER_A);
+    pendingBlocks.registerPendingBlock(blocks.get(3), PEER_A);
+    pendingBlocks.registerPendingBlock(blocks.get(4), PEER_A);
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(2), PEER_A)).isTrue();
+
+    assertThat(pendingBlocks.contains(blocks.get(4).getHash())).isFalse();
+    assertThat(pendingBlocks.contains(blocks.get(1).getHash())).isTrue();
+    assertThat(pendingBlocks.contains(blocks.get(2).getHash())).isTrue();
+    assertThat(pendingBlocks.contains(blocks.get(3).getHash())).isTrue();
+
+    // A block further ahead than all pending blocks is not worth evicting any of them.
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(4), PEER_A)).isFalse();
+    assertThat(pendingBlocks.contains(blocks.get(4).getHash())).isFalse();
+
+    assertThat(observe("pending_blocks")).isEqualTo(3);
+    assertThat(observe("pending_blocks_evicted_total", "capacity")).isEqualTo(2);
+  }
+
+  @Test
+  public void limitsTotalSizeOfPendingBlocks() {
+    final List<Block> blocks = gen.blockSequence(3);
+    final long maxBytes = blocks.get(0).calculateSize() + blocks.get(1).calculateSize();
+    final PendingBlocks pendingBlocks = new PendingBlocks(10, maxBytes, 10, metricsSystem);
+
+    pendingBlocks.registerPendingBlock(blocks.get(0), PEER_A);
+    pendingBlocks.registerPendingBlock(blocks.get(1), PEER_A);
+    assertThat(observe("pending_blocks_bytes")).isEqualTo(maxBytes);
+
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(2), PEER_A)).isFalse();
+    assertThat(pendingBlocks.contains(blocks.get(2).getHash())).isFalse();
+
+    pendingBlocks.deregisterPendingBlock(blocks.get(0));
+    assertThat(observe("pending_blocks_bytes")).isEqualTo(blocks.get(1).calculateSize());
+  }
+
+  @Test
+  public void limitsBlocksPerPeer() {
+    final PendingBlocks pendingBlocks = new PendingBlocks(10, Long.MAX_VALUE, 2, metricsSystem);
+    final List<Block> blocks = gen.blockSequence(4);
+
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(0), PEER_A)).isTrue();
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(1), PEER_A)).isTrue();
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(2), PEER_A)).isFalse();
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(2), PEER_B)).isTrue();
+    assertThat(observe("pending_blocks_evicted_total", "peer_quota")).isEqualTo(1);
+
+    // Blocks that are no longer pending don't count against the quota.
+    pendingBlocks.purgeBlocksOlderThan(blocks.get(1).getHeader().getNumber());
+    assertThat(pendingBlocks.registerPendingBlock(blocks.get(3), PEER_A)).isTrue();
+  }
+
+  private double observe(final String metricName, final String... labels) {
+    return metricsSystem
+        .getMetrics(MetricCategory.SYNCHRONIZER)
+        .filter(observation -> observation.getMetricName().equals(metricName))
+        .filter(observation -> observation.getLabels().equals(Arrays.asList(labels)))
+        .map(Observation::getValue)
+        .map(Double.class::cast)
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("No observation of " + metricName));
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics.PipelineStage;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics.StageTracker;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.Observation;
+import tech.pegasys.pantheon.metrics.prometheus.PrometheusMetricsSystem;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SyncMetricsTest {
+
+  private final BlockDataGenerator gen = new BlockDataGenerator();
+  private final MetricsSystem metricsSystem = PrometheusMetricsSystem.init();
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final SyncMetrics syncMetrics = new SyncMetrics(metricsSystem, nanoTime::get);
+
+  @Test
+  public void countsImportedBlocksGasAndTransactions() {
+    final List<Block> blocks = gen.blockSequence(5);
+    final long gas = blocks.stream().mapToLong(b -> b.getHeader().getGasUsed()).sum();
+    final long transactions =
+        blocks.stream().mapToLong(b -> b.getBody().getTransactions().size()).sum();
+
+    syncMetrics.recordImportedBlocks(blocks);
+
+    assertThat(observe("imported_blocks_total")).isEqualTo(5);
+    assertThat(observe("imported_gas_total")).isEqualTo(gas);
+    assertThat(observe("imported_transactions_total")).isEqualTo(transactions);
+    assertThat(observe("import_blocks_per_second")).isEqualTo(5d / SyncMetrics.RATE_WINDOW_SECONDS);
+    assertThat(observe("import_gas_per_second"))
+        .isEqualTo((double) gas / SyncMetrics.RATE_WINDOW_SECONDS);
+    assertThat(observe("import_transactions_per_second"))
+        .isEqualTo((double) transactions / SyncMetrics.RATE_WINDOW_SECONDS);
+  }
+
+  @Test
+  public void ratesOnlyIncludeRecentImports() {
+    syncMetrics.recordImportedBlocks(gen.blockSequence(30));
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(SyncMetrics.RATE_WINDOW_SECONDS / 2));
+    syncMetrics.recordImportedBlocks(gen.blockSequence(60));
+    assertThat(syncMetrics.blocksPerSecond()).isEqualTo(90d / SyncMetrics.RATE_WINDOW_SECONDS);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(SyncMetrics.RATE_WINDOW_SECONDS / 2 + 1));
+    assertThat(syncMetrics.blocksPerSecond()).isEqualTo(60d / SyncMetrics.RATE_WINDOW_SECONDS);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(SyncMetrics.RATE_WINDOW_SECONDS));
+    assertThat(syncMetrics.blocksPerSecond()).isZero();
+    assertThat(observe("imported_blocks_total")).isEqualTo(90);
+  }
+
+  @Test
+  public void recordingImportsDropsSamplesOutsideTheWindow() {
+    for (int i = 0; i < 10; i++) {
+      syncMetrics.recordImportedBlocks(gen.blockSequence(1));
+      nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(SyncMetrics.RATE_WINDOW_SECONDS + 1));
+    }
+    // Rates were never read, so only recording the imports can have pruned the old samples.
+    assertThat(syncMetrics.recentImportSampleCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void tracksQueueDepthOfPipelineStages() {
+    final StageTracker first = syncMetrics.enterStage(PipelineStage.DOWNLOAD_BODIES);
+    final StageTracker second = syncMetrics.enterStage(PipelineStage.DOWNLOAD_BODIES);
+    syncMetrics.enterStage(PipelineStage.IMPORT_BLOCKS);
+    assertThat(observe("pipeline_download_bodies_queue_depth")).isEqualTo(2);
+    assertThat(observe("pipeline_import_blocks_queue_depth")).isEqualTo(1);
+    assertThat(observe("pipeline_download_headers_queue_depth")).isZero();
+
+    first.inputReady();
+    first.started();
+    first.completed();
+    // A chunk whose input failed leaves the stage without being processed.
+    second.completed();
+
+    assertThat(observe("pipeline_download_bodies_queue_depth")).isZero();
+    assertThat(observe("pipeline_import_blocks_queue_depth")).isEqualTo(1);
+  }
+
+  private double observe(final String metricName) {
+    return metricsSystem
+        .getMetrics(MetricCategory.SYNCHRONIZER)
+        .filter(observation -> observation.getMetricName().equals(metricName))
+        .map(Observation::getValue)
+        .map(Double.class::cast)
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("No observation of " + metricName));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
+import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.RetryingMessageTaskTest;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class DownloadReceiptsTaskTest
+    extends RetryingMessageTaskTest<List<List<TransactionReceipt>>> {
+
+  private final List<BlockHeader> requestedHeaders = new ArrayList<>();
+
+  @Override
+  protected List<List<TransactionReceipt>> generateDataToBeRequested() {
+    // Setup data to be requested and expected response
+    final List<List<TransactionReceipt>> receipts = new ArrayList<>();
+    requestedHeaders.clear();
+    for (long i = 0; i < 6; i++) {
+      final BlockHeader header = blockchain.getBlockHeader(10 + i).get();
+      requestedHeaders.add(header);
+      receipts.add(blockchain.getTxReceipts(header.getHash()).get());
+    }
+    return receipts;
+  }
+
+  @Override
+  protected EthTask<List<List<TransactionReceipt>>> createTask(
+      final List<List<TransactionReceipt>> requestedData) {
+    return DownloadReceiptsTask.forHeaders(
+        ethContext, requestedHeaders, 2, maxRetries, NoOpMetricsSystem.NO_OP_LABELLED_TIMER);
+  }
+
+  @Test
+  public void requestsReceiptsFromPeersInParallel() throws Exception {
+    final RespondingEthPeer peer1 = EthProtocolManagerTestUtil.createPeer(ethProtocolManager);
+    final RespondingEthPeer peer2 = EthProtocolManagerTestUtil.createPeer(ethProtocolManager);
+    final List<List<TransactionReceipt>> requestedData = generateDataToBeRequested();
+
+    final CompletableFuture<List<List<TransactionReceipt>>> future =
+        createTask(requestedData).run();
+
+    assertThat(peer1.peekNextOutgoingRequest()).isPresent();
+    assertThat(peer2.peekNextOutgoingRequest()).isPresent();
+    final Responder responder = RespondingEthPeer.blockchainResponder(blockchain);
+    peer1.respond(responder);
+    assertThat(future).isNotDone();
+    peer2.respond(responder);
+    assertThat(future).isDone();
+    assertThat(future.get()).isEqualTo(requestedData);
+  }
+
+  @Test
+  public void completesWithoutRequestsWhenBlocksHaveNoReceipts() throws Exception {
+    final List<BlockHeader> headers =
+        Collections.singletonList(
+            blockchain.getBlockHeader(BlockHeader.GENESIS_BLOCK_NUMBER).get());
+    assertThat(headers.get(0).getReceiptsRoot()).isEqualTo(Hash.EMPTY_TRIE_HASH);
+
+    final CompletableFuture<List<List<TransactionReceipt>>> future =
+        DownloadReceiptsTask.forHeaders(
+                ethContext, headers, 2, maxRetries, NoOpMetricsSystem.NO_OP_LABELLED_TIMER)
+            .run();
+
+    assertThat(future).isDone();
+    assertThat(future.get()).containsExactly(Collections.emptyList());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator.BlockOptions;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthTask;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
+import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.AbstractMessageTaskTest;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class FillHeaderSkeletonTaskTest
+    extends AbstractMessageTaskTest<List<BlockHeader>, List<BlockHeader>> {
+
+  @Override
+  protected List<BlockHeader> generateDataToBeRequested() {
+    return LongStream.range(1, 13).mapToObj(this::getHeaderAtNumber).collect(Collectors.toList());
+  }
+
+  @Override
+  protected EthTask<List<BlockHeader>> createTask(final List<BlockHeader> requestedData) {
+    return FillHeaderSkeletonTask.forCheckpoints(
+        protocolSchedule, protocolContext, ethContext, skeleton(0, 12, 4), ethTasksTimer);
+  }
+
+  @Override
+  protected void assertResultMatchesExpectation(
+      final List<BlockHeader> requestedData,
+      final List<BlockHeader> response,
+      final EthPeer respondingPeer) {
+    assertThat(response).isEqualTo(requestedData);
+  }
+
+  @Test
+  public void fillsGapsFromAllPeersConcurrently() throws Exception {
+    final Responder responder = RespondingEthPeer.blockchainResponder(blockchain);
+    final List<RespondingEthPeer> peers =
+        Arrays.asList(
+            EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000),
+            EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000),
+            EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000));
+
+    final FillHeaderSkeletonTask<Void> task =
+        FillHeaderSkeletonTask.forCheckpoints(
+            protocolSchedule, protocolContext, ethContext, skeleton(0, 12, 4), ethTasksTimer);
+    final CompletableFuture<List<BlockHeader>> future = task.run();
+
+    // One gap is requested from each peer
+    peers.forEach(peer -> assertThat(peer.peekNextOutgoingRequest()).isPresent());
+    peers.forEach(peer -> peer.respond(responder));
+
+    assertThat(future).isDone();
+    assertThat(future.get()).isEqualTo(generateDataToBeRequested());
+    assertThat(task.gapHeaders(1).get())
+        .containsExactly(
+            getHeaderAtNumber(5), getHeaderAtNumber(6), getHeaderAtNumber(7), getHeaderAtNumber(8));
+  }
+
+  @Test
+  public void reassignsGapFromUnhelpfulPeer() throws Exception {
+    final RespondingEthPeer peer1 = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    final RespondingEthPeer peer2 = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+
+    final CompletableFuture<List<BlockHeader>> future =
+        FillHeaderSkeletonTask.forCheckpoints(
+                protocolSchedule, protocolContext, ethContext, skeleton(0, 4, 4), ethTasksTimer)
+            .run();
+
+    // The single gap goes to one of the peers, which keeps sending nothing
+    final boolean firstPeerAssigned = peer1.peekNextOutgoingRequest().isPresent();
+    final RespondingEthPeer unhelpfulPeer = firstPeerAssigned ? peer1 : peer2;
+    final RespondingEthPeer otherPeer = firstPeerAssigned ? peer2 : peer1;
+    assertThat(otherPeer.peekNextOutgoingRequest()).isEmpty();
+    unhelpfulPeer.respondTimes(RespondingEthPeer.emptyResponder(), 2);
+    assertThat(otherPeer.peekNextOutgoingRequest()).isPresent();
+    assertThat(future).isNotDone();
+
+    otherPeer.respondWhile(
+        RespondingEthPeer.blockchainResponder(blockchain), () -> !future.isDone());
+    assertThat(future.get())
+        .isEqualTo(
+            LongStream.range(1, 5).mapToObj(this::getHeaderAtNumber).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void failsWhenGapDoesNotConnectToCheckpoint() {
+    final RespondingEthPeer peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    final BlockHeader fakeCheckpoint =
+        new BlockDataGenerator().header(4, BlockOptions.create().setBlockNumber(4L));
+
+    final CompletableFuture<List<BlockHeader>> future =
+        FillHeaderSkeletonTask.forCheckpoints(
+                protocolSchedule,
+                protocolContext,
+                ethContext,
+                Arrays.asList(fakeCheckpoint, getHeaderAtNumber(8)),
+                ethTasksTimer)
+            .run();
+    peer.respondWhile(RespondingEthPeer.blockchainResponder(blockchain), () -> !future.isDone());
+
+    assertThat(future).isCompletedExceptionally();
+    assertThatThrownBy(future::get).hasCauseInstanceOf(InvalidBlockException.class);
+  }
+
+  private List<BlockHeader> skeleton(final long first, final long last, final long gapSize) {
+    return LongStream.rangeClosed(first, last)
+        .filter(number -> (number - first) % gapSize == 0)
+        .mapToObj(this::getHeaderAtNumber)
+        .collect(Collectors.toList());
+  }
+
+  private BlockHeader getHeaderAtNumber(final long number) {
+    return blockchain.getBlockHeader(number).get();
+  }
+}
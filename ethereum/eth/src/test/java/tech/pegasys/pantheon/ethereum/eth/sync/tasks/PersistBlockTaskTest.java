@@ -19,7 +19,10 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
 import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
 import tech.pegasys.pantheon.ethereum.core.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
 import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.BlockchainSetupUtil;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
 import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
@@ -28,14 +31,17 @@ import tech.pegasys.pantheon.metrics.LabelledMetric;
 import tech.pegasys.pantheon.metrics.OperationTimer;
 import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.awaitility.Awaitility;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
 public class PersistBlockTaskTest {
@@ -44,6 +50,7 @@ public class PersistBlockTaskTest {
   private ProtocolSchedule<Void> protocolSchedule;
   private ProtocolContext<Void> protocolContext;
   private MutableBlockchain blockchain;
+  private EthScheduler ethScheduler;
   private final LabelledMetric<OperationTimer> ethTasksTimer =
       NoOpMetricsSystem.NO_OP_LABELLED_TIMER;
 
@@ -53,6 +60,7 @@ public class PersistBlockTaskTest {
     protocolSchedule = blockchainUtil.getProtocolSchedule();
     protocolContext = blockchainUtil.getProtocolContext();
     blockchain = blockchainUtil.getBlockchain();
+    ethScheduler = EthProtocolManagerTestUtil.create(blockchain).ethContext().getScheduler();
   }
 
   @Test
@@ -114,6 +122,7 @@ public class PersistBlockTaskTest {
         PersistBlockTask.forSequentialBlocks(
                 protocolSchedule,
                 protocolContext,
+                ethScheduler,
                 nextBlocks,
                 HeaderValidationMode.FULL,
                 ethTasksTimer)
@@ -128,6 +137,32 @@ public class PersistBlockTaskTest {
     }
   }
 
+  @Test
+  public void doesNotPrevalidateBlockSequenceImportedWithoutFullValidation() throws Exception {
+    blockchainUtil.importFirstBlocks(3);
+    final List<Block> nextBlocks =
+        Arrays.asList(blockchainUtil.getBlock(3), blockchainUtil.getBlock(4));
+    final EthScheduler scheduler = Mockito.spy(ethScheduler);
+
+    // Create task
+    final CompletableFuture<List<Block>> task =
+        PersistBlockTask.forSequentialBlocks(
+                protocolSchedule,
+                protocolContext,
+                scheduler,
+                nextBlocks,
+                HeaderValidationMode.SKIP_DETACHED,
+                ethTasksTimer)
+            .get();
+
+    Awaitility.await().atMost(30, SECONDS).until(task::isDone);
+
+    assertThat(task.isCompletedExceptionally()).isFalse();
+    assertThat(task.get()).isEqualTo(nextBlocks);
+    Mockito.verify(scheduler, Mockito.never())
+        .scheduleSyncWorkerTask(ArgumentMatchers.<Supplier<CompletableFuture<Object>>>any());
+  }
+
   @Test
   public void failsToImportInvalidBlockSequenceWhereSecondBlockFails() throws Exception {
     final BlockDataGenerator gen = new BlockDataGenerator();
@@ -144,6 +179,7 @@ public class PersistBlockTaskTest {
         PersistBlockTask.forSequentialBlocks(
                 protocolSchedule,
                 protocolContext,
+                ethScheduler,
                 nextBlocks,
                 HeaderValidationMode.FULL,
                 ethTasksTimer)
@@ -173,6 +209,7 @@ public class PersistBlockTaskTest {
         PersistBlockTask.forSequentialBlocks(
                 protocolSchedule,
                 protocolContext,
+                ethScheduler,
                 nextBlocks,
                 HeaderValidationMode.FULL,
                 ethTasksTimer)
@@ -186,6 +223,64 @@ public class PersistBlockTaskTest {
     assertThat(blockchain.contains(nextBlocks.get(1).getHash())).isFalse();
   }
 
+  @Test
+  public void failsToImportBlockSequenceWhereBodyDoesNotMatchHeader() throws Exception {
+    blockchainUtil.importFirstBlocks(3);
+    final Block block = blockchainUtil.getBlock(4);
+    final Block tamperedBlock =
+        new Block(
+            block.getHeader(),
+            new BlockBody(
+                block.getBody().getTransactions(),
+                Collections.singletonList(blockchainUtil.getBlock(1).getHeader())));
+    final List<Block> nextBlocks = Arrays.asList(blockchainUtil.getBlock(3), tamperedBlock);
+
+    // Create task
+    final CompletableFuture<List<Block>> task =
+        PersistBlockTask.forSequentialBlocks(
+                protocolSchedule,
+                protocolContext,
+                ethScheduler,
+                nextBlocks,
+                HeaderValidationMode.FULL,
+                ethTasksTimer)
+            .get();
+
+    Awaitility.await().atMost(30, SECONDS).until(task::isDone);
+
+    assertThat(task.isCompletedExceptionally()).isTrue();
+    assertThatThrownBy(task::get).hasCauseInstanceOf(InvalidBlockException.class);
+    assertThat(blockchain.contains(nextBlocks.get(0).getHash())).isTrue();
+    assertThat(blockchain.contains(tamperedBlock.getHash())).isFalse();
+  }
+
+  @Test
+  public void importsValidBlockSequenceToChainHead() throws Exception {
+    blockchainUtil.importFirstBlocks(3);
+    final List<Block> nextBlocks = new ArrayList<>();
+    for (int i = 3; i < blockchainUtil.blockCount(); i++) {
+      nextBlocks.add(blockchainUtil.getBlock(i));
+    }
+
+    // Create task
+    final CompletableFuture<List<Block>> task =
+        PersistBlockTask.forSequentialBlocks(
+                protocolSchedule,
+                protocolContext,
+                ethScheduler,
+                nextBlocks,
+                HeaderValidationMode.FULL,
+                ethTasksTimer)
+            .get();
+
+    Awaitility.await().atMost(30, SECONDS).until(task::isDone);
+
+    assertThat(task.isCompletedExceptionally()).isFalse();
+    assertThat(task.get()).isEqualTo(nextBlocks);
+    assertThat(blockchain.getChainHeadHash())
+        .isEqualTo(nextBlocks.get(nextBlocks.size() - 1).getHash());
+  }
+
   @Test
   public void importsValidUnorderedBlocks() throws Exception {
     blockchainUtil.importFirstBlocks(3);
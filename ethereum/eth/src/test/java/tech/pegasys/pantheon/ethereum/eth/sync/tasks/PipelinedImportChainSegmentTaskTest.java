@@ -31,9 +31,11 @@ import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
 import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.AbstractMessageTaskTest;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncMetrics;
 import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
 import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
 import tech.pegasys.pantheon.ethereum.p2p.wire.Capability;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -50,6 +52,8 @@ import org.junit.Test;
 public class PipelinedImportChainSegmentTaskTest
     extends AbstractMessageTaskTest<List<Block>, List<Block>> {
 
+  private final SyncMetrics syncMetrics = new SyncMetrics(new NoOpMetricsSystem());
+
   @Override
   protected List<Block> generateDataToBeRequested() {
     final long chainHead = blockchain.getChainHeadBlockNumber();
@@ -85,6 +89,7 @@ public class PipelinedImportChainSegmentTaskTest
         ethContext,
         1,
         ethTasksTimer,
+        syncMetrics,
         previousBlock.getHeader(),
         lastBlock.getHeader());
   }
@@ -119,6 +124,7 @@ public class PipelinedImportChainSegmentTaskTest
             ethContext,
             1,
             ethTasksTimer,
+            syncMetrics,
             firstBlock.getHeader(),
             secondBlock.getHeader());
 
@@ -169,6 +175,7 @@ public class PipelinedImportChainSegmentTaskTest
             ethContext,
             1,
             ethTasksTimer,
+            syncMetrics,
             fakeFirstBlock.getHeader(),
             thirdBlock.getHeader());
 
@@ -218,7 +225,13 @@ public class PipelinedImportChainSegmentTaskTest
             protocolContext.getConsensusState());
     final EthTask<List<Block>> task =
         PipelinedImportChainSegmentTask.forCheckpoints(
-            protocolSchedule, modifiedContext, ethContext, 1, ethTasksTimer, checkpointHeaders);
+            protocolSchedule,
+            modifiedContext,
+            ethContext,
+            1,
+            ethTasksTimer,
+            syncMetrics,
+            checkpointHeaders);
 
     // Execute task and wait for response
     final AtomicReference<List<Block>> actualResult = new AtomicReference<>();
@@ -227,18 +240,16 @@ public class PipelinedImportChainSegmentTaskTest
     final CompletableFuture<List<Block>> future = task.run();
     final CountingResponder countingResponder = CountingResponder.wrap(responder);
 
-    // Import first segment's headers and bodies
-    respondingPeer.respondTimes(countingResponder, 2);
-    assertThat(countingResponder.getBlockHeaderMessages()).isEqualTo(1);
-    assertThat(countingResponder.getBlockBodiesMessages()).isEqualTo(1);
-    // Import second segment's headers and bodies
+    // Headers are filled in ahead of the import, but bodies are only requested one segment at a
+    // time. Import first segment's headers and bodies, fetching second segment's headers.
     respondingPeer.respondTimes(countingResponder, 2);
     assertThat(countingResponder.getBlockHeaderMessages()).isEqualTo(2);
-    assertThat(countingResponder.getBlockBodiesMessages()).isEqualTo(2);
-    // Import third segment's headers and bodies
-    respondingPeer.respondTimes(countingResponder, 2);
+    assertThat(countingResponder.getBlockBodiesMessages()).isEqualTo(1);
+    // Import second segment's bodies, fetching third segment's headers and bodies
+    respondingPeer.respondTimes(countingResponder, 3);
     assertThat(countingResponder.getBlockHeaderMessages()).isEqualTo(3);
     assertThat(countingResponder.getBlockBodiesMessages()).isEqualTo(3);
+    assertThat(respondingPeer.hasOutstandingRequests()).isFalse();
 
     future.whenComplete(
         (result, error) -> {
@@ -274,7 +285,13 @@ public class PipelinedImportChainSegmentTaskTest
             protocolContext.getConsensusState());
     final EthTask<List<Block>> task =
         PipelinedImportChainSegmentTask.forCheckpoints(
-            protocolSchedule, modifiedContext, ethContext, 2, ethTasksTimer, checkpointHeaders);
+            protocolSchedule,
+            modifiedContext,
+            ethContext,
+            2,
+            ethTasksTimer,
+            syncMetrics,
+            checkpointHeaders);
 
     // Execute task and wait for response
     final AtomicReference<List<Block>> actualResult = new AtomicReference<>();
@@ -334,7 +351,13 @@ public class PipelinedImportChainSegmentTaskTest
             protocolContext.getConsensusState());
     final EthTask<List<Block>> task =
         PipelinedImportChainSegmentTask.forCheckpoints(
-            protocolSchedule, modifiedContext, ethContext, 3, ethTasksTimer, checkpointHeaders);
+            protocolSchedule,
+            modifiedContext,
+            ethContext,
+            3,
+            ethTasksTimer,
+            syncMetrics,
+            checkpointHeaders);
 
     // Execute task and wait for response
     final AtomicReference<List<Block>> actualResult = new AtomicReference<>();
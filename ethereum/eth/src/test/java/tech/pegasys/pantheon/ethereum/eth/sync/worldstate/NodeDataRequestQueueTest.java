@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.NodeDataRequestQueue.Task;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class NodeDataRequestQueueTest {
+
+  private final InMemoryKeyValueStorage storage = new InMemoryKeyValueStorage();
+
+  private final NodeDataRequest accountRequest =
+      NodeDataRequest.createAccountTrieNodeRequest(Hash.hash(BytesValue.of(1)));
+  private final NodeDataRequest storageRequest =
+      NodeDataRequest.createStorageTrieNodeRequest(Hash.hash(BytesValue.of(2)));
+  private final NodeDataRequest codeRequest =
+      NodeDataRequest.createCodeRequest(Hash.hash(BytesValue.of(3)));
+
+  @Test
+  public void returnsRequestsInOrder() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest, storageRequest));
+    queue.enqueue(asList(codeRequest));
+
+    assertThat(requests(queue.dequeue(2))).containsExactly(accountRequest, storageRequest);
+    assertThat(requests(queue.dequeue(2))).containsExactly(codeRequest);
+    assertThat(queue.dequeue(2)).isEmpty();
+  }
+
+  @Test
+  public void isEmptyOnlyOnceAllRequestsAreCompleted() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    assertThat(queue.isEmpty()).isTrue();
+
+    queue.enqueue(asList(accountRequest));
+    final List<Task> tasks = queue.dequeue(1);
+    assertThat(queue.isEmpty()).isFalse();
+
+    queue.markCompleted(tasks);
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void returnsFailedRequestsFirst() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest, storageRequest, codeRequest));
+    final List<Task> tasks = queue.dequeue(1);
+
+    queue.markFailed(tasks);
+
+    assertThat(requests(queue.dequeue(3)))
+        .containsExactly(accountRequest, storageRequest, codeRequest);
+  }
+
+  @Test
+  public void resumesIncompleteRequestsFromStorage() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest, storageRequest, codeRequest));
+    final List<Task> tasks = queue.dequeue(2);
+    queue.markCompleted(tasks.subList(1, 2));
+
+    final NodeDataRequestQueue reloadedQueue = new NodeDataRequestQueue(storage);
+
+    assertThat(requests(reloadedQueue.dequeue(3))).containsExactly(accountRequest, codeRequest);
+  }
+
+  @Test
+  public void rewindReturnsIncompleteRequests() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest, storageRequest, codeRequest));
+    final List<Task> tasks = queue.dequeue(2);
+    queue.markCompleted(tasks.subList(1, 2));
+
+    queue.rewind();
+
+    assertThat(requests(queue.dequeue(3))).containsExactly(accountRequest, codeRequest);
+  }
+
+  @Test
+  public void storesWhetherStoredChildrenAreChecked() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest.checkingStoredChildren(), storageRequest));
+
+    final List<NodeDataRequest> requests = requests(new NodeDataRequestQueue(storage).dequeue(2));
+
+    assertThat(requests.get(0).checksStoredChildren()).isTrue();
+    assertThat(requests.get(1).checksStoredChildren()).isFalse();
+  }
+
+  @Test
+  public void clearRemovesAllRequestsFromStorage() {
+    final NodeDataRequestQueue queue = new NodeDataRequestQueue(storage);
+    queue.enqueue(asList(accountRequest, storageRequest));
+    queue.dequeue(1);
+
+    queue.clear();
+
+    assertThat(storage.entries()).isEmpty();
+    assertThat(new NodeDataRequestQueue(storage).isEmpty()).isTrue();
+  }
+
+  private static List<NodeDataRequest> requests(final List<Task> tasks) {
+    return tasks.stream().map(Task::getRequest).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldState;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetNodeDataMessage;
+import tech.pegasys.pantheon.ethereum.eth.messages.NodeDataMessage;
+import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
+import tech.pegasys.pantheon.ethereum.storage.keyvalue.KeyValueStorageWorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorldStateDownloaderTest {
+
+  private static final int ACCOUNT_COUNT = 50;
+  private static final int MAX_REQUESTS_WITHOUT_PROGRESS = 3;
+
+  private final WorldStateStorage remoteStorage =
+      new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+  private final WorldStateStorage localStorage =
+      new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+  private final KeyValueStorage queueStorage = new InMemoryKeyValueStorage();
+
+  private EthProtocolManager ethProtocolManager;
+  private RespondingEthPeer peer;
+  private BlockHeader header;
+
+  @Before
+  public void setUp() {
+    final MutableWorldState worldState = new WorldStateArchive(remoteStorage).getMutable();
+    final WorldUpdater updater = worldState.updater();
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final MutableAccount account = updater.createAccount(address(i), i, Wei.of(1000 + i));
+      if (i % 3 == 0) {
+        account.setCode(BytesValue.of(0x60, i, 0x60, 0x00, 0x55));
+      }
+      if (i % 5 == 0) {
+        account.setStorageValue(UInt256.of(1), UInt256.of(i + 1));
+        account.setStorageValue(UInt256.of(2), UInt256.of(i + 2));
+      }
+    }
+    updater.commit();
+    worldState.persist();
+    header = new BlockHeaderTestFixture().number(10).stateRoot(worldState.rootHash()).buildHeader();
+
+    ethProtocolManager = EthProtocolManagerTestUtil.create();
+    peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 10);
+  }
+
+  @Test
+  public void downloadsCompleteWorldState() {
+    final CompletableFuture<Void> result = downloader().run(header);
+    peer.respondWhile(nodeDataResponder(), () -> !result.isDone());
+
+    assertThat(result).isCompleted();
+    assertWorldStateDownloaded();
+  }
+
+  @Test
+  public void resumesInterruptedDownload() {
+    final CompletableFuture<Void> firstAttempt = downloader().run(header);
+    peer.respondTimes(nodeDataResponder(), 2);
+    assertThat(firstAttempt).isNotDone();
+
+    // Stop the first download, then let a new downloader read the remaining requests back from
+    // storage.
+    firstAttempt.cancel(false);
+    ethProtocolManager.handleDisconnect(
+        peer.getPeerConnection(), DisconnectReason.TOO_MANY_PEERS, true);
+    final RespondingEthPeer newPeer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 10);
+    final CompletableFuture<Void> secondAttempt = downloader().run(header);
+    newPeer.respondWhile(nodeDataResponder(), () -> !secondAttempt.isDone());
+
+    assertThat(secondAttempt).isCompleted();
+    assertWorldStateDownloaded();
+  }
+
+  @Test
+  public void canBeRunAgainAfterBeingStopped() {
+    final WorldStateDownloader downloader = downloader();
+    final CompletableFuture<Void> firstAttempt = downloader.run(header);
+    peer.respondTimes(nodeDataResponder(), 2);
+    firstAttempt.cancel(false);
+
+    final CompletableFuture<Void> secondAttempt = downloader.run(header);
+    peer.respondWhile(nodeDataResponder(), () -> !secondAttempt.isDone());
+
+    assertThat(secondAttempt).isCompleted();
+    assertWorldStateDownloaded();
+  }
+
+  @Test
+  public void failsOncePeersStopProvidingNodes() {
+    final CompletableFuture<Void> result = downloader().run(header);
+    peer.respondTimes(nodeDataResponder(), 2);
+    peer.respondWhile(RespondingEthPeer.emptyResponder(), () -> !result.isDone());
+
+    assertThat(result).isCompletedExceptionally();
+    assertThatThrownBy(result::join).hasCauseInstanceOf(StalledDownloadException.class);
+  }
+
+  @Test
+  public void restartsWithNewStateRootWithoutRequestingStoredNodes() {
+    final WorldStateDownloader downloader = downloader();
+    final List<Hash> storedHashes = new ArrayList<>();
+    final CompletableFuture<Void> firstAttempt = downloader.run(header);
+    peer.respondTimes(recordingResponder(storedHashes), 2);
+    peer.respondWhile(RespondingEthPeer.emptyResponder(), () -> !firstAttempt.isDone());
+    assertThat(firstAttempt).isCompletedExceptionally();
+
+    final MutableWorldState worldState =
+        new WorldStateArchive(remoteStorage).getMutable(header.getStateRoot());
+    final WorldUpdater updater = worldState.updater();
+    updater.getMutable(address(0)).setBalance(Wei.of(1));
+    updater.commit();
+    worldState.persist();
+    final BlockHeader newHeader =
+        new BlockHeaderTestFixture().number(20).stateRoot(worldState.rootHash()).buildHeader();
+
+    final List<Hash> requestedHashes = new ArrayList<>();
+    final CompletableFuture<Void> secondAttempt = downloader.restart(newHeader);
+    peer.respondWhile(recordingResponder(requestedHashes), () -> !secondAttempt.isDone());
+
+    assertThat(secondAttempt).isCompleted();
+    assertWorldStateDownloaded(newHeader);
+    assertThat(requestedHashes).doesNotContainAnyElementsOf(storedHashes);
+  }
+
+  @Test
+  public void doesNotRequestWorldStateAlreadyStored() {
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(),
+            remoteStorage,
+            new NodeDataRequestQueue(queueStorage),
+            10,
+            4,
+            MAX_REQUESTS_WITHOUT_PROGRESS,
+            NoOpMetricsSystem.NO_OP_LABELLED_TIMER);
+
+    assertThat(downloader.run(header)).isCompleted();
+    assertThat(peer.hasOutstandingRequests()).isFalse();
+  }
+
+  private WorldStateDownloader downloader() {
+    return new WorldStateDownloader(
+        ethProtocolManager.ethContext(),
+        localStorage,
+        new NodeDataRequestQueue(queueStorage),
+        10,
+        4,
+        MAX_REQUESTS_WITHOUT_PROGRESS,
+        NoOpMetricsSystem.NO_OP_LABELLED_TIMER);
+  }
+
+  private void assertWorldStateDownloaded() {
+    assertWorldStateDownloaded(header);
+  }
+
+  private void assertWorldStateDownloaded(final BlockHeader header) {
+    final WorldState expected = new WorldStateArchive(remoteStorage).get(header.getStateRoot());
+    final WorldState actual = new WorldStateArchive(localStorage).get(header.getStateRoot());
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final Address address = address(i);
+      assertThat(actual.get(address).getBalance()).isEqualTo(expected.get(address).getBalance());
+      assertThat(actual.get(address).getNonce()).isEqualTo(expected.get(address).getNonce());
+      assertThat(actual.get(address).getCode()).isEqualTo(expected.get(address).getCode());
+      assertThat(actual.get(address).getStorageValue(UInt256.of(1)))
+          .isEqualTo(expected.get(address).getStorageValue(UInt256.of(1)));
+      assertThat(actual.get(address).getStorageValue(UInt256.of(2)))
+          .isEqualTo(expected.get(address).getStorageValue(UInt256.of(2)));
+    }
+  }
+
+  private Responder nodeDataResponder() {
+    return (cap, msg) -> {
+      if (msg.getCode() != EthPV63.GET_NODE_DATA) {
+        return Optional.empty();
+      }
+      final List<BytesValue> nodeData = new ArrayList<>();
+      for (final Hash hash : GetNodeDataMessage.readFrom(msg).hashes()) {
+        // All world state entries share the same storage, keyed by hash.
+        remoteStorage.getAccountStateTrieNode(hash).ifPresent(nodeData::add);
+      }
+      return Optional.of(NodeDataMessage.create(nodeData));
+    };
+  }
+
+  private Responder recordingResponder(final List<Hash> requestedHashes) {
+    final Responder responder = nodeDataResponder();
+    return (cap, msg) -> {
+      if (msg.getCode() == EthPV63.GET_NODE_DATA) {
+        GetNodeDataMessage.readFrom(msg).hashes().forEach(requestedHashes::add);
+      }
+      return responder.respond(cap, msg);
+    };
+  }
+
+  private static Address address(final int index) {
+    return Address.fromHexString(String.format("0x%040x", index + 1));
+  }
+}
@@ -103,7 +103,7 @@ public class TestNode implements Closeable {
     final ProtocolContext<Void> protocolContext =
         new ProtocolContext<>(blockchain, worldStateArchive, null);
     final EthProtocolManager ethProtocolManager =
-        new EthProtocolManager(blockchain, 1, false, 1, 1);
+        new EthProtocolManager(blockchain, worldStateArchive, 1, false, 1, 1);
 
     final NetworkRunner networkRunner =
         NetworkRunner.builder()
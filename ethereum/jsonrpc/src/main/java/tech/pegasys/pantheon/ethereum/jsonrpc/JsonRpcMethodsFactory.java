@@ -20,6 +20,7 @@ import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.filter.FilterManager;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.AdminPeers;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.DebugMetrics;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.DebugSetEvmTimingSampleInterval;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.DebugStorageRangeAt;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.DebugTraceTransaction;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.EthAccounts;
@@ -208,7 +209,8 @@ public class JsonRpcMethodsFactory {
           new DebugTraceTransaction(
               blockchainQueries, new TransactionTracer(blockReplay), parameter),
           new DebugStorageRangeAt(parameter, blockchainQueries, blockReplay),
-          new DebugMetrics(metricsSystem));
+          new DebugMetrics(metricsSystem),
+          new DebugSetEvmTimingSampleInterval(parameter));
     }
     if (rpcApis.contains(RpcApis.NET)) {
       addMethods(
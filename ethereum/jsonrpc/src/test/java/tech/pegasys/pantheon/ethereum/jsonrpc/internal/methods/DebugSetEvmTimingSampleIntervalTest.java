@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.JsonRpcRequest;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.parameters.JsonRpcParameter;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcError;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcErrorResponse;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcResponse;
+import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcSuccessResponse;
+import tech.pegasys.pantheon.ethereum.vm.OperationProfiler;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class DebugSetEvmTimingSampleIntervalTest {
+
+  private final DebugSetEvmTimingSampleInterval method =
+      new DebugSetEvmTimingSampleInterval(new JsonRpcParameter());
+
+  @After
+  public void resetTimingSampleInterval() {
+    OperationProfiler.setTimingSampleInterval(OperationProfiler.DEFAULT_TIMING_SAMPLE_INTERVAL);
+  }
+
+  @Test
+  public void shouldHaveCorrectName() {
+    assertThat(method.getName()).isEqualTo("debug_setEvmTimingSampleInterval");
+  }
+
+  @Test
+  public void shouldSetTimingSampleInterval() {
+    final JsonRpcResponse response = method.response(request(64));
+
+    assertThat(response).isEqualToComparingFieldByField(new JsonRpcSuccessResponse(null, true));
+    assertThat(OperationProfiler.getTimingSampleInterval()).isEqualTo(64);
+  }
+
+  @Test
+  public void shouldDisableTimingWhenIntervalIsZero() {
+    method.response(request(0));
+
+    assertThat(OperationProfiler.getTimingSampleInterval()).isZero();
+  }
+
+  @Test
+  public void shouldRejectNegativeInterval() {
+    final JsonRpcResponse response = method.response(request(-1));
+
+    assertThat(response)
+        .isEqualToComparingFieldByField(
+            new JsonRpcErrorResponse(null, JsonRpcError.INVALID_PARAMS));
+    assertThat(OperationProfiler.getTimingSampleInterval())
+        .isEqualTo(OperationProfiler.DEFAULT_TIMING_SAMPLE_INTERVAL);
+  }
+
+  private static JsonRpcRequest request(final int interval) {
+    return new JsonRpcRequest("2.0", "debug_setEvmTimingSampleInterval", new Object[] {interval});
+  }
+}
@@ -39,6 +39,7 @@ class BranchNode<V> implements Node<V> {
   private final Function<V, BytesValue> valueSerializer;
   private WeakReference<BytesValue> rlp;
   private SoftReference<Bytes32> hash;
+  private BytesValue rlpRef;
   private boolean dirty = false;
 
   BranchNode(
@@ -103,12 +104,11 @@ class BranchNode<V> implements Node<V> {
 
   @Override
   public BytesValue getRlpRef() {
-    final BytesValue rlp = getRlp();
-    if (rlp.size() < 32) {
-      return rlp;
-    } else {
-      return RLP.encodeOne(getHash());
+    if (rlpRef == null) {
+      final BytesValue rlp = getRlp();
+      rlpRef = rlp.size() < 32 ? rlp : RLP.encodeOne(getHash());
     }
+    return rlpRef;
   }
 
   @Override
@@ -130,6 +130,9 @@ class BranchNode<V> implements Node<V> {
   }
 
   public Node<V> replaceChild(final byte index, final Node<V> updatedChild) {
+    if (children.get(index) == updatedChild) {
+      return this;
+    }
     final ArrayList<Node<V>> newChildren = new ArrayList<>(children);
     newChildren.set(index, updatedChild);
 
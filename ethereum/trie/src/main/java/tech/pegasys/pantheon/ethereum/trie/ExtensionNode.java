@@ -30,6 +30,7 @@ class ExtensionNode<V> implements Node<V> {
   private final NodeFactory<V> nodeFactory;
   private WeakReference<BytesValue> rlp;
   private SoftReference<Bytes32> hash;
+  private BytesValue rlpRef;
   private boolean dirty = false;
 
   ExtensionNode(final BytesValue path, final Node<V> child, final NodeFactory<V> nodeFactory) {
@@ -85,12 +86,11 @@ class ExtensionNode<V> implements Node<V> {
 
   @Override
   public BytesValue getRlpRef() {
-    final BytesValue rlp = getRlp();
-    if (rlp.size() < 32) {
-      return rlp;
-    } else {
-      return RLP.encodeOne(getHash());
+    if (rlpRef == null) {
+      final BytesValue rlp = getRlp();
+      rlpRef = rlp.size() < 32 ? rlp : RLP.encodeOne(getHash());
     }
+    return rlpRef;
   }
 
   @Override
@@ -108,6 +108,9 @@ class ExtensionNode<V> implements Node<V> {
   }
 
   public Node<V> replaceChild(final Node<V> updatedChild) {
+    if (updatedChild == child) {
+      return this;
+    }
     // collapse this extension - if the child is a branch, it will create a new extension
     return updatedChild.replacePath(BytesValues.concatenate(path, updatedChild.getPath()));
   }
@@ -31,6 +31,7 @@ class LeafNode<V> implements Node<V> {
   private final Function<V, BytesValue> valueSerializer;
   private WeakReference<BytesValue> rlp;
   private SoftReference<Bytes32> hash;
+  private BytesValue rlpRef;
   private boolean dirty = false;
 
   LeafNode(
@@ -85,12 +86,11 @@ class LeafNode<V> implements Node<V> {
 
   @Override
   public BytesValue getRlpRef() {
-    final BytesValue rlp = getRlp();
-    if (rlp.size() < 32) {
-      return rlp;
-    } else {
-      return RLP.encodeOne(getHash());
+    if (rlpRef == null) {
+      final BytesValue rlp = getRlp();
+      rlpRef = rlp.size() < 32 ? rlp : RLP.encodeOne(getHash());
     }
+    return rlpRef;
   }
 
   @Override
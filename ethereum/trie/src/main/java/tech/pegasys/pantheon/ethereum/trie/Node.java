@@ -29,6 +29,14 @@ interface Node<V> {
 
   BytesValue getRlp();
 
+  /**
+   * Returns how a parent refers to this node: the encoding itself when shorter than 32 bytes,
+   * otherwise the encoded hash. Implementations keep the reference even when the full encoding has
+   * been released, so re-encoding a parent after an update elsewhere in the trie never re-encodes
+   * an unchanged subtree.
+   *
+   * @return the reference to this node as embedded in its parent's encoding
+   */
   BytesValue getRlpRef();
 
   Bytes32 getHash();
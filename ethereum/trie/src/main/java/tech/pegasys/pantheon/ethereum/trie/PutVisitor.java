@@ -75,7 +75,10 @@ class PutVisitor<V> implements PathNodeVisitor<V> {
 
     // Check if the current leaf node should be replaced
     if (commonPathLength == leafPath.size() && commonPathLength == path.size()) {
-      return nodeFactory.createLeaf(leafPath, value);
+      // Keep the existing node, and so its parents, if the value is unchanged.
+      return value.equals(leafNode.getValue().orElse(null))
+          ? leafNode
+          : nodeFactory.createLeaf(leafPath, value);
     }
 
     assert commonPathLength < leafPath.size() && commonPathLength < path.size()
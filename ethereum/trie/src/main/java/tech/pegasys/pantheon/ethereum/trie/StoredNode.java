@@ -44,7 +44,9 @@ class StoredNode<V> implements Node<V> {
   @Override
   public Node<V> accept(final PathNodeVisitor<V> visitor, final BytesValue path) {
     final Node<V> node = load();
-    return node.accept(visitor, path);
+    final Node<V> result = node.accept(visitor, path);
+    // Keep referring to the stored node if the visitor left it unchanged.
+    return result == node ? this : result;
   }
 
   @Override
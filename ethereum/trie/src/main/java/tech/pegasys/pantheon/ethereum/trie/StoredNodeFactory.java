@@ -101,7 +101,7 @@ class StoredNodeFactory<V> implements NodeFactory<V> {
         .orElseThrow(() -> new MerkleStorageException("Missing value for hash " + hash));
   }
 
-  private Node<V> decode(final BytesValue rlp, final Supplier<String> errMessage)
+  Node<V> decode(final BytesValue rlp, final Supplier<String> errMessage)
       throws MerkleStorageException {
     try {
       return decode(RLP.input(rlp), errMessage);
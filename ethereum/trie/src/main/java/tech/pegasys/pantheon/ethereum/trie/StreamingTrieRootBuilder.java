@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static tech.pegasys.pantheon.crypto.Hash.keccak256;
+
+import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPOutput;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the root hash of a Merkle Patricia trie from entries supplied in increasing key order,
+ * without building the trie.
+ *
+ * <p>Only the branch nodes along the path of the last added key are kept, so memory use is bounded
+ * by the depth of the trie rather than by the number of entries. Each node is encoded exactly once,
+ * as soon as no later key can change it. Keys must be added in strictly increasing order and no key
+ * may be a prefix of another, which holds for the RLP-encoded indices of an ordered trie.
+ */
+public class StreamingTrieRootBuilder {
+
+  /** The number of values from which {@link #orderedTrieRoot} encodes values in parallel. */
+  static final int PARALLEL_ENCODING_THRESHOLD = 64;
+
+  private static final int RADIX = 16;
+
+  private final Deque<Branch> branches = new ArrayDeque<>();
+
+  private BytesValue previousPath;
+  // The subtrie below the deepest open branch that contains the previous key: either the leaf
+  // holding the previous value or a completed branch at pendingBranchDepth.
+  private BytesValue pendingValue;
+  private BytesValue pendingBranchRlp;
+  private int pendingBranchDepth;
+  private Bytes32 rootHash;
+
+  /**
+   * Computes the root of the trie mapping each index of {@code values} to the encoding of the value
+   * at that index, as used for the transactions and receipts roots of a block.
+   *
+   * <p>Large lists are encoded in parallel before being hashed.
+   *
+   * @param values the values of the trie, in index order
+   * @param encoder the function encoding a value as stored in the trie
+   * @param <V> the type of values
+   * @return the root hash of the trie
+   */
+  public static <V> Bytes32 orderedTrieRoot(
+      final List<V> values, final Function<V, BytesValue> encoder) {
+    final List<BytesValue> encoded =
+        values.size() >= PARALLEL_ENCODING_THRESHOLD
+            ? values.parallelStream().map(encoder).collect(Collectors.toList())
+            : values.stream().map(encoder).collect(Collectors.toList());
+
+    // Index keys are ordered 1..127, 0, 128.. as the RLP encoding of 0 is 0x80.
+    final StreamingTrieRootBuilder builder = new StreamingTrieRootBuilder();
+    for (int i = 1; i < Math.min(encoded.size(), 0x80); i++) {
+      builder.put(indexKey(i), encoded.get(i));
+    }
+    if (!encoded.isEmpty()) {
+      builder.put(indexKey(0), encoded.get(0));
+    }
+    for (int i = 0x80; i < encoded.size(); i++) {
+      builder.put(indexKey(i), encoded.get(i));
+    }
+    return builder.getRootHash();
+  }
+
+  private static BytesValue indexKey(final int index) {
+    return RLP.encodeOne(BytesValues.toMinimalBytes(index));
+  }
+
+  /**
+   * Adds an entry to the trie.
+   *
+   * @param key the key, greater than any key added before and not a prefix of any of them
+   * @param value the value
+   */
+  public void put(final BytesValue key, final BytesValue value) {
+    checkState(rootHash == null, "Root hash already computed");
+    final BytesValue path = CompactEncoding.bytesToPath(key);
+    if (previousPath == null) {
+      previousPath = path;
+      pendingValue = value;
+      return;
+    }
+
+    final int commonPrefix = commonPrefixLength(previousPath, path);
+    checkArgument(
+        commonPrefix < previousPath.size() - 1 && commonPrefix < path.size() - 1,
+        "Keys must not be prefixes of each other");
+    checkArgument(
+        previousPath.get(commonPrefix) < path.get(commonPrefix),
+        "Keys must be added in increasing order");
+
+    // Branches deeper than the point where the new key diverges can no longer change.
+    while (!branches.isEmpty() && branches.peek().depth > commonPrefix) {
+      closeBranch();
+    }
+    if (branches.isEmpty() || branches.peek().depth < commonPrefix) {
+      branches.push(new Branch(commonPrefix));
+    }
+    final Branch branch = branches.peek();
+    branch.children[previousPath.get(commonPrefix)] = rlpRef(pendingRlp(commonPrefix + 1));
+
+    previousPath = path;
+    pendingValue = value;
+    pendingBranchRlp = null;
+  }
+
+  /**
+   * Returns the root hash of the trie holding the entries added so far.
+   *
+   * <p>No entry may be added once the root hash has been computed.
+   *
+   * @return the root hash of the trie
+   */
+  public Bytes32 getRootHash() {
+    if (rootHash == null) {
+      while (!branches.isEmpty()) {
+        closeBranch();
+      }
+      rootHash =
+          previousPath == null ? MerklePatriciaTrie.EMPTY_TRIE_ROOT_HASH : keccak256(pendingRlp(0));
+    }
+    return rootHash;
+  }
+
+  private void closeBranch() {
+    final Branch branch = branches.pop();
+    branch.children[previousPath.get(branch.depth)] = rlpRef(pendingRlp(branch.depth + 1));
+    pendingValue = null;
+    pendingBranchRlp = branch.encode();
+    pendingBranchDepth = branch.depth;
+  }
+
+  private BytesValue pendingRlp(final int depth) {
+    final BytesValueRLPOutput out = new BytesValueRLPOutput();
+    if (pendingValue != null) {
+      out.startList();
+      out.writeBytesValue(CompactEncoding.encode(previousPath.slice(depth)));
+      out.writeBytesValue(pendingValue);
+      out.endList();
+    } else if (pendingBranchDepth == depth) {
+      return pendingBranchRlp;
+    } else {
+      out.startList();
+      out.writeBytesValue(
+          CompactEncoding.encode(previousPath.slice(depth, pendingBranchDepth - depth)));
+      out.writeRLPUnsafe(rlpRef(pendingBranchRlp));
+      out.endList();
+    }
+    return out.encoded();
+  }
+
+  private static BytesValue rlpRef(final BytesValue rlp) {
+    return rlp.size() < 32 ? rlp : RLP.encodeOne(keccak256(rlp));
+  }
+
+  private static int commonPrefixLength(final BytesValue a, final BytesValue b) {
+    final int size = Math.min(a.size(), b.size());
+    int i = 0;
+    while (i < size && a.get(i) == b.get(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  private static class Branch {
+    private final int depth;
+    private final BytesValue[] children = new BytesValue[RADIX];
+
+    private Branch(final int depth) {
+      this.depth = depth;
+      Arrays.fill(children, RLP.NULL);
+    }
+
+    private BytesValue encode() {
+      final BytesValueRLPOutput out = new BytesValueRLPOutput();
+      out.startList();
+      for (final BytesValue child : children) {
+        out.writeRLPUnsafe(child);
+      }
+      out.writeNull();
+      out.endList();
+      return out.encoded();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Decodes a single encoded trie node without access to the rest of the trie, as needed when trie
+ * nodes are received one by one from the network.
+ */
+public class TrieNodeDecoder {
+
+  private static final StoredNodeFactory<BytesValue> NODE_FACTORY =
+      new StoredNodeFactory<>(hash -> Optional.empty(), Function.identity(), Function.identity());
+
+  private TrieNodeDecoder() {}
+
+  /**
+   * Decodes a trie node and reports the nodes and values it references. Nodes small enough to be
+   * embedded in their parent are decoded as part of it, so only the hashes of the nodes stored
+   * separately are reported.
+   *
+   * @param nodeRlp the encoded trie node
+   * @param childHashConsumer receives the hash of each child node stored separately
+   * @param valueConsumer receives each value held by the node or its embedded children
+   * @throws MerkleStorageException if the node cannot be decoded
+   */
+  public static void decodeReferences(
+      final BytesValue nodeRlp,
+      final Consumer<Bytes32> childHashConsumer,
+      final Consumer<BytesValue> valueConsumer) {
+    final Node<BytesValue> node =
+        NODE_FACTORY.decode(nodeRlp, () -> "Invalid RLP value for trie node " + nodeRlp);
+    node.accept(new ReferenceCollector(childHashConsumer, valueConsumer));
+  }
+
+  private static class ReferenceCollector implements NodeVisitor<BytesValue> {
+    private final Consumer<Bytes32> childHashConsumer;
+    private final Consumer<BytesValue> valueConsumer;
+
+    private ReferenceCollector(
+        final Consumer<Bytes32> childHashConsumer, final Consumer<BytesValue> valueConsumer) {
+      this.childHashConsumer = childHashConsumer;
+      this.valueConsumer = valueConsumer;
+    }
+
+    @Override
+    public void visit(final ExtensionNode<BytesValue> extensionNode) {
+      visitChild(extensionNode.getChild());
+    }
+
+    @Override
+    public void visit(final BranchNode<BytesValue> branchNode) {
+      for (byte i = 0; i < BranchNode.RADIX; i++) {
+        visitChild(branchNode.child(i));
+      }
+      branchNode.getValue().ifPresent(valueConsumer);
+    }
+
+    @Override
+    public void visit(final LeafNode<BytesValue> leafNode) {
+      leafNode.getValue().ifPresent(valueConsumer);
+    }
+
+    @Override
+    public void visit(final NullNode<BytesValue> nullNode) {}
+
+    private void visitChild(final Node<BytesValue> child) {
+      if (child instanceof StoredNode) {
+        // Reading the hash of a stored node doesn't load it.
+        childHashConsumer.accept(child.getHash());
+      } else {
+        child.accept(this);
+      }
+    }
+  }
+}
@@ -21,6 +21,8 @@ import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -419,4 +421,37 @@ public class StoredMerklePatriciaTrieTest {
 
     newTrie.get(BytesValue.fromHexString("0x0401"));
   }
+
+  @Test
+  public void rewritingUnchangedValuesStoresNoNodes() {
+    for (int i = 0; i < 100; i++) {
+      trie.put(BytesValue.of(i, i), "value" + i);
+    }
+    trie.commit(merkleStorage::put);
+    final Bytes32 rootHash = trie.getRootHash();
+
+    for (int i = 0; i < 100; i++) {
+      trie.put(BytesValue.of(i, i), "value" + i);
+    }
+    final List<Bytes32> storedNodes = new ArrayList<>();
+    trie.commit((hash, value) -> storedNodes.add(hash));
+
+    assertThat(storedNodes).isEmpty();
+    assertThat(trie.getRootHash()).isEqualTo(rootHash);
+  }
+
+  @Test
+  public void intermediateRootHashesMatchTrieBuiltFromScratch() {
+    final SimpleMerklePatriciaTrie<BytesValue, String> expected =
+        new SimpleMerklePatriciaTrie<>(valueSerializer);
+    for (int i = 0; i < 200; i++) {
+      trie.put(BytesValue.of(i % 37, i % 11), "value" + i);
+      expected.put(BytesValue.of(i % 37, i % 11), "value" + i);
+      if (i % 3 == 0) {
+        trie.remove(BytesValue.of(i % 5, i % 7));
+        expected.remove(BytesValue.of(i % 5, i % 7));
+      }
+      assertThat(trie.getRootHash()).isEqualTo(expected.getRootHash());
+    }
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class StreamingTrieRootBuilderTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void emptyTrieHasEmptyRootHash() {
+    assertThat(new StreamingTrieRootBuilder().getRootHash())
+        .isEqualTo(MerklePatriciaTrie.EMPTY_TRIE_ROOT_HASH);
+    assertThat(StreamingTrieRootBuilder.orderedTrieRoot(new ArrayList<>(), Function.identity()))
+        .isEqualTo(MerklePatriciaTrie.EMPTY_TRIE_ROOT_HASH);
+  }
+
+  @Test
+  public void orderedTrieRootMatchesTrieWithIndexKeys() {
+    for (final int size : new int[] {1, 2, 3, 16, 127, 128, 129, 200, 256, 1000}) {
+      final List<BytesValue> values = new ArrayList<>();
+      final SimpleMerklePatriciaTrie<BytesValue, BytesValue> trie =
+          new SimpleMerklePatriciaTrie<>(Function.identity());
+      for (int i = 0; i < size; i++) {
+        final BytesValue value = randomBytes(1 + random.nextInt(100));
+        values.add(value);
+        trie.put(RLP.encodeOne(BytesValues.toMinimalBytes(i)), value);
+      }
+
+      assertThat(StreamingTrieRootBuilder.orderedTrieRoot(values, Function.identity()))
+          .describedAs("Root of %s values", size)
+          .isEqualTo(trie.getRootHash());
+    }
+  }
+
+  @Test
+  public void rootMatchesTrieForSortedKeys() {
+    for (final int keySize : new int[] {1, 2, 32}) {
+      final TreeMap<BytesValue, BytesValue> entries = new TreeMap<>();
+      for (int i = 0; i < 300; i++) {
+        entries.put(randomBytes(keySize), randomBytes(1 + random.nextInt(40)));
+      }
+      final SimpleMerklePatriciaTrie<BytesValue, BytesValue> trie =
+          new SimpleMerklePatriciaTrie<>(Function.identity());
+      final StreamingTrieRootBuilder builder = new StreamingTrieRootBuilder();
+      entries.forEach(
+          (key, value) -> {
+            trie.put(key, value);
+            builder.put(key, value);
+          });
+
+      assertThat(builder.getRootHash()).isEqualTo(trie.getRootHash());
+      assertThat(builder.getRootHash()).isEqualTo(trie.getRootHash());
+    }
+  }
+
+  @Test
+  public void rejectsKeysOutOfOrder() {
+    final StreamingTrieRootBuilder builder = new StreamingTrieRootBuilder();
+    builder.put(BytesValue.of(2), BytesValue.of(1));
+
+    assertThatThrownBy(() -> builder.put(BytesValue.of(1), BytesValue.of(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void rejectsKeysPrefixingEachOther() {
+    final StreamingTrieRootBuilder builder = new StreamingTrieRootBuilder();
+    builder.put(BytesValue.of(1), BytesValue.of(1));
+
+    assertThatThrownBy(() -> builder.put(BytesValue.of(1, 2), BytesValue.of(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private BytesValue randomBytes(final int size) {
+    final byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    return BytesValue.wrap(bytes);
+  }
+}
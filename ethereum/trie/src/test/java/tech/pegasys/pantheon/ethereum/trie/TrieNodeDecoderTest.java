@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class TrieNodeDecoderTest {
+
+  @Test
+  public void reportsAllNodesAndValuesOfStoredTrie() {
+    final KeyValueMerkleStorage storage = new KeyValueMerkleStorage(new InMemoryKeyValueStorage());
+    final StoredMerklePatriciaTrie<BytesValue, BytesValue> trie =
+        new StoredMerklePatriciaTrie<>(storage::get, Function.identity(), Function.identity());
+    final List<BytesValue> expectedValues = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final BytesValue value = BytesValue.of(i, i, i, i, i, i, i, i, i, i, i, i, i, i, i, i);
+      trie.put(Bytes32.leftPad(BytesValue.of(i)), value);
+      // Short values are embedded in their parent node.
+      final BytesValue shortValue = BytesValue.of(i);
+      trie.put(BytesValue.of(1, i), shortValue);
+      expectedValues.add(value);
+      expectedValues.add(shortValue);
+    }
+    trie.commit(storage::put);
+    storage.commit();
+
+    final List<BytesValue> values = new ArrayList<>();
+    final Deque<Bytes32> pending = new ArrayDeque<>();
+    pending.add(trie.getRootHash());
+    while (!pending.isEmpty()) {
+      final BytesValue nodeRlp = storage.get(pending.remove()).get();
+      TrieNodeDecoder.decodeReferences(nodeRlp, pending::add, values::add);
+    }
+
+    assertThat(values).containsExactlyInAnyOrderElementsOf(expectedValues);
+  }
+
+  @Test(expected = MerkleStorageException.class)
+  public void throwsOnInvalidNode() {
+    TrieNodeDecoder.decodeReferences(BytesValue.of(1, 2, 3), hash -> {}, value -> {});
+  }
+}
@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.cli;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static tech.pegasys.pantheon.cli.DefaultCommandValues.getDefaultPantheonDataDir;
+import static tech.pegasys.pantheon.controller.PantheonController.ETH_HASH_DATASET_PATH;
 
 import tech.pegasys.pantheon.Runner;
 import tech.pegasys.pantheon.RunnerBuilder;
@@ -27,6 +28,7 @@ import tech.pegasys.pantheon.controller.KeyPairUtil;
 import tech.pegasys.pantheon.controller.PantheonController;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
+import tech.pegasys.pantheon.ethereum.core.TransactionSenderCache;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
@@ -387,12 +389,39 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
   )
   private final Level logLevel = null;
 
+  @Option(
+    names = {"--parallel-transaction-execution-enabled"},
+    description =
+        "set if the transactions of imported blocks on Ethash networks should be executed "
+            + "optimistically in parallel (default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isParallelTransactionExecutionEnabled = false;
+
   @Option(
     names = {"--miner-enabled"},
     description = "set if node should perform mining (default: ${DEFAULT-VALUE})"
   )
   private final Boolean isMiningEnabled = false;
 
+  @Option(
+    names = {"--miner-full-dataset-enabled"},
+    description =
+        "set if EthHash mining should hash against the full dataset, which is generated under "
+            + "the data directory and takes several gigabytes, instead of the light cache "
+            + "(default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isMinerFullDatasetEnabled = false;
+
+  @Option(
+    names = {"--miner-threads"},
+    paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+    description =
+        "number of threads searching for a proof of work nonce when mining "
+            + "(default: ${DEFAULT-VALUE})",
+    arity = "1"
+  )
+  private final Integer minerThreads = 1;
+
   @Option(
     names = {"--miner-coinbase"},
     description =
@@ -504,12 +533,19 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
           "Unable to mine without a valid coinbase. Either disable mining (remove --miner-enabled)"
               + "or specify the beneficiary of mining (via --miner-coinbase <Address>)");
     }
+    //noinspection ConstantConditions
+    if (minerThreads < 1) {
+      throw new ParameterException(
+          new CommandLine(this), "Mining requires at least one thread (--miner-threads)");
+    }
     if (trueCount(ropsten, rinkeby, goerli) > 1) {
       throw new ParameterException(
           new CommandLine(this),
           "Unable to connect to multiple networks simultaneously. Specify one of --ropsten, --rinkeby or --goerli");
     }
 
+    TransactionSenderCache.registerMetrics(metricsSystem);
+
     final EthNetworkConfig ethNetworkConfig = ethNetworkConfig();
     PermissioningConfiguration permissioningConfiguration = permissioningConfiguration();
     ensureAllBootnodesAreInWhitelist(ethNetworkConfig, permissioningConfiguration);
@@ -561,10 +597,18 @@ public class PantheonCommand implements DefaultCommandValues, Runnable {
           .ethNetworkConfig(ethNetworkConfig())
           .syncWithOttoman(syncWithOttoman)
           .miningParameters(
-              new MiningParameters(coinbase, minTransactionGasPrice, extraData, isMiningEnabled))
+              new MiningParameters(
+                  coinbase,
+                  minTransactionGasPrice,
+                  extraData,
+                  isMiningEnabled,
+                  minerThreads,
+                  isMinerFullDatasetEnabled ? dataDir().resolve(ETH_HASH_DATASET_PATH) : null,
+                  dataDir().resolve(ETH_HASH_DATASET_PATH)))
           .devMode(isDevMode)
           .nodePrivateKeyFile(getNodePrivateKeyFile())
           .metricsSystem(metricsSystem)
+          .parallelTransactionExecution(isParallelTransactionExecutionEnabled)
           .build();
     } catch (final InvalidConfigurationException e) {
       throw new ExecutionException(new CommandLine(this), e.getMessage());
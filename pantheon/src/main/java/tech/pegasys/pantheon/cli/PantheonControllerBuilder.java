@@ -40,6 +40,7 @@ public class PantheonControllerBuilder {
   private boolean devMode;
   private File nodePrivateKeyFile;
   private MetricsSystem metricsSystem;
+  private boolean parallelTransactionExecution;
 
   public PantheonControllerBuilder synchronizerConfiguration(
       final SynchronizerConfiguration synchronizerConfiguration) {
@@ -82,6 +83,12 @@ public class PantheonControllerBuilder {
     return this;
   }
 
+  public PantheonControllerBuilder parallelTransactionExecution(
+      final boolean parallelTransactionExecution) {
+    this.parallelTransactionExecution = parallelTransactionExecution;
+    return this;
+  }
+
   public PantheonController<?> build() throws IOException {
     // instantiate a controller with mainnet config if no genesis file is defined
     // otherwise use the indicated genesis file
@@ -94,7 +101,8 @@ public class PantheonControllerBuilder {
       return MainnetPantheonController.init(
           storageProvider,
           genesisConfig,
-          DevelopmentProtocolSchedule.create(genesisConfig.getConfigOptions(), metricsSystem),
+          DevelopmentProtocolSchedule.create(
+              genesisConfig.getConfigOptions(), metricsSystem, parallelTransactionExecution),
           synchronizerConfiguration,
           miningParameters,
           nodeKeys,
@@ -110,7 +118,8 @@ public class PantheonControllerBuilder {
           ethNetworkConfig.getNetworkId(),
           miningParameters,
           nodeKeys,
-          metricsSystem);
+          metricsSystem,
+          parallelTransactionExecution);
     }
   }
 }
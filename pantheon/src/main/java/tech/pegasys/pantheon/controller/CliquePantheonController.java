@@ -146,10 +146,12 @@ public class CliquePantheonController implements PantheonController<CliqueContex
     final EthProtocolManager ethProtocolManager =
         new EthProtocolManager(
             protocolContext.getBlockchain(),
+            protocolContext.getWorldStateArchive(),
             networkId,
             fastSyncEnabled,
             syncConfig.downloaderParallelism(),
-            syncConfig.transactionsParallelism());
+            syncConfig.transactionsParallelism(),
+            metricsSystem);
     final SyncState syncState =
         new SyncState(
             protocolContext.getBlockchain(), ethProtocolManager.ethContext().getEthPeers());
@@ -158,8 +160,11 @@ public class CliquePantheonController implements PantheonController<CliqueContex
             syncConfig,
             protocolSchedule,
             protocolContext,
+            worldStateStorage,
+            storageProvider.createFastSyncStorage(),
             ethProtocolManager.ethContext(),
             syncState,
+            metricsSystem,
             metricsSystem.createLabelledTimer(
                 MetricCategory.SYNCHRONIZER, "task", "Internal processing tasks", "taskName"));
 
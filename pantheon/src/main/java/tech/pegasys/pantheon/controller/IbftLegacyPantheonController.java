@@ -143,19 +143,23 @@ public class IbftLegacyPantheonController implements PantheonController<IbftCont
       ethProtocolManager =
           new Istanbul64ProtocolManager(
               protocolContext.getBlockchain(),
+              protocolContext.getWorldStateArchive(),
               networkId,
               fastSyncEnabled,
               syncConfig.downloaderParallelism(),
-              syncConfig.transactionsParallelism());
+              syncConfig.transactionsParallelism(),
+              metricsSystem);
     } else {
       ethSubProtocol = EthProtocol.get();
       ethProtocolManager =
           new EthProtocolManager(
               protocolContext.getBlockchain(),
+              protocolContext.getWorldStateArchive(),
               networkId,
               fastSyncEnabled,
               syncConfig.downloaderParallelism(),
-              syncConfig.transactionsParallelism());
+              syncConfig.transactionsParallelism(),
+              metricsSystem);
     }
 
     final SyncState syncState =
@@ -166,8 +170,11 @@ public class IbftLegacyPantheonController implements PantheonController<IbftCont
             syncConfig,
             protocolSchedule,
             protocolContext,
+            worldStateStorage,
+            storageProvider.createFastSyncStorage(),
             ethProtocolManager.ethContext(),
             syncState,
+            metricsSystem,
             metricsSystem.createLabelledTimer(
                 MetricCategory.SYNCHRONIZER, "task", "Internal processing tasks", "taskName"));
 
@@ -163,10 +163,12 @@ public class IbftPantheonController implements PantheonController<IbftContext> {
     final EthProtocolManager ethProtocolManager =
         new EthProtocolManager(
             protocolContext.getBlockchain(),
+            protocolContext.getWorldStateArchive(),
             networkId,
             fastSyncEnabled,
             syncConfig.downloaderParallelism(),
-            syncConfig.transactionsParallelism());
+            syncConfig.transactionsParallelism(),
+            metricsSystem);
     final SubProtocol ethSubProtocol = EthProtocol.get();
 
     final SyncState syncState =
@@ -177,8 +179,11 @@ public class IbftPantheonController implements PantheonController<IbftContext> {
             syncConfig,
             protocolSchedule,
             protocolContext,
+            worldStateStorage,
+            storageProvider.createFastSyncStorage(),
             ethProtocolManager.ethContext(),
             syncState,
+            metricsSystem,
             metricsSystem.createLabelledTimer(
                 MetricCategory.SYNCHRONIZER, "task", "Internal processing tasks", "taskName"));
 
@@ -35,12 +35,14 @@ import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
 import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolFactory;
+import tech.pegasys.pantheon.ethereum.mainnet.EthHasher;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHeaderValidator;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.api.ProtocolManager;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.storage.StorageProvider;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
 import tech.pegasys.pantheon.metrics.MetricCategory;
 import tech.pegasys.pantheon.metrics.MetricsSystem;
 
@@ -101,8 +103,8 @@ public class MainnetPantheonController implements PantheonController<Void> {
     final MutableBlockchain blockchain =
         new DefaultMutableBlockchain(genesisState.getBlock(), blockchainStorage, metricsSystem);
 
-    final WorldStateArchive worldStateArchive =
-        new WorldStateArchive(storageProvider.createWorldStateStorage());
+    final WorldStateStorage worldStateStorage = storageProvider.createWorldStateStorage();
+    final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
     genesisState.writeStateTo(worldStateArchive.getMutable(Hash.EMPTY_TRIE_HASH));
 
     final ProtocolContext<Void> protocolContext =
@@ -113,13 +115,15 @@ public class MainnetPantheonController implements PantheonController<Void> {
     final EthProtocolManager ethProtocolManager =
         new EthProtocolManager(
             protocolContext.getBlockchain(),
+            protocolContext.getWorldStateArchive(),
             genesisConfig
                 .getConfigOptions()
                 .getChainId()
                 .orElse(MainnetProtocolSchedule.DEFAULT_CHAIN_ID),
             fastSyncEnabled,
             syncConfig.downloaderParallelism(),
-            syncConfig.transactionsParallelism());
+            syncConfig.transactionsParallelism(),
+            metricsSystem);
     final SyncState syncState =
         new SyncState(
             protocolContext.getBlockchain(), ethProtocolManager.ethContext().getEthPeers());
@@ -128,8 +132,11 @@ public class MainnetPantheonController implements PantheonController<Void> {
             syncConfig,
             protocolSchedule,
             protocolContext,
+            worldStateStorage,
+            storageProvider.createFastSyncStorage(),
             ethProtocolManager.ethContext(),
             syncState,
+            metricsSystem,
             metricsSystem.createLabelledTimer(
                 MetricCategory.SYNCHRONIZER, "task", "Internal processing tasks", "taskName"));
 
@@ -138,6 +145,11 @@ public class MainnetPantheonController implements PantheonController<Void> {
             protocolSchedule, protocolContext, ethProtocolManager.ethContext());
 
     final ExecutorService minerThreadPool = Executors.newCachedThreadPool();
+    final EthHasher ethHasher =
+        miningParams
+            .getEthHashDatasetDirectory()
+            .<EthHasher>map(EthHasher.Full::new)
+            .orElseGet(EthHasher.Light::new);
     final EthHashMinerExecutor executor =
         new EthHashMinerExecutor(
             protocolContext,
@@ -148,7 +160,8 @@ public class MainnetPantheonController implements PantheonController<Void> {
             new DefaultBlockScheduler(
                 MainnetBlockHeaderValidator.MINIMUM_SECONDS_SINCE_PARENT,
                 MainnetBlockHeaderValidator.TIMESTAMP_TOLERANCE_S,
-                Clock.systemUTC()));
+                Clock.systemUTC()),
+            ethHasher);
 
     final EthHashMiningCoordinator miningCoordinator =
         new EthHashMiningCoordinator(protocolContext.getBlockchain(), executor, syncState);
@@ -173,6 +186,9 @@ public class MainnetPantheonController implements PantheonController<Void> {
           } catch (final InterruptedException e) {
             LOG.error("Failed to shutdown miner executor");
           }
+          if (ethHasher instanceof EthHasher.Full) {
+            ((EthHasher.Full) ethHasher).close();
+          }
           try {
             storageProvider.close();
           } catch (final IOException e) {
@@ -25,6 +25,8 @@ import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApi;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.methods.JsonRpcMethod;
+import tech.pegasys.pantheon.ethereum.mainnet.EthHashCacheFactory;
+import tech.pegasys.pantheon.ethereum.mainnet.EthHasher;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
@@ -38,6 +40,7 @@ import java.util.Map;
 public interface PantheonController<C> extends Closeable {
 
   String DATABASE_PATH = "database";
+  String ETH_HASH_DATASET_PATH = "ethhash";
 
   static PantheonController<?> fromConfig(
       final GenesisConfigFile genesisConfigFile,
@@ -47,7 +50,8 @@ public interface PantheonController<C> extends Closeable {
       final int networkId,
       final MiningParameters miningParameters,
       final KeyPair nodeKeys,
-      final MetricsSystem metricsSystem) {
+      final MetricsSystem metricsSystem,
+      final boolean parallelTransactionExecution) {
 
     final GenesisConfigOptions configOptions = genesisConfigFile.getConfigOptions();
 
@@ -55,7 +59,12 @@ public interface PantheonController<C> extends Closeable {
       return MainnetPantheonController.init(
           storageProvider,
           genesisConfigFile,
-          MainnetProtocolSchedule.fromConfig(configOptions, metricsSystem),
+          MainnetProtocolSchedule.fromConfig(
+              configOptions,
+              metricsSystem,
+              new EthHasher.Light(
+                  new EthHashCacheFactory(miningParameters.getEthHashCacheDirectory())),
+              parallelTransactionExecution),
           syncConfig,
           miningParameters,
           nodeKeys,
@@ -91,6 +91,8 @@ public abstract class CommandTestAbstract {
     when(mockControllerBuilder.devMode(anyBoolean())).thenReturn(mockControllerBuilder);
     when(mockControllerBuilder.nodePrivateKeyFile(any())).thenReturn(mockControllerBuilder);
     when(mockControllerBuilder.metricsSystem(any())).thenReturn(mockControllerBuilder);
+    when(mockControllerBuilder.parallelTransactionExecution(anyBoolean()))
+        .thenReturn(mockControllerBuilder);
 
     when(mockSyncConfBuilder.build()).thenReturn(mockSyncConf);
   }
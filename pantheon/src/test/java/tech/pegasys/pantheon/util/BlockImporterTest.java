@@ -55,7 +55,8 @@ public final class BlockImporterTest {
             1,
             new MiningParametersTestBuilder().enabled(false).build(),
             KeyPair.generate(),
-            new NoOpMetricsSystem());
+            new NoOpMetricsSystem(),
+            false);
     final BlockImporter.ImportResult result =
         blockImporter.importBlockchain(source, targetController);
     assertThat(result.count).isEqualTo(1000);
@@ -87,7 +88,8 @@ public final class BlockImporterTest {
             10,
             new MiningParametersTestBuilder().enabled(false).build(),
             KeyPair.generate(),
-            new NoOpMetricsSystem());
+            new NoOpMetricsSystem(),
+            false);
     final BlockImporter.ImportResult result = blockImporter.importBlockchain(source, controller);
 
     assertThat(result.count).isEqualTo(959);
@@ -17,6 +17,8 @@ import static com.google.common.base.Preconditions.checkState;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -30,6 +32,21 @@ public interface KeyValueStorage extends Closeable {
    */
   Optional<BytesValue> get(BytesValue key) throws StorageException;
 
+  /**
+   * Looks up several keys at once. Implementations backed by a persistent store should override
+   * this to read all the values in a single call.
+   *
+   * @param keys Indices into persistent data repository.
+   * @return The value persisted at each key index, in the same order as the keys.
+   */
+  default List<Optional<BytesValue>> getAll(final List<BytesValue> keys) throws StorageException {
+    final List<Optional<BytesValue>> values = new ArrayList<>(keys.size());
+    for (final BytesValue key : keys) {
+      values.add(get(key));
+    }
+    return values;
+  }
+
   /**
    * Begins a transaction. Returns a transaction object that can be updated and committed.
    *
@@ -22,11 +22,14 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 import java.io.Closeable;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -117,6 +120,24 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
     }
   }
 
+  @Override
+  public List<Optional<BytesValue>> getAll(final List<BytesValue> keys) throws StorageException {
+    throwIfClosed();
+
+    final List<byte[]> keyArrays =
+        keys.stream().map(BytesValue::extractArray).collect(Collectors.toList());
+    try (final OperationTimer.TimingContext ignored = readLatency.startTimer()) {
+      // The values are keyed by the very arrays that were passed in, and missing keys are omitted.
+      final Map<byte[], byte[]> values = db.multiGet(keyArrays);
+      return keyArrays
+          .stream()
+          .map(key -> Optional.ofNullable(values.get(key)).map(BytesValue::wrap))
+          .collect(Collectors.toList());
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
   @Override
   public Transaction startTransaction() throws StorageException {
     throwIfClosed();
@@ -66,6 +66,28 @@ public abstract class AbstractKeyValueStorageTest {
         Optional.of(BytesValue.fromHexString("0DEF")), store.get(BytesValue.fromHexString("0F")));
   }
 
+  @Test
+  public void getAll() throws Exception {
+    final KeyValueStorage store = createStore();
+    final Transaction tx = store.startTransaction();
+    tx.put(BytesValue.fromHexString("0F"), BytesValue.fromHexString("0ABC"));
+    tx.put(BytesValue.fromHexString("10"), BytesValue.fromHexString("0DEF"));
+    tx.commit();
+
+    assertEquals(
+        Arrays.asList(
+            Optional.of(BytesValue.fromHexString("0DEF")),
+            Optional.empty(),
+            Optional.of(BytesValue.fromHexString("0ABC")),
+            Optional.of(BytesValue.fromHexString("0DEF"))),
+        store.getAll(
+            Arrays.asList(
+                BytesValue.fromHexString("10"),
+                BytesValue.fromHexString("11"),
+                BytesValue.fromHexString("0F"),
+                BytesValue.fromHexString("10"))));
+  }
+
   @Test
   public void removeExisting() throws Exception {
     final KeyValueStorage store = createStore();